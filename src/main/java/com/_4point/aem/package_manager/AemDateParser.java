@@ -0,0 +1,227 @@
+package com._4point.aem.package_manager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Parser for the dates returned by Package Manager's list command.
+ *
+ * AEM formats dates using the server's locale, so they look like "Mon., 25 Feb. 2019 15:45:19 -0500" on some servers and
+ * "Mon, 25 Feb 2019 15:45:19 -0500" on others.  Empty dates are returned as "" or "null".
+ *
+ * This parser walks the string directly rather than using a DateTimeFormatter, so that it tolerates the locale differences
+ * in punctuation and only allocates the resulting Instant.  The day of the week is ignored and only the first three letters
+ * of the month are used (English month names only).
+ *
+ * Dates in either of AEM's usual styles can also be rebuilt from their Instant and a small style code (see styleOf() and
+ * format()), so callers that keep many dates do not need to keep the strings.
+ */
+final class AemDateParser {
+	private static final String[] MONTHS = { "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec" };
+	private static final String[] MONTH_NAMES = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+	private static final String[] DAY_NAMES = { "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun" };
+	private static final int MAX_OFFSET_MINUTES = 18 * 60;
+
+	private AemDateParser() {
+	}
+
+	/**
+	 * Parses a date returned by AEM.
+	 *
+	 * @param date date string
+	 * @return Instant represented by the date or empty if AEM did not provide a date.
+	 * @throws IllegalArgumentException if the date is not in a recognized format.
+	 */
+	static Optional<Instant> parse(String date) {
+		if (date == null || date.isBlank() || date.equals("null")) {
+			return Optional.empty();
+		}
+		return Optional.of(Instant.ofEpochSecond(parseEpochSecond(date)));
+	}
+
+	/**
+	 * Determines the style code needed to rebuild a date with format().
+	 *
+	 * @param date date string returned by AEM
+	 * @param instant Instant that the date was parsed into
+	 * @return a non-negative style code, or empty if format() would not reproduce the string exactly
+	 */
+	static OptionalInt styleOf(String date, Instant instant) {
+		int length = date.length();
+		if (length < 5 || (date.charAt(length - 5) != '+' && date.charAt(length - 5) != '-')) {
+			return OptionalInt.empty();
+		}
+		int offsetMinutes;
+		try {
+			offsetMinutes = Integer.parseInt(date, length - 4, length - 2, 10) * 60 + Integer.parseInt(date, length - 2, length, 10);
+		} catch (NumberFormatException e) {
+			return OptionalInt.empty();
+		}
+		if (offsetMinutes > MAX_OFFSET_MINUTES) {
+			return OptionalInt.empty();
+		}
+		offsetMinutes = date.charAt(length - 5) == '-' ? -offsetMinutes : offsetMinutes;
+		for (int punctuated = 0; punctuated <= 1; punctuated++) {
+			int style = (offsetMinutes + MAX_OFFSET_MINUTES) * 2 + punctuated;
+			if (format(instant, style).equals(date)) {
+				return OptionalInt.of(style);
+			}
+		}
+		return OptionalInt.empty();
+	}
+
+	/**
+	 * Formats a date the way AEM does, e.g. "Mon., 25 Feb. 2019 15:45:19 -0500" or "Mon, 25 Feb 2019 15:45:19 -0500".
+	 *
+	 * @param instant date (whole seconds)
+	 * @param style style code returned by styleOf(), which holds the punctuation and the UTC offset
+	 * @return date string
+	 */
+	static String format(Instant instant, int style) {
+		boolean punctuated = (style & 1) == 1;
+		int offsetMinutes = (style >> 1) - MAX_OFFSET_MINUTES;
+		LocalDateTime local = LocalDateTime.ofEpochSecond(instant.getEpochSecond(), 0, ZoneOffset.ofTotalSeconds(offsetMinutes * 60));
+		int month = local.getMonthValue();
+		StringBuilder date = new StringBuilder(34);
+		date.append(DAY_NAMES[local.getDayOfWeek().ordinal()]).append(punctuated ? "., " : ", ")
+			.append(local.getDayOfMonth()).append(' ')
+			.append(MONTH_NAMES[month - 1]).append(punctuated && month != 5 ? ". " : " ")	// "May" is not abbreviated.
+			.append(local.getYear()).append(' ');
+		appendTwoDigits(date, local.getHour()).append(':');
+		appendTwoDigits(date, local.getMinute()).append(':');
+		appendTwoDigits(date, local.getSecond()).append(' ').append(offsetMinutes < 0 ? '-' : '+');
+		appendTwoDigits(date, Math.abs(offsetMinutes) / 60);
+		return appendTwoDigits(date, Math.abs(offsetMinutes) % 60).toString();
+	}
+
+	private static StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+		return builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+	}
+
+	private static long parseEpochSecond(String date) {
+		Cursor cursor = new Cursor(date);
+		cursor.skipUntilDigit();	// Skip over the day of the week.
+		int day = cursor.readNumber(1, 2);
+		cursor.skipSeparators();
+		int month = cursor.readMonth();
+		cursor.skipSeparators();
+		int year = cursor.readNumber(4, 4);
+		cursor.skipSeparators();
+		int hour = cursor.readNumber(1, 2);
+		cursor.expect(':');
+		int minute = cursor.readNumber(2, 2);
+		cursor.expect(':');
+		int second = cursor.readNumber(2, 2);
+		cursor.skipSeparators();
+		int offsetSeconds = cursor.readOffset();
+		cursor.expectEnd();
+
+		if (day < 1 || day > 31 || hour > 23 || minute > 59 || second > 59) {
+			throw new IllegalArgumentException("Invalid date returned from AEM (" + date + ").");
+		}
+		return daysFromCivil(year, month, day) * 86400L + hour * 3600L + minute * 60L + second - offsetSeconds;
+	}
+
+	// Number of days since 1970-01-01 for a date in the proleptic Gregorian calendar.
+	// See http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+	private static long daysFromCivil(int year, int month, int day) {
+		int y = month <= 2 ? year - 1 : year;
+		int era = Math.floorDiv(y, 400);
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468L;
+	}
+
+	private static final class Cursor {
+		private final String date;
+		private int pos = 0;
+
+		private Cursor(String date) {
+			this.date = date;
+		}
+
+		private void skipUntilDigit() {
+			while (pos < date.length() && !Character.isDigit(date.charAt(pos))) {
+				pos++;
+			}
+		}
+
+		private void skipSeparators() {
+			while (pos < date.length() && (date.charAt(pos) == ' ' || date.charAt(pos) == ',' || date.charAt(pos) == '.')) {
+				pos++;
+			}
+		}
+
+		private int readNumber(int minDigits, int maxDigits) {
+			int start = pos;
+			int value = 0;
+			while (pos < date.length() && pos - start < maxDigits && Character.isDigit(date.charAt(pos))) {
+				value = value * 10 + (date.charAt(pos++) - '0');
+			}
+			if (pos - start < minDigits) {
+				throw invalid();
+			}
+			return value;
+		}
+
+		private int readMonth() {
+			int start = pos;
+			while (pos < date.length() && Character.isLetter(date.charAt(pos))) {
+				pos++;
+			}
+			if (pos - start >= 3) {
+				for (int i = 0; i < MONTHS.length; i++) {
+					if (date.regionMatches(true, start, MONTHS[i], 0, 3)) {
+						return i + 1;
+					}
+				}
+			}
+			throw invalid();
+		}
+
+		// Reads +HHMM, -HHMM, +HH:MM, Z, GMT or UTC.  Returns the offset in seconds.
+		private int readOffset() {
+			if (date.startsWith("Z", pos)) {
+				pos += 1;
+				return 0;
+			}
+			if (date.startsWith("GMT", pos) || date.startsWith("UTC", pos)) {
+				pos += 3;
+				return 0;
+			}
+			if (pos >= date.length() || (date.charAt(pos) != '+' && date.charAt(pos) != '-')) {
+				throw invalid();
+			}
+			int sign = date.charAt(pos++) == '-' ? -1 : 1;
+			int hours = readNumber(2, 2);
+			if (pos < date.length() && date.charAt(pos) == ':') {
+				pos++;
+			}
+			int minutes = readNumber(2, 2);
+			return sign * (hours * 3600 + minutes * 60);
+		}
+
+		private void expect(char c) {
+			if (pos >= date.length() || date.charAt(pos) != c) {
+				throw invalid();
+			}
+			pos++;
+		}
+
+		private void expectEnd() {
+			while (pos < date.length()) {
+				if (!Character.isWhitespace(date.charAt(pos++))) {
+					throw invalid();
+				}
+			}
+		}
+
+		private IllegalArgumentException invalid() {
+			return new IllegalArgumentException("Unrecognized date format returned from AEM (" + date + ").");
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com._4point.aem.package_manager;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com._4point.aem.package_manager.rest_client.RestClient.Response;
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+
+/**
+ * Helpers used by the clients to implement their asynchronous (CompletableFuture) methods.
+ */
+final class AsyncCalls {
+	/**
+	 * Runs each task on a new virtual thread.  Used when the client builder is not given an executor.
+	 */
+	static final Executor DEFAULT_EXECUTOR = task->Thread.ofVirtual().name("aem-client-async").start(task);
+
+	private AsyncCalls() {
+	}
+
+	/**
+	 * Decodes a response from AEM.
+	 *
+	 * @param <T> decoded type
+	 */
+	@FunctionalInterface
+	interface ResponseDecoder<T> {
+		T decode(Optional<Response> response) throws RestClientException, IOException;
+	}
+
+	/**
+	 * Makes a request and decodes the response on the executor once it arrives, retrying according to the retry policy.
+	 *
+	 * If the request fails (after any retries) or the response cannot be decoded, the returned future completes
+	 * exceptionally with the exception created by onFailure (which is passed the underlying exception).
+	 *
+	 * @param <T> decoded type
+	 * @param retryPolicy policy used to retry failed requests
+	 * @param operation operation being performed
+	 * @param logger logger for retry messages
+	 * @param request makes the request (called once for each attempt)
+	 * @param decoder decodes the response
+	 * @param onFailure creates the client's exception for a failure
+	 * @param executor executor used to decode the response
+	 * @return future decoded response
+	 */
+	static <T> CompletableFuture<T> call(RetryPolicy retryPolicy, RetryPolicy.Operation operation, Logger logger, Supplier<CompletableFuture<Optional<Response>>> request, 
+										 ResponseDecoder<T> decoder, Function<Exception, ? extends RuntimeException> onFailure, Executor executor) {
+		return retryPolicy.callAsync(operation, logger, ()->decode(request.get(), decoder, executor), executor)
+						  .handle((result, throwable)->{
+							  if (throwable != null) {
+								  throw new CompletionException(onFailure.apply(unwrap(throwable)));
+							  }
+							  return result;
+						  });
+	}
+
+	// Failures (from the request or the decoder) are left unwrapped so that the retry policy can see them.
+	private static <T> CompletableFuture<T> decode(CompletableFuture<Optional<Response>> request, ResponseDecoder<T> decoder, Executor executor) {
+		return request.thenApplyAsync(response->{
+			try {
+				return decoder.decode(response);
+			} catch (RestClientException | IOException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	// Returns the exception that caused a future to complete exceptionally.  Errors are rethrown, and any other Throwable
+	// (which a future can be completed with, but a client cannot throw) is wrapped in a RestClientException.
+	private static Exception unwrap(Throwable throwable) {
+		Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+		if (cause instanceof Exception e) {
+			return e;
+		}
+		if (cause instanceof Error e) {
+			throw e;
+		}
+		return new RestClientException(cause);
+	}
+}
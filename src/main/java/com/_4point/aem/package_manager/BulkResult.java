@@ -0,0 +1,70 @@
+package com._4point.aem.package_manager;
+
+import java.util.List;
+import java.util.Optional;
+
+import com._4point.aem.package_manager.ListResponse.Package;
+import com._4point.aem.package_manager.PackageManagerClient.PackageManagerException;
+
+/**
+ * Result of an operation that was performed on many packages.
+ *
+ * A failure on one package does not stop the operation from being performed on the others, so the outcome for each
+ * package is recorded.
+ *
+ * @param outcomes outcome for each package (in the order the packages were listed by AEM)
+ */
+public record BulkResult(List<Outcome> outcomes) {
+
+	/**
+	 * Outcome of the operation on a single package.
+	 *
+	 * @param pkg package the operation was performed on
+	 * @param error the exception that caused the operation to fail (empty if it succeeded)
+	 */
+	public record Outcome(Package pkg, Optional<PackageManagerException> error) {
+		static Outcome success(Package pkg) {
+			return new Outcome(pkg, Optional.empty());
+		}
+
+		static Outcome failure(Package pkg, PackageManagerException error) {
+			return new Outcome(pkg, Optional.of(error));
+		}
+
+		/**
+		 * Indicates whether the operation succeeded on this package.
+		 *
+		 * @return true if it succeeded
+		 */
+		public boolean succeeded() {
+			return error.isEmpty();
+		}
+	}
+
+	/**
+	 * Indicates whether the operation succeeded on every package.
+	 *
+	 * @return true if there were no failures
+	 */
+	public boolean allSucceeded() {
+		return outcomes.stream().allMatch(Outcome::succeeded);
+	}
+
+	/**
+	 * Packages that the operation succeeded on.
+	 *
+	 * @return packages
+	 */
+	public List<Package> succeeded() {
+		return outcomes.stream().filter(Outcome::succeeded).map(Outcome::pkg).toList();
+	}
+
+	/**
+	 * Outcomes for the packages that the operation failed on.
+	 *
+	 * @return failed outcomes
+	 */
+	public List<Outcome> failed() {
+		return outcomes.stream().filter(o->!o.succeeded()).toList();
+	}
+}
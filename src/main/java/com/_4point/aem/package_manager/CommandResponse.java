@@ -1,6 +1,9 @@
 package com._4point.aem.package_manager;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Command Response from AEM.
@@ -14,9 +17,24 @@ import java.util.Optional;
  */
 public record CommandResponse(boolean success, String msg, Optional<String> path) {
 	public static CommandResponse from(JsonData jsonData) {
-		return new CommandResponse(Boolean.parseBoolean(jsonData.at("/success").orElseThrow()),
-								   jsonData.at("/msg").orElseThrow(),
-								   jsonData.at("/path")
+		return from(jsonData::at);
+	}
+
+	/**
+	 * Decodes a command response directly from the JSON returned by AEM.
+	 * 
+	 * @param jsonStream JSON returned by AEM
+	 * @return command response
+	 * @throws IOException if the stream cannot be read or does not contain valid JSON
+	 */
+	public static CommandResponse from(InputStream jsonStream) throws IOException {
+		return from(JsonFields.read(jsonStream)::at);
+	}
+
+	private static CommandResponse from(Function<String, Optional<String>> json) {
+		return new CommandResponse(Boolean.parseBoolean(json.apply("/success").orElseThrow()),
+								   json.apply("/msg").orElseThrow(),
+								   json.apply("/path")
 								   );
 	}
 }
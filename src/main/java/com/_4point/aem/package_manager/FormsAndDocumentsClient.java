@@ -1,19 +1,27 @@
 package com._4point.aem.package_manager;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import com._4point.aem.package_manager.AemConfig.SimpleAemConfigBuilder;
 import com._4point.aem.package_manager.FormsAndDocumentsClient.PreviewResponse.PreviewSuccess;
 import com._4point.aem.package_manager.rest_client.RestClient;
 import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
+import com._4point.aem.package_manager.rest_client.RestClient.MultipartPayload;
 import com._4point.aem.package_manager.rest_client.RestClient.Response;
 import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com._4point.aem.package_manager.rest_client.RestClientFactory;
+import com._4point.aem.package_manager.rest_client.jersey.JerseyConnectionPool;
 import com._4point.aem.package_manager.rest_client.jersey.JerseyRestClient;
 
 /**
@@ -25,13 +33,17 @@ import com._4point.aem.package_manager.rest_client.jersey.JerseyRestClient;
  */
 public class FormsAndDocumentsClient {
 	private final RestClient contentManagerClient;
-	private final JerseyRestClient formsAndDocumentsClient;
+	private final RestClient formsAndDocumentsClient;
 	private final Logger logger;
+	private final Executor asyncExecutor;
+	private final RetryPolicy retryPolicy;
 	
-	private FormsAndDocumentsClient(AemConfig aemConfig, Logger logger) {
-		this.contentManagerClient = new JerseyRestClient(aemConfig, "/libs/fd/fm/content/manage.json"); // ?func=deleteAssets
-		this.formsAndDocumentsClient = new JerseyRestClient(aemConfig, "/content/dam/formsanddocuments");
+	private FormsAndDocumentsClient(AemConfig aemConfig, Logger logger, RestClientFactory restClientFactory, Executor asyncExecutor, RetryPolicy retryPolicy) {
+		this.contentManagerClient = restClientFactory.restClient(aemConfig, "/libs/fd/fm/content/manage.json"); // ?func=deleteAssets
+		this.formsAndDocumentsClient = restClientFactory.restClient(aemConfig, "/content/dam/formsanddocuments");
 		this.logger = logger; 
+		this.asyncExecutor = asyncExecutor;
+		this.retryPolicy = retryPolicy;
 	}
 	
 	
@@ -58,14 +70,23 @@ public class FormsAndDocumentsClient {
 
 		
 		static Optional<AemError> from(JsonData json) {
+			return from(json::at);
+		}
+
+		static Optional<AemError> from(InputStream jsonStream) throws IOException {
+			return from(JsonFields.read(jsonStream)::at);
+		}
+
+		// json returns the value at a JSON Pointer
+		private static Optional<AemError> from(Function<String, Optional<String>> json) {
 			try {
-				String code = json.at("/code").orElseThrow();
-				String type = json.at("/type").orElseThrow();
-				String title = json.at("/title").orElseThrow();
-				String description = json.at("/description").orElseThrow();
-				Optional<String> unresolvedMessage = json.at("/unresolvedMessage");
-				Optional<String> messageArgs = json.at("/messageArgs/0");
-				String rootCause = json.at("/rootCause").orElseThrow();
+				String code = json.apply("/code").orElseThrow();
+				String type = json.apply("/type").orElseThrow();
+				String title = json.apply("/title").orElseThrow();
+				String description = json.apply("/description").orElseThrow();
+				Optional<String> unresolvedMessage = json.apply("/unresolvedMessage");
+				Optional<String> messageArgs = json.apply("/messageArgs/0");
+				String rootCause = json.apply("/rootCause").orElseThrow();
 				
 				return Optional.of(new AemError(code, type, title, description, unresolvedMessage, messageArgs.map(List::of).orElse(List.of()), rootCause));
 			} catch (NoSuchElementException e) {
@@ -86,7 +107,7 @@ public class FormsAndDocumentsClient {
 		 */
 		public static final class DeleteSuccess implements DeleteResponse {
 			
-			private static Optional<DeleteResponse> from(JsonData json) {
+			private static Optional<DeleteResponse> from(JsonFields json) {
 				return json.at("/requestStatus").map(DeleteSuccess::from);
 			}
 
@@ -98,13 +119,13 @@ public class FormsAndDocumentsClient {
 			};
 		}
 		
-		private static DeleteResponse from(String jsonString) {
-			JsonData json = JsonData.from(jsonString);
+		private static DeleteResponse from(InputStream jsonStream) throws IOException {
+			JsonFields json = JsonFields.read(jsonStream);
 			
 			return DeleteSuccess.from(json)
 					.map(ds->(DeleteResponse)ds)
-					.or(()->AemError.from(json))
-					.orElseThrow(()->new IllegalArgumentException("Unexpected response returned from AEM:\n" + jsonString))
+					.or(()->AemError.from(json::at))
+					.orElseThrow(()->new IllegalArgumentException("Unexpected response returned from AEM:\n" + json.source()))
 					;
 		}
 
@@ -119,21 +140,43 @@ public class FormsAndDocumentsClient {
 	public DeleteResponse delete(String target) {
 		try {
 			logger.log(()->"Deleting '" + target + "'");
-			Response response = contentManagerClient.multipartPayloadBuilder()
-													.add("assetPaths", actualLocation(target))
-													.add("_charset_", "UTF-8")
-													.queryParam("func", "deleteAssets")
-													.build()
-													.postToServer(ContentType.APPLICATION_JSON)
-													.orElseThrow(()->new FormsAndDocumentsException("Error while deleting folder (" + target + "). No content was returned."));
-			DeleteResponse deleteResponse = DeleteResponse.from(new String(response.data().readAllBytes()));
-			logger.log(()->"  Delete " + (deleteResponse instanceof DeleteResponse.DeleteSuccess ? "successfully completed" : "was unsuccessful"));
-			return deleteResponse;
-		} catch (RestClientException | IOException | IllegalArgumentException e) {
+			return retryPolicy.call(RetryPolicy.Operation.DELETE_FORMS, logger, ()->decodeDelete(target, deletePayload(target).postToServer(ContentType.APPLICATION_JSON)));
+		} catch (RestClientException | IllegalArgumentException e) {
 			throw new FormsAndDocumentsException("Error while deleting folder (" + target + ").", e);
 		}
 	}
 
+	/**
+	 * Asynchronous version of delete().
+	 * 
+	 * @param target file or folder to delete.  The path is relative to the FormsAndDocuments directory.
+	 * @return future DeleteResponse indicating the success or failure of the delete operation.  It completes exceptionally
+	 * 		   with a FormsAndDocumentsException if the request fails.
+	 */
+	public CompletableFuture<DeleteResponse> deleteAsync(String target) {
+		logger.log(()->"Deleting '" + target + "'");
+		return AsyncCalls.call(retryPolicy, RetryPolicy.Operation.DELETE_FORMS, logger,
+							   ()->deletePayload(target).postToServerAsync(ContentType.APPLICATION_JSON, asyncExecutor),
+							   fromServer->decodeDelete(target, fromServer),
+							   formsAndDocumentsException("Error while deleting folder (" + target + ")."),
+							   asyncExecutor);
+	}
+
+	private MultipartPayload deletePayload(String target) {
+		return contentManagerClient.multipartPayloadBuilder()
+								   .add("assetPaths", actualLocation(target))
+								   .add("_charset_", "UTF-8")
+								   .queryParam("func", "deleteAssets")
+								   .build();
+	}
+
+	private DeleteResponse decodeDelete(String target, Optional<Response> fromServer) throws RestClientException {
+		Response response = fromServer.orElseThrow(()->new FormsAndDocumentsException("Error while deleting folder (" + target + "). No content was returned."));
+		DeleteResponse deleteResponse = response.body((contentType, data)->DeleteResponse.from(data));
+		logger.log(()->"  Delete " + (deleteResponse instanceof DeleteResponse.DeleteSuccess ? "successfully completed" : "was unsuccessful"));
+		return deleteResponse;
+	}
+
 	/**
 	 * Represents a response from asking AEM to preview a .zip.  It can be a PreviewSuccess or AemError.
 	 */
@@ -145,18 +188,18 @@ public class FormsAndDocumentsClient {
 		 */
 		public record PreviewSuccess(String fileId) implements PreviewResponse {
 	
-			private static Optional<PreviewSuccess> from(JsonData json) {
+			private static Optional<PreviewSuccess> from(JsonFields json) {
 				return json.at("/fileId").map(PreviewSuccess::new);
 			}
 		}
 
-		private static PreviewResponse from(String jsonString) {
-			JsonData json = JsonData.from(jsonString);
+		private static PreviewResponse from(InputStream jsonStream) throws IOException {
+			JsonFields json = JsonFields.read(jsonStream);
 
 			return PreviewSuccess.from(json)
 					.map(ps->(PreviewResponse)ps)
-					.or(()->AemError.from(json))
-					.orElseThrow(()->new IllegalArgumentException("Unexpected response returned from AEM:\n" + jsonString))
+					.or(()->AemError.from(json::at))
+					.orElseThrow(()->new IllegalArgumentException("Unexpected response returned from AEM:\n" + json.source()))
 					;
 		};
 	}
@@ -172,20 +215,8 @@ public class FormsAndDocumentsClient {
 	public PreviewResponse preview(String filename, byte[] content, String targetLocation) {
 		try {
 			logger.log(()->"Uploading filename '" + filename + "'" + (targetLocation.isBlank() ? "" : "'" + targetLocation + "'"));
-			Response response = contentManagerClient.multipartPayloadBuilder()
-													.queryParam("func", "uploadFormsPreview")
-													.queryParam("folderPath", actualLocation(targetLocation))
-													.queryParam("isIE", "false")
-													.add("filename", filename)
-													.add("file", content, ContentType.of("application/x-zip-compressed;filename=fidelity-of-0.0.1-SNAPSHOT.zip"))
-													.add("_charset_", "UTF-8")
-													.build()
-													.postToServer(ContentType.APPLICATION_JSON)
-													.orElseThrow(()->new FormsAndDocumentsException("Error while uploading file (" + filename + ")  to '" + actualLocation(targetLocation) + "'. No content was returned."));
-			PreviewResponse previewResponse = PreviewResponse.from(new String(response.data().readAllBytes()));
-			logger.log(()->"  upload " + (previewResponse instanceof PreviewResponse.PreviewSuccess result ? "successfully completed with fileId '" + result.fileId() + "'"  : "was unsuccessful"));
-			return previewResponse;
-		} catch (RestClientException | IOException | IllegalArgumentException e) {
+			return retryPolicy.call(RetryPolicy.Operation.PREVIEW_FORMS, logger, ()->decodePreview(filename, targetLocation, previewPayload(filename, content, targetLocation).postToServer(ContentType.APPLICATION_JSON)));
+		} catch (RestClientException | IllegalArgumentException e) {
 			throw new FormsAndDocumentsException("Error while uploading file (" + filename + ") to '" + actualLocation(targetLocation) + "'.", e);
 		}
 	}
@@ -205,6 +236,60 @@ public class FormsAndDocumentsClient {
 		}
 	}
 
+	/**
+	 * Asynchronous version of preview(String, byte[], String).
+	 * 
+	 * @param filename filename
+	 * @param content the bytes of the uploaded file.
+	 * @param targetLocation the location where the file will be unpacked
+	 * @return future PreviewResponse indicating the success or failure of the preview operation.  It completes exceptionally
+	 * 		   with a FormsAndDocumentsException if the request fails.
+	 */
+	public CompletableFuture<PreviewResponse> previewAsync(String filename, byte[] content, String targetLocation) {
+		logger.log(()->"Uploading filename '" + filename + "'" + (targetLocation.isBlank() ? "" : "'" + targetLocation + "'"));
+		return AsyncCalls.call(retryPolicy, RetryPolicy.Operation.PREVIEW_FORMS, logger,
+							   ()->previewPayload(filename, content, targetLocation).postToServerAsync(ContentType.APPLICATION_JSON, asyncExecutor),
+							   fromServer->decodePreview(filename, targetLocation, fromServer),
+							   formsAndDocumentsException("Error while uploading file (" + filename + ") to '" + actualLocation(targetLocation) + "'."),
+							   asyncExecutor);
+	}
+
+	/**
+	 * Asynchronous version of preview(Path, String).  The file is read on the async executor.
+	 * 
+	 * @param file Path to a file that will be previewed
+	 * @param targetLocation the location where the file will be unpacked
+	 * @return future PreviewResponse indicating the success or failure of the preview operation
+	 */
+	public CompletableFuture<PreviewResponse> previewAsync(Path file, String targetLocation) {
+		return CompletableFuture.supplyAsync(()->{
+									try {
+										return Files.readAllBytes(file);
+									} catch (IOException e) {
+										throw new FormsAndDocumentsException("Error reading data from file '" + file.toString() + "'.", e );
+									}
+								}, asyncExecutor)
+								.thenCompose(content->previewAsync(file.getFileName().toString(), content, targetLocation));
+	}
+
+	private MultipartPayload previewPayload(String filename, byte[] content, String targetLocation) {
+		return contentManagerClient.multipartPayloadBuilder()
+								   .queryParam("func", "uploadFormsPreview")
+								   .queryParam("folderPath", actualLocation(targetLocation))
+								   .queryParam("isIE", "false")
+								   .add("filename", filename)
+								   .add("file", content, ContentType.of("application/x-zip-compressed;filename=fidelity-of-0.0.1-SNAPSHOT.zip"))
+								   .add("_charset_", "UTF-8")
+								   .build();
+	}
+
+	private PreviewResponse decodePreview(String filename, String targetLocation, Optional<Response> fromServer) throws RestClientException {
+		Response response = fromServer.orElseThrow(()->new FormsAndDocumentsException("Error while uploading file (" + filename + ")  to '" + actualLocation(targetLocation) + "'. No content was returned."));
+		PreviewResponse previewResponse = response.body((contentType, data)->PreviewResponse.from(data));
+		logger.log(()->"  upload " + (previewResponse instanceof PreviewResponse.PreviewSuccess result ? "successfully completed with fileId '" + result.fileId() + "'"  : "was unsuccessful"));
+		return previewResponse;
+	}
+
 	/**
 	 * Represents a response from asking AEM to upload something.  It can be a UploadSuccess or AemError.
 	 * 
@@ -213,18 +298,18 @@ public class FormsAndDocumentsClient {
 		public static final class UploadSuccess implements UploadResponse {
 			private static final UploadSuccess INSTANCE = new UploadSuccess();	// Since this is just a placeholder. we'll make it a singleton.
 
-			private static Optional<UploadSuccess> from(JsonData json) {
+			private static Optional<UploadSuccess> from(JsonFields json) {
 				return json.at("/lastUploadedAssetPath").map(__->INSTANCE);
 			}
 		}
 
-		private static UploadResponse from(String jsonString) {
-			JsonData json = JsonData.from(jsonString);
+		private static UploadResponse from(InputStream jsonStream) throws IOException {
+			JsonFields json = JsonFields.read(jsonStream);
 		
 			return UploadSuccess.from(json)
 					.map(ur->(UploadResponse)ur)
-					.or(()->AemError.from(json))
-					.orElseThrow(()->new IllegalArgumentException("Unexpected response returned from AEM:\n" + jsonString))
+					.or(()->AemError.from(json::at))
+					.orElseThrow(()->new IllegalArgumentException("Unexpected response returned from AEM:\n" + json.source()))
 					;
 		}
 	}
@@ -239,23 +324,50 @@ public class FormsAndDocumentsClient {
 	public UploadResponse upload(String fileId, String targetLocation) {
 		try {
 			logger.log(()->"Uploading fileId '" + fileId + "'" + (targetLocation.isBlank() ? "" : "'" + targetLocation + "'"));
-			Response response = contentManagerClient.multipartPayloadBuilder()
-													.add("_charset_", "UTF-8")
-													.queryParam("func", "uploadForms")
-													.queryParam("folderPath", actualLocation(targetLocation))
-													.queryParam("fileId", fileId)
-													.queryParam("uploadType", "assets")
-													.build()
-													.postToServer(ContentType.APPLICATION_JSON)
-													.orElseThrow(()->new FormsAndDocumentsException("Error while uploading fileId (" + fileId + ")  to '" + actualLocation(targetLocation) + "'. No content was returned."));
-			UploadResponse uploadResponse = UploadResponse.from(new String(response.data().readAllBytes()));
-			logger.log(()->"  upload " + (uploadResponse instanceof UploadResponse.UploadSuccess ? "successfully completed" : "was unsuccessful"));
-			return uploadResponse;
-		} catch (RestClientException | IOException | IllegalArgumentException e) {
+			return retryPolicy.call(RetryPolicy.Operation.UPLOAD_FORMS, logger, ()->decodeUpload(fileId, targetLocation, uploadPayload(fileId, targetLocation).postToServer(ContentType.APPLICATION_JSON)));
+		} catch (RestClientException | IllegalArgumentException e) {
 			throw new FormsAndDocumentsException("Error while uploading fileId (" + fileId + ") to '" + actualLocation(targetLocation) + "'.", e);
 		}
 	}
 
+	/**
+	 * Asynchronous version of upload(String, String).
+	 * 
+	 * @param fileId a file id returned by preview operation
+	 * @param targetLocation the location where the file will be uploaded
+	 * @return future UploadResponse indicating the success or failure of the upload operation.  It completes exceptionally
+	 * 		   with a FormsAndDocumentsException if the request fails.
+	 */
+	public CompletableFuture<UploadResponse> uploadAsync(String fileId, String targetLocation) {
+		logger.log(()->"Uploading fileId '" + fileId + "'" + (targetLocation.isBlank() ? "" : "'" + targetLocation + "'"));
+		return AsyncCalls.call(retryPolicy, RetryPolicy.Operation.UPLOAD_FORMS, logger,
+							   ()->uploadPayload(fileId, targetLocation).postToServerAsync(ContentType.APPLICATION_JSON, asyncExecutor),
+							   fromServer->decodeUpload(fileId, targetLocation, fromServer),
+							   formsAndDocumentsException("Error while uploading fileId (" + fileId + ") to '" + actualLocation(targetLocation) + "'."),
+							   asyncExecutor);
+	}
+
+	private MultipartPayload uploadPayload(String fileId, String targetLocation) {
+		return contentManagerClient.multipartPayloadBuilder()
+								   .add("_charset_", "UTF-8")
+								   .queryParam("func", "uploadForms")
+								   .queryParam("folderPath", actualLocation(targetLocation))
+								   .queryParam("fileId", fileId)
+								   .queryParam("uploadType", "assets")
+								   .build();
+	}
+
+	private UploadResponse decodeUpload(String fileId, String targetLocation, Optional<Response> fromServer) throws RestClientException {
+		Response response = fromServer.orElseThrow(()->new FormsAndDocumentsException("Error while uploading fileId (" + fileId + ")  to '" + actualLocation(targetLocation) + "'. No content was returned."));
+		UploadResponse uploadResponse = response.body((contentType, data)->UploadResponse.from(data));
+		logger.log(()->"  upload " + (uploadResponse instanceof UploadResponse.UploadSuccess ? "successfully completed" : "was unsuccessful"));
+		return uploadResponse;
+	}
+
+	private static Function<Exception, FormsAndDocumentsException> formsAndDocumentsException(String message) {
+		return e->e instanceof FormsAndDocumentsException fade ? fade : new FormsAndDocumentsException(message, e);
+	}
+
 	private String actualLocation(String targetLocation) {
 		return "/content/dam/formsanddocuments" + (targetLocation.isBlank() || targetLocation.startsWith("/") ? "" : "/") + targetLocation;
 	}
@@ -286,6 +398,30 @@ public class FormsAndDocumentsClient {
 		return upload(file, "");
 	}
 
+	/**
+	 * Asynchronous version of upload(Path, String).
+	 * 
+	 * @param file file that will be uploaded
+	 * @param targetLocation the location where the file will be uploaded
+	 * @return future UploadResponse indicating the success or failure of the upload operation.
+	 */
+	public CompletableFuture<UploadResponse> uploadAsync(Path file, String targetLocation) {
+		return previewAsync(file, targetLocation).thenCompose(previewResponse->switch(previewResponse) {
+			case PreviewSuccess previewSuccess -> uploadAsync(previewSuccess.fileId(), targetLocation); 
+			case AemError 		previewFailure -> CompletableFuture.completedFuture(previewFailure); 
+		});
+	}
+
+	/**
+	 * Asynchronous version of upload(Path).
+	 * 
+	 * @param file file that will be uploaded
+	 * @return future UploadResponse indicating the success or failure of the upload operation.
+	 */
+	public CompletableFuture<UploadResponse> uploadAsync(Path file) {
+		return uploadAsync(file, "");
+	}
+
 	/**
 	 * Create a folder.
 	 * 
@@ -316,6 +452,9 @@ public class FormsAndDocumentsClient {
 	public static class FormsAndDocumentsBuilder {
 		private final SimpleAemConfigBuilder aemConfigBuilder = new SimpleAemConfigBuilder();
 		private Logger logger = new Logger.NoOpLogger();
+		private Optional<RestClientFactory> restClientFactory = Optional.empty();
+		private Executor asyncExecutor = AsyncCalls.DEFAULT_EXECUTOR;
+		private RetryPolicy retryPolicy = RetryPolicy.none();
 		
 		/**
 		 * Set the machine name where the AEM instance resides.
@@ -387,13 +526,67 @@ public class FormsAndDocumentsClient {
 			return this;
 		}
 
+		/**
+		 * Selects the HTTP transport used to communicate with AEM (e.g. JdkRestClient.factory() to use the JDK's HttpClient).
+		 * 
+		 * If this is not supplied, then Jersey is used (JerseyRestClient.factory()).
+		 * 
+		 * @param restClientFactory factory that creates the RestClients used by this client
+		 * @return builder
+		 */
+		public FormsAndDocumentsBuilder restClientFactory(RestClientFactory restClientFactory) {
+			this.restClientFactory = Optional.of(restClientFactory);
+			return this;
+		}
+
+		/**
+		 * Use a pool of keep-alive connections (with timeouts) when communicating with AEM.
+		 * 
+		 * This selects the Jersey transport (it replaces any factory supplied to restClientFactory()).  The same pool can be
+		 * passed to several builders.  Pool statistics are available from the pool at runtime.
+		 * 
+		 * @param connectionPool pool of connections
+		 * @return builder
+		 */
+		public FormsAndDocumentsBuilder connectionPool(JerseyConnectionPool connectionPool) {
+			return restClientFactory(connectionPool.restClientFactory());
+		}
+
+		/**
+		 * Executor used by the asynchronous (...Async()) methods to process responses.
+		 * 
+		 * If this is not supplied, then each response is processed on a new virtual thread.
+		 * 
+		 * @param asyncExecutor executor
+		 * @return builder
+		 */
+		public FormsAndDocumentsBuilder asyncExecutor(Executor asyncExecutor) {
+			this.asyncExecutor = Objects.requireNonNull(asyncExecutor, "Async executor cannot be null.");
+			return this;
+		}
+
+		/**
+		 * Retry calls to AEM that fail for transient reasons (e.g. AEM returning 503 while it restarts bundles).
+		 *
+		 * Only previews are retried.  Uploads and deletes are not (see RetryPolicy.Operation).
+		 *
+		 * If this is not supplied, then calls are not retried.
+		 *
+		 * @param retryPolicy retry policy (which may be shared with other clients)
+		 * @return builder
+		 */
+		public FormsAndDocumentsBuilder retryPolicy(RetryPolicy retryPolicy) {
+			this.retryPolicy = Objects.requireNonNull(retryPolicy, "Retry policy cannot be null.");
+			return this;
+		}
+
 		/**
 		 * Build a FormsAndDocumentsClient instance.
 		 * 
 		 * @return new FormsAndDocumentsClient instance
 		 */
 		public FormsAndDocumentsClient build() {
-			return new FormsAndDocumentsClient(aemConfigBuilder.build(), logger);
+			return new FormsAndDocumentsClient(aemConfigBuilder.build(), logger, restClientFactory.orElseGet(JerseyRestClient::factory), asyncExecutor, retryPolicy);
 		}
 
 		/**
@@ -402,7 +595,7 @@ public class FormsAndDocumentsClient {
 		 * @return new FormsAndDocumentsClientEx instance
 		 */
 		public FormsAndDocumentsClientEx buildEx() {
-			return FormsAndDocumentsClientEx.from(new FormsAndDocumentsClient(aemConfigBuilder.build(), logger));
+			return FormsAndDocumentsClientEx.from(build());
 		}
 	}
 	
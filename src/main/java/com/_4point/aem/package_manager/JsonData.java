@@ -18,7 +18,9 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 /**
  * This class is used to store Json Data.
  * 
- * Internally it stores it as a String.
+ * Internally it stores it as a JsonNode tree, which is never modified once the JsonData has been created, so it can be 
+ * shared between JsonData objects (e.g. by subsetAt()).  The String form is kept if the JsonData was created from a String,
+ * otherwise it is generated the first time it is requested.
  *
  */
 public class JsonData {
@@ -27,7 +29,7 @@ public class JsonData {
 	// Also see: https://stackoverflow.com/questions/3907929/should-i-declare-jacksons-objectmapper-as-a-static-field
 	private static final ObjectMapper mapper = new ObjectMapper();
 
-	private final String jsonData;
+	private volatile String jsonData;	// Generated lazily (if null) by asString()
 	private final JsonNode rootNode;
 	
 	
@@ -41,8 +43,23 @@ public class JsonData {
 		this.rootNode = rootNode;
 	}
 
+	// Wraps a node without generating its String form.  The node must not be modified afterwards.
+	private static JsonData of(JsonNode rootNode) {
+		return new JsonData(null, rootNode);
+	}
+
 	public String asString() {
-		return jsonData;
+		String result = jsonData;
+		if (result == null) {
+			// Benign race: concurrent callers may both generate the (identical) String.
+			try {
+				result = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(rootNode);
+			} catch (JsonProcessingException e) {
+				throw new JsonDataException("Error while converting JsonData to a string.", e);
+			}
+			jsonData = result;
+		}
+		return result;
 	}
 	
 	public static JsonData from(String string) {
@@ -113,7 +130,7 @@ public class JsonData {
 	 */
 	public Optional<JsonData> subsetAt(JsonDataPointer jsonDataPtr) {
 		JsonNode node = rootNode.at(jsonDataPtr.jsonPointer);
-		return node.isContainerNode() ? Optional.of(JsonData.from(node.toPrettyString())) : Optional.empty();
+		return node.isContainerNode() ? Optional.of(JsonData.of(node)) : Optional.empty();	// Shares the node with this JsonData
 	}
 	
 
@@ -192,7 +209,7 @@ public class JsonData {
 	 * 		copy of the original JsonData with the property inserted.
 	 */
 	public JsonData insertJsonProperty(JsonDataPointer jsonDataPointer, String property, JsonData value) {
-		return insert(jsonDataPointer.jsonPointer, n->n.set(property, value.rootNode));
+		return modify().insertJsonProperty(jsonDataPointer, property, value).build();
 	}
 
 	/**
@@ -208,22 +225,126 @@ public class JsonData {
 	 * 		copy of the original JsonData with the property inserted.
 	 */
 	public JsonData insertJsonProperty(JsonDataPointer jsonDataPointer, String property, String value) {
-		return insert(jsonDataPointer.jsonPointer, n->n.put(property, value));
+		return modify().insertJsonProperty(jsonDataPointer, property, value).build();
 	}	
 
-	// Internal routine that locates and inserts something to into the JsonData (returning a copy)
-	// The op is a Consumer that takes an ObjectNode and does something to it to insert the new thing.
-	private JsonData insert(JsonPointer insertionPoint, Consumer<ObjectNode> op) {
-		JsonNode deepCopy = rootNode.deepCopy();
-		JsonNode insertionNode = deepCopy.at(insertionPoint);
-		if (!insertionNode.isObject()) {
-			throw new JsonDataException("Insertion only allowed in existing objects.  Pointer='" + insertionPoint.toString() + "'.");
+	/**
+	 * Returns a Modifier that can be used to make several changes to a copy of this JsonData.
+	 * 
+	 * The JsonData is only copied once, no matter how many changes are made.
+	 * 
+	 * @return
+	 * 		modifier for a copy of this JsonData
+	 */
+	public Modifier modify() {
+		return new Modifier(rootNode.deepCopy());
+	}
+
+	/**
+	 * Makes changes to a copy of a JsonData.
+	 * 
+	 * Changes are applied in the order they are made, so later changes can insert into objects inserted by earlier ones.
+	 */
+	public static class Modifier {
+		private JsonNode copy;		// Set to null once build() is called.
+
+		private Modifier(JsonNode copy) {
+			this.copy = copy;
 		}
-		op.accept((ObjectNode)insertionNode);
-		try {
-			return JsonData.from(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(deepCopy));
-		} catch (JsonProcessingException e) {
-			throw new JsonDataException("Error whiole inserting into Json.", e);
+
+		/**
+		 * Inserts a property containing an object somewhere into the JSON
+		 * 
+		 * @param jsonPointer
+		 * 		pointer to location where the property will be inserted
+		 * @param property
+		 * 		property to be inserted
+		 * @param value
+		 * 		json object of the property being inserted
+		 * @return
+		 * 		this modifier
+		 */
+		public Modifier insertJsonProperty(String jsonPointer, String property, JsonData value) {
+			return insertJsonProperty(JsonDataPointer.of(jsonPointer), property, value);
+		}
+
+		/**
+		 * Inserts a property with a String value somewhere into the JSON
+		 * 
+		 * @param jsonPointer
+		 * 		pointer to location where the property will be inserted
+		 * @param property
+		 * 		property to be inserted
+		 * @param value
+		 * 		value of the property being inserted
+		 * @return
+		 * 		this modifier
+		 */
+		public Modifier insertJsonProperty(String jsonPointer, String property, String value) {
+			return insertJsonProperty(JsonDataPointer.of(jsonPointer), property, value);
+		}
+
+		/**
+		 * Inserts a property containing an object somewhere into the JSON
+		 * 
+		 * @param jsonDataPointer
+		 * 		pointer to location where the property will be inserted
+		 * @param property
+		 * 		property to be inserted
+		 * @param value
+		 * 		json object of the property being inserted
+		 * @return
+		 * 		this modifier
+		 */
+		public Modifier insertJsonProperty(JsonDataPointer jsonDataPointer, String property, JsonData value) {
+			// Copied so that later changes made through this modifier cannot alter value.
+			return insert(jsonDataPointer.jsonPointer, n->n.set(property, value.rootNode.deepCopy()));
+		}
+
+		/**
+		 * Inserts a property with a String value somewhere into the JSON
+		 * 
+		 * @param jsonDataPointer
+		 * 		pointer to location where the property will be inserted
+		 * @param property
+		 * 		property to be inserted
+		 * @param value
+		 * 		value of the property being inserted
+		 * @return
+		 * 		this modifier
+		 */
+		public Modifier insertJsonProperty(JsonDataPointer jsonDataPointer, String property, String value) {
+			return insert(jsonDataPointer.jsonPointer, n->n.put(property, value));
+		}
+
+		/**
+		 * Creates a JsonData containing the changes.  The modifier cannot be used after this is called.
+		 * 
+		 * @return
+		 * 		modified copy of the original JsonData
+		 */
+		public JsonData build() {
+			JsonData result = JsonData.of(node());
+			copy = null;
+			return result;
+		}
+
+		// Internal routine that locates and inserts something to into the copy.
+		// The op is a Consumer that takes an ObjectNode and does something to it to insert the new thing.
+		private Modifier insert(JsonPointer insertionPoint, Consumer<ObjectNode> op) {
+			JsonNode insertionNode = node().at(insertionPoint);
+			if (!insertionNode.isObject()) {
+				throw new JsonDataException("Insertion only allowed in existing objects.  Pointer='" + insertionPoint.toString() + "'.");
+			}
+			op.accept((ObjectNode)insertionNode);
+			return this;
+		}
+
+		private JsonNode node() {
+			if (copy == null) {
+				throw new IllegalStateException("JsonData.Modifier cannot be used after build() has been called.");
+			}
+			return copy;
 		}
 	}
 	public static class JsonDataPointer {
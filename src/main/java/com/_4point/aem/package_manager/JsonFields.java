@@ -0,0 +1,147 @@
+package com._4point.aem.package_manager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * The scalar values from a small JSON response, keyed by JSON Pointer (e.g. "/success", "/messageArgs/0").
+ *
+ * This is used to decode the small JSON responses that AEM returns from commands.  The values are read directly from the
+ * response stream with a streaming parser, so no intermediate String or JsonNode tree is built.  Jackson detects the
+ * encoding (UTF-8, UTF-16 or UTF-32) from the bytes, so the platform default charset is not used.
+ *
+ * The first few kilobytes of the response are retained so that they can be included in error messages.
+ */
+final class JsonFields {
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private static final int MAX_DEPTH = 4;					// Values nested deeper than this are ignored.
+	private static final int MAX_SOURCE_BYTES = 4096;		// Amount of the response retained for error messages.
+
+	private final Map<String, String> values;
+	private final String source;
+
+	private JsonFields(Map<String, String> values, String source) {
+		this.values = values;
+		this.source = source;
+	}
+
+	/**
+	 * Reads the scalar values from a JSON stream.  The stream is closed once the JSON has been read.
+	 *
+	 * @param jsonStream stream containing JSON
+	 * @return values read from the stream
+	 * @throws IOException if the stream cannot be read or does not contain valid JSON
+	 */
+	static JsonFields read(InputStream jsonStream) throws IOException {
+		SourceRecordingInputStream recordingStream = new SourceRecordingInputStream(jsonStream);
+		Map<String, String> values = new HashMap<>();
+		try (JsonParser parser = JSON_FACTORY.createParser(recordingStream)) {
+			JsonToken token = parser.nextToken();
+			if (token == null) {
+				throw new IOException("No JSON was returned from AEM.");
+			}
+			readValue(parser, token, "", 0, values);
+		}
+		return new JsonFields(values, recordingStream.recorded());
+	}
+
+	/**
+	 * Returns the value at a JSON Pointer (if it is a scalar value).  Null values are returned as "null" (like JsonData.at()).
+	 *
+	 * @param jsonPointer JSON Pointer (e.g. "/success")
+	 * @return value
+	 */
+	Optional<String> at(String jsonPointer) {
+		return Optional.ofNullable(values.get(jsonPointer));
+	}
+
+	/**
+	 * The JSON that was read (truncated if it was large).
+	 *
+	 * @return JSON source
+	 */
+	String source() {
+		return source;
+	}
+
+	private static void readValue(JsonParser parser, JsonToken token, String path, int depth, Map<String, String> values) throws IOException {
+		switch (token) {
+			case START_OBJECT -> {
+				if (depth >= MAX_DEPTH) {
+					parser.skipChildren();
+					return;
+				}
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String fieldPath = path + "/" + escape(parser.currentName());
+					readValue(parser, parser.nextToken(), fieldPath, depth + 1, values);
+				}
+			}
+			case START_ARRAY -> {
+				if (depth >= MAX_DEPTH) {
+					parser.skipChildren();
+					return;
+				}
+				int index = 0;
+				JsonToken element;
+				while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+					readValue(parser, element, path + "/" + index++, depth + 1, values);
+				}
+			}
+			default -> values.put(path, parser.getText());
+		}
+	}
+
+	// See RFC 6901 for the escaping rules for JSON Pointers.
+	private static String escape(String fieldName) {
+		return fieldName.indexOf('~') < 0 && fieldName.indexOf('/') < 0 ? fieldName
+																	   : fieldName.replace("~", "~0").replace("/", "~1");
+	}
+
+	// Retains the first MAX_SOURCE_BYTES that are read from the underlying stream.
+	private static final class SourceRecordingInputStream extends FilterInputStream {
+		private final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+		private boolean truncated = false;
+
+		private SourceRecordingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				record(new byte[] { (byte) b }, 0, 1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int count = super.read(b, off, len);
+			if (count > 0) {
+				record(b, off, count);
+			}
+			return count;
+		}
+
+		private void record(byte[] b, int off, int len) {
+			int remaining = MAX_SOURCE_BYTES - recorded.size();
+			recorded.write(b, off, Math.min(remaining, len));
+			truncated |= len > remaining;
+		}
+
+		private String recorded() {
+			return recorded.toString(StandardCharsets.UTF_8) + (truncated ? "..." : "");
+		}
+	}
+}
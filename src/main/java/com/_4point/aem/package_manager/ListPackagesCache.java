@@ -0,0 +1,109 @@
+package com._4point.aem.package_manager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+
+/**
+ * Caches the list of packages returned by AEM.
+ *
+ * A cached list is reused until its time-to-live expires.  After that, it is revalidated using the ETag and/or Last-Modified
+ * headers that AEM returned with it (if any), so an unchanged list does not have to be downloaded and parsed again.  If AEM did
+ * not return either header, the list is simply fetched again.
+ *
+ * Only successful responses are cached.  Calling invalidate() discards the cached list, so that the next request fetches a new
+ * one.  A list that was being fetched while invalidate() was called is not cached.
+ */
+final class ListPackagesCache {
+	private final long ttlNanos;
+	private final LongSupplier nanoClock;
+	private final Logger logger;
+	private final AtomicLong generation = new AtomicLong();
+	private volatile Entry entry = null;
+
+	private record Entry(ListResponse response, Optional<String> eTag, Optional<String> lastModified, long fetchedAt, long generation) {}
+
+	/**
+	 * Result of fetching the list of packages from AEM.
+	 *
+	 * @param response list of packages or empty if AEM indicated that the list had not been modified.
+	 * @param eTag ETag header returned by AEM (if any)
+	 * @param lastModified Last-Modified header returned by AEM (if any)
+	 */
+	record Fetched(Optional<ListResponse> response, Optional<String> eTag, Optional<String> lastModified) {
+		static Fetched notModified() {
+			return new Fetched(Optional.empty(), Optional.empty(), Optional.empty());
+		}
+	}
+
+	/**
+	 * Fetches the list of packages from AEM, sending the validators (if present) as If-None-Match/If-Modified-Since headers.
+	 */
+	@FunctionalInterface
+	interface Fetcher {
+		Fetched fetch(Optional<String> eTag, Optional<String> lastModified) throws RestClientException, IOException;
+	}
+
+	ListPackagesCache(Duration ttl, Logger logger) {
+		this(ttl, System::nanoTime, logger);
+	}
+
+	// Allows the clock to be replaced for testing.
+	ListPackagesCache(Duration ttl, LongSupplier nanoClock, Logger logger) {
+		if (Objects.requireNonNull(ttl, "TTL cannot be null.").isNegative()) {
+			throw new IllegalArgumentException("TTL cannot be negative (" + ttl + ").");
+		}
+		this.ttlNanos = ttl.toNanos();
+		this.nanoClock = nanoClock;
+		this.logger = logger;
+	}
+
+	/**
+	 * Returns the cached list of packages, revalidating or fetching it if required.
+	 *
+	 * Concurrent callers wait for a single fetch rather than all fetching the list at the same time.
+	 *
+	 * @param fetcher used to fetch the list from AEM
+	 * @return list of packages
+	 */
+	synchronized ListResponse get(Fetcher fetcher) throws RestClientException, IOException {
+		long currentGeneration = generation.get();
+		Entry current = entry != null && entry.generation() == currentGeneration ? entry : null;
+		long now = nanoClock.getAsLong();
+		if (current != null && now - current.fetchedAt() < ttlNanos) {
+			logger.log("  Using cached list of packages");
+			return current.response();
+		}
+
+		Fetched fetched = current != null ? fetcher.fetch(current.eTag(), current.lastModified())
+										  : fetcher.fetch(Optional.empty(), Optional.empty());
+		if (fetched.response().isEmpty()) {
+			if (current == null) {
+				throw new IllegalStateException("AEM indicated the list of packages was not modified, but there was no cached list.");
+			}
+			logger.log("  List of packages not modified");
+			entry = new Entry(current.response(), current.eTag(), current.lastModified(), now, currentGeneration);
+			return current.response();
+		}
+
+		ListResponse response = fetched.response().get();
+		int statusCode = response.status().code();
+		entry = statusCode >= 200 && statusCode <= 299 ? new Entry(response, fetched.eTag(), fetched.lastModified(), now, currentGeneration)
+													   : null;
+		return response;
+	}
+
+	/**
+	 * Discards the cached list of packages.
+	 *
+	 * This does not wait for a fetch that is in progress.
+	 */
+	void invalidate() {
+		generation.incrementAndGet();
+	}
+}
@@ -1,11 +1,14 @@
 package com._4point.aem.package_manager;
 
+import java.io.InputStream;
+
 public record ListResponse(java.util.List<Package> packages, Request request, Status status) {
 
 	public record Request(String name, String value) {
+		// xmlDoc is a view of the <request> element
 		private static Request from(XmlDocument xmlDoc) {
-			return new Request(xmlDoc.getString("/request/param/@name").orElseThrow(), 
-							   xmlDoc.getString("/request/param/@value").orElseThrow());
+			return new Request(xmlDoc.getString("param/@name").orElseThrow(), 
+							   xmlDoc.getString("param/@value").orElseThrow());
 		}
 	};
 	
@@ -21,36 +24,75 @@ public record ListResponse(java.util.List<Package> packages, Request request, St
 						  String lastUnpacked,	// Data
 						  String lastUnpackedBy
 						  ) {
+		// xmlDoc is a view of the <package> element
 		private static Package from(XmlDocument xmlDoc) {
-			return new Package(xmlDoc.getString("/package/group").orElseThrow(),
-							   xmlDoc.getString("/package/name").orElseThrow(),
-							   xmlDoc.getString("/package/version").orElseThrow(),
-							   xmlDoc.getString("/package/downloadName").orElseThrow(),
-							   xmlDoc.getString("/package/size").orElseThrow(),
-							   xmlDoc.getString("/package/created").orElseThrow(),
-							   xmlDoc.getString("/package/createdBy").orElseThrow(),
-							   xmlDoc.getString("/package/lastModified").orElseThrow(),
-							   xmlDoc.getString("/package/lastModifiedBy").orElseThrow(),
-							   xmlDoc.getString("/package/lastUnpacked").orElseThrow(),
-							   xmlDoc.getString("/package/lastUnpackedBy").orElseThrow());
+			return new Package(xmlDoc.getString("group").orElseThrow(),
+							   xmlDoc.getString("name").orElseThrow(),
+							   xmlDoc.getString("version").orElseThrow(),
+							   xmlDoc.getString("downloadName").orElseThrow(),
+							   xmlDoc.getString("size").orElseThrow(),
+							   xmlDoc.getString("created").orElseThrow(),
+							   xmlDoc.getString("createdBy").orElseThrow(),
+							   xmlDoc.getString("lastModified").orElseThrow(),
+							   xmlDoc.getString("lastModifiedBy").orElseThrow(),
+							   xmlDoc.getString("lastUnpacked").orElseThrow(),
+							   xmlDoc.getString("lastUnpackedBy").orElseThrow());
+		}
+
+		/**
+		 * Parses the size and dates of this package.
+		 * 
+		 * The result should be retained if it is going to be used repeatedly (e.g. for sorting).
+		 * 
+		 * @return typed metadata for this package
+		 */
+		public PackageMetadata metadata() {
+			return PackageMetadata.from(this);
 		}
 	};
 
 	public record Status(int code, String text) {
+		// xmlDoc is a view of the <status> element
 		private static Status from(XmlDocument xmlDoc) {
-			return new Status(Integer.parseInt(xmlDoc.getString("/status/@code").orElseThrow()),
-							  xmlDoc.getString("/status").orElseThrow());
+			return new Status(Integer.parseInt(xmlDoc.getString("@code").orElseThrow()),
+							  xmlDoc.getString(".").orElseThrow());
 		}
 	};
 	
 	public static ListResponse from(XmlDocument xmlDoc) {
 		return new ListResponse(
-				xmlDoc.getDocs("/crx/response/data/packages/package")
+				xmlDoc.getViews("/crx/response/data/packages/package")
 					  .stream()
 					  .map(Package::from)
 					  .toList(),
-				Request.from(xmlDoc.getDoc("/crx/request").orElseThrow()),
-				Status.from(xmlDoc.getDoc("/crx/response/status").orElseThrow())
+				Request.from(xmlDoc.getView("/crx/request").orElseThrow()),
+				Status.from(xmlDoc.getView("/crx/response/status").orElseThrow())
 				);
 	}
+
+	/**
+	 * Reads a ListResponse directly from the XML returned by Package Manager without building a DOM.
+	 * 
+	 * @param xmlStream stream containing the XML returned by the <code>cmd=ls</code> command
+	 * @return ListResponse containing all the packages
+	 * @throws ListResponseException if the XML cannot be read or does not contain the expected data.
+	 */
+	public static ListResponse from(InputStream xmlStream) {
+		return ListResponseReader.read(xmlStream);
+	}
+
+	/**
+	 * Exception thrown when a list response cannot be decoded.
+	 */
+	@SuppressWarnings("serial")
+	public static class ListResponseException extends RuntimeException {
+
+		ListResponseException(String message, Throwable cause) {
+			super(message, cause);
+		}
+
+		ListResponseException(String message) {
+			super(message);
+		}
+	}
 };
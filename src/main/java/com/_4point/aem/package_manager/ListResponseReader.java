@@ -0,0 +1,284 @@
+package com._4point.aem.package_manager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com._4point.aem.package_manager.ListResponse.ListResponseException;
+import com._4point.aem.package_manager.ListResponse.Package;
+import com._4point.aem.package_manager.ListResponse.Request;
+import com._4point.aem.package_manager.ListResponse.Status;
+
+/**
+ * Single pass StAX decoder for the XML returned by Package Manager's <code>service.jsp?cmd=ls</code> command.
+ *
+ * The response looks like this:
+ * <pre>
+ * &lt;crx&gt;
+ *   &lt;request&gt;&lt;param name="cmd" value="ls"/&gt;&lt;/request&gt;
+ *   &lt;response&gt;
+ *     &lt;data&gt;&lt;packages&gt;&lt;package&gt;...&lt;/package&gt;&lt;/packages&gt;&lt;/data&gt;
+ *     &lt;status code="200"&gt;ok&lt;/status&gt;
+ *   &lt;/response&gt;
+ * &lt;/crx&gt;
+ * </pre>
+ *
+ * Packages are built directly from the stream without building a DOM, either all at once (read()) or one at a
+ * time as they are requested (open() and nextPackage()).
+ *
+ * Values that typically repeat across packages (group and user names, empty values) are deduplicated within a response
+ * so that large inventories do not hold thousands of copies of the same String.
+ *
+ */
+final class ListResponseReader {
+	// XMLInputFactory is expensive to locate but is threadsafe once configured, so only create it once.
+	private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+	private static final String[] PACKAGE_FIELDS = {
+			"group", "name", "version", "downloadName", "size", "created", "createdBy",
+			"lastModified", "lastModifiedBy", "lastUnpacked", "lastUnpackedBy"
+			};
+	// Fields whose values repeat across many packages (groups and users).  These are deduplicated so that each distinct
+	// value is only held once per response.  Dates are not deduplicated: they are mostly unique, so they would fill up the
+	// table and crowd out the values that do repeat.
+	private static final boolean[] DEDUPLICATED_FIELDS = {
+			true, false, false, false, false, false, true,
+			false, true, false, true
+			};
+	private static final List<String> PARAM_PATH = List.of("crx", "request", "param");
+	private static final List<String> STATUS_PATH = List.of("crx", "response", "status");
+	private static final List<String> PACKAGE_PATH = List.of("crx", "response", "data", "packages", "package");
+	// Upper limit on the size of the deduplication table, so that streaming a response uses a bounded amount of memory.
+	private static final int MAX_DEDUPLICATED_VALUES = 4096;
+
+	private final XMLStreamReader xmlReader;
+	private final Closeable owned;	// Underlying stream if this reader owns it (null otherwise).
+	private final Map<String, String> canonicalValues = new HashMap<>();
+	private final List<String> path = new ArrayList<>();	// Local names of the elements enclosing the current position.
+	private Request request;
+	private Status status;
+
+	private ListResponseReader(XMLStreamReader xmlReader, Closeable owned) {
+		this.xmlReader = xmlReader;
+		this.owned = owned;
+	}
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		return factory;
+	}
+
+	/**
+	 * Reads an entire list response from an InputStream.
+	 *
+	 * @param xmlStream stream containing the XML returned by the <code>cmd=ls</code> command
+	 * @return ListResponse containing all the packages
+	 */
+	static ListResponse read(InputStream xmlStream) {
+		ListResponseReader reader = new ListResponseReader(createXmlReader(xmlStream), null);
+		try {
+			List<Package> packages = new ArrayList<>();
+			Package pkg;
+			while((pkg = reader.nextPackage()) != null) {
+				packages.add(pkg);
+			}
+			return new ListResponse(List.copyOf(packages),
+									reader.request().orElseThrow(()->new ListResponseException("No request found in list response.")),
+									reader.status().orElseThrow(()->new ListResponseException("No status found in list response.")));
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Opens a reader that decodes packages incrementally, as they are requested.
+	 *
+	 * The reader takes ownership of the stream and closes it when the reader is closed.
+	 *
+	 * @param xmlStream stream containing the XML returned by the <code>cmd=ls</code> command
+	 * @return reader positioned at the start of the response
+	 */
+	static ListResponseReader open(InputStream xmlStream) {
+		try {
+			return new ListResponseReader(createXmlReader(xmlStream), xmlStream);
+		} catch (ListResponseException e) {
+			closeQuietly(xmlStream);
+			throw e;
+		}
+	}
+
+	private static XMLStreamReader createXmlReader(InputStream xmlStream) {
+		try {
+			return XML_INPUT_FACTORY.createXMLStreamReader(xmlStream);
+		} catch (XMLStreamException e) {
+			throw new ListResponseException("Unable to read list response (" + e.getMessage() + ").", e);
+		}
+	}
+
+	/**
+	 * Advances through the XML until the next package is found (or until the end of the document).
+	 *
+	 * Any request or status elements encountered along the way are recorded.  Elements are only recognized at their
+	 * expected paths, so (for example) a &lt;status&gt; element anywhere other than /crx/response/status is ignored.
+	 *
+	 * @return the next package or null if there are no more packages.
+	 */
+	Package nextPackage() {
+		try {
+			while (xmlReader.hasNext()) {
+				switch (xmlReader.next()) {
+					case XMLStreamConstants.START_ELEMENT -> {
+						path.add(xmlReader.getLocalName());
+						if (path.equals(PACKAGE_PATH)) {
+							Package pkg = readPackage();
+							path.remove(path.size() - 1);
+							return pkg;
+						} else if (path.equals(PARAM_PATH)) {
+							request = new Request(requiredAttribute("name"), requiredAttribute("value"));
+						} else if (path.equals(STATUS_PATH)) {
+							status = new Status(parseStatusCode(requiredAttribute("code")), xmlReader.getElementText());
+							path.remove(path.size() - 1);	// getElementText() consumed the end element.
+						}
+					}
+					case XMLStreamConstants.END_ELEMENT -> path.remove(path.size() - 1);
+					default -> {}
+				}
+			}
+			return null;
+		} catch (XMLStreamException e) {
+			throw new ListResponseException("Error while reading list response (" + e.getMessage() + ").", e);
+		}
+	}
+
+	// Reads the children of a <package> element.  The reader is positioned on the <package> start element.
+	private Package readPackage() throws XMLStreamException {
+		String[] fields = new String[PACKAGE_FIELDS.length];
+		int event;
+		while ((event = xmlReader.nextTag()) == XMLStreamConstants.START_ELEMENT) {
+			String fieldName = xmlReader.getLocalName();
+			int index = fieldIndex(fieldName);
+			if (index < 0) {
+				skipElement();
+			} else if (fields[index] != null) {
+				throw new ListResponseException("Found multiple '" + fieldName + "' entries in package.");
+			} else {
+				String value = xmlReader.getElementText();
+				fields[index] = DEDUPLICATED_FIELDS[index] ? canonicalize(value) : value;
+			}
+		}
+		if (event != XMLStreamConstants.END_ELEMENT) {
+			throw new ListResponseException("Unexpected XML event (" + event + ") while reading package.");
+		}
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i] == null) {
+				throw new ListResponseException("Package is missing '" + PACKAGE_FIELDS[i] + "' entry.");
+			}
+		}
+		return new Package(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6], fields[7], fields[8], fields[9], fields[10]);
+	}
+
+	// Returns the first instance of this value seen in this response.
+	private String canonicalize(String value) {
+		String canonical = canonicalValues.get(value);
+		if (canonical != null) {
+			return canonical;
+		}
+		if (canonicalValues.size() < MAX_DEDUPLICATED_VALUES) {
+			canonicalValues.put(value, value);
+		}
+		return value;
+	}
+
+	private static int fieldIndex(String fieldName) {
+		for (int i = 0; i < PACKAGE_FIELDS.length; i++) {
+			if (PACKAGE_FIELDS[i].equals(fieldName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Skips an unknown element (and all its children).  The reader is positioned on its start element.
+	private void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			switch (xmlReader.next()) {
+				case XMLStreamConstants.START_ELEMENT -> depth++;
+				case XMLStreamConstants.END_ELEMENT -> depth--;
+				default -> {}
+			}
+		}
+	}
+
+	private String requiredAttribute(String attributeName) {
+		String value = xmlReader.getAttributeValue(null, attributeName);
+		if (value == null) {
+			throw new ListResponseException("Element '" + xmlReader.getLocalName() + "' is missing the '" + attributeName + "' attribute.");
+		}
+		return value;
+	}
+
+	private static int parseStatusCode(String code) {
+		try {
+			return Integer.parseInt(code);
+		} catch (NumberFormatException e) {
+			throw new ListResponseException("Invalid status code (" + code + ") found in list response.", e);
+		}
+	}
+
+	/**
+	 * Returns the request that was echoed back by AEM.  This precedes the packages so it is available once the first
+	 * package has been read.
+	 *
+	 * @return request (if it has been read)
+	 */
+	Optional<Request> request() {
+		return Optional.ofNullable(request);
+	}
+
+	/**
+	 * Returns the status returned by AEM.  This follows the packages so it is only available after nextPackage() has
+	 * returned null.
+	 *
+	 * @return status (if it has been read)
+	 */
+	Optional<Status> status() {
+		return Optional.ofNullable(status);
+	}
+
+	/**
+	 * Closes the reader (and the underlying stream if this reader owns it).
+	 */
+	void close() {
+		try {
+			xmlReader.close();
+		} catch (XMLStreamException e) {
+			// Nothing useful can be done if closing fails.
+		} finally {
+			if (owned != null) {
+				closeQuietly(owned);
+			}
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// Nothing useful can be done if closing fails.
+		}
+	}
+}
@@ -0,0 +1,491 @@
+package com._4point.aem.package_manager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Compact, read-only catalog of the packages on an AEM instance.
+ *
+ * Rather than holding one ListResponse.Package record (with 11 Strings) per package, the catalog stores each field in
+ * its own array.  Values that repeat across packages (groups, versions and users) are dictionary encoded, and sizes and
+ * dates are pre-parsed into primitive arrays so that aggregations do not need to parse anything.  The original size and
+ * date strings are rebuilt from the parsed values when a package is materialized, so only the ones that can't be rebuilt
+ * (e.g. a missing date or an unusual format) are kept in the dictionary.
+ *
+ * ListResponse.Package records are only created when they are requested (using get(), stream(), largest(), etc.).
+ *
+ */
+public final class PackageCatalog {
+	private static final long NO_DATE = Long.MIN_VALUE;
+	private static final int NUMERIC_SIZE = -1;
+
+	private final String[] dictionary;
+	private final String[] names;
+	private final String[] downloadNames;
+	private final int[] groups;
+	private final int[] versions;
+	private final int[] createdBys;
+	private final int[] lastModifiedBys;
+	private final int[] lastUnpackedBys;
+	private final int[] createdStrings;		// Index of the raw date string, or -1 - style if it can be rebuilt (see dateString()).
+	private final int[] lastModifiedStrings;
+	private final int[] lastUnpackedStrings;
+	private final int[] sizeStrings;		// NUMERIC_SIZE if the size was a number, otherwise index of the raw size string.
+	private final long[] sizes;				// -1 if the size was not a number
+	private final long[] createdMillis;		// NO_DATE if there is no date
+	private final long[] lastModifiedMillis;
+	private final long[] lastUnpackedMillis;
+
+	private PackageCatalog(Builder builder) {
+		int count = builder.count;
+		this.dictionary = builder.dictionary.toArray(String[]::new);
+		this.names = Arrays.copyOf(builder.names, count);
+		this.downloadNames = Arrays.copyOf(builder.downloadNames, count);
+		this.groups = Arrays.copyOf(builder.groups, count);
+		this.versions = Arrays.copyOf(builder.versions, count);
+		this.createdBys = Arrays.copyOf(builder.createdBys, count);
+		this.lastModifiedBys = Arrays.copyOf(builder.lastModifiedBys, count);
+		this.lastUnpackedBys = Arrays.copyOf(builder.lastUnpackedBys, count);
+		this.createdStrings = Arrays.copyOf(builder.createdStrings, count);
+		this.lastModifiedStrings = Arrays.copyOf(builder.lastModifiedStrings, count);
+		this.lastUnpackedStrings = Arrays.copyOf(builder.lastUnpackedStrings, count);
+		this.sizeStrings = Arrays.copyOf(builder.sizeStrings, count);
+		this.sizes = Arrays.copyOf(builder.sizes, count);
+		this.createdMillis = Arrays.copyOf(builder.createdMillis, count);
+		this.lastModifiedMillis = Arrays.copyOf(builder.lastModifiedMillis, count);
+		this.lastUnpackedMillis = Arrays.copyOf(builder.lastUnpackedMillis, count);
+	}
+
+	/**
+	 * Create a catalog from a collection of packages.
+	 *
+	 * @param packages packages to be included in the catalog
+	 * @return new catalog
+	 */
+	public static PackageCatalog from(Collection<ListResponse.Package> packages) {
+		return from(packages.stream());
+	}
+
+	/**
+	 * Create a catalog from a stream of packages (e.g. PackageManagerClient.streamPackages()).
+	 *
+	 * @param packages packages to be included in the catalog
+	 * @return new catalog
+	 * @throws IllegalArgumentException if a package contains a date in an unrecognized format
+	 */
+	public static PackageCatalog from(Stream<ListResponse.Package> packages) {
+		Builder builder = builder();
+		packages.forEachOrdered(builder::add);
+		return builder.build();
+	}
+
+	/**
+	 * Returns a builder object that creates a catalog one package at a time.
+	 *
+	 * @return new builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Number of packages in the catalog
+	 *
+	 * @return number of packages
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * Materializes a package from the catalog.
+	 *
+	 * @param index index of the package (0 to size() - 1)
+	 * @return package
+	 */
+	public ListResponse.Package get(int index) {
+		return new ListResponse.Package(dictionary[groups[index]],
+										names[index],
+										dictionary[versions[index]],
+										downloadNames[index],
+										sizeStrings[index] == NUMERIC_SIZE ? Long.toString(sizes[index]) : dictionary[sizeStrings[index]],
+										dateString(createdStrings[index], createdMillis[index]),
+										dictionary[createdBys[index]],
+										dateString(lastModifiedStrings[index], lastModifiedMillis[index]),
+										dictionary[lastModifiedBys[index]],
+										dateString(lastUnpackedStrings[index], lastUnpackedMillis[index]),
+										dictionary[lastUnpackedBys[index]]
+										);
+	}
+
+	// Dates that can be rebuilt are stored as -1 - style, so that they can't be confused with a dictionary index.
+	private String dateString(int code, long millis) {
+		return code >= 0 ? dictionary[code] : AemDateParser.format(Instant.ofEpochMilli(millis), -1 - code);
+	}
+
+	/**
+	 * Materializes all the packages in the catalog, one at a time.
+	 *
+	 * @return Stream of packages
+	 */
+	public Stream<ListResponse.Package> stream() {
+		return IntStream.range(0, size()).mapToObj(this::get);
+	}
+
+	/**
+	 * Group of the package at index
+	 *
+	 * @param index index of the package (0 to size() - 1)
+	 * @return group name
+	 */
+	public String group(int index) {
+		return dictionary[groups[index]];
+	}
+
+	/**
+	 * Size of the package at index
+	 *
+	 * @param index index of the package (0 to size() - 1)
+	 * @return size in bytes (-1 if AEM did not report a size)
+	 */
+	public long sizeInBytes(int index) {
+		return sizes[index];
+	}
+
+	/**
+	 * Date that the package at index was created
+	 *
+	 * @param index index of the package (0 to size() - 1)
+	 * @return creation date (if AEM reported one)
+	 */
+	public Optional<Instant> created(int index) {
+		return toInstant(createdMillis[index]);
+	}
+
+	/**
+	 * Date that the package at index was last modified
+	 *
+	 * @param index index of the package (0 to size() - 1)
+	 * @return last modified date (if AEM reported one)
+	 */
+	public Optional<Instant> lastModified(int index) {
+		return toInstant(lastModifiedMillis[index]);
+	}
+
+	/**
+	 * Date that the package at index was last unpacked
+	 *
+	 * @param index index of the package (0 to size() - 1)
+	 * @return last unpacked date (if AEM reported one)
+	 */
+	public Optional<Instant> lastUnpacked(int index) {
+		return toInstant(lastUnpackedMillis[index]);
+	}
+
+	private static Optional<Instant> toInstant(long millis) {
+		return millis == NO_DATE ? Optional.empty() : Optional.of(Instant.ofEpochMilli(millis));
+	}
+
+	/**
+	 * Total size of all the packages in the catalog.
+	 *
+	 * @return total size in bytes (packages with no size are ignored)
+	 */
+	public long totalBytes() {
+		long total = 0;
+		for (long size : sizes) {
+			total += Math.max(size, 0);
+		}
+		return total;
+	}
+
+	/**
+	 * Total size of the packages in each group.
+	 *
+	 * @return map of group name to total size in bytes (packages with no size are ignored)
+	 */
+	public Map<String, Long> bytesByGroup() {
+		long[] totals = new long[dictionary.length];
+		for (int i = 0; i < groups.length; i++) {
+			totals[groups[i]] += Math.max(sizes[i], 0);
+		}
+		return groupTotals(totals);
+	}
+
+	/**
+	 * Number of packages in each group.
+	 *
+	 * @return map of group name to number of packages
+	 */
+	public Map<String, Long> countByGroup() {
+		long[] totals = new long[dictionary.length];
+		for (int group : groups) {
+			totals[group]++;
+		}
+		return groupTotals(totals);
+	}
+
+	private Map<String, Long> groupTotals(long[] totals) {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (int group : groups) {
+			result.putIfAbsent(dictionary[group], totals[group]);
+		}
+		return result;
+	}
+
+	/**
+	 * The largest packages in the catalog.
+	 *
+	 * @param n maximum number of packages to return
+	 * @return up to n packages, largest first
+	 */
+	public List<ListResponse.Package> largest(int n) {
+		return topN(n, sizes, false);
+	}
+
+	/**
+	 * The packages that were unpacked the longest time ago.  Packages that have never been unpacked are not included.
+	 *
+	 * @param n maximum number of packages to return
+	 * @return up to n packages, least recently unpacked first
+	 */
+	public List<ListResponse.Package> leastRecentlyUnpacked(int n) {
+		return topN(n, lastUnpackedMillis, true);
+	}
+
+	/**
+	 * The oldest packages in the catalog (by creation date).  Packages without a creation date are not included.
+	 *
+	 * @param n maximum number of packages to return
+	 * @return up to n packages, oldest first
+	 */
+	public List<ListResponse.Package> oldest(int n) {
+		return topN(n, createdMillis, true);
+	}
+
+	// Selects the n packages with the largest (or smallest if ascending is true) values using a bounded heap of indexes.
+	// Entries with NO_DATE are skipped.
+	private List<ListResponse.Package> topN(int n, long[] values, boolean ascending) {
+		if (n <= 0) {
+			return List.of();
+		}
+		IndexHeap heap = new IndexHeap(Math.min(n, values.length), values, ascending);
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != NO_DATE) {
+				heap.offer(i);
+			}
+		}
+		int[] indexes = heap.drainInOrder();
+		List<ListResponse.Package> result = new ArrayList<>(indexes.length);
+		for (int index : indexes) {
+			result.add(get(index));
+		}
+		return result;
+	}
+
+	/**
+	 * Fixed size binary heap of package indexes.  The root is the "worst" entry retained so far, so that it can be
+	 * replaced when a better entry is offered.
+	 */
+	private static final class IndexHeap {
+		private final int[] heap;
+		private final long[] values;
+		private final boolean ascending;
+		private int size = 0;
+
+		private IndexHeap(int capacity, long[] values, boolean ascending) {
+			this.heap = new int[capacity];
+			this.values = values;
+			this.ascending = ascending;
+		}
+
+		// true if entry a is worse than entry b (i.e. should be evicted first)
+		private boolean worse(int a, int b) {
+			return ascending ? values[a] > values[b] : values[a] < values[b];
+		}
+
+		private void offer(int index) {
+			if (heap.length == 0) {
+				return;
+			}
+			if (size < heap.length) {
+				heap[size] = index;
+				siftUp(size++);
+			} else if (worse(heap[0], index)) {
+				heap[0] = index;
+				siftDown(0);
+			}
+		}
+
+		private int[] drainInOrder() {
+			int[] result = new int[size];
+			for (int i = size - 1; i >= 0; i--) {
+				result[i] = heap[0];
+				heap[0] = heap[--size];
+				siftDown(0);
+			}
+			return result;
+		}
+
+		private void siftUp(int pos) {
+			while (pos > 0) {
+				int parent = (pos - 1) / 2;
+				if (!worse(heap[pos], heap[parent])) {
+					return;
+				}
+				swap(pos, parent);
+				pos = parent;
+			}
+		}
+
+		private void siftDown(int pos) {
+			while (true) {
+				int left = 2 * pos + 1;
+				int right = left + 1;
+				int worst = pos;
+				if (left < size && worse(heap[left], heap[worst])) {
+					worst = left;
+				}
+				if (right < size && worse(heap[right], heap[worst])) {
+					worst = right;
+				}
+				if (worst == pos) {
+					return;
+				}
+				swap(pos, worst);
+				pos = worst;
+			}
+		}
+
+		private void swap(int a, int b) {
+			int temp = heap[a];
+			heap[a] = heap[b];
+			heap[b] = temp;
+		}
+	}
+
+	/**
+	 * Builder that adds packages to a catalog one at a time.
+	 */
+	public static final class Builder {
+		private static final int INITIAL_CAPACITY = 256;
+
+		private final List<String> dictionary = new ArrayList<>();
+		private final Map<String, Integer> dictionaryIndex = new HashMap<>();
+		private int count = 0;
+		private String[] names = new String[INITIAL_CAPACITY];
+		private String[] downloadNames = new String[INITIAL_CAPACITY];
+		private int[] groups = new int[INITIAL_CAPACITY];
+		private int[] versions = new int[INITIAL_CAPACITY];
+		private int[] createdBys = new int[INITIAL_CAPACITY];
+		private int[] lastModifiedBys = new int[INITIAL_CAPACITY];
+		private int[] lastUnpackedBys = new int[INITIAL_CAPACITY];
+		private int[] createdStrings = new int[INITIAL_CAPACITY];
+		private int[] lastModifiedStrings = new int[INITIAL_CAPACITY];
+		private int[] lastUnpackedStrings = new int[INITIAL_CAPACITY];
+		private int[] sizeStrings = new int[INITIAL_CAPACITY];
+		private long[] sizes = new long[INITIAL_CAPACITY];
+		private long[] createdMillis = new long[INITIAL_CAPACITY];
+		private long[] lastModifiedMillis = new long[INITIAL_CAPACITY];
+		private long[] lastUnpackedMillis = new long[INITIAL_CAPACITY];
+
+		private Builder() {
+		}
+
+		/**
+		 * Add a package to the catalog.
+		 *
+		 * @param pkg package to be added
+		 * @return builder
+		 * @throws IllegalArgumentException if the package contains a date in an unrecognized format
+		 */
+		public Builder add(ListResponse.Package pkg) {
+			PackageMetadata metadata = PackageMetadata.from(pkg);
+			ensureCapacity();
+			int i = count++;
+			names[i] = pkg.name();
+			downloadNames[i] = pkg.downloadName();
+			groups[i] = encode(pkg.group());
+			versions[i] = encode(pkg.version());
+			createdBys[i] = encode(pkg.createdBy());
+			lastModifiedBys[i] = encode(pkg.lastModifiedBy());
+			lastUnpackedBys[i] = encode(pkg.lastUnpackedBy());
+			createdStrings[i] = encodeDate(pkg.created(), metadata.created());
+			lastModifiedStrings[i] = encodeDate(pkg.lastModified(), metadata.lastModified());
+			lastUnpackedStrings[i] = encodeDate(pkg.lastUnpacked(), metadata.lastUnpacked());
+			sizes[i] = metadata.size();
+			// Only keep the original string if it can't be reproduced from the parsed size.
+			sizeStrings[i] = metadata.size() >= 0 && Long.toString(metadata.size()).equals(pkg.size()) ? NUMERIC_SIZE : encode(pkg.size());
+			createdMillis[i] = toMillis(metadata.created());
+			lastModifiedMillis[i] = toMillis(metadata.lastModified());
+			lastUnpackedMillis[i] = toMillis(metadata.lastUnpacked());
+			return this;
+		}
+
+		/**
+		 * Build the catalog.
+		 *
+		 * @return new catalog containing the packages added so far
+		 */
+		public PackageCatalog build() {
+			return new PackageCatalog(this);
+		}
+
+		private int encode(String value) {
+			Integer index = dictionaryIndex.get(value);
+			if (index == null) {
+				index = dictionary.size();
+				dictionary.add(value);
+				dictionaryIndex.put(value, index);
+			}
+			return index;
+		}
+
+		// Only keep the original string if it can't be reproduced from the parsed date.
+		private int encodeDate(String value, Optional<Instant> date) {
+			if (date.isPresent()) {
+				OptionalInt style = AemDateParser.styleOf(value, date.get());
+				if (style.isPresent()) {
+					return -1 - style.getAsInt();
+				}
+			}
+			return encode(value);
+		}
+
+		private static long toMillis(Optional<Instant> instant) {
+			return instant.map(Instant::toEpochMilli).orElse(NO_DATE);
+		}
+
+		private void ensureCapacity() {
+			if (count < names.length) {
+				return;
+			}
+			int newCapacity = names.length * 2;
+			names = Arrays.copyOf(names, newCapacity);
+			downloadNames = Arrays.copyOf(downloadNames, newCapacity);
+			groups = Arrays.copyOf(groups, newCapacity);
+			versions = Arrays.copyOf(versions, newCapacity);
+			createdBys = Arrays.copyOf(createdBys, newCapacity);
+			lastModifiedBys = Arrays.copyOf(lastModifiedBys, newCapacity);
+			lastUnpackedBys = Arrays.copyOf(lastUnpackedBys, newCapacity);
+			createdStrings = Arrays.copyOf(createdStrings, newCapacity);
+			lastModifiedStrings = Arrays.copyOf(lastModifiedStrings, newCapacity);
+			lastUnpackedStrings = Arrays.copyOf(lastUnpackedStrings, newCapacity);
+			sizeStrings = Arrays.copyOf(sizeStrings, newCapacity);
+			sizes = Arrays.copyOf(sizes, newCapacity);
+			createdMillis = Arrays.copyOf(createdMillis, newCapacity);
+			lastModifiedMillis = Arrays.copyOf(lastModifiedMillis, newCapacity);
+			lastUnpackedMillis = Arrays.copyOf(lastUnpackedMillis, newCapacity);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com._4point.aem.package_manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import com._4point.aem.package_manager.ListResponse.Package;
+
+/**
+ * Differences between two snapshots of the packages on an AEM instance.
+ *
+ * Packages are matched by group, name and version.  A package that is present in both snapshots but has different
+ * details (e.g. it was reinstalled, so it has a new lastUnpacked) is reported as changed.  If exactly one version of a
+ * package was removed and exactly one version of the same package (same group and name) was added, then this is
+ * reported as a change in version rather than as a removal and an addition.
+ *
+ * The snapshots are compared using hash joins, so the time taken grows linearly with the number of packages.
+ *
+ * @param added packages that are only in the later snapshot (in the order they appear in that snapshot)
+ * @param removed packages that are only in the earlier snapshot (in the order they appear in that snapshot)
+ * @param changed packages that are in both snapshots but have changed (in the order they appear in the later snapshot)
+ */
+public record PackageDiff(List<Package> added, List<Package> removed, List<Change> changed) {
+	private static final Map<String, Function<Package, String>> FIELDS = fields();
+
+	/**
+	 * A package that has changed between snapshots.
+	 *
+	 * @param before package in the earlier snapshot
+	 * @param after package in the later snapshot
+	 */
+	public record Change(Package before, Package after) {
+		/**
+		 * Indicates whether the version of the package changed.
+		 *
+		 * @return true if the version changed
+		 */
+		public boolean versionChanged() {
+			return !before.version().equals(after.version());
+		}
+
+		/**
+		 * Names of the fields that changed (e.g. "version", "lastUnpacked").
+		 *
+		 * @return field names (in the order they are declared in ListResponse.Package)
+		 */
+		public List<String> changedFields() {
+			return FIELDS.entrySet().stream()
+									.filter(e->!Objects.equals(e.getValue().apply(before), e.getValue().apply(after)))
+									.map(Map.Entry::getKey)
+									.toList();
+		}
+	}
+
+	/**
+	 * Indicates whether there are no differences.
+	 *
+	 * @return true if the snapshots contain the same packages
+	 */
+	public boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+	}
+
+	/**
+	 * Compare two snapshots.
+	 *
+	 * @param before earlier snapshot
+	 * @param after later snapshot
+	 * @return differences between the snapshots
+	 */
+	public static PackageDiff between(ListResponse before, ListResponse after) {
+		return between(before.packages(), after.packages());
+	}
+
+	/**
+	 * Compare two snapshots.
+	 *
+	 * @param before packages in the earlier snapshot
+	 * @param after packages in the later snapshot
+	 * @return differences between the snapshots
+	 */
+	public static PackageDiff between(Collection<Package> before, Collection<Package> after) {
+		// Match on group, name and version.
+		Map<PackageIndex.Key, Package> unmatchedBefore = new LinkedHashMap<>(capacityFor(before.size()));
+		for (Package pkg : before) {
+			unmatchedBefore.putIfAbsent(PackageIndex.Key.of(pkg), pkg);
+		}
+		List<Package> unmatchedAfter = new ArrayList<>();
+		List<Change> changed = new ArrayList<>();
+		for (Package pkg : after) {
+			Package previous = unmatchedBefore.remove(PackageIndex.Key.of(pkg));
+			if (previous == null) {
+				unmatchedAfter.add(pkg);
+			} else if (!previous.equals(pkg)) {
+				changed.add(new Change(previous, pkg));
+			}
+		}
+		if (unmatchedAfter.isEmpty() || unmatchedBefore.isEmpty()) {
+			return new PackageDiff(List.copyOf(unmatchedAfter), List.copyOf(unmatchedBefore.values()), List.copyOf(changed));
+		}
+
+		// Pair up the remaining packages that only differ in version.
+		Map<GroupAndName, List<Package>> removedByName = new HashMap<>();
+		for (Package pkg : unmatchedBefore.values()) {
+			removedByName.computeIfAbsent(GroupAndName.of(pkg), __->new ArrayList<>(1)).add(pkg);
+		}
+		Map<GroupAndName, List<Package>> addedByName = new HashMap<>();
+		for (Package pkg : unmatchedAfter) {
+			addedByName.computeIfAbsent(GroupAndName.of(pkg), __->new ArrayList<>(1)).add(pkg);
+		}
+		List<Package> added = new ArrayList<>();
+		for (Package pkg : unmatchedAfter) {
+			GroupAndName key = GroupAndName.of(pkg);
+			List<Package> removedVersions = removedByName.get(key);
+			if (removedVersions != null && removedVersions.size() == 1 && addedByName.get(key).size() == 1) {
+				Package previous = removedVersions.get(0);
+				unmatchedBefore.remove(PackageIndex.Key.of(previous));
+				changed.add(new Change(previous, pkg));
+			} else {
+				added.add(pkg);
+			}
+		}
+		return new PackageDiff(List.copyOf(added), List.copyOf(unmatchedBefore.values()), List.copyOf(changed));
+	}
+
+	private record GroupAndName(String group, String name) {
+		private static GroupAndName of(Package pkg) {
+			return new GroupAndName(pkg.group(), pkg.name());
+		}
+	}
+
+	// Sizes a HashMap so that it does not need to be resized while it is being filled.
+	private static int capacityFor(int size) {
+		return (int)(size / 0.75f) + 1;
+	}
+
+	private static Map<String, Function<Package, String>> fields() {
+		Map<String, Function<Package, String>> fields = new LinkedHashMap<>();
+		fields.put("group", Package::group);
+		fields.put("name", Package::name);
+		fields.put("version", Package::version);
+		fields.put("downloadName", Package::downloadName);
+		fields.put("size", Package::size);
+		fields.put("created", Package::created);
+		fields.put("createdBy", Package::createdBy);
+		fields.put("lastModified", Package::lastModified);
+		fields.put("lastModifiedBy", Package::lastModifiedBy);
+		fields.put("lastUnpacked", Package::lastUnpacked);
+		fields.put("lastUnpackedBy", Package::lastUnpackedBy);
+		return Collections.unmodifiableMap(fields);
+	}
+}
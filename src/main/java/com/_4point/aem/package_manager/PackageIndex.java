@@ -0,0 +1,163 @@
+package com._4point.aem.package_manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Immutable index over a snapshot of the packages on an AEM instance.
+ * 
+ * The index is built once (in linear time) and then supports constant time lookups by group, name and version, lookups
+ * of all the versions of a package and lookups of all the packages under a group path.  This is intended for tools
+ * that need to ask "is this package already present?" many times against the same package list.
+ * 
+ */
+public final class PackageIndex {
+	private final Map<Key, ListResponse.Package> byKey;
+	private final Map<String, List<ListResponse.Package>> byName;
+	private final NavigableMap<String, List<ListResponse.Package>> byGroup;	// Sorted so that group paths can be located by prefix.
+	private final int size;
+	
+	/**
+	 * Uniquely identifies a package on an AEM instance.
+	 * 
+	 * @param group group name of the package
+	 * @param name name of the package
+	 * @param version version of the package
+	 */
+	public record Key(String group, String name, String version) {
+		public static Key of(ListResponse.Package pkg) {
+			return new Key(pkg.group(), pkg.name(), pkg.version());
+		}
+	}
+	
+	private PackageIndex(Map<Key, ListResponse.Package> byKey, Map<String, List<ListResponse.Package>> byName, NavigableMap<String, List<ListResponse.Package>> byGroup, int size) {
+		this.byKey = byKey;
+		this.byName = byName;
+		this.byGroup = byGroup;
+		this.size = size;
+	}
+
+	/**
+	 * Build an index from a collection of packages.
+	 * 
+	 * @param packages packages to be indexed
+	 * @return new index
+	 */
+	public static PackageIndex from(Collection<ListResponse.Package> packages) {
+		return from(packages.stream());
+	}
+	
+	/**
+	 * Build an index from a stream of packages (e.g. PackageManagerClient.streamPackages()).
+	 * 
+	 * @param packages packages to be indexed
+	 * @return new index
+	 */
+	public static PackageIndex from(Stream<ListResponse.Package> packages) {
+		Map<Key, ListResponse.Package> byKey = new HashMap<>();
+		Map<String, List<ListResponse.Package>> byName = new HashMap<>();
+		NavigableMap<String, List<ListResponse.Package>> byGroup = new TreeMap<>();
+		int[] size = { 0 };
+		packages.forEachOrdered(pkg->{
+			size[0]++;
+			byKey.putIfAbsent(Key.of(pkg), pkg);
+			byName.computeIfAbsent(pkg.name(), __->new ArrayList<>()).add(pkg);
+			byGroup.computeIfAbsent(pkg.group(), __->new ArrayList<>()).add(pkg);
+		});
+		byName.replaceAll((__, list)->List.copyOf(list));
+		byGroup.replaceAll((__, list)->List.copyOf(list));
+		return new PackageIndex(Map.copyOf(byKey), Map.copyOf(byName), Collections.unmodifiableNavigableMap(byGroup), size[0]);
+	}
+	
+	/**
+	 * Number of packages in the index.
+	 * 
+	 * @return number of packages
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Locate a specific package.
+	 * 
+	 * @param group group name of the package
+	 * @param name name of the package
+	 * @param version version of the package
+	 * @return the package (if present)
+	 */
+	public Optional<ListResponse.Package> find(String group, String name, String version) {
+		return find(new Key(group, name, version));
+	}
+
+	/**
+	 * Locate a specific package.
+	 * 
+	 * @param key group, name and version of the package
+	 * @return the package (if present)
+	 */
+	public Optional<ListResponse.Package> find(Key key) {
+		return Optional.ofNullable(byKey.get(key));
+	}
+
+	/**
+	 * Determine whether a specific package is present.
+	 * 
+	 * @param group group name of the package
+	 * @param name name of the package
+	 * @param version version of the package
+	 * @return true if the package is present
+	 */
+	public boolean contains(String group, String name, String version) {
+		return byKey.containsKey(new Key(group, name, version));
+	}
+
+	/**
+	 * Locate all the packages with a given name (regardless of group or version).
+	 * 
+	 * @param name name of the package
+	 * @return all packages with that name (in the order they were indexed)
+	 */
+	public List<ListResponse.Package> versionsOf(String name) {
+		return byName.getOrDefault(name, List.of());
+	}
+
+	/**
+	 * Locate all the versions of a package within a group.
+	 * 
+	 * @param group group name of the package
+	 * @param name name of the package
+	 * @return all versions of the package (in the order they were indexed)
+	 */
+	public List<ListResponse.Package> versionsOf(String group, String name) {
+		return versionsOf(name).stream().filter(p->p.group().equals(group)).toList();
+	}
+
+	/**
+	 * Locate all the packages in a group or any of its sub-groups.
+	 * 
+	 * Group paths are matched a whole segment at a time, so "adobe/aem6" matches packages in "adobe/aem6" and 
+	 * "adobe/aem6/sample" but not "adobe/aem60".
+	 * 
+	 * @param groupPath group path (e.g. "adobe/aem6").  An empty path matches all groups.
+	 * @return all packages in the group and its sub-groups (ordered by group)
+	 */
+	public List<ListResponse.Package> inGroup(String groupPath) {
+		String prefix = groupPath.endsWith("/") ? groupPath.substring(0, groupPath.length() - 1) : groupPath;
+		if (prefix.isEmpty()) {
+			return byGroup.values().stream().flatMap(List::stream).toList();
+		}
+		List<ListResponse.Package> result = new ArrayList<>(byGroup.getOrDefault(prefix, List.of()));
+		// Sub-groups sort between "<prefix>/" (inclusive) and "<prefix>0" (exclusive) since '0' is the character after '/'.
+		byGroup.subMap(prefix + "/", true, prefix + "0", false).values().forEach(result::addAll);
+		return Collections.unmodifiableList(result);
+	}
+}
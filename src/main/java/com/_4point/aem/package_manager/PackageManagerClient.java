@@ -1,18 +1,33 @@
 package com._4point.aem.package_manager;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com._4point.aem.package_manager.AemConfig.SimpleAemConfigBuilder;
+import com._4point.aem.package_manager.ListResponse.ListResponseException;
 import com._4point.aem.package_manager.rest_client.RestClient;
 import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
+import com._4point.aem.package_manager.rest_client.RestClient.GetRequest;
+import com._4point.aem.package_manager.rest_client.RestClient.MultipartPayload;
 import com._4point.aem.package_manager.rest_client.RestClient.Response;
 import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
 import com._4point.aem.package_manager.rest_client.RestClient.UntargettedRestClient;
+import com._4point.aem.package_manager.rest_client.RestClientFactory;
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
+import com._4point.aem.package_manager.rest_client.jersey.JerseyConnectionPool;
 import com._4point.aem.package_manager.rest_client.jersey.JerseyRestClient;
-import com._4point.aem.package_manager.rest_client.jersey.JerseyRestClient.JerseyUntargettedRestClient;
 
 /**
  * PackageManagerClient provides a client that lets someone perform operations on a remote AEM server
@@ -27,16 +42,26 @@ import com._4point.aem.package_manager.rest_client.jersey.JerseyRestClient.Jerse
  * 
  */
 public class PackageManagerClient {
+	private static final ContentType LIST_CONTENT_TYPE = ContentType.of("text/plain");	// Not sure why AEM returnes "text/plain" when it is clearly XML.
+
 	private final RestClient listAllPackagesClient;
+	private final RestClient queryPackagesClient;
 	private final UntargettedRestClient commandPackageClient;
 	private final RestClient uploadPackageClient;
 	private final Logger logger;
+	private final Optional<ListPackagesCache> listCache;
+	private final Executor asyncExecutor;
+	private final RetryPolicy retryPolicy;
 	
-	private PackageManagerClient(AemConfig aemConfig, Logger logger) {
-		this.listAllPackagesClient = new JerseyRestClient(aemConfig, "/crx/packmgr/service.jsp");
-		this.commandPackageClient = new JerseyUntargettedRestClient(aemConfig);
-		this.uploadPackageClient = new JerseyRestClient(aemConfig, "/crx/packmgr/service/.json");
+	private PackageManagerClient(AemConfig aemConfig, Logger logger, Optional<Duration> listCacheTtl, RestClientFactory restClientFactory, Executor asyncExecutor, RetryPolicy retryPolicy) {
+		this.listAllPackagesClient = restClientFactory.restClient(aemConfig, "/crx/packmgr/service.jsp");
+		this.queryPackagesClient = restClientFactory.restClient(aemConfig, "/crx/packmgr/list.jsp");
+		this.commandPackageClient = restClientFactory.untargettedRestClient(aemConfig);
+		this.uploadPackageClient = restClientFactory.restClient(aemConfig, "/crx/packmgr/service/.json");
 		this.logger = logger;;
+		this.listCache = listCacheTtl.map(ttl->new ListPackagesCache(ttl, logger));
+		this.asyncExecutor = asyncExecutor;
+		this.retryPolicy = retryPolicy;
 	}
 	
 	// List all packages
@@ -44,25 +69,223 @@ public class PackageManagerClient {
 	/**
 	 * List all the packages on the AEM instance.
 	 * 
+	 * If the client was built with a list cache TTL, then a cached list may be returned. 
+	 * 
 	 * @return A ListResponse object containing all the data from the response.
 	 * @throws PackageManagerException if a network/IO exception occurs. 
 	 */
 	public ListResponse listPackages() {
 		try {
 			logger.log("Listing packages");
-			Optional<Response> fromServer = this.listAllPackagesClient.getRequestBuilder()
-									  .queryParam("cmd", "ls")
-									  .build()
-									  .getFromServer(ContentType.of("text/plain"));	// Not sure why AEM returnes "text/plain" when it is clearly XML.
-			
-			ListResponse listResponse = ListResponse.from(XmlDocument.initializeXmlDoc(fromServer.orElseThrow().data().readAllBytes()));
+			ListResponse listResponse = listCache.isPresent() ? listCache.get().get(this::fetchPackageList)
+															  : fetchPackageList(Optional.empty(), Optional.empty()).response().orElseThrow();
 			logger.log(()->"  Found " + listResponse.packages().size() + " packages");
 			return listResponse;
-		} catch (RestClientException | IOException e) {
+		} catch (RestClientException | IOException | ListResponseException e) {
+			throw new PackageManagerException("Error while listing packages.", e);
+		}
+	}
+
+	/**
+	 * Asynchronous version of listPackages().
+	 * 
+	 * If the client was built with a list cache TTL, then the cache is consulted on the async executor (which may block
+	 * while another thread is fetching the list).
+	 * 
+	 * @return A future ListResponse object containing all the data from the response.  It completes exceptionally with
+	 * 		   a PackageManagerException if a network/IO exception occurs.
+	 */
+	public CompletableFuture<ListResponse> listPackagesAsync() {
+		if (listCache.isPresent()) {
+			return CompletableFuture.supplyAsync(this::listPackages, asyncExecutor);
+		}
+		logger.log("Listing packages");
+		return AsyncCalls.call(retryPolicy, RetryPolicy.Operation.LIST_PACKAGES, logger,
+							   ()->packageListRequest(Optional.empty(), Optional.empty()).getFromServerAsync(LIST_CONTENT_TYPE, asyncExecutor),
+							   fromServer->{
+								   ListResponse listResponse = decodePackageList(fromServer, false).response().orElseThrow();
+								   logger.log(()->"  Found " + listResponse.packages().size() + " packages");
+								   return listResponse;
+							   },
+							   packageManagerException("Error while listing packages."),
+							   asyncExecutor);
+	}
+
+	/**
+	 * Stream all the packages on the AEM instance.
+	 * 
+	 * Packages are decoded from the response as they are consumed, so memory use does not grow with the number of
+	 * packages on the AEM instance.  The returned Stream holds the HTTP connection open until it is exhausted or closed,
+	 * so it should be used within a try-with-resources block if it may not be fully consumed (e.g. findFirst()).
+	 * 
+	 * Because AEM reports the status after the list of packages, a non-successful status is reported by throwing
+	 * a PackageManagerException once the last package has been consumed.
+	 * 
+	 * If the client was built with a list cache TTL, then the packages are streamed from the cached list instead.
+	 * 
+	 * @return A Stream of the packages on the AEM instance.
+	 * @throws PackageManagerException if a network/IO exception occurs or AEM returns a non-successful status. 
+	 */
+	public Stream<ListResponse.Package> streamPackages() {
+		if (listCache.isPresent()) {
+			ListResponse listResponse = listPackages();
+			ListResponse.Status status = listResponse.status();
+			if (status.code() < 200 || status.code() > 299) {
+				throw new PackageManagerException("Error returned from List Packages call (status code=" + status.code() + ", reason='" + status.text() + "'.");
+			}
+			return listResponse.packages().stream();
+		}
+		try {
+			logger.log("Streaming packages");
+			ListResponseReader reader = ListResponseReader.open(requestPackageList());
+			return StreamSupport.stream(new PackageSpliterator(reader), false).onClose(reader::close);
+		} catch (RestClientException | ListResponseException e) {
 			throw new PackageManagerException("Error while listing packages.", e);
 		}
 	}
+
+	// Only the request is retried.  Once packages are being streamed, a failure is reported to the consumer of the stream.
+	private InputStream requestPackageList() throws RestClientException {
+		return retryPolicy.call(RetryPolicy.Operation.LIST_PACKAGES, logger, ()->packageListRequest(Optional.empty(), Optional.empty()).getFromServer(LIST_CONTENT_TYPE).orElseThrow().data());
+	}
+
+	// Sends If-None-Match/If-Modified-Since if validators are supplied, in which case an empty response means "Not Modified".
+	private GetRequest packageListRequest(Optional<String> eTag, Optional<String> lastModified) {
+		GetRequest.Builder requestBuilder = this.listAllPackagesClient.getRequestBuilder()
+																	  .queryParam("cmd", "ls");
+		eTag.ifPresent(t->requestBuilder.header("If-None-Match", t));
+		lastModified.ifPresent(lm->requestBuilder.header("If-Modified-Since", lm));
+		return requestBuilder.build();
+	}
+
+	private ListPackagesCache.Fetched fetchPackageList(Optional<String> eTag, Optional<String> lastModified) throws RestClientException {
+		return retryPolicy.call(RetryPolicy.Operation.LIST_PACKAGES, logger, ()->decodePackageList(packageListRequest(eTag, lastModified).getFromServer(LIST_CONTENT_TYPE), eTag.isPresent() || lastModified.isPresent()));
+	}
+
+	private static ListPackagesCache.Fetched decodePackageList(Optional<Response> fromServer, boolean conditional) throws RestClientException {
+		if (fromServer.isEmpty()) {
+			if (!conditional) {
+				throw new RestClientException("No list of packages was returned from AEM.");
+			}
+			return ListPackagesCache.Fetched.notModified();
+		}
+		Response response = fromServer.get();
+		ListResponse listResponse = response.body((contentType, data)->ListResponse.from(data));
+		return new ListPackagesCache.Fetched(Optional.of(listResponse), response.retrieveHeader("ETag"), response.retrieveHeader("Last-Modified"));
+	}
+
+	// Hands out packages from a ListResponseReader, checking the status returned by AEM once all packages have been read.
+	private class PackageSpliterator extends Spliterators.AbstractSpliterator<ListResponse.Package> {
+		private final ListResponseReader reader;
+		private int count = 0;
+
+		private PackageSpliterator(ListResponseReader reader) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+			this.reader = reader;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super ListResponse.Package> action) {
+			ListResponse.Package pkg;
+			try {
+				pkg = reader.nextPackage();
+			} catch (ListResponseException e) {
+				reader.close();
+				throw new PackageManagerException("Error while listing packages.", e);
+			}
+			if (pkg == null) {
+				reader.close();
+				ListResponse.Status status = reader.status().orElseThrow(()->new PackageManagerException("Error while listing packages (no status returned)."));
+				if (status.code() < 200 || status.code() > 299) {
+					throw new PackageManagerException("Error returned from List Packages call (status code=" + status.code() + ", reason='" + status.text() + "'.");
+				}
+				logger.log(()->"  Streamed " + count + " packages");
+				return false;
+			}
+			count++;
+			action.accept(pkg);
+			return true;
+		}
+	}
 	
+	// List packages using the JSON endpoint
+	// curl -u <user>:<password> "http://<host>:<port>/crx/packmgr/list.jsp?group=my_packages&q=text&start=0&limit=100"
+	/**
+	 * List one page of the packages that match a query.
+	 * 
+	 * This uses Package Manager's JSON list endpoint, which filters the packages on the server and returns them a page
+	 * at a time, rather than returning every package on the instance.
+	 * 
+	 * @param query filter and page size to use
+	 * @param start index of the first package to be returned
+	 * @return page of packages
+	 * @throws PackageManagerException if a network/IO exception occurs or the response cannot be decoded. 
+	 */
+	public PagedListResponse listPackages(PackageQuery query, int start) {
+		try {
+			logger.log(()->"Listing packages " + start + " to " + (start + query.pageSize() - 1));
+			return retryPolicy.call(RetryPolicy.Operation.LIST_PACKAGES, logger, ()->decodePage(queryRequest(query, start).getFromServer(ContentType.APPLICATION_JSON), start));
+		} catch (RestClientException | ListResponseException e) {
+			throw new PackageManagerException("Error while listing packages.", e);
+		}
+	}
+
+	/**
+	 * Asynchronous version of listPackages(PackageQuery, int).
+	 * 
+	 * @param query filter and page size to use
+	 * @param start index of the first package to be returned
+	 * @return future page of packages.  It completes exceptionally with a PackageManagerException if a network/IO exception
+	 * 		   occurs or the response cannot be decoded.
+	 */
+	public CompletableFuture<PagedListResponse> listPackagesAsync(PackageQuery query, int start) {
+		logger.log(()->"Listing packages " + start + " to " + (start + query.pageSize() - 1));
+		return AsyncCalls.call(retryPolicy, RetryPolicy.Operation.LIST_PACKAGES, logger,
+							   ()->queryRequest(query, start).getFromServerAsync(ContentType.APPLICATION_JSON, asyncExecutor),
+							   fromServer->decodePage(fromServer, start),
+							   packageManagerException("Error while listing packages."),
+							   asyncExecutor);
+	}
+
+	private GetRequest queryRequest(PackageQuery query, int start) {
+		GetRequest.Builder requestBuilder = this.queryPackagesClient.getRequestBuilder();
+		query.group().ifPresent(g->requestBuilder.queryParam("group", g));
+		query.text().ifPresent(q->requestBuilder.queryParam("q", q));
+		return requestBuilder.queryParam("start", Integer.toString(start))
+							 .queryParam("limit", Integer.toString(query.pageSize()))
+							 .build();
+	}
+
+	private PagedListResponse decodePage(Optional<Response> fromServer, int start) throws RestClientException {
+		PagedListResponse page = fromServer.orElseThrow().body((contentType, data)->PagedListResponse.from(data, start));
+		logger.log(()->"  Found " + page.packages().size() + " of " + page.total() + " packages");
+		return page;
+	}
+
+	/**
+	 * Stream all the packages that match a query.
+	 * 
+	 * Pages are requested from AEM as the Stream is consumed, so a Stream that is only partially consumed (e.g. findFirst())
+	 * only requests the pages it needs.
+	 * 
+	 * @param query filter and page size to use
+	 * @return Stream of the matching packages
+	 * @throws PackageManagerException if a network/IO exception occurs or the response cannot be decoded. 
+	 */
+	public Stream<ListResponse.Package> queryPackages(PackageQuery query) {
+		return Stream.iterate(listPackages(query, 0), Objects::nonNull, page->page.hasMore() ? listPackages(query, page.nextStart()) : null)
+					 .flatMap(page->page.packages().stream());
+	}
+
+	/**
+	 * Provides a builder for a watcher that polls the list of packages on the AEM instance and notifies listeners of changes.
+	 * 
+	 * @return A PackageWatcher.Builder used for configuring/creating a PackageWatcher.
+	 */
+	public PackageWatcher.Builder watcher() {
+		return PackageWatcher.builder(this::streamPackages).logger(logger);
+	}
+
 	// Upload a package
 	// curl -u <user>:<password> -F cmd=upload -F force=true -F package=@test.zip http://localhost:4502/crx/packmgr/service/.json
 	/**
@@ -73,22 +296,95 @@ public class PackageManagerClient {
 	 * @return
 	 */
 	public CommandResponse uploadPackage(String packageFilename, Path file) {
+		return uploadPackage(packageFilename, file, Optional.empty());
+	}
+
+	/**
+	 * Upload a package to the AEM instance, reporting progress to a monitor.
+	 * 
+	 * The file is streamed to AEM in chunks.  If the upload is cancelled using the monitor, it fails with a
+	 * PackageManagerException (for which UploadMonitor.isCancellation() returns true) and is not retried.
+	 * 
+	 * @param packageFilename Name of the package (which can be different than the filename)
+	 * @param file Path to the file that will be uploaded
+	 * @param monitor monitor that receives progress reports and can cancel the upload
+	 * @return Response from the AEM instance
+	 */
+	public CommandResponse uploadPackage(String packageFilename, Path file, UploadMonitor monitor) {
+		return uploadPackage(packageFilename, file, Optional.of(monitor));
+	}
+
+	private CommandResponse uploadPackage(String packageFilename, Path file, Optional<UploadMonitor> monitor) {
 		try {
 			logger.log(()->"Uploading Package '" + packageFilename + "'");
-			Optional<Response> fromServer = this.uploadPackageClient.multipartPayloadBuilder()
-							.add("cmd", "upload")
-							.add("force", "true")
-							.add("package", file, ContentType.APPLICATION_OCTET_STREAM)
-							.build()
-							.postToServer(ContentType.APPLICATION_JSON);
-			CommandResponse commandResponse = CommandResponse.from(JsonData.from(new String(fromServer.orElseThrow().data().readAllBytes())));
-			logger.log(()->"  Package " + (commandResponse.success() ? "uploaded successfully" : "not uploaded"));
-			return commandResponse;
-		} catch (RestClientException | IOException e) {
+			return retryPolicy.call(RetryPolicy.Operation.UPLOAD_PACKAGE, logger, ()->decodeUpload(uploadPayload(file, monitor).postToServer(ContentType.APPLICATION_JSON)));
+		} catch (RestClientException e) {
 			throw new PackageManagerException("Error while uploading pacakge(" + packageFilename + ").", e);
+		} finally {
+			listCache.ifPresent(ListPackagesCache::invalidate);	// Even a failed upload may have changed the packages.
 		}
 	}
 
+	/**
+	 * Asynchronous version of uploadPackage(String, Path).
+	 * 
+	 * @param packageFilename Name of the package (which can be different than the filename)
+	 * @param file Path to the file that will be uploaded
+	 * @return future response from the AEM instance.  It completes exceptionally with a PackageManagerException if a network/IO
+	 * 		   exception occurs.
+	 */
+	public CompletableFuture<CommandResponse> uploadPackageAsync(String packageFilename, Path file) {
+		return uploadPackageAsync(packageFilename, file, Optional.empty());
+	}
+
+	/**
+	 * Asynchronous version of uploadPackage(String, Path, UploadMonitor).
+	 * 
+	 * @param packageFilename Name of the package (which can be different than the filename)
+	 * @param file Path to the file that will be uploaded
+	 * @param monitor monitor that receives progress reports and can cancel the upload
+	 * @return future response from the AEM instance
+	 */
+	public CompletableFuture<CommandResponse> uploadPackageAsync(String packageFilename, Path file, UploadMonitor monitor) {
+		return uploadPackageAsync(packageFilename, file, Optional.of(monitor));
+	}
+
+	private CompletableFuture<CommandResponse> uploadPackageAsync(String packageFilename, Path file, Optional<UploadMonitor> monitor) {
+		logger.log(()->"Uploading Package '" + packageFilename + "'");
+		return AsyncCalls.call(retryPolicy, RetryPolicy.Operation.UPLOAD_PACKAGE, logger,
+							   ()->uploadPayload(file, monitor).postToServerAsync(ContentType.APPLICATION_JSON, asyncExecutor),
+							   this::decodeUpload,
+							   packageManagerException("Error while uploading pacakge(" + packageFilename + ")."),
+							   asyncExecutor)
+						 .whenComplete((r, e)->listCache.ifPresent(ListPackagesCache::invalidate));
+	}
+
+	/**
+	 * Asynchronous version of uploadPackage(Path).
+	 * 
+	 * @param file Path to the file that will be uploaded
+	 * @return future response from the AEM instance
+	 */
+	public CompletableFuture<CommandResponse> uploadPackageAsync(Path file) {
+		return uploadPackageAsync(file.getFileName().toString(), file);
+	}
+
+	// Always uploads with force=true, which is what makes it safe to retry an upload (see RetryPolicy.Operation.UPLOAD_PACKAGE).
+	private MultipartPayload uploadPayload(Path file, Optional<UploadMonitor> monitor) {
+		MultipartPayload.Builder builder = this.uploadPackageClient.multipartPayloadBuilder()
+																   .add("cmd", "upload")
+																   .add("force", "true");
+		return monitor.map(m->builder.add("package", file, ContentType.APPLICATION_OCTET_STREAM, m))
+					  .orElseGet(()->builder.add("package", file, ContentType.APPLICATION_OCTET_STREAM))
+					  .build();
+	}
+
+	private CommandResponse decodeUpload(Optional<Response> fromServer) throws RestClientException {
+		CommandResponse commandResponse = fromServer.orElseThrow().body((contentType, data)->CommandResponse.from(data));
+		logger.log(()->"  Package " + (commandResponse.success() ? "uploaded successfully" : "not uploaded"));
+		return commandResponse;
+	}
+
 	/**
 	 * Upload a package. Uses the filename as the package name.
 	 * 
@@ -112,6 +408,17 @@ public class PackageManagerClient {
 		return executePackageCommand("install", group, packageFilename);
 	}
 
+	/**
+	 * Asynchronous version of installPackage().
+	 * 
+	 * @param group group name of the package (as determined in the pom.xml used to create the package)
+	 * @param packageFilename packageFilename (must match ths package filename provided when the package was uploaded)
+	 * @return future response from the AEM instance
+	 */
+	public CompletableFuture<CommandResponse> installPackageAsync(String group, String packageFilename) {
+		return executePackageCommandAsync("install", group, packageFilename);
+	}
+
 	// Uninstall a package
 	// curl -u <user>:<password> -F cmd=uninstall http://localhost:4502/crx/packmgr/service/.json/etc/packages/my_packages/test.zip
 	/**
@@ -125,6 +432,17 @@ public class PackageManagerClient {
 		return executePackageCommand("uninstall", group, packageFilename);
 	}
 
+	/**
+	 * Asynchronous version of uninstallPackage().
+	 * 
+	 * @param group group name of the package (as determined in the pom.xml used to create the package)
+	 * @param packageFilename packageFilename (must match ths package filename provided when the package was uploaded)
+	 * @return future response from the AEM instance
+	 */
+	public CompletableFuture<CommandResponse> uninstallPackageAsync(String group, String packageFilename) {
+		return executePackageCommandAsync("uninstall", group, packageFilename);
+	}
+
 	// Delete a package
 	// curl -u <user>:<password> -F cmd=delete http://localhost:4502/crx/packmgr/service/.json/etc/packages/my_packages/test.zip
 	/**
@@ -138,22 +456,69 @@ public class PackageManagerClient {
 		return executePackageCommand("delete", group, packageFilename);
 	}
 
+	/**
+	 * Asynchronous version of deletePackage().
+	 * 
+	 * @param group group name of the package (as determined in the pom.xml used to create the package)
+	 * @param packageFilename packageFilename (must match ths package filename provided when the package was uploaded)
+	 * @return future response from the AEM instance
+	 */
+	public CompletableFuture<CommandResponse> deletePackageAsync(String group, String packageFilename) {
+		return executePackageCommandAsync("delete", group, packageFilename);
+	}
+
 	private CommandResponse executePackageCommand(String command, String group, String packageFilename) {
 		try {
 			logger.log(()->"Executing " + command + " package on '" + packageFilename + "'");
-			RestClient restClient = this.commandPackageClient.target("/crx/packmgr/service/.json/etc/packages/" + group + "/" + packageFilename);
-			Optional<Response> fromServer = restClient.multipartPayloadBuilder()
-													  .add("cmd", command)
-													  .build()
-													  .postToServer(ContentType.APPLICATION_JSON);
-			CommandResponse commandResponse = CommandResponse.from(JsonData.from(new String(fromServer.orElseThrow().data().readAllBytes())));
-			logger.log(()->"  " + command + " completed " + (commandResponse.success() ? "successfully" : "unsuccessfully") );
-			return commandResponse;
-		} catch (RestClientException | IOException e) {
-			throw new PackageManagerException("Error while performing '" + command + "' on package '" + packageFilename + "' from group '" + group + "'.", e);
+			return retryPolicy.call(commandOperation(command), logger, ()->decodeCommand(command, commandPayload(command, group, packageFilename).postToServer(ContentType.APPLICATION_JSON)));
+		} catch (RestClientException e) {
+			throw new PackageManagerException(commandErrorMessage(command, group, packageFilename), e);
+		} finally {
+			listCache.ifPresent(ListPackagesCache::invalidate);	// Even a failed command may have changed the packages.
 		}
 	}
 
+	// A command can take minutes (e.g. installing a large package), so no thread is tied up while waiting (if the transport supports it).
+	private CompletableFuture<CommandResponse> executePackageCommandAsync(String command, String group, String packageFilename) {
+		logger.log(()->"Executing " + command + " package on '" + packageFilename + "'");
+		return AsyncCalls.call(retryPolicy, commandOperation(command), logger,
+							   ()->commandPayload(command, group, packageFilename).postToServerAsync(ContentType.APPLICATION_JSON, asyncExecutor),
+							   fromServer->decodeCommand(command, fromServer),
+							   packageManagerException(commandErrorMessage(command, group, packageFilename)),
+							   asyncExecutor)
+						 .whenComplete((r, e)->listCache.ifPresent(ListPackagesCache::invalidate));
+	}
+
+	private MultipartPayload commandPayload(String command, String group, String packageFilename) {
+		RestClient restClient = this.commandPackageClient.target("/crx/packmgr/service/.json/etc/packages/" + group + "/" + packageFilename);
+		return restClient.multipartPayloadBuilder()
+						 .add("cmd", command)
+						 .build();
+	}
+
+	private CommandResponse decodeCommand(String command, Optional<Response> fromServer) throws RestClientException {
+		CommandResponse commandResponse = fromServer.orElseThrow().body((contentType, data)->CommandResponse.from(data));
+		logger.log(()->"  " + command + " completed " + (commandResponse.success() ? "successfully" : "unsuccessfully") );
+		return commandResponse;
+	}
+
+	private static RetryPolicy.Operation commandOperation(String command) {
+		return switch (command) {
+			case "install" -> RetryPolicy.Operation.INSTALL_PACKAGE;
+			case "uninstall" -> RetryPolicy.Operation.UNINSTALL_PACKAGE;
+			case "delete" -> RetryPolicy.Operation.DELETE_PACKAGE;
+			default -> throw new IllegalArgumentException("Unknown package command '" + command + "'.");
+		};
+	}
+
+	private static String commandErrorMessage(String command, String group, String packageFilename) {
+		return "Error while performing '" + command + "' on package '" + packageFilename + "' from group '" + group + "'.";
+	}
+
+	private static Function<Exception, PackageManagerException> packageManagerException(String message) {
+		return e->e instanceof PackageManagerException pme ? pme : new PackageManagerException(message, e);
+	}
+
 	/**
 	 * Provides a builder object for creating a PackageManagerClient instance.
 	 * 
@@ -171,6 +536,10 @@ public class PackageManagerClient {
 	public static class PackageManagerBuilder {
 		private final SimpleAemConfigBuilder aemConfigBuilder = new SimpleAemConfigBuilder();
 		private Logger logger = new Logger.NoOpLogger();
+		private Optional<Duration> listCacheTtl = Optional.empty();
+		private Optional<RestClientFactory> restClientFactory = Optional.empty();
+		private Executor asyncExecutor = AsyncCalls.DEFAULT_EXECUTOR;
+		private RetryPolicy retryPolicy = RetryPolicy.none();
 		
 		/**
 		 * Set the machine name where the AEM instance resides.
@@ -242,13 +611,85 @@ public class PackageManagerClient {
 			return this;
 		}
 		
+		/**
+		 * Cache the list of packages returned by listPackages() and streamPackages().
+		 * 
+		 * A cached list is reused for the time-to-live.  After that, it is revalidated with AEM (using If-None-Match/If-Modified-Since
+		 * if AEM supplied an ETag/Last-Modified header) before being reused.  Uploading, installing, uninstalling or deleting a package
+		 * using this client discards the cached list.  Changes made by anything else are not seen until the cached list expires.
+		 * 
+		 * If this is not supplied, then the list is not cached.
+		 * 
+		 * @param ttl how long a cached list is used before revalidating it (Duration.ZERO revalidates every time)
+		 * @return
+		 */
+		public PackageManagerBuilder listCacheTtl(Duration ttl) {
+			this.listCacheTtl = Optional.of(ttl);
+			return this;
+		}
+		
+		/**
+		 * Selects the HTTP transport used to communicate with AEM (e.g. JdkRestClient.factory() to use the JDK's HttpClient).
+		 * 
+		 * If this is not supplied, then Jersey is used (JerseyRestClient.factory()).
+		 * 
+		 * @param restClientFactory factory that creates the RestClients used by this client
+		 * @return
+		 */
+		public PackageManagerBuilder restClientFactory(RestClientFactory restClientFactory) {
+			this.restClientFactory = Optional.of(restClientFactory);
+			return this;
+		}
+		
+		/**
+		 * Use a pool of keep-alive connections (with timeouts) when communicating with AEM.
+		 * 
+		 * This selects the Jersey transport (it replaces any factory supplied to restClientFactory()).  The same pool can be
+		 * passed to several builders.  Pool statistics are available from the pool at runtime.
+		 * 
+		 * @param connectionPool pool of connections
+		 * @return
+		 */
+		public PackageManagerBuilder connectionPool(JerseyConnectionPool connectionPool) {
+			return restClientFactory(connectionPool.restClientFactory());
+		}
+
+		/**
+		 * Executor used by the asynchronous (...Async()) methods to process responses.  
+		 * 
+		 * If this is not supplied, then each response is processed on a new virtual thread.
+		 * 
+		 * @param asyncExecutor executor
+		 * @return
+		 */
+		public PackageManagerBuilder asyncExecutor(Executor asyncExecutor) {
+			this.asyncExecutor = Objects.requireNonNull(asyncExecutor, "Async executor cannot be null.");
+			return this;
+		}
+		
+		/**
+		 * Retry calls to AEM that fail for transient reasons (e.g. AEM returning 503 while it restarts bundles).
+		 * 
+		 * Listing and uploading packages are retried.  Installing a package is retried only if the package list shows that
+		 * the failed attempt did not install it.  Uninstalling and deleting packages are not retried (see RetryPolicy.Operation).
+		 * 
+		 * If this is not supplied, then calls are not retried.
+		 * 
+		 * @param retryPolicy retry policy (which may be shared with other clients)
+		 * @return
+		 */
+		public PackageManagerBuilder retryPolicy(RetryPolicy retryPolicy) {
+			this.retryPolicy = Objects.requireNonNull(retryPolicy, "Retry policy cannot be null.");
+			return this;
+		}
+		
 		/**
 		 * Build a PackageManagerClient instance.
 		 * 
 		 * @return new PackageManagerClient instance
 		 */
 		public PackageManagerClient build() {
-			return new PackageManagerClient(aemConfigBuilder.build(), logger);
+			return new PackageManagerClient(aemConfigBuilder.build(), logger, listCacheTtl, restClientFactory.orElseGet(JerseyRestClient::factory), asyncExecutor, retryPolicy);
 		}
 
 		/**
@@ -257,7 +698,7 @@ public class PackageManagerClient {
 		 * @return new PackageManagerClientEx instance
 		 */
 		public PackageManagerClientEx buildEx() {
-			return PackageManagerClientEx.from(new PackageManagerClient(aemConfigBuilder.build(), logger));
+			return PackageManagerClientEx.from(build());
 		}
 	}
 	
@@ -1,11 +1,18 @@
 package com._4point.aem.package_manager;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import com._4point.aem.package_manager.PackageManagerClient.PackageManagerException;
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
 
 /**
  * Package Manager Client that throws Exceptions on errors.
@@ -35,7 +42,67 @@ public class PackageManagerClientEx {
 		}
 		return result.packages();
 	}
+
+	/**
+	 * Stream the packages
+	 * 
+	 * Packages are decoded as they are consumed, so this can be used against AEM instances with very large numbers of packages.
+	 * The Stream should be closed (e.g. by using try-with-resources) if it may not be fully consumed.
+	 * 
+	 * @return Stream of package records.
+	 */
+	public Stream<ListResponse.Package> streamPackages() {
+		return client.streamPackages();
+	}
+
+	/**
+	 * Stream the packages that match a query.
+	 * 
+	 * The packages are filtered by AEM and requested a page at a time as the Stream is consumed.
+	 * 
+	 * @param query filter and page size to use
+	 * @return Stream of package records.
+	 */
+	public Stream<ListResponse.Package> queryPackages(PackageQuery query) {
+		return client.queryPackages(query);
+	}
+
+	/**
+	 * Provides a builder for a watcher that polls the packages and notifies listeners of changes.
+	 * 
+	 * @return builder for a PackageWatcher
+	 */
+	public PackageWatcher.Builder watcher() {
+		return client.watcher();
+	}
+
+	/**
+	 * List the packages as a compact catalog.
+	 * 
+	 * This is an alternative to listPackages() for AEM instances with very large numbers of packages.  Packages are
+	 * streamed directly into the catalog, so the full list of package records is never held in memory.
+	 * 
+	 * @return catalog of the packages
+	 */
+	public PackageCatalog listPackagesAsCatalog() {
+		try (Stream<ListResponse.Package> packages = streamPackages()) {
+			return PackageCatalog.from(packages);
+		} catch (IllegalArgumentException e) {
+			throw new PackageManagerException("Error while cataloging packages.", e);
+		}
+	}
 	
+	/**
+	 * List the packages as an index that supports fast lookups by group, name and version.
+	 * 
+	 * @return index of the packages
+	 */
+	public PackageIndex indexPackages() {
+		try (Stream<ListResponse.Package> packages = streamPackages()) {
+			return PackageIndex.from(packages);
+		}
+	}
+
 	/**
 	 * Upload a package
 	 * 
@@ -44,7 +111,22 @@ public class PackageManagerClientEx {
 	 * @return
 	 */
 	public String uploadPackage(String packageFilename, Path file) {
-		CommandResponse result = client.uploadPackage(packageFilename, file);
+		return uploadedPath(client.uploadPackage(packageFilename, file));
+	}
+
+	/**
+	 * Upload a package, reporting progress to a monitor.
+	 * 
+	 * @param packageFilename Name of the package (which can be different than the filename)
+	 * @param file Path to the file that will be uploaded
+	 * @param monitor monitor that receives progress reports and can cancel the upload
+	 * @return
+	 */
+	public String uploadPackage(String packageFilename, Path file, UploadMonitor monitor) {
+		return uploadedPath(client.uploadPackage(packageFilename, file, monitor));
+	}
+
+	private static String uploadedPath(CommandResponse result) {
 		if (!result.success()) {
 			throw new PackageManagerException("Error returned from Upload Package call (" + result.msg() + ").");
 		}
@@ -141,17 +223,20 @@ public class PackageManagerClientEx {
 	/**
 	 * Delete packages that match a certain condition (possibly uninstalling them first).
 	 * 
+	 * The package list is streamed and only the matching packages are kept.  AEM returns the status of the list after the
+	 * packages, so no package is touched until the whole list has been read and its status checked.
+	 * 
 	 * @param condition	Predicate that indicates which packages to be (maybe uninstalled and) deleted.
 	 * @param uninstallFirst Boolean indicating whether to uninstall before deleting.
 	 */
 	public void deletePackages(Predicate<? super ListResponse.Package> condition, boolean uninstallFirst) {
 		Consumer<? super ListResponse.Package> terminatingFn = uninstallFirst ?  this::uninstallAndDeletePackage
 																			  :  this::deletePackage;
-		this.listPackages()
-			.stream()
-			.filter(condition)
-			.forEach(terminatingFn)
-			;
+		List<ListResponse.Package> matching;
+		try (Stream<ListResponse.Package> packages = this.streamPackages()) {
+			matching = packages.filter(condition).toList();
+		}
+		matching.forEach(terminatingFn);
 	}
 	/**
 	 * Uninstall and delete 
@@ -161,4 +246,74 @@ public class PackageManagerClientEx {
 	public void uninstallAndDeletePackages(Predicate<ListResponse.Package> condition) {
 		deletePackages(condition, true);
 	}
+
+	/**
+	 * Delete packages that match a certain condition (possibly uninstalling them first), working on several packages at once.
+	 * 
+	 * Each package is processed on its own virtual thread, with at most maxConcurrency packages being processed at a time.
+	 * When uninstallFirst is true, each package is uninstalled before it is deleted.  A failure on one package does not
+	 * stop the others from being processed; the outcome for each package is returned instead.
+	 * 
+	 * The list of packages is read before any packages are processed.
+	 * 
+	 * If the client was created with a RestClientFactory wrapped by a ConcurrencyLimiter, the calls also go through the
+	 * limiter, so maxConcurrency becomes an upper bound and the number of calls actually in flight adapts to how well
+	 * AEM is coping.
+	 * 
+	 * @param condition	Predicate that indicates which packages to be (maybe uninstalled and) deleted.
+	 * @param uninstallFirst Boolean indicating whether to uninstall before deleting.
+	 * @param maxConcurrency maximum number of packages to process at once
+	 * @return outcome for each package that matched the condition
+	 * @throws PackageManagerException if the list of packages cannot be retrieved
+	 */
+	public BulkResult deletePackagesConcurrently(Predicate<? super ListResponse.Package> condition, boolean uninstallFirst, int maxConcurrency) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("Maximum concurrency must be at least 1 (" + maxConcurrency + ").");
+		}
+		List<ListResponse.Package> matching;
+		try (Stream<ListResponse.Package> packages = this.streamPackages()) {
+			matching = packages.filter(condition).toList();
+		}
+		Consumer<? super ListResponse.Package> terminatingFn = uninstallFirst ?  this::uninstallAndDeletePackage
+																			  :  this::deletePackage;
+		Semaphore permits = new Semaphore(maxConcurrency);
+		List<Future<BulkResult.Outcome>> futures = new ArrayList<>(matching.size());
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (ListResponse.Package pkg : matching) {
+				permits.acquireUninterruptibly();
+				futures.add(executor.submit(()->{
+					try {
+						terminatingFn.accept(pkg);
+						return BulkResult.Outcome.success(pkg);
+					} catch (PackageManagerException e) {
+						return BulkResult.Outcome.failure(pkg, e);
+					} finally {
+						permits.release();
+					}
+				}));
+			}
+		}	// close() waits for all the packages to be processed.
+		return new BulkResult(futures.stream().map(PackageManagerClientEx::outcome).toList());
+	}
+
+	/**
+	 * Uninstall and delete packages that match a certain condition, working on several packages at once.
+	 * 
+	 * @param condition	Predicate that indicates which packages to be uninstalled and deleted.
+	 * @param maxConcurrency maximum number of packages to process at once
+	 * @return outcome for each package that matched the condition
+	 * @throws PackageManagerException if the list of packages cannot be retrieved
+	 */
+	public BulkResult uninstallAndDeletePackagesConcurrently(Predicate<? super ListResponse.Package> condition, int maxConcurrency) {
+		return deletePackagesConcurrently(condition, true, maxConcurrency);
+	}
+
+	// Unexpected (non-PackageManagerException) failures are rethrown once all the packages have been processed.
+	private static BulkResult.Outcome outcome(Future<BulkResult.Outcome> future) {
+		return switch (future.state()) {
+			case SUCCESS -> future.resultNow();
+			case FAILED -> throw future.exceptionNow() instanceof RuntimeException re ? re : new IllegalStateException(future.exceptionNow());
+			default -> throw new IllegalStateException("Package operation did not complete (" + future.state() + ").");
+		};
+	}
 }
@@ -0,0 +1,60 @@
+package com._4point.aem.package_manager;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * Typed version of the package information returned by AEM.
+ * 
+ * ListResponse.Package contains the raw strings returned by AEM.  This record contains the same package along with
+ * its size and dates already parsed, so that they can be sorted and filtered without re-parsing them every time.
+ * 
+ * @param pkg the package that the metadata was parsed from
+ * @param size size of the package in bytes (-1 if AEM did not report a size)
+ * @param created date the package was created (empty if AEM did not report one)
+ * @param lastModified date the package was last modified (empty if AEM did not report one)
+ * @param lastUnpacked date the package was last unpacked, i.e. installed (empty if AEM did not report one)
+ */
+public record PackageMetadata(ListResponse.Package pkg, long size, Optional<Instant> created, Optional<Instant> lastModified, Optional<Instant> lastUnpacked) {
+	/**
+	 * Orders packages by size (smallest first).
+	 */
+	public static final Comparator<PackageMetadata> BY_SIZE = Comparator.comparingLong(PackageMetadata::size);
+	/**
+	 * Orders packages by creation date (oldest first, packages with no date come first).
+	 */
+	public static final Comparator<PackageMetadata> BY_CREATED = Comparator.comparing(pm->pm.created().orElse(Instant.MIN));
+	/**
+	 * Orders packages by last modified date (oldest first, packages with no date come first).
+	 */
+	public static final Comparator<PackageMetadata> BY_LAST_MODIFIED = Comparator.comparing(pm->pm.lastModified().orElse(Instant.MIN));
+	/**
+	 * Orders packages by last unpacked date (oldest first, packages that have never been unpacked come first).
+	 */
+	public static final Comparator<PackageMetadata> BY_LAST_UNPACKED = Comparator.comparing(pm->pm.lastUnpacked().orElse(Instant.MIN));
+
+	/**
+	 * Parses the size and dates of a package.
+	 * 
+	 * @param pkg package returned by AEM
+	 * @return package metadata
+	 * @throws IllegalArgumentException if AEM returned a date in an unrecognized format.
+	 */
+	public static PackageMetadata from(ListResponse.Package pkg) {
+		return new PackageMetadata(pkg, 
+								   parseSize(pkg.size()),
+								   AemDateParser.parse(pkg.created()),
+								   AemDateParser.parse(pkg.lastModified()),
+								   AemDateParser.parse(pkg.lastUnpacked())
+								   );
+	}
+
+	private static long parseSize(String size) {
+		try {
+			return Long.parseLong(size);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com._4point.aem.package_manager;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Query used to list packages using Package Manager's JSON list endpoint (/crx/packmgr/list.jsp).
+ * 
+ * The filtering is performed by AEM, so only the matching packages are returned.
+ * 
+ * @param group only return packages in this group (if present)
+ * @param text only return packages that match this text (if present) 
+ * @param pageSize maximum number of packages returned by each request to AEM
+ */
+public record PackageQuery(Optional<String> group, Optional<String> text, int pageSize) {
+	public static final int DEFAULT_PAGE_SIZE = 100;
+	
+	public PackageQuery {
+		Objects.requireNonNull(group, "group cannot be null.");
+		Objects.requireNonNull(text, "text cannot be null.");
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be greater than zero (" + pageSize + ").");
+		}
+	}
+
+	/**
+	 * Query that matches all packages, using the default page size.
+	 * 
+	 * @return query
+	 */
+	public static PackageQuery all() {
+		return builder().build();
+	}
+
+	/**
+	 * Provides a builder object for creating a PackageQuery.
+	 * 
+	 * @return new builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builder object for creating a PackageQuery.
+	 */
+	public static class Builder {
+		private String group = null;
+		private String text = null;
+		private int pageSize = DEFAULT_PAGE_SIZE;
+		
+		private Builder() {
+		}
+
+		/**
+		 * Only return packages in this group.
+		 * 
+		 * @param group group name (e.g. "my_packages")
+		 * @return builder
+		 */
+		public Builder group(String group) {
+			this.group = group;
+			return this;
+		}
+
+		/**
+		 * Only return packages that match this text.
+		 * 
+		 * @param text text that AEM searches for
+		 * @return builder
+		 */
+		public Builder text(String text) {
+			this.text = text;
+			return this;
+		}
+
+		/**
+		 * Maximum number of packages returned by each request to AEM.
+		 * 
+		 * @param pageSize page size (defaults to 100)
+		 * @return builder
+		 */
+		public Builder pageSize(int pageSize) {
+			this.pageSize = pageSize;
+			return this;
+		}
+
+		/**
+		 * Build the PackageQuery
+		 * 
+		 * @return new PackageQuery
+		 */
+		public PackageQuery build() {
+			return new PackageQuery(Optional.ofNullable(group), Optional.ofNullable(text), pageSize);
+		}
+	}
+}
@@ -0,0 +1,311 @@
+package com._4point.aem.package_manager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com._4point.aem.package_manager.ListResponse.Package;
+
+/**
+ * Watches the list of packages on an AEM instance and notifies listeners when packages are uploaded, installed, uninstalled
+ * or deleted.
+ *
+ * The list of packages is polled on a background (daemon) thread.  The polling interval adapts to the activity on the AEM
+ * instance.  It starts at the minimum interval and doubles each time nothing has changed (up to the maximum interval).  As
+ * soon as a change is seen, it drops back to the minimum interval.  Errors while polling also cause the interval to back off.
+ *
+ * The only state kept between polls is a PackageCatalog of the previous list of packages (rather than the list itself) and
+ * the current interval.  The first poll establishes the initial list and does not generate any events.
+ *
+ * Listeners are called on the polling thread, so they should not block for long periods.
+ *
+ */
+public final class PackageWatcher implements AutoCloseable {
+	private final Supplier<Stream<Package>> packageSource;
+	private final Duration minInterval;
+	private final Duration maxInterval;
+	private final List<Listener> listeners;
+	private final Logger logger;
+	private final Object pollLock = new Object();
+	private ScheduledExecutorService scheduler = null;		// guarded by this
+	private PackageCatalog previous = null;				// guarded by pollLock
+	private volatile Duration currentInterval;
+
+	/**
+	 * Type of change that was seen.
+	 */
+	public enum EventType {
+		/** A package (or a new version of a package) was uploaded. */
+		UPLOADED,
+		/** A package was installed (or re-installed). */
+		INSTALLED,
+		/** A package was uninstalled. */
+		UNINSTALLED,
+		/** A package (or an old version of a package) was deleted. */
+		DELETED
+	}
+
+	/**
+	 * A change to a package.
+	 *
+	 * @param type type of change
+	 * @param pkg the package after the change (or, for DELETED, the package before it was deleted)
+	 */
+	public record Event(EventType type, Package pkg) {}
+
+	/**
+	 * Receives package change events.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+		void onEvent(Event event);
+	}
+
+	private PackageWatcher(Supplier<Stream<Package>> packageSource, Duration minInterval, Duration maxInterval, List<Listener> listeners, Logger logger) {
+		this.packageSource = packageSource;
+		this.minInterval = minInterval;
+		this.maxInterval = maxInterval;
+		this.listeners = new CopyOnWriteArrayList<>(listeners);
+		this.logger = logger;
+		this.currentInterval = minInterval;
+	}
+
+	/**
+	 * Start polling in the background.
+	 *
+	 * @return this watcher
+	 * @throws IllegalStateException if the watcher has already been started
+	 */
+	public synchronized PackageWatcher start() {
+		if (scheduler != null) {
+			throw new IllegalStateException("PackageWatcher has already been started.");
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(r->{
+			Thread thread = new Thread(r, "aem-package-watcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.execute(this::pollAndReschedule);
+		return this;
+	}
+
+	/**
+	 * Stop polling.  Listeners are not called after this returns (except by a poll that is already under way).
+	 */
+	@Override
+	public synchronized void close() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * Add a listener.
+	 *
+	 * @param listener listener to be notified of changes
+	 */
+	public void addListener(Listener listener) {
+		listeners.add(Objects.requireNonNull(listener, "Listener cannot be null."));
+	}
+
+	/**
+	 * Remove a listener.
+	 *
+	 * @param listener listener that is no longer to be notified of changes
+	 */
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Interval that will be waited before the next poll.
+	 *
+	 * @return current polling interval
+	 */
+	public Duration currentInterval() {
+		return currentInterval;
+	}
+
+	/**
+	 * Poll the list of packages once, notify the listeners of any changes and adjust the polling interval.
+	 *
+	 * This is called by the background thread, but can also be called directly by code that wants to control when polling
+	 * occurs (in which case start() should not be called).
+	 *
+	 * @return the events that were sent to the listeners
+	 * @throws PackageManagerClient.PackageManagerException if the list of packages could not be retrieved
+	 * @throws IllegalArgumentException if a package contains a date in an unrecognized format
+	 */
+	public List<Event> poll() {
+		synchronized (pollLock) {
+			List<Package> current;
+			PackageCatalog catalog;
+			try (Stream<Package> packages = packageSource.get()) {
+				current = packages.toList();
+				catalog = PackageCatalog.from(current);
+			} catch (RuntimeException e) {
+				currentInterval = backOff(currentInterval);
+				throw e;
+			}
+			// The previous packages are only materialized for as long as it takes to compare them.
+			PackageDiff diff = previous == null ? PackageDiff.between(current, current) : PackageDiff.between(previous.stream().toList(), current);
+			List<Event> events = events(diff);
+			previous = catalog;
+			currentInterval = diff.isEmpty() ? backOff(currentInterval) : minInterval;	// Any activity (even a rebuild) tightens the interval.
+			for (Event event : events) {
+				notifyListeners(event);
+			}
+			return events;
+		}
+	}
+
+	// A failing listener should not stop the other listeners from being notified.
+	private void notifyListeners(Event event) {
+		for (Listener listener : listeners) {
+			try {
+				listener.onEvent(event);
+			} catch (RuntimeException e) {
+				logger.log(()->"Package watcher listener failed while processing " + event + " (" + e.getMessage() + ").");
+			}
+		}
+	}
+
+	private void pollAndReschedule() {
+		try {
+			List<Event> events = poll();
+			logger.log(()->"Package watcher found " + events.size() + " changes, next poll in " + currentInterval);
+		} catch (RuntimeException e) {
+			logger.log(()->"Package watcher poll failed (" + e.getMessage() + "), next poll in " + currentInterval);
+		}
+		synchronized (this) {
+			if (!scheduler.isShutdown()) {
+				scheduler.schedule(this::pollAndReschedule, currentInterval.toMillis(), TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	private Duration backOff(Duration interval) {
+		Duration doubled = interval.multipliedBy(2);
+		return doubled.compareTo(maxInterval) > 0 ? maxInterval : doubled;
+	}
+
+	// Converts the differences between two lists into events.
+	static List<Event> events(PackageDiff diff) {
+		List<Event> events = new ArrayList<>();
+		for (Package pkg : diff.removed()) {
+			events.add(new Event(EventType.DELETED, pkg));
+		}
+		for (Package pkg : diff.added()) {
+			events.add(new Event(EventType.UPLOADED, pkg));
+			if (isInstalled(pkg)) {
+				events.add(new Event(EventType.INSTALLED, pkg));
+			}
+		}
+		for (PackageDiff.Change change : diff.changed()) {
+			Package before = change.before();
+			Package after = change.after();
+			if (change.versionChanged()) {
+				events.add(new Event(EventType.DELETED, before));
+				events.add(new Event(EventType.UPLOADED, after));
+				if (isInstalled(after)) {
+					events.add(new Event(EventType.INSTALLED, after));
+				}
+			} else if (isInstalled(after) && !after.lastUnpacked().equals(before.lastUnpacked())) {
+				events.add(new Event(EventType.INSTALLED, after));
+			} else if (isInstalled(before) && !isInstalled(after)) {
+				events.add(new Event(EventType.UNINSTALLED, after));
+			}
+		}
+		return events;
+	}
+
+	// AEM reports an empty lastUnpacked for packages that have not been installed (or have been uninstalled).
+	private static boolean isInstalled(Package pkg) {
+		return !pkg.lastUnpacked().isBlank() && !pkg.lastUnpacked().equals("null");
+	}
+
+	/**
+	 * Returns a builder that creates a watcher over packages provided by a source.
+	 *
+	 * PackageManagerClient.watcher() should normally be used instead.
+	 *
+	 * @param packageSource supplies the current list of packages each time it is called
+	 * @return builder
+	 */
+	public static Builder builder(Supplier<Stream<Package>> packageSource) {
+		return new Builder(packageSource);
+	}
+
+	/**
+	 * Builder object for configuring/creating a PackageWatcher instance.
+	 */
+	public static class Builder {
+		private final Supplier<Stream<Package>> packageSource;
+		private Duration minInterval = Duration.ofSeconds(5);
+		private Duration maxInterval = Duration.ofMinutes(5);
+		private final List<Listener> listeners = new ArrayList<>();
+		private Logger logger = new Logger.NoOpLogger();
+
+		private Builder(Supplier<Stream<Package>> packageSource) {
+			this.packageSource = Objects.requireNonNull(packageSource, "Package source cannot be null.");
+		}
+
+		/**
+		 * Shortest interval between polls (used after a change is seen).  Defaults to 5 seconds.
+		 *
+		 * @param minInterval minimum interval
+		 * @return builder
+		 */
+		public Builder minInterval(Duration minInterval) {
+			this.minInterval = minInterval;
+			return this;
+		}
+
+		/**
+		 * Longest interval between polls (used when nothing has changed for a while).  Defaults to 5 minutes.
+		 *
+		 * @param maxInterval maximum interval
+		 * @return builder
+		 */
+		public Builder maxInterval(Duration maxInterval) {
+			this.maxInterval = maxInterval;
+			return this;
+		}
+
+		/**
+		 * Add a listener that will be notified of changes.
+		 *
+		 * @param listener listener
+		 * @return builder
+		 */
+		public Builder listener(Listener listener) {
+			this.listeners.add(Objects.requireNonNull(listener, "Listener cannot be null."));
+			return this;
+		}
+
+		// Used by PackageManagerClient to pass along its logger.
+		Builder logger(Logger logger) {
+			this.logger = logger;
+			return this;
+		}
+
+		/**
+		 * Build the PackageWatcher.  The watcher does not poll until start() is called.
+		 *
+		 * @return new PackageWatcher
+		 */
+		public PackageWatcher build() {
+			if (minInterval.isNegative() || minInterval.isZero() || maxInterval.compareTo(minInterval) < 0) {
+				throw new IllegalArgumentException("Invalid polling intervals (min=" + minInterval + ", max=" + maxInterval + ").");
+			}
+			return new PackageWatcher(packageSource, minInterval, maxInterval, listeners, logger);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com._4point.aem.package_manager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com._4point.aem.package_manager.ListResponse.ListResponseException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * One page of packages returned by Package Manager's JSON list endpoint (/crx/packmgr/list.jsp).
+ * 
+ * The packages are mapped onto the same ListResponse.Package records that are returned by the service.jsp list command,
+ * so code that processes one can process the other.  The JSON endpoint returns dates as milliseconds since the epoch, these
+ * are formatted the way that service.jsp formats them (e.g. "Mon, 25 Feb 2019 20:45:19 +0000") and missing users are
+ * returned as "null" (like service.jsp does).
+ * 
+ * @param packages packages on this page
+ * @param start index of the first package on this page
+ * @param total total number of packages that match the query
+ */
+public record PagedListResponse(List<ListResponse.Package> packages, int start, int total) {
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private static final DateTimeFormatter AEM_DATE_FORMAT = DateTimeFormatter.ofPattern("EEE, d MMM yyyy HH:mm:ss Z", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+
+	/**
+	 * Indicates whether there are more packages after this page.
+	 * 
+	 * @return true if there are more packages
+	 */
+	public boolean hasMore() {
+		return !packages.isEmpty() && nextStart() < total;
+	}
+
+	/**
+	 * Index of the first package on the next page.
+	 * 
+	 * @return start of the next page
+	 */
+	public int nextStart() {
+		return start + packages.size();
+	}
+
+	/**
+	 * Decode a page of packages returned by /crx/packmgr/list.jsp
+	 * 
+	 * @param jsonStream JSON returned by AEM
+	 * @param start index of the first package that was requested
+	 * @return page of packages
+	 * @throws ListResponseException if the response cannot be decoded
+	 */
+	public static PagedListResponse from(InputStream jsonStream, int start) {
+		try (JsonParser parser = JSON_FACTORY.createParser(jsonStream)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new ListResponseException("Expected a JSON object to be returned from AEM.");
+			}
+			List<ListResponse.Package> packages = List.of();
+			int total = -1;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				JsonToken token = parser.nextToken();
+				if (field.equals("results") && token == JsonToken.START_ARRAY) {
+					packages = readPackages(parser);
+				} else if (field.equals("total") && token == JsonToken.VALUE_NUMBER_INT) {
+					total = parser.getIntValue();
+				} else {
+					parser.skipChildren();
+				}
+			}
+			return new PagedListResponse(packages, start, total < 0 ? start + packages.size() : total);
+		} catch (IOException e) {
+			throw new ListResponseException("Error while reading JSON package list.", e);
+		}
+	}
+
+	private static List<ListResponse.Package> readPackages(JsonParser parser) throws IOException {
+		List<ListResponse.Package> packages = new ArrayList<>();
+		Map<String, String> fields = new HashMap<>();
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			fields.clear();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				JsonToken token = parser.nextToken();
+				if (token == JsonToken.VALUE_NULL) {
+					continue;			// Treat null the same as a missing field.
+				} else if (token.isScalarValue()) {
+					fields.put(field, switch (field) {
+						case "created", "lastModified", "lastUnpacked" -> formatDate(parser, token);
+						default -> parser.getValueAsString();
+					});
+				} else {
+					parser.skipChildren();	// e.g. filter, dependencies, screenshots
+				}
+			}
+			packages.add(toPackage(fields));
+		}
+		return packages;
+	}
+	
+	private static ListResponse.Package toPackage(Map<String, String> fields) {
+		return new ListResponse.Package(required(fields, "group"),
+										required(fields, "name"),
+										fields.getOrDefault("version", ""),
+										required(fields, "downloadName"),
+										fields.getOrDefault("size", ""),			// Unknown size, the same as an empty <size> in the XML list.
+										fields.getOrDefault("created", ""),
+										fields.getOrDefault("createdBy", "null"),
+										fields.getOrDefault("lastModified", ""),
+										fields.getOrDefault("lastModifiedBy", "null"),
+										fields.getOrDefault("lastUnpacked", ""),
+										fields.getOrDefault("lastUnpackedBy", "null")
+										);
+	}
+
+	private static String required(Map<String, String> fields, String field) {
+		String value = fields.get(field);
+		if (value == null) {
+			throw new ListResponseException("Package returned from AEM is missing '" + field + "' field.");
+		}
+		return value;
+	}
+
+	private static String formatDate(JsonParser parser, JsonToken token) throws IOException {
+		return token == JsonToken.VALUE_NUMBER_INT ? AEM_DATE_FORMAT.format(Instant.ofEpochMilli(parser.getLongValue()))
+												   : parser.getValueAsString();
+	}
+}
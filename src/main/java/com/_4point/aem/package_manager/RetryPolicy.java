@@ -0,0 +1,479 @@
+package com._4point.aem.package_manager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
+
+/**
+ * Policy for retrying calls to AEM that fail for transient reasons (e.g. AEM returning 503 while bundles restart, or a
+ * connection being dropped).
+ *
+ * A failed attempt is retried after a delay that grows exponentially with each attempt.  The delay is randomly shortened
+ * (jitter) so that many clients do not retry in lockstep.  Retries are also limited by a retry budget that is shared by
+ * all the calls made using the policy.  Each call adds a fraction of a retry to the budget and each retry uses one up, so
+ * when AEM is down (rather than briefly unavailable) the budget runs out and calls fail quickly instead of multiplying the
+ * load on AEM.
+ *
+ * Only operations that are safe to repeat are retried (see Operation).  A policy can be shared by several clients (e.g. a
+ * PackageManagerClient and a FormsAndDocumentsClient that talk to the same AEM instance), in which case they share the
+ * budget and the metrics.
+ */
+public final class RetryPolicy {
+	private static final Set<Integer> DEFAULT_RETRYABLE_STATUS_CODES = Set.of(429, 502, 503, 504);
+	// Statuses that AEM returns instead of acting on a request.  A 502 or 504 comes from a proxy that may have passed the
+	// request on to AEM.
+	private static final Set<Integer> UNDELIVERED_STATUS_CODES = Set.of(429, 503);
+
+	private final int maxAttempts;
+	private final Duration initialBackoff;
+	private final Duration maxBackoff;
+	private final double backoffMultiplier;
+	private final double jitter;
+	private final Set<Integer> retryableStatusCodes;
+	private final RetryBudget budget;
+	private final Map<Operation, Counters> counters = new EnumMap<>(Operation.class);
+
+	/**
+	 * Whether an operation can be repeated after an attempt fails.
+	 */
+	public enum Retryability {
+		/** Repeating the operation has the same effect as performing it once, so it is always retried. */
+		SAFE,
+		/**
+		 * The operation is retried only if the failed attempt never reached AEM (the connection could not be established,
+		 * or AEM returned 429 or 503 without acting on the request).  A connection that times out or drops after the
+		 * request was sent is not retried, because AEM may still be performing the operation.
+		 */
+		UNDELIVERED,
+		/** The operation is never retried. */
+		NEVER;
+	}
+
+	/**
+	 * The operations performed by the clients, classified by whether they are retried.
+	 */
+	public enum Operation {
+		/** Listing packages. */
+		LIST_PACKAGES(Retryability.SAFE),
+		/** Uploading a package.  Packages are uploaded with force=true, so a repeated upload just replaces the package. */
+		UPLOAD_PACKAGE(Retryability.SAFE),
+		/** Installing a package.  AEM carries on installing if the connection drops, so only undelivered installs are retried. */
+		INSTALL_PACKAGE(Retryability.UNDELIVERED),
+		/** Uninstalling a package. */
+		UNINSTALL_PACKAGE(Retryability.NEVER),
+		/** Deleting a package. */
+		DELETE_PACKAGE(Retryability.NEVER),
+		/** Previewing a file under Forms and Documents.  This only stages the file on AEM. */
+		PREVIEW_FORMS(Retryability.SAFE),
+		/** Uploading a previewed file under Forms and Documents. */
+		UPLOAD_FORMS(Retryability.NEVER),
+		/** Deleting a file or folder under Forms and Documents. */
+		DELETE_FORMS(Retryability.NEVER);
+
+		private final Retryability retryability;
+
+		private Operation(Retryability retryability) {
+			this.retryability = retryability;
+		}
+
+		/**
+		 * Whether this operation can be retried.
+		 *
+		 * @return retryability
+		 */
+		public Retryability retryability() {
+			return retryability;
+		}
+	}
+
+	/**
+	 * Counts of the attempts made using this policy.
+	 *
+	 * @param calls calls made (each call makes one or more attempts)
+	 * @param attempts attempts made
+	 * @param retries attempts that were retries of a failed attempt
+	 * @param recovered calls that succeeded after a failed attempt
+	 * @param exhausted calls that failed because they used up their attempts
+	 * @param budgetExhausted calls that failed because no retries were left in the retry budget
+	 */
+	public record Metrics(long calls, long attempts, long retries, long recovered, long exhausted, long budgetExhausted) {
+		private Metrics plus(Metrics other) {
+			return new Metrics(calls + other.calls, attempts + other.attempts, retries + other.retries,
+							   recovered + other.recovered, exhausted + other.exhausted, budgetExhausted + other.budgetExhausted);
+		}
+	}
+
+	/**
+	 * A single attempt at calling AEM.
+	 *
+	 * @param <T> result type
+	 */
+	@FunctionalInterface
+	interface Attempt<T> {
+		T attempt() throws RestClientException;
+	}
+
+	private RetryPolicy(Builder builder) {
+		this.maxAttempts = builder.maxAttempts;
+		this.initialBackoff = builder.initialBackoff;
+		this.maxBackoff = builder.maxBackoff;
+		this.backoffMultiplier = builder.backoffMultiplier;
+		this.jitter = builder.jitter;
+		this.retryableStatusCodes = builder.retryableStatusCodes;
+		this.budget = new RetryBudget(builder.budgetRatio, builder.budgetCapacity);
+		for (Operation operation : Operation.values()) {
+			counters.put(operation, new Counters());
+		}
+	}
+
+	/**
+	 * Returns a policy that never retries.  This is used by the clients when no policy is supplied.
+	 *
+	 * @return policy that makes a single attempt
+	 */
+	public static RetryPolicy none() {
+		return builder().maxAttempts(1).build();
+	}
+
+	/**
+	 * Metrics for all operations.
+	 *
+	 * @return metrics
+	 */
+	public Metrics metrics() {
+		return counters.values().stream().map(Counters::snapshot).reduce(new Metrics(0, 0, 0, 0, 0, 0), Metrics::plus);
+	}
+
+	/**
+	 * Metrics for a single operation.
+	 *
+	 * @param operation operation
+	 * @return metrics
+	 */
+	public Metrics metrics(Operation operation) {
+		return counters.get(operation).snapshot();
+	}
+
+	/**
+	 * Makes a call, retrying it if it fails for a transient reason and the operation can be retried.
+	 *
+	 * @param <T> result type
+	 * @param operation operation being performed
+	 * @param logger logger for retry messages
+	 * @param attempt makes one attempt at the call
+	 * @return result of the first successful attempt
+	 * @throws RestClientException the exception from the last attempt if the call does not succeed
+	 */
+	<T> T call(Operation operation, Logger logger, Attempt<T> attempt) throws RestClientException {
+		Counters operationCounters = counters.get(operation);
+		operationCounters.calls.increment();
+		budget.deposit();
+		for (int attemptNumber = 1; ; attemptNumber++) {
+			operationCounters.attempts.increment();
+			try {
+				T result = attempt.attempt();
+				if (attemptNumber > 1) {
+					operationCounters.recovered.increment();
+				}
+				return result;
+			} catch (RestClientException e) {
+				if (!isRetryable(operation, e)) {
+					throw e;
+				}
+				Duration delay = nextDelay(operation, operationCounters, attemptNumber, e, logger);
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					e.addSuppressed(ie);
+					throw e;
+				}
+				operationCounters.retries.increment();
+			}
+		}
+	}
+
+	/**
+	 * Asynchronous version of call().  Retries are scheduled on the executor after the backoff delay, so no thread waits
+	 * between attempts.
+	 *
+	 * @param <T> result type
+	 * @param operation operation being performed
+	 * @param logger logger for retry messages
+	 * @param attempt makes one attempt at the call (failures are reported by completing the future exceptionally)
+	 * @param executor executor used to make the retries
+	 * @return future result of the first successful attempt
+	 */
+	<T> CompletableFuture<T> callAsync(Operation operation, Logger logger, Supplier<CompletableFuture<T>> attempt, Executor executor) {
+		Counters operationCounters = counters.get(operation);
+		operationCounters.calls.increment();
+		budget.deposit();
+		CompletableFuture<T> result = new CompletableFuture<>();
+		attemptAsync(operation, operationCounters, logger, attempt, executor, 1, result);
+		return result;
+	}
+
+	private <T> void attemptAsync(Operation operation, Counters operationCounters, Logger logger, Supplier<CompletableFuture<T>> attempt, Executor executor, int attemptNumber, CompletableFuture<T> result) {
+		operationCounters.attempts.increment();
+		attempt.get().whenComplete((value, throwable)->{
+			if (throwable == null) {
+				if (attemptNumber > 1) {
+					operationCounters.recovered.increment();
+				}
+				result.complete(value);
+				return;
+			}
+			Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+			try {
+				if (!(cause instanceof RestClientException e) || !isRetryable(operation, e)) {
+					result.completeExceptionally(throwable);
+					return;
+				}
+				Duration delay = nextDelay(operation, operationCounters, attemptNumber, e, logger);
+				CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS, executor).execute(()->{
+					operationCounters.retries.increment();
+					attemptAsync(operation, operationCounters, logger, attempt, executor, attemptNumber + 1, result);
+				});
+			} catch (RestClientException e) {
+				result.completeExceptionally(e);
+			}
+		});
+	}
+
+	private boolean isRetryable(Operation operation, RestClientException e) {
+		boolean retryableOperation = switch (operation.retryability()) {
+			case SAFE -> true;
+			case UNDELIVERED -> isUndelivered(e);
+			case NEVER -> false;
+		};
+		return retryableOperation && maxAttempts > 1 && isTransient(e);
+	}
+
+	// The request never reached AEM if the connection could not be established or AEM turned it away.
+	private static boolean isUndelivered(RestClientException e) {
+		OptionalInt statusCode = e.statusCode();
+		return statusCode.isPresent() ? UNDELIVERED_STATUS_CODES.contains(statusCode.getAsInt()) : e.failedToConnect();
+	}
+
+	// A transient failure is either a retryable status code from AEM or a failure of the connection (refused, reset, closed
+	// early or timed out).  Other failures without a status code (e.g. a response that cannot be parsed) would fail again.
+	// A cancelled upload can look like a connection failure, but the caller asked for it to stop.
+	private boolean isTransient(RestClientException e) {
+		if (UploadMonitor.isCancellation(e)) {
+			return false;
+		}
+		OptionalInt statusCode = e.statusCode();
+		if (statusCode.isPresent()) {
+			return retryableStatusCodes.contains(statusCode.getAsInt());
+		}
+		return e.isConnectionFailure();
+	}
+
+	// Returns the delay before the next attempt, or throws the failure if there are no attempts or retries left.
+	private Duration nextDelay(Operation operation, Counters operationCounters, int attemptNumber, RestClientException failure, Logger logger) throws RestClientException {
+		if (attemptNumber >= maxAttempts) {
+			operationCounters.exhausted.increment();
+			throw failure;
+		}
+		if (!budget.withdraw()) {
+			operationCounters.budgetExhausted.increment();
+			logger.log(()->"  " + operation + " failed and the retry budget is exhausted (" + summary(failure) + ")");
+			throw failure;
+		}
+		double exponentialNanos = initialBackoff.toNanos() * Math.pow(backoffMultiplier, attemptNumber - 1);
+		double cappedNanos = Math.min(exponentialNanos, maxBackoff.toNanos());
+		Duration delay = Duration.ofNanos((long)(cappedNanos * (1.0 - jitter * ThreadLocalRandom.current().nextDouble())));
+		logger.log(()->"  " + operation + " attempt " + attemptNumber + " failed (" + summary(failure) + "), retrying in " + delay.toMillis() + "ms");
+		return delay;
+	}
+
+	// Messages can include the body of AEM's response, so only the first line is logged.
+	private static String summary(RestClientException e) {
+		String message = String.valueOf(e.getMessage());
+		int newLine = message.indexOf('\n');
+		return newLine < 0 ? message : message.substring(0, newLine);
+	}
+
+	private static final class Counters {
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder attempts = new LongAdder();
+		private final LongAdder retries = new LongAdder();
+		private final LongAdder recovered = new LongAdder();
+		private final LongAdder exhausted = new LongAdder();
+		private final LongAdder budgetExhausted = new LongAdder();
+
+		private Metrics snapshot() {
+			return new Metrics(calls.sum(), attempts.sum(), retries.sum(), recovered.sum(), exhausted.sum(), budgetExhausted.sum());
+		}
+	}
+
+	// Token bucket: each call deposits a fraction of a token, each retry withdraws a whole one.  Starts full.
+	private static final class RetryBudget {
+		private final double ratio;
+		private final double capacity;
+		private double tokens;
+
+		private RetryBudget(double ratio, int capacity) {
+			this.ratio = ratio;
+			this.capacity = capacity;
+			this.tokens = capacity;
+		}
+
+		private synchronized void deposit() {
+			tokens = Math.min(capacity, tokens + ratio);
+		}
+
+		private synchronized boolean withdraw() {
+			if (tokens < 1.0) {
+				return false;
+			}
+			tokens -= 1.0;
+			return true;
+		}
+	}
+
+	/**
+	 * Returns a builder for creating a RetryPolicy.
+	 *
+	 * @return builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builder object for configuring/creating a RetryPolicy instance.
+	 */
+	public static class Builder {
+		private int maxAttempts = 3;
+		private Duration initialBackoff = Duration.ofMillis(500);
+		private Duration maxBackoff = Duration.ofSeconds(10);
+		private double backoffMultiplier = 2.0;
+		private double jitter = 0.5;
+		private double budgetRatio = 0.2;
+		private int budgetCapacity = 10;
+		private Set<Integer> retryableStatusCodes = DEFAULT_RETRYABLE_STATUS_CODES;
+
+		private Builder() {
+		}
+
+		/**
+		 * Maximum number of attempts for each call (including the first).  Defaults to 3.
+		 *
+		 * @param maxAttempts maximum attempts
+		 * @return builder
+		 */
+		public Builder maxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/**
+		 * Delay before the first retry.  Defaults to 500 milliseconds.
+		 *
+		 * @param initialBackoff initial delay
+		 * @return builder
+		 */
+		public Builder initialBackoff(Duration initialBackoff) {
+			this.initialBackoff = initialBackoff;
+			return this;
+		}
+
+		/**
+		 * Longest delay between attempts.  Defaults to 10 seconds.
+		 *
+		 * @param maxBackoff maximum delay
+		 * @return builder
+		 */
+		public Builder maxBackoff(Duration maxBackoff) {
+			this.maxBackoff = maxBackoff;
+			return this;
+		}
+
+		/**
+		 * Amount the delay is multiplied by after each attempt.  Defaults to 2.
+		 *
+		 * @param backoffMultiplier multiplier
+		 * @return builder
+		 */
+		public Builder backoffMultiplier(double backoffMultiplier) {
+			this.backoffMultiplier = backoffMultiplier;
+			return this;
+		}
+
+		/**
+		 * Fraction of each delay that is random.  0 means no jitter, 1 means the delay is anywhere between zero and the
+		 * exponential delay.  Defaults to 0.5.
+		 *
+		 * @param jitter fraction between 0 and 1
+		 * @return builder
+		 */
+		public Builder jitter(double jitter) {
+			this.jitter = jitter;
+			return this;
+		}
+
+		/**
+		 * Limits the number of retries across all calls made using the policy.  Defaults to a ratio of 0.2 (in the long run,
+		 * at most one retry for every five calls) and a capacity of 10.
+		 *
+		 * @param ratio fraction of a retry added to the budget by each call
+		 * @param capacity maximum number of retries that can be saved up in the budget (the budget starts full)
+		 * @return builder
+		 */
+		public Builder retryBudget(double ratio, int capacity) {
+			this.budgetRatio = ratio;
+			this.budgetCapacity = capacity;
+			return this;
+		}
+
+		/**
+		 * HTTP status codes that indicate a transient failure.  Defaults to 429, 502, 503 and 504.
+		 *
+		 * Failures without a status code are treated as transient if they were caused by the connection (e.g. a refused,
+		 * dropped or timed out connection).
+		 *
+		 * @param statusCodes status codes to retry
+		 * @return builder
+		 */
+		public Builder retryableStatusCodes(int... statusCodes) {
+			this.retryableStatusCodes = Arrays.stream(statusCodes).boxed().collect(Collectors.toUnmodifiableSet());
+			return this;
+		}
+
+		/**
+		 * Build the RetryPolicy.
+		 *
+		 * @return new RetryPolicy
+		 */
+		public RetryPolicy build() {
+			if (maxAttempts < 1) {
+				throw new IllegalArgumentException("Maximum attempts must be at least 1 (" + maxAttempts + ").");
+			}
+			if (initialBackoff.isNegative() || maxBackoff.isNegative() || backoffMultiplier < 1.0) {
+				throw new IllegalArgumentException("Invalid backoff (initial=" + initialBackoff + ", max=" + maxBackoff + ", multiplier=" + backoffMultiplier + ").");
+			}
+			if (jitter < 0.0 || jitter > 1.0) {
+				throw new IllegalArgumentException("Jitter must be between 0 and 1 (" + jitter + ").");
+			}
+			if (budgetRatio < 0.0 || budgetCapacity < 0) {
+				throw new IllegalArgumentException("Invalid retry budget (ratio=" + budgetRatio + ", capacity=" + budgetCapacity + ").");
+			}
+			return new RetryPolicy(this);
+		}
+	}
+}
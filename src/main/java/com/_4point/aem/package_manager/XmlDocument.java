@@ -2,10 +2,15 @@ package com._4point.aem.package_manager;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.IntStream;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -26,23 +31,34 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 public class XmlDocument {
+	// Maximum number of compiled XPath expressions cached per thread.
+	private static final int MAX_CACHED_XPATHS = 64;
+
+	// Factory lookups go through the service loader, so only do them once.  Neither the factories nor the objects they
+	// produce are guaranteed to be threadsafe, so builders and compiled expressions are cached per thread.
+	private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+	private static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
+	private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = ThreadLocal.withInitial(XmlDocument::newDocumentBuilder);
+	private static final ThreadLocal<XPathCache> XPATH_CACHE = ThreadLocal.withInitial(XPathCache::new);
+
 	private final Document xmlDoc;
-	private final XPath xpathFactory;
+	private final Node context;		// Node that XPath expressions are evaluated against (the document itself unless this is a view).
 	
-	private XmlDocument(Document xmlDoc, XPath xpathFactory) {
+	private XmlDocument(Document xmlDoc) {
+		this(xmlDoc, xmlDoc);
+	}
+
+	private XmlDocument(Document xmlDoc, Node context) {
 		this.xmlDoc = xmlDoc;
-		this.xpathFactory = xpathFactory;
+		this.context = context;
 	}
 
 	public static XmlDocument initializeXmlDoc(byte[] bytes) {
 		try {
-			XPath xPathFactory = XPathFactory.newInstance().newXPath();
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			Document doc = builder.parse(new ByteArrayInputStream(bytes));
+			Document doc = documentBuilder().parse(new ByteArrayInputStream(bytes));
 			doc.getDocumentElement().normalize();
-			return new XmlDocument(doc,xPathFactory);
-		} catch (ParserConfigurationException | SAXException | IOException e) {
+			return new XmlDocument(doc);
+		} catch (SAXException | IOException e) {
 			throw new XmlDocumentException(String.format("Failed to create XmlDataContext ... %s", e.getMessage()),e);
 		}
 	}
@@ -63,6 +79,32 @@ public class XmlDocument {
 		return getManyThings(xpath, this::mapNodeToDoc);
 	}
 
+	/**
+	 * Returns a view of the element located by the xpath.
+	 * 
+	 * Unlike getDoc(), the element is not copied into a new document.  The view shares the original document and
+	 * evaluates XPath expressions using the element as the context node, so relative XPath expressions (e.g. "name"
+	 * or "@code") are relative to the element while absolute expressions are still relative to the original document.
+	 * 
+	 * @param xpath xpath that locates a single element
+	 * @return view of the element or empty if no element was found
+	 */
+	public Optional<XmlDocument> getView(String xpath) {
+		return getOneThing(xpath, this::mapNodeToView);
+	}
+
+	/**
+	 * Returns views of the elements located by the xpath.
+	 * 
+	 * Unlike getDocs(), the elements are not copied into new documents.  See getView() for details.
+	 * 
+	 * @param xpath xpath that locates zero or more elements
+	 * @return list of views, one per element found
+	 */
+	public List<XmlDocument> getViews(String xpath) {
+		return getManyThings(xpath, this::mapNodeToView);
+	}
+
 	private <T> Optional<T> getOneThing(String xpath, BiConsumer<Node, Consumer<T>> nodeMapper) {
 		List<T> things = getManyThings(xpath, nodeMapper);
 		if (things.size() > 1) {
@@ -75,11 +117,10 @@ public class XmlDocument {
 	
 	private <T> List<T> getManyThings(String xpath, BiConsumer<Node, Consumer<T>> nodeMapper) {
 		try {
-			NodeList nodes = getNodeListByXpath(xpath);	        
-	        return IntStream.range(0, nodes.getLength())
-	        	     		.mapToObj(nodes::item)
-	        	     		.mapMulti(nodeMapper)
-	        	     		.toList();
+			List<Node> nodes = getNodesByXpath(xpath);	        
+	        return nodes.stream()
+	        	     	.mapMulti(nodeMapper)
+	        	     	.toList();
 		} catch (XPathExpressionException e) {			
 			throw new IllegalArgumentException(String.format("Failed to parse xml path %s. Error message: %s", xpath, e.getMessage()),e);
 		} 		
@@ -91,15 +132,19 @@ public class XmlDocument {
 		}
 	}
 
+	private void mapNodeToView(Node node, Consumer<XmlDocument> consumer) {
+		if (node.getNodeType() == Node.ELEMENT_NODE) {
+			consumer.accept(new XmlDocument(xmlDoc, node));
+		}
+	}
+
 	private XmlDocument elementToDoc(Node element) {
 		try {
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			Document newDocument = builder.newDocument();
+			Document newDocument = documentBuilder().newDocument();
 			Node importNode = newDocument.importNode(element, true);
 			newDocument.appendChild(importNode);
-			return new XmlDocument(newDocument, xpathFactory);
-		} catch (DOMException | ParserConfigurationException e) {
+			return new XmlDocument(newDocument);
+		} catch (DOMException e) {
 			throw new IllegalArgumentException(String.format("Error creating new XmlDocument. Error message: %s", e.getMessage()),e);
 		}
 	}
@@ -111,9 +156,132 @@ public class XmlDocument {
 		}
 	}
 
-	private NodeList getNodeListByXpath(String xpath) throws XPathExpressionException {
-		XPathExpression expr = xpathFactory.compile(xpath);
-		return (NodeList) expr.evaluate(xmlDoc, XPathConstants.NODESET);
+	private List<Node> getNodesByXpath(String xpath) throws XPathExpressionException {
+		return XPATH_CACHE.get().compile(xpath).select(context);
+	}
+
+	private static DocumentBuilder newDocumentBuilder() {
+		try {
+			synchronized (DOCUMENT_BUILDER_FACTORY) {
+				return DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+			}
+		} catch (ParserConfigurationException e) {
+			throw new XmlDocumentException(String.format("Failed to create DocumentBuilder ... %s", e.getMessage()),e);
+		}
+	}
+
+	// Returns this thread's DocumentBuilder, reset so that it is in the same state as a newly created one.
+	private static DocumentBuilder documentBuilder() {
+		DocumentBuilder builder = DOCUMENT_BUILDER.get();
+		builder.reset();
+		return builder;
+	}
+
+	/**
+	 * Per-thread LRU cache of compiled XPath expressions, keyed by the XPath string.
+	 */
+	@SuppressWarnings("serial")
+	private static class XPathCache extends LinkedHashMap<String, NodeSelector> {
+		private final XPath xpath;
+
+		private XPathCache() {
+			super(16, 0.75f, true);
+			synchronized (XPATH_FACTORY) {
+				this.xpath = XPATH_FACTORY.newXPath();
+			}
+		}
+
+		private NodeSelector compile(String expression) throws XPathExpressionException {
+			NodeSelector compiled = get(expression);
+			if (compiled == null) {
+				compiled = SimplePathSelector.from(expression).orElse(new XPathSelector(xpath.compile(expression)));
+				put(expression, compiled);
+			}
+			return compiled;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, NodeSelector> eldest) {
+			return size() > MAX_CACHED_XPATHS;
+		}
+	}
+
+	/**
+	 * A compiled XPath expression.
+	 */
+	private interface NodeSelector {
+		List<Node> select(Node context) throws XPathExpressionException;
+	}
+
+	/**
+	 * Evaluates an expression using the JDK's XPath implementation.
+	 * 
+	 * The JDK implementation builds an internal model of the entire document whenever the context node is not the
+	 * document itself, so this is slow when used with views of a large document.
+	 */
+	private record XPathSelector(XPathExpression expression) implements NodeSelector {
+		@Override
+		public List<Node> select(Node context) throws XPathExpressionException {
+			NodeList nodes = (NodeList) expression.evaluate(context, XPathConstants.NODESET);
+			return IntStream.range(0, nodes.getLength())
+							.mapToObj(nodes::item)
+							.toList();
+		}
+	}
+
+	/**
+	 * Evaluates simple location paths (e.g. ".", "@code", "package/name", "/crx/request/param/@name") by walking
+	 * the DOM directly.  This avoids the JDK XPath overhead for the expressions most commonly used by this library.
+	 * 
+	 * @param absolute true if the path starts at the document root
+	 * @param elementNames names of the child elements to step through (in order)
+	 * @param attributeName name of the attribute selected by the last step (or null if an element is selected)
+	 */
+	private record SimplePathSelector(boolean absolute, List<String> elementNames, String attributeName) implements NodeSelector {
+		private static final Pattern SIMPLE_PATH = Pattern.compile("(/?)((?:[A-Za-z_][\\w.-]*/)*(?:[A-Za-z_][\\w.-]*|@[A-Za-z_][\\w.-]*))|\\.");
+
+		private static Optional<NodeSelector> from(String expression) {
+			Matcher matcher = SIMPLE_PATH.matcher(expression);
+			if (!matcher.matches()) {
+				return Optional.empty();
+			}
+			if (matcher.group(2) == null) {		// "."
+				return Optional.of(new SimplePathSelector(false, List.of(), null));
+			}
+			List<String> steps = List.of(matcher.group(2).split("/"));
+			String lastStep = steps.get(steps.size() - 1);
+			return lastStep.startsWith("@") ? Optional.of(new SimplePathSelector(!matcher.group(1).isEmpty(), steps.subList(0, steps.size() - 1), lastStep.substring(1)))
+											: Optional.of(new SimplePathSelector(!matcher.group(1).isEmpty(), steps, null));
+		}
+
+		@Override
+		public List<Node> select(Node context) {
+			List<Node> current = List.of(absolute && context.getNodeType() != Node.DOCUMENT_NODE ? context.getOwnerDocument() : context);
+			for (String elementName : elementNames) {
+				List<Node> next = new ArrayList<>();
+				for (Node parent : current) {
+					for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+						if (child.getNodeType() == Node.ELEMENT_NODE && elementName.equals(child.getNodeName())) {
+							next.add(child);
+						}
+					}
+				}
+				current = next;
+			}
+			if (attributeName == null) {
+				return current;
+			}
+			List<Node> attributes = new ArrayList<>(current.size());
+			for (Node element : current) {
+				if (element.getNodeType() == Node.ELEMENT_NODE) {
+					Attr attribute = ((Element)element).getAttributeNode(attributeName);
+					if (attribute != null) {
+						attributes.add(attribute);
+					}
+				}
+			}
+			return attributes;
+		}
 	}
 
 	@SuppressWarnings("serial")
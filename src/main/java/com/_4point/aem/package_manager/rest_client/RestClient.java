@@ -1,11 +1,36 @@
 package com._4point.aem.package_manager.rest_client;
 
 import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 public interface RestClient {
 	
 	public static interface UntargettedRestClient {
@@ -41,6 +66,28 @@ public interface RestClient {
 		public static final ContentType APPLICATION_ZPL = ContentType.of("x-application/zpl");
 		
 		public static ContentType of(String contentType) { return new ContentType(contentType); }
+		
+		/**
+		 * Returns the charset parameter of this content type (e.g. "text/plain; charset=ISO-8859-1").
+		 * 
+		 * @return the charset or empty if there is no charset parameter (or it is not supported by this JVM)
+		 */
+		public Optional<Charset> charset() {
+			String[] parameters = contentType.split(";");
+			for (int i = 1; i < parameters.length; i++) {
+				String parameter = parameters[i].trim();
+				int equals = parameter.indexOf('=');
+				if (equals > 0 && parameter.substring(0, equals).trim().equalsIgnoreCase("charset")) {
+					String charsetName = parameter.substring(equals + 1).trim().replace("\"", "");
+					try {
+						return Optional.of(Charset.forName(charsetName));
+					} catch (IllegalArgumentException e) {	// IllegalCharsetNameException or UnsupportedCharsetException
+						return Optional.empty();
+					}
+				}
+			}
+			return Optional.empty();
+		}
 	};
 	
 	/**
@@ -60,6 +107,25 @@ public interface RestClient {
 		 */
 		public Optional<Response> postToServer(ContentType acceptContentType) throws RestClientException;
 		
+		/**
+		 * Asynchronous version of postToServer().
+		 * 
+		 * The default implementation calls postToServer() on the executor.  Implementations with a non-blocking transport
+		 * override this so that no thread is tied up while waiting for the server.
+		 * 
+		 * @param acceptContentType expected content type
+		 * @param executor executor used to process the response
+		 * @return future that completes with the Response (or completes exceptionally with a RestClientException)
+		 */
+		public default CompletableFuture<Optional<Response>> postToServerAsync(ContentType acceptContentType, Executor executor) {
+			return CompletableFuture.supplyAsync(()->{
+				try {
+					return postToServer(acceptContentType);
+				} catch (RestClientException e) {
+					throw new CompletionException(e);
+				}
+			}, executor);
+		}
 	}
 	
 	/**
@@ -72,6 +138,10 @@ public interface RestClient {
 			Builder add(String fieldName, byte[] fieldData, ContentType contentType);
 			Builder add(String fieldName, InputStream fieldData, ContentType contentType);
 			Builder add(String fieldName, Path fieldData, ContentType contentType);
+			/**
+			 * Adds a file that is streamed to AEM in chunks, reporting progress to (and allowing cancellation through) a monitor.
+			 */
+			Builder add(String fieldName, Path fieldData, ContentType contentType, UploadMonitor monitor);
 			default Builder addIfNotNull(String fieldName, String fieldData) {
 				return fieldData != null ? add(fieldName, fieldData) : this;
 			}
@@ -114,16 +184,38 @@ public interface RestClient {
 		 * Performs an HTTP GET Request from a server
 		 * 
 		 * @param acceptContentType - expected content type
-		 * @return Response from the server (Optional.isEMpty() if server returns "No Content"
+		 * @return Response from the server (Optional.isEMpty() if server returns "No Content" or, in response to a 
+		 * 			conditional request, "Not Modified")
 		 * @throws RestClientException if an error occurs
 		 */
 		public Optional<Response> getFromServer(ContentType acceptContentType) throws RestClientException;
 		
+		/**
+		 * Asynchronous version of getFromServer().
+		 * 
+		 * The default implementation calls getFromServer() on the executor.  Implementations with a non-blocking transport
+		 * override this so that no thread is tied up while waiting for the server.
+		 * 
+		 * @param acceptContentType expected content type
+		 * @param executor executor used to process the response
+		 * @return future that completes with the Response (or completes exceptionally with a RestClientException)
+		 */
+		public default CompletableFuture<Optional<Response>> getFromServerAsync(ContentType acceptContentType, Executor executor) {
+			return CompletableFuture.supplyAsync(()->{
+				try {
+					return getFromServer(acceptContentType);
+				} catch (RestClientException e) {
+					throw new CompletionException(e);
+				}
+			}, executor);
+		}
+		
 		/**
 		 * Used for building a GET request
 		 */
 		public interface Builder {
 			Builder queryParam(String name, String value);
+			Builder header(String name, String value);
 			GetRequest build();
 		}
 	}
@@ -163,24 +255,238 @@ public interface RestClient {
 		 */
 		public Optional<String> retrieveHeader(String header);
 		
+		/**
+		 * Reads the body of the response using a BodyHandler.  The response data is closed once the handler returns.
+		 * 
+		 * Like data(), this can only be called once.
+		 * 
+		 * @param <T> type produced by the handler
+		 * @param handler handler that converts the response data into a T (see BodyHandlers)
+		 * @return result from the handler
+		 * @throws RestClientException if an error occurs while reading the response data
+		 */
+		public default <T> T body(BodyHandler<T> handler) throws RestClientException {
+			try (InputStream data = data()) {
+				return handler.apply(contentType(), data);
+			} catch (IOException e) {
+				throw new RestClientException("Error while reading response from server.", e);
+			}
+		}
 	}
+	
+	/**
+	 * Converts the body of a response into some other type, reading it directly from the response data.
+	 * 
+	 * @param <T> type produced by the handler
+	 */
+	@FunctionalInterface
+	public interface BodyHandler<T> {
+		/**
+		 * Converts the body of a response.  The handler does not need to close the body. 
+		 * 
+		 * @param contentType content type of the response (which may include a charset parameter)
+		 * @param body response data
+		 * @return the converted body
+		 * @throws IOException if an error occurs while reading the body
+		 */
+		T apply(ContentType contentType, InputStream body) throws IOException;
+	}
+
+	/**
+	 * Processes an XML response as a stream of events.
+	 * 
+	 * @param <T> type produced from the XML
+	 */
+	@FunctionalInterface
+	public interface XmlStreamHandler<T> {
+		T apply(XMLStreamReader xmlStream) throws XMLStreamException, IOException;
+	}
+
+	/**
+	 * Commonly used BodyHandlers.
+	 * 
+	 * Text is decoded using the charset from the response's content type.  If there is none, JSON and XML are decoded
+	 * using the encoding they specify (or detect) themselves and other text is decoded as UTF-8.
+	 */
+	public static final class BodyHandlers {
+		private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+		private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+		
+		private BodyHandlers() {
+		}
+
+		private static XMLInputFactory createXmlInputFactory() {
+			XMLInputFactory factory = XMLInputFactory.newFactory();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+			return factory;
+		}
+		
+		/**
+		 * Decodes the body as a String.
+		 * 
+		 * @return handler
+		 */
+		public static BodyHandler<String> ofString() {
+			return (contentType, body)->new String(body.readAllBytes(), contentType.charset().orElse(StandardCharsets.UTF_8));
+		}
 
+		/**
+		 * Reads the body into a byte array.
+		 * 
+		 * @return handler
+		 */
+		public static BodyHandler<byte[]> ofByteArray() {
+			return (contentType, body)->body.readAllBytes();
+		}
+
+		/**
+		 * Parses the body into a JSON tree.
+		 * 
+		 * @return handler
+		 */
+		public static BodyHandler<JsonNode> ofJson() {
+			return (contentType, body)->{
+				Optional<Charset> charset = contentType.charset();
+				return charset.isPresent() ? JSON_MAPPER.readTree(new InputStreamReader(body, charset.get()))
+										   : JSON_MAPPER.readTree(body);
+			};
+		}
+
+		/**
+		 * Processes the body as a stream of XML events.
+		 * 
+		 * @param <T> type produced from the XML
+		 * @param handler handler that reads the XML events
+		 * @return handler
+		 */
+		public static <T> BodyHandler<T> ofXmlStream(XmlStreamHandler<T> handler) {
+			return (contentType, body)->{
+				try {
+					Optional<Charset> charset = contentType.charset();
+					XMLStreamReader xmlStream = charset.isPresent() ? XML_INPUT_FACTORY.createXMLStreamReader(body, charset.get().name())
+																	: XML_INPUT_FACTORY.createXMLStreamReader(body);
+					try {
+						return handler.apply(xmlStream);
+					} finally {
+						xmlStream.close();
+					}
+				} catch (XMLStreamException e) {
+					throw new IOException("Error while reading XML response.", e);
+				}
+			};
+		}
+
+		/**
+		 * Discards the body.  The body is read to the end so that the connection can be reused.
+		 * 
+		 * @return handler
+		 */
+		public static BodyHandler<Void> discarding() {
+			return (contentType, body)->{
+				body.transferTo(OutputStream.nullOutputStream());
+				return null;
+			};
+		}
+
+		/**
+		 * Writes the body to a file (replacing the file if it already exists).
+		 * 
+		 * @param file file that will be written
+		 * @return handler that returns the file
+		 */
+		public static BodyHandler<Path> ofFile(Path file) {
+			return (contentType, body)->{
+				Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+				return file;
+			};
+		}
+	}
+
+    /**
+     * Exception thrown when a call to AEM fails.
+     * 
+     * If AEM returned an unsuccessful HTTP status, the status code is available from statusCode().  Otherwise the call
+     * failed before a status was received (e.g. the connection was refused or dropped) or the response could not be read.
+     */
     @SuppressWarnings("serial")
 	public static class RestClientException extends Exception {
+		private static final int NO_STATUS_CODE = -1;
+		
+		private final int statusCode;
 
 		public RestClientException() {
+			this.statusCode = NO_STATUS_CODE;
+		}
+
+		/**
+		 * Creates an exception for an unsuccessful HTTP status returned by AEM.
+		 * 
+		 * @param message exception message
+		 * @param statusCode HTTP status code returned by AEM
+		 */
+		public RestClientException(String message, int statusCode) {
+			super(message);
+			this.statusCode = statusCode;
 		}
 
 		public RestClientException(String message, Throwable cause) {
 			super(message, cause);
+			this.statusCode = NO_STATUS_CODE;
 		}
 
 		public RestClientException(String message) {
 			super(message);
+			this.statusCode = NO_STATUS_CODE;
 		}
 
 		public RestClientException(Throwable cause) {
 			super(cause);
+			this.statusCode = NO_STATUS_CODE;
+		}
+
+		/**
+		 * HTTP status code returned by AEM.
+		 * 
+		 * @return the status code, or empty if the call failed without AEM returning an unsuccessful status.
+		 */
+		public OptionalInt statusCode() {
+			return statusCode == NO_STATUS_CODE ? OptionalInt.empty() : OptionalInt.of(statusCode);
+		}
+
+		/**
+		 * Indicates whether the call failed because of the connection to AEM (it was refused, reset, closed without an
+		 * answer or timed out), as opposed to AEM returning an error or a response that could not be read.
+		 * 
+		 * @return true if the connection failed
+		 */
+		public boolean isConnectionFailure() {
+			for (Throwable cause = getCause(); cause != null; cause = cause.getCause()) {
+				// EOFException is what the transports report when AEM closes the connection without answering.
+				if (cause instanceof SocketException || cause instanceof InterruptedIOException || cause instanceof HttpTimeoutException || cause instanceof EOFException) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Indicates whether the call failed because a connection to AEM could not be established (it was refused or
+		 * timed out while connecting), so the request was never sent.  Unlike other connection failures, AEM cannot
+		 * have started acting on the request.
+		 * 
+		 * @return true if the connection could not be established
+		 */
+		public boolean failedToConnect() {
+			for (Throwable cause = getCause(); cause != null; cause = cause.getCause()) {
+				// The connectors only tell a connect timeout from a read timeout by the message ("Connect timed out" from
+				// the JDK's sockets, "Connect to ... failed" from the Apache connector).
+				if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException
+						|| (cause instanceof SocketTimeoutException && String.valueOf(cause.getMessage()).regionMatches(true, 0, "connect", 0, 7))) {
+					return true;
+				}
+			}
+			return false;
 		}
 	}
 }
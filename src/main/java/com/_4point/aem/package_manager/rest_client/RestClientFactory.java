@@ -0,0 +1,28 @@
+package com._4point.aem.package_manager.rest_client;
+
+import com._4point.aem.package_manager.AemConfig;
+import com._4point.aem.package_manager.rest_client.RestClient.UntargettedRestClient;
+
+/**
+ * Creates RestClient objects.  This allows clients (e.g. PackageManagerClient) to be configured to use a specific transport.
+ *
+ * See JerseyRestClient.factory() and JdkRestClient.factory().
+ */
+public interface RestClientFactory {
+	/**
+	 * Create a RestClient that calls a specific endpoint.
+	 *
+	 * @param aemConfig AEM configuration parameters
+	 * @param target REST endpoint to be called.
+	 * @return new RestClient
+	 */
+	RestClient restClient(AemConfig aemConfig, String target);
+
+	/**
+	 * Create an UntargettedRestClient (which can be used to create RestClients for many different endpoints).
+	 *
+	 * @param aemConfig AEM configuration parameters
+	 * @return new UntargettedRestClient
+	 */
+	UntargettedRestClient untargettedRestClient(AemConfig aemConfig);
+}
@@ -0,0 +1,192 @@
+package com._4point.aem.package_manager.rest_client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Reports the progress of a file upload and allows it to be cancelled.
+ *
+ * The file is streamed to AEM in chunks.  As the chunks are sent, the listener is called with the number of bytes sent
+ * so far and the throughput, at most once per report interval and once more when the whole file has been sent.  The
+ * listener is called on the thread doing the sending, so it should return quickly.
+ *
+ * Cancellation is cooperative: after cancel() is called, the next chunk is not sent.  Instead, the upload fails with
+ * a RestClientException caused by a CancelledException and the connection is closed.  Once the whole file has been sent,
+ * AEM is already processing the upload and cancelling has no effect.
+ *
+ * A monitor is for one upload.  If the upload is retried, the progress starts again from zero and only the latest
+ * attempt is reported.
+ */
+public final class UploadMonitor {
+	private static final Duration DEFAULT_REPORT_INTERVAL = Duration.ofMillis(500);
+
+	private final Listener listener;
+	private final long reportIntervalNanos;
+	private final LongSupplier nanoClock;
+	private volatile boolean cancelled = false;
+
+	// Guarded by this
+	private long totalBytes;
+	private long bytesSent;
+	private long startedAt;
+	private long lastReportedAt;
+	private long lastReportedBytes;
+
+	/**
+	 * Progress of an upload.
+	 *
+	 * @param bytesSent bytes sent so far
+	 * @param totalBytes size of the file (-1 if unknown)
+	 * @param bytesPerSecond throughput since the previous report
+	 * @param averageBytesPerSecond throughput since the upload started
+	 * @param elapsed time since the upload started
+	 */
+	public record Progress(long bytesSent, long totalBytes, double bytesPerSecond, double averageBytesPerSecond, Duration elapsed) {
+
+		/**
+		 * Fraction of the file that has been sent.
+		 *
+		 * @return fraction between 0 and 1, or 0 if the size of the file is unknown
+		 */
+		public double fractionComplete() {
+			return totalBytes > 0 ? (double) bytesSent / totalBytes : 0;
+		}
+
+		/**
+		 * Indicates whether the whole file has been sent.
+		 *
+		 * @return true if complete
+		 */
+		public boolean isComplete() {
+			return totalBytes >= 0 && bytesSent >= totalBytes;
+		}
+	}
+
+	/**
+	 * Receives progress reports.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+		void progress(Progress progress);
+	}
+
+	/**
+	 * Thrown (as the cause of the RestClientException) when an upload is cancelled.
+	 */
+	@SuppressWarnings("serial")
+	public static class CancelledException extends IOException {
+		CancelledException(String message) {
+			super(message);
+		}
+	}
+
+	UploadMonitor(Listener listener, Duration reportInterval, LongSupplier nanoClock) {
+		this.listener = listener;
+		this.reportIntervalNanos = reportInterval.toNanos();
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Creates a monitor that reports progress every half second.
+	 *
+	 * @param listener listener to call with progress reports
+	 * @return new monitor
+	 */
+	public static UploadMonitor of(Listener listener) {
+		return of(listener, DEFAULT_REPORT_INTERVAL);
+	}
+
+	/**
+	 * Creates a monitor.
+	 *
+	 * @param listener listener to call with progress reports
+	 * @param reportInterval minimum time between progress reports
+	 * @return new monitor
+	 */
+	public static UploadMonitor of(Listener listener, Duration reportInterval) {
+		if (reportInterval.isNegative()) {
+			throw new IllegalArgumentException("Report interval cannot be negative (" + reportInterval + ").");
+		}
+		return new UploadMonitor(listener, reportInterval, System::nanoTime);
+	}
+
+	/**
+	 * Cancels the upload.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Indicates whether cancel() has been called.
+	 *
+	 * @return true if cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Indicates whether a failure was caused by cancelling an upload.
+	 *
+	 * @param t failure (e.g. a RestClientException or an exception from one of the clients)
+	 * @return true if a CancelledException is in the cause chain
+	 */
+	public static boolean isCancellation(Throwable t) {
+		for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+			if (cause instanceof CancelledException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Called by the transport when it starts sending the file.
+	 *
+	 * @param totalBytes size of the file (-1 if unknown)
+	 * @throws CancelledException if the upload has been cancelled
+	 */
+	public synchronized void started(long totalBytes) throws CancelledException {
+		checkCancelled();
+		this.totalBytes = totalBytes;
+		this.bytesSent = 0;
+		this.startedAt = nanoClock.getAsLong();
+		this.lastReportedAt = startedAt;
+		this.lastReportedBytes = 0;
+	}
+
+	/**
+	 * Called by the transport before it sends each chunk of the file.
+	 *
+	 * @param bytes size of the chunk
+	 * @throws CancelledException if the upload has been cancelled, in which case the chunk must not be sent
+	 */
+	public synchronized void sending(int bytes) throws CancelledException {
+		checkCancelled();
+		bytesSent += bytes;
+		long now = nanoClock.getAsLong();
+		if (now - lastReportedAt >= reportIntervalNanos || (totalBytes >= 0 && bytesSent >= totalBytes)) {
+			long sinceLastReport = now - lastReportedAt;
+			Progress progress = new Progress(bytesSent, totalBytes,
+											 bytesPerSecond(bytesSent - lastReportedBytes, sinceLastReport),
+											 bytesPerSecond(bytesSent, now - startedAt),
+											 Duration.ofNanos(now - startedAt));
+			lastReportedAt = now;
+			lastReportedBytes = bytesSent;
+			listener.progress(progress);
+		}
+	}
+
+	private void checkCancelled() throws CancelledException {
+		if (cancelled) {
+			throw new CancelledException("Upload was cancelled after " + bytesSent + " bytes.");
+		}
+	}
+
+	private static double bytesPerSecond(long bytes, long nanos) {
+		return nanos > 0 ? bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos : 0;
+	}
+}
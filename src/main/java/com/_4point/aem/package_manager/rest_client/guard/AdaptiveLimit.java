@@ -0,0 +1,212 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com._4point.aem.package_manager.rest_client.guard.ConcurrencyLimiter.LimitExceededException;
+
+/**
+ * Adaptive limit on the number of calls in flight to a single AEM instance (additive increase, multiplicative decrease).
+ *
+ * Each call that completes normally while the limit is being used raises the limit by 1/limit (so roughly one more call
+ * per round of calls).  A call that shows that AEM is overloaded reduces the limit by backoffRatio.  AEM is taken to be
+ * overloaded if it returns a 429 or 5xx status, cannot be connected to, or takes more than latencyTolerance times as
+ * long as usual to answer a light call.  The latency of heavy calls depends mostly on the size of the package, so it is
+ * not used.
+ */
+final class AdaptiveLimit implements CallGuard {
+	private static final double BASELINE_WEIGHT = 0.05;	// Weight of each new sample in the smoothed latency.
+
+	/**
+	 * What a completed call says about the load on AEM.
+	 */
+	enum Signal {
+		/** AEM answered normally. */
+		SUCCESS,
+		/** AEM is overloaded. */
+		OVERLOADED,
+		/** The call says nothing about AEM (e.g. it was rejected before being sent). */
+		IGNORE;
+	}
+
+	private final String url;
+	private final int minLimit;
+	private final int maxLimit;
+	private final double backoffRatio;
+	private final double latencyTolerance;
+	private final long maxWaitNanos;
+
+	private final ReentrantLock lock = new ReentrantLock(true);	// Fair, so that a call isn't overtaken indefinitely.
+	private final Condition slotFreed = lock.newCondition();
+	// Guarded by lock
+	private double limit;
+	private int inFlight = 0;
+	private double baselineNanos = 0;	// Smoothed latency of light calls, 0 until the first one completes.
+
+	AdaptiveLimit(String url, int initialLimit, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance, Duration maxWait) {
+		this.url = url;
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.backoffRatio = backoffRatio;
+		this.latencyTolerance = latencyTolerance;
+		this.maxWaitNanos = maxWait.toNanos();
+	}
+
+	@Override
+	public <T> T call(boolean isHeavy, Call<T> call) throws RestClientException {
+		acquire();
+		long start = System.nanoTime();
+		Signal signal = Signal.IGNORE;
+		try {
+			T result = call.call();
+			signal = Signal.SUCCESS;
+			return result;
+		} catch (RestClientException e) {
+			signal = signal(e);
+			throw e;
+		} finally {
+			release(isHeavy, signal, System.nanoTime() - start);
+		}
+	}
+
+	// The slot is waited for using the executor, so the caller's thread is never blocked.
+	@Override
+	public <T> CompletableFuture<T> callAsync(boolean isHeavy, Supplier<CompletableFuture<T>> call, Executor executor) {
+		return CompletableFuture.supplyAsync(()->{
+									try {
+										acquire();
+										return System.nanoTime();
+									} catch (RestClientException e) {
+										throw new CompletionException(e);
+									}
+								}, executor)
+								.thenCompose(start->{
+									CompletableFuture<T> result;
+									try {
+										result = call.get();
+									} catch (RuntimeException | Error e) {
+										release(isHeavy, Signal.IGNORE, 0);
+										throw e;
+									}
+									return result.whenComplete((r, throwable)->{
+										Signal signal = throwable == null ? Signal.SUCCESS
+																		  : CallGuard.unwrap(throwable) instanceof RestClientException e ? signal(e) : Signal.IGNORE;
+										release(isHeavy, signal, System.nanoTime() - start);
+									});
+								});
+	}
+
+	/**
+	 * Waits for the number of calls in flight to drop below the limit.  Every successful acquire() must be followed by
+	 * a release().
+	 *
+	 * @throws LimitExceededException if the limit stays reached for longer than maxWait
+	 * @throws RestClientException if the thread is interrupted while waiting
+	 */
+	void acquire() throws RestClientException {
+		lock.lock();
+		try {
+			long remainingNanos = maxWaitNanos;
+			while (inFlight >= (int) limit) {
+				if (remainingNanos <= 0) {
+					throw new LimitExceededException("Limit of " + (int) limit + " concurrent calls to '" + url + "' was reached for " + Duration.ofNanos(maxWaitNanos) + ".");
+				}
+				remainingNanos = slotFreed.awaitNanos(remainingNanos);
+			}
+			inFlight++;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RestClientException("Interrupted while waiting to call '" + url + "'.", e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Ends a call and adjusts the limit based on how it went.
+	 *
+	 * @param isHeavy whether the call was a heavy one
+	 * @param signal what the call says about the load on AEM
+	 * @param latencyNanos how long the call took
+	 */
+	void release(boolean isHeavy, Signal signal, long latencyNanos) {
+		lock.lock();
+		try {
+			int callsInFlight = inFlight--;
+			switch (signal) {
+				case OVERLOADED -> decrease();
+				case SUCCESS -> {
+					if (!isHeavy && isSlow(latencyNanos)) {
+						decrease();
+					} else if (callsInFlight * 2 >= limit) {	// Only raise the limit if it is being used.
+						limit = Math.min(maxLimit, limit + 1 / limit);
+					}
+				}
+				case IGNORE -> {}
+			}
+			slotFreed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Compares the latency to the usual latency, then folds it into the usual latency so that a lasting change is accepted.
+	private boolean isSlow(long latencyNanos) {
+		if (baselineNanos == 0) {
+			baselineNanos = latencyNanos;
+			return false;
+		}
+		boolean slow = latencyNanos > baselineNanos * latencyTolerance;
+		baselineNanos += (latencyNanos - baselineNanos) * BASELINE_WEIGHT;
+		return slow;
+	}
+
+	private void decrease() {
+		limit = Math.max(minLimit, limit * backoffRatio);
+	}
+
+	/**
+	 * Current limit on the number of calls in flight.
+	 *
+	 * @return limit
+	 */
+	int limit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Number of calls currently in flight.
+	 *
+	 * @return calls in flight
+	 */
+	int inFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// 429 (Too Many Requests) is an explicit request to slow down.  Other failures without a status (e.g. a rejection by a
+	// circuit breaker) say nothing about the load on AEM.
+	private static Signal signal(RestClientException e) {
+		if (e.statusCode().isPresent()) {
+			int statusCode = e.statusCode().getAsInt();
+			return statusCode == 429 || statusCode >= 500 ? Signal.OVERLOADED : Signal.SUCCESS;
+		}
+		return CallGuard.isHostFailure(e) ? Signal.OVERLOADED : Signal.IGNORE;
+	}
+}
@@ -0,0 +1,57 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com._4point.aem.package_manager.rest_client.guard.RestClientGuard.BulkheadFullException;
+
+/**
+ * Limits the number of concurrent calls of one kind (heavy or light) to a single AEM instance.
+ *
+ * Calls wait (up to maxWait) for one of the other calls to complete rather than queuing without limit.
+ */
+final class Bulkhead {
+	private final String name;
+	private final int maxConcurrent;
+	private final long maxWaitNanos;
+	private final Semaphore permits;
+
+	Bulkhead(String name, int maxConcurrent, Duration maxWait) {
+		this.name = name;
+		this.maxConcurrent = maxConcurrent;
+		this.maxWaitNanos = maxWait.toNanos();
+		this.permits = new Semaphore(maxConcurrent, true);	// Fair, so that a call isn't overtaken indefinitely.
+	}
+
+	/**
+	 * Waits for a free slot.  Every successful acquire() must be followed by a release().
+	 *
+	 * @throws BulkheadFullException if no slot becomes free within maxWait
+	 * @throws RestClientException if the thread is interrupted while waiting
+	 */
+	void acquire() throws RestClientException {
+		try {
+			if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+				throw new BulkheadFullException("All " + maxConcurrent + " " + name + " slots were in use for " + Duration.ofNanos(maxWaitNanos) + ".");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RestClientException("Interrupted while waiting for a " + name + " slot.", e);
+		}
+	}
+
+	void release() {
+		permits.release();
+	}
+
+	/**
+	 * Number of calls currently holding a slot.
+	 *
+	 * @return calls in progress
+	 */
+	int inUse() {
+		return maxConcurrent - permits.availablePermits();
+	}
+}
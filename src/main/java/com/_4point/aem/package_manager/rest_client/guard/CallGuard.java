@@ -0,0 +1,53 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
+
+/**
+ * Controls the calls made to a single AEM instance (see GuardedRestClient).
+ */
+interface CallGuard {
+
+	/**
+	 * A call to AEM.
+	 *
+	 * @param <T> result type
+	 */
+	@FunctionalInterface
+	interface Call<T> {
+		T call() throws RestClientException;
+	}
+
+	<T> T call(boolean isHeavy, Call<T> call) throws RestClientException;
+
+	<T> CompletableFuture<T> callAsync(boolean isHeavy, Supplier<CompletableFuture<T>> call, Executor executor);
+
+	/**
+	 * Indicates whether a failure shows that AEM is unhealthy (a 5xx status or a connection failure), as opposed to a
+	 * failure that shows that it is up (e.g. a 404 or a response that could not be parsed).  A cancelled upload says
+	 * nothing about AEM.
+	 *
+	 * @param e failure
+	 * @return true if AEM is unhealthy
+	 */
+	static boolean isHostFailure(RestClientException e) {
+		if (UploadMonitor.isCancellation(e)) {
+			return false;
+		}
+		OptionalInt statusCode = e.statusCode();
+		if (statusCode.isPresent()) {
+			return statusCode.getAsInt() >= 500;
+		}
+		return e.isConnectionFailure();
+	}
+
+	static Throwable unwrap(Throwable throwable) {
+		return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+	}
+}
@@ -0,0 +1,93 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import com._4point.aem.package_manager.rest_client.guard.RestClientGuard.CircuitOpenException;
+import com._4point.aem.package_manager.rest_client.guard.RestClientGuard.CircuitState;
+
+/**
+ * Circuit breaker for a single AEM instance.
+ *
+ * The circuit starts CLOSED.  After failureThreshold consecutive failures it OPENs and calls are rejected without being
+ * made.  Once openDuration has passed, it goes HALF_OPEN and lets a limited number of trial calls through.  A successful
+ * trial closes the circuit again and a failed one re-opens it.
+ */
+final class CircuitBreaker {
+	private final String url;
+	private final int failureThreshold;
+	private final long openNanos;
+	private final int halfOpenCalls;
+	private final LongSupplier nanoClock;
+
+	// Guarded by this
+	private CircuitState state = CircuitState.CLOSED;
+	private int consecutiveFailures = 0;
+	private long openedAt = 0;
+	private int trialCalls = 0;
+
+	CircuitBreaker(String url, int failureThreshold, Duration openDuration, int halfOpenCalls, LongSupplier nanoClock) {
+		this.url = url;
+		this.failureThreshold = failureThreshold;
+		this.openNanos = openDuration.toNanos();
+		this.halfOpenCalls = halfOpenCalls;
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Current state of the circuit.
+	 *
+	 * @return state
+	 */
+	synchronized CircuitState state() {
+		if (state == CircuitState.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+			return CircuitState.HALF_OPEN;	// Will be half open for the next call.
+		}
+		return state;
+	}
+
+	/**
+	 * Gets permission to make a call.  Every permitted call must be followed by a call to onSuccess(), onFailure() or
+	 * release().
+	 *
+	 * @throws CircuitOpenException if the circuit is open (or half open and all the trial calls are in progress)
+	 */
+	synchronized void acquirePermission() throws CircuitOpenException {
+		if (state == CircuitState.OPEN) {
+			if (nanoClock.getAsLong() - openedAt < openNanos) {
+				throw new CircuitOpenException("Circuit for '" + url + "' is open after " + consecutiveFailures + " consecutive failures.");
+			}
+			state = CircuitState.HALF_OPEN;
+			trialCalls = 0;
+		}
+		if (state == CircuitState.HALF_OPEN) {
+			if (trialCalls >= halfOpenCalls) {
+				throw new CircuitOpenException("Circuit for '" + url + "' is half open and waiting for trial calls to complete.");
+			}
+			trialCalls++;
+		}
+	}
+
+	synchronized void onSuccess() {
+		consecutiveFailures = 0;
+		state = CircuitState.CLOSED;
+	}
+
+	synchronized void onFailure() {
+		consecutiveFailures++;
+		if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+			state = CircuitState.OPEN;
+			openedAt = nanoClock.getAsLong();
+		}
+	}
+
+	/**
+	 * Gives back a permission without recording an outcome (e.g. the call was not made or failed for a reason that does
+	 * not reflect the health of AEM).
+	 */
+	synchronized void release() {
+		if (state == CircuitState.HALF_OPEN && trialCalls > 0) {
+			trialCalls--;
+		}
+	}
+}
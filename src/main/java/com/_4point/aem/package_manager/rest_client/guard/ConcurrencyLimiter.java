@@ -0,0 +1,194 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com._4point.aem.package_manager.AemConfig;
+import com._4point.aem.package_manager.rest_client.RestClient;
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com._4point.aem.package_manager.rest_client.RestClient.UntargettedRestClient;
+import com._4point.aem.package_manager.rest_client.RestClientFactory;
+
+/**
+ * Limits the number of calls in flight to each AEM instance, adjusting the limit to how well the instance is coping.
+ *
+ * The limit for an instance (identified by AemConfig.url()) starts at initialLimit.  It rises slowly while the instance
+ * answers promptly, and drops quickly when it returns 429 or 5xx statuses, cannot be connected to, or takes much longer
+ * than usual to answer.  Calls over the limit wait for another call to complete.  A large AEM instance is therefore
+ * given more concurrent calls than a small one, without having to tune a fixed parallelism for each.
+ *
+ * Like RestClientGuard, the limiter sits below the clients, so it is applied by wrapping the factory passed to the client
+ * builder.  It can be combined with a RestClientGuard:
+ * <pre>
+ * ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().build();
+ * PackageManagerClient client = PackageManagerClient.builder()
+ *                                                   .restClientFactory(limiter.wrap(guard.wrap(JdkRestClient.factory())))
+ *                                                   .build();
+ * </pre>
+ * All the calls made by clients created this way go through the limiter, including those made by the concurrent bulk
+ * operations in PackageManagerClientEx and by the caller's own parallel loops.  The same limiter should be used for all
+ * the clients that talk to the same AEM instances so that they share the limit.
+ */
+public final class ConcurrencyLimiter {
+	private final int initialLimit;
+	private final int minLimit;
+	private final int maxLimit;
+	private final double backoffRatio;
+	private final double latencyTolerance;
+	private final Duration maxWait;
+	private final ConcurrentMap<String, AdaptiveLimit> limits = new ConcurrentHashMap<>();
+
+	/**
+	 * Thrown when a call is rejected because the limit for its AEM instance stayed reached for too long.
+	 */
+	@SuppressWarnings("serial")
+	public static class LimitExceededException extends RestClientException {
+		LimitExceededException(String message) {
+			super(message);
+		}
+	}
+
+	private ConcurrencyLimiter(Builder builder) {
+		this.initialLimit = builder.initialLimit;
+		this.minLimit = builder.minLimit;
+		this.maxLimit = builder.maxLimit;
+		this.backoffRatio = builder.backoffRatio;
+		this.latencyTolerance = builder.latencyTolerance;
+		this.maxWait = builder.maxWait;
+	}
+
+	/**
+	 * Returns a factory whose RestClients are limited by this limiter.
+	 *
+	 * @param factory factory that creates the underlying RestClients (e.g. JdkRestClient.factory())
+	 * @return limited factory
+	 */
+	public RestClientFactory wrap(RestClientFactory factory) {
+		return new RestClientFactory() {
+			@Override
+			public RestClient restClient(AemConfig aemConfig, String target) {
+				return new GuardedRestClient(factory.restClient(aemConfig, target), limit(aemConfig.url()));
+			}
+
+			@Override
+			public UntargettedRestClient untargettedRestClient(AemConfig aemConfig) {
+				UntargettedRestClient untargetted = factory.untargettedRestClient(aemConfig);
+				AdaptiveLimit limit = limit(aemConfig.url());
+				return target->new GuardedRestClient(untargetted.target(target), limit);
+			}
+		};
+	}
+
+	/**
+	 * Current limit on the number of calls in flight to an AEM instance.
+	 *
+	 * @param url AEM instance URL (as returned by AemConfig.url())
+	 * @return limit, or empty if no calls have been made to that instance
+	 */
+	public Optional<Integer> currentLimit(String url) {
+		return Optional.ofNullable(limits.get(url)).map(AdaptiveLimit::limit);
+	}
+
+	private AdaptiveLimit limit(String url) {
+		return limits.computeIfAbsent(url, u->new AdaptiveLimit(u, initialLimit, minLimit, maxLimit, backoffRatio, latencyTolerance, maxWait));
+	}
+
+	/**
+	 * Returns a builder for creating a ConcurrencyLimiter.
+	 *
+	 * @return builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builder object for configuring/creating a ConcurrencyLimiter instance.
+	 */
+	public static class Builder {
+		private int initialLimit = 4;
+		private int minLimit = 1;
+		private int maxLimit = 32;
+		private double backoffRatio = 0.9;
+		private double latencyTolerance = 2.0;
+		private Duration maxWait = Duration.ofMinutes(10);
+
+		private Builder() {
+		}
+
+		/**
+		 * Limit used before anything is known about an AEM instance.  Defaults to 4.
+		 *
+		 * @param initialLimit initial number of calls in flight
+		 * @return builder
+		 */
+		public Builder initialLimit(int initialLimit) {
+			this.initialLimit = initialLimit;
+			return this;
+		}
+
+		/**
+		 * Range that the limit is kept within.  Defaults to 1 to 32.
+		 *
+		 * @param minLimit lowest limit
+		 * @param maxLimit highest limit
+		 * @return builder
+		 */
+		public Builder limitRange(int minLimit, int maxLimit) {
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+			return this;
+		}
+
+		/**
+		 * What the limit is multiplied by when AEM is overloaded.  Defaults to 0.9.
+		 *
+		 * @param backoffRatio ratio between 0 and 1
+		 * @return builder
+		 */
+		public Builder backoffRatio(double backoffRatio) {
+			this.backoffRatio = backoffRatio;
+			return this;
+		}
+
+		/**
+		 * How many times longer than usual a call can take before AEM is considered overloaded.  Defaults to 2.
+		 *
+		 * @param latencyTolerance multiple of the usual latency (greater than 1)
+		 * @return builder
+		 */
+		public Builder latencyTolerance(double latencyTolerance) {
+			this.latencyTolerance = latencyTolerance;
+			return this;
+		}
+
+		/**
+		 * How long a call waits for the number of calls in flight to drop below the limit before failing.  Defaults to
+		 * 10 minutes (installs can take minutes).
+		 *
+		 * @param maxWait maximum wait
+		 * @return builder
+		 */
+		public Builder maxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+			return this;
+		}
+
+		/**
+		 * Build the ConcurrencyLimiter.
+		 *
+		 * @return new ConcurrencyLimiter
+		 */
+		public ConcurrencyLimiter build() {
+			if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+				throw new IllegalArgumentException("Invalid limits (initial=" + initialLimit + ", min=" + minLimit + ", max=" + maxLimit + ").");
+			}
+			if (!(backoffRatio > 0 && backoffRatio < 1) || !(latencyTolerance > 1) || maxWait.isNegative()) {
+				throw new IllegalArgumentException("Invalid limiter settings (backoffRatio=" + backoffRatio + ", latencyTolerance=" + latencyTolerance + ", maxWait=" + maxWait + ").");
+			}
+			return new ConcurrencyLimiter(this);
+		}
+	}
+}
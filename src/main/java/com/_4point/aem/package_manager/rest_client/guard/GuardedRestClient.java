@@ -0,0 +1,162 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com._4point.aem.package_manager.rest_client.RestClient;
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
+
+/**
+ * RestClient that makes its calls through the CallGuard for its AEM instance.
+ *
+ * Calls are classified as heavy or light from what is being sent, since the RestClient layer does not know which client
+ * operation is being performed.  GET requests are light.  A multipart POST is heavy if it uploads content (contains a
+ * byte[], InputStream or file part) or runs a Package Manager command that unpacks content (upload, install or uninstall).
+ */
+final class GuardedRestClient implements RestClient {
+	private static final Set<String> HEAVY_COMMANDS = Set.of("upload", "install", "uninstall");
+
+	private final RestClient delegate;
+	private final CallGuard callGuard;
+
+	GuardedRestClient(RestClient delegate, CallGuard callGuard) {
+		this.delegate = delegate;
+		this.callGuard = callGuard;
+	}
+
+	@Override
+	public String target() {
+		return delegate.target();
+	}
+
+	@Override
+	public MultipartPayload.Builder multipartPayloadBuilder() {
+		return new GuardedMultipartPayloadBuilder(delegate.multipartPayloadBuilder());
+	}
+
+	@Override
+	public GetRequest.Builder getRequestBuilder() {
+		return new GuardedGetRequestBuilder(delegate.getRequestBuilder());
+	}
+
+	private final class GuardedMultipartPayloadBuilder implements MultipartPayload.Builder {
+		private final MultipartPayload.Builder delegateBuilder;
+		private boolean heavy = false;
+
+		private GuardedMultipartPayloadBuilder(MultipartPayload.Builder delegateBuilder) {
+			this.delegateBuilder = delegateBuilder;
+		}
+
+		@Override
+		public MultipartPayload.Builder add(String fieldName, String fieldData) {
+			heavy |= "cmd".equals(fieldName) && HEAVY_COMMANDS.contains(fieldData);
+			delegateBuilder.add(fieldName, fieldData);
+			return this;
+		}
+
+		@Override
+		public MultipartPayload.Builder add(String fieldName, byte[] fieldData, ContentType contentType) {
+			heavy = true;
+			delegateBuilder.add(fieldName, fieldData, contentType);
+			return this;
+		}
+
+		@Override
+		public MultipartPayload.Builder add(String fieldName, InputStream fieldData, ContentType contentType) {
+			heavy = true;
+			delegateBuilder.add(fieldName, fieldData, contentType);
+			return this;
+		}
+
+		@Override
+		public MultipartPayload.Builder add(String fieldName, Path fieldData, ContentType contentType) {
+			heavy = true;
+			delegateBuilder.add(fieldName, fieldData, contentType);
+			return this;
+		}
+
+		@Override
+		public MultipartPayload.Builder add(String fieldName, Path fieldData, ContentType contentType, UploadMonitor monitor) {
+			heavy = true;
+			delegateBuilder.add(fieldName, fieldData, contentType, monitor);
+			return this;
+		}
+
+		@Override
+		public MultipartPayload.Builder queryParam(String name, String value) {
+			delegateBuilder.queryParam(name, value);
+			return this;
+		}
+
+		@Override
+		public MultipartPayload build() {
+			return new GuardedMultipartPayload(delegateBuilder.build(), heavy);
+		}
+	}
+
+	private final class GuardedMultipartPayload implements MultipartPayload {
+		private final MultipartPayload delegatePayload;
+		private final boolean heavy;
+
+		private GuardedMultipartPayload(MultipartPayload delegatePayload, boolean heavy) {
+			this.delegatePayload = delegatePayload;
+			this.heavy = heavy;
+		}
+
+		@Override
+		public Optional<Response> postToServer(ContentType acceptContentType) throws RestClientException {
+			return callGuard.call(heavy, ()->delegatePayload.postToServer(acceptContentType));
+		}
+
+		@Override
+		public CompletableFuture<Optional<Response>> postToServerAsync(ContentType acceptContentType, Executor executor) {
+			return callGuard.callAsync(heavy, ()->delegatePayload.postToServerAsync(acceptContentType, executor), executor);
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegatePayload.close();
+		}
+	}
+
+	private final class GuardedGetRequestBuilder implements GetRequest.Builder {
+		private final GetRequest.Builder delegateBuilder;
+
+		private GuardedGetRequestBuilder(GetRequest.Builder delegateBuilder) {
+			this.delegateBuilder = delegateBuilder;
+		}
+
+		@Override
+		public GetRequest.Builder queryParam(String name, String value) {
+			delegateBuilder.queryParam(name, value);
+			return this;
+		}
+
+		@Override
+		public GetRequest.Builder header(String name, String value) {
+			delegateBuilder.header(name, value);
+			return this;
+		}
+
+		@Override
+		public GetRequest build() {
+			GetRequest request = delegateBuilder.build();
+			return new GetRequest() {
+				@Override
+				public Optional<Response> getFromServer(ContentType acceptContentType) throws RestClientException {
+					return callGuard.call(false, ()->request.getFromServer(acceptContentType));
+				}
+
+				@Override
+				public CompletableFuture<Optional<Response>> getFromServerAsync(ContentType acceptContentType, Executor executor) {
+					return callGuard.callAsync(false, ()->request.getFromServerAsync(acceptContentType, executor), executor);
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,330 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import com._4point.aem.package_manager.AemConfig;
+import com._4point.aem.package_manager.rest_client.RestClient;
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com._4point.aem.package_manager.rest_client.RestClient.UntargettedRestClient;
+import com._4point.aem.package_manager.rest_client.RestClientFactory;
+
+/**
+ * Protects callers from unhealthy AEM instances by wrapping the RestClients created by a RestClientFactory.
+ *
+ * Each AEM instance (identified by AemConfig.url()) gets its own circuit breaker and its own pair of bulkheads:
+ * <ul>
+ *   <li>The circuit breaker opens after a number of consecutive failures (5xx statuses or connection failures).  While
+ *       it is open, calls to that instance fail immediately with a CircuitOpenException instead of tying up a thread.
+ *       After a while, a trial call is let through to see whether the instance has recovered.</li>
+ *   <li>The heavy bulkhead limits the number of concurrent uploads, installs and uninstalls, and the light bulkhead limits
+ *       everything else (e.g. listing or deleting packages).  A slow install therefore cannot use up the threads needed
+ *       for quick calls, and calls to a slow instance cannot use up the threads needed for calls to other instances.</li>
+ * </ul>
+ *
+ * The guard sits below the clients, so it is applied by wrapping the factory passed to the client builder:
+ * <pre>
+ * RestClientGuard guard = RestClientGuard.builder().build();
+ * PackageManagerClient client = PackageManagerClient.builder()
+ *                                                   .restClientFactory(guard.wrap(JdkRestClient.factory()))
+ *                                                   .build();
+ * </pre>
+ * The same guard should be used for all the clients that talk to the same AEM instances so that they share its state.
+ *
+ * The bulkhead slot is held until the response is returned by the underlying RestClient.  Reading the body of the
+ * response afterwards is not limited.
+ */
+public final class RestClientGuard {
+	private final int failureThreshold;
+	private final Duration openDuration;
+	private final int halfOpenCalls;
+	private final int heavyMaxConcurrent;
+	private final Duration heavyMaxWait;
+	private final int lightMaxConcurrent;
+	private final Duration lightMaxWait;
+	private final LongSupplier nanoClock;
+	private final ConcurrentMap<String, HostGuard> hostGuards = new ConcurrentHashMap<>();
+
+	/**
+	 * State of a circuit breaker.
+	 */
+	public enum CircuitState {
+		/** Calls are made normally. */
+		CLOSED,
+		/** Calls are rejected without being made. */
+		OPEN,
+		/** A limited number of trial calls are being made to see whether the AEM instance has recovered. */
+		HALF_OPEN;
+	}
+
+	/**
+	 * Thrown when a call is rejected because the circuit for the AEM instance is open.
+	 */
+	@SuppressWarnings("serial")
+	public static class CircuitOpenException extends RestClientException {
+		CircuitOpenException(String message) {
+			super(message);
+		}
+	}
+
+	/**
+	 * Thrown when a call is rejected because all the slots in its bulkhead stayed in use for too long.
+	 */
+	@SuppressWarnings("serial")
+	public static class BulkheadFullException extends RestClientException {
+		BulkheadFullException(String message) {
+			super(message);
+		}
+	}
+
+	private RestClientGuard(Builder builder) {
+		this.failureThreshold = builder.failureThreshold;
+		this.openDuration = builder.openDuration;
+		this.halfOpenCalls = builder.halfOpenCalls;
+		this.heavyMaxConcurrent = builder.heavyMaxConcurrent;
+		this.heavyMaxWait = builder.heavyMaxWait;
+		this.lightMaxConcurrent = builder.lightMaxConcurrent;
+		this.lightMaxWait = builder.lightMaxWait;
+		this.nanoClock = builder.nanoClock;
+	}
+
+	/**
+	 * Returns a factory whose RestClients are protected by this guard.
+	 *
+	 * @param factory factory that creates the underlying RestClients (e.g. JdkRestClient.factory())
+	 * @return guarded factory
+	 */
+	public RestClientFactory wrap(RestClientFactory factory) {
+		return new RestClientFactory() {
+			@Override
+			public RestClient restClient(AemConfig aemConfig, String target) {
+				return new GuardedRestClient(factory.restClient(aemConfig, target), hostGuard(aemConfig.url()));
+			}
+
+			@Override
+			public UntargettedRestClient untargettedRestClient(AemConfig aemConfig) {
+				UntargettedRestClient untargetted = factory.untargettedRestClient(aemConfig);
+				HostGuard hostGuard = hostGuard(aemConfig.url());
+				return target->new GuardedRestClient(untargetted.target(target), hostGuard);
+			}
+		};
+	}
+
+	/**
+	 * Current state of the circuit for an AEM instance.
+	 *
+	 * @param url AEM instance URL (as returned by AemConfig.url())
+	 * @return circuit state, or empty if no calls have been made to that instance
+	 */
+	public Optional<CircuitState> circuitState(String url) {
+		return Optional.ofNullable(hostGuards.get(url)).map(g->g.circuitBreaker.state());
+	}
+
+	private HostGuard hostGuard(String url) {
+		return hostGuards.computeIfAbsent(url, u->new HostGuard(new CircuitBreaker(u, failureThreshold, openDuration, halfOpenCalls, nanoClock),
+																new Bulkhead("heavy", heavyMaxConcurrent, heavyMaxWait),
+																new Bulkhead("light", lightMaxConcurrent, lightMaxWait)));
+	}
+
+	/**
+	 * The circuit breaker and bulkheads for one AEM instance.
+	 */
+	static final class HostGuard implements CallGuard {
+		private final CircuitBreaker circuitBreaker;
+		private final Bulkhead heavy;
+		private final Bulkhead light;
+
+		HostGuard(CircuitBreaker circuitBreaker, Bulkhead heavy, Bulkhead light) {
+			this.circuitBreaker = circuitBreaker;
+			this.heavy = heavy;
+			this.light = light;
+		}
+
+		@Override
+		public <T> T call(boolean isHeavy, Call<T> call) throws RestClientException {
+			Bulkhead bulkhead = acquire(isHeavy);
+			try {
+				T result = call.call();
+				circuitBreaker.onSuccess();
+				return result;
+			} catch (RestClientException e) {
+				record(e);
+				throw e;
+			} catch (RuntimeException | Error e) {
+				circuitBreaker.release();
+				throw e;
+			} finally {
+				bulkhead.release();
+			}
+		}
+
+		// The bulkhead is waited on using the executor, so the caller's thread is never blocked.
+		@Override
+		public <T> CompletableFuture<T> callAsync(boolean isHeavy, Supplier<CompletableFuture<T>> call, Executor executor) {
+			return CompletableFuture.supplyAsync(()->{
+										try {
+											return acquire(isHeavy);
+										} catch (RestClientException e) {
+											throw new CompletionException(e);
+										}
+									}, executor)
+									.thenCompose(bulkhead->{
+										CompletableFuture<T> result;
+										try {
+											result = call.get();
+										} catch (RuntimeException | Error e) {
+											bulkhead.release();
+											circuitBreaker.release();
+											throw e;
+										}
+										return result.whenComplete((r, throwable)->{
+											bulkhead.release();
+											if (throwable == null) {
+												circuitBreaker.onSuccess();
+											} else if (CallGuard.unwrap(throwable) instanceof RestClientException e) {
+												record(e);
+											} else {
+												circuitBreaker.release();
+											}
+										});
+									});
+		}
+
+		// The circuit is checked first so that calls to an unhealthy instance fail without waiting for a slot.
+		private Bulkhead acquire(boolean isHeavy) throws RestClientException {
+			circuitBreaker.acquirePermission();
+			Bulkhead bulkhead = isHeavy ? heavy : light;
+			try {
+				bulkhead.acquire();
+			} catch (RestClientException e) {
+				circuitBreaker.release();
+				throw e;
+			}
+			return bulkhead;
+		}
+
+		// Only failures that indicate that AEM is unhealthy count against the circuit.  Any other response shows that it is up.
+		private void record(RestClientException e) {
+			if (CallGuard.isHostFailure(e)) {
+				circuitBreaker.onFailure();
+			} else {
+				circuitBreaker.onSuccess();
+			}
+		}
+	}
+
+	/**
+	 * Returns a builder for creating a RestClientGuard.
+	 *
+	 * @return builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builder object for configuring/creating a RestClientGuard instance.
+	 */
+	public static class Builder {
+		private int failureThreshold = 5;
+		private Duration openDuration = Duration.ofSeconds(30);
+		private int halfOpenCalls = 1;
+		private int heavyMaxConcurrent = 2;
+		private Duration heavyMaxWait = Duration.ofMinutes(10);
+		private int lightMaxConcurrent = 8;
+		private Duration lightMaxWait = Duration.ofSeconds(30);
+		private LongSupplier nanoClock = System::nanoTime;
+
+		private Builder() {
+		}
+
+		/**
+		 * Number of consecutive failures that opens the circuit.  Defaults to 5.
+		 *
+		 * @param failureThreshold consecutive failures
+		 * @return builder
+		 */
+		public Builder failureThreshold(int failureThreshold) {
+			this.failureThreshold = failureThreshold;
+			return this;
+		}
+
+		/**
+		 * How long the circuit stays open before trial calls are let through.  Defaults to 30 seconds.
+		 *
+		 * @param openDuration open duration
+		 * @return builder
+		 */
+		public Builder openDuration(Duration openDuration) {
+			this.openDuration = openDuration;
+			return this;
+		}
+
+		/**
+		 * Number of trial calls let through at once while the circuit is half open.  Defaults to 1.
+		 *
+		 * @param halfOpenCalls trial calls
+		 * @return builder
+		 */
+		public Builder halfOpenCalls(int halfOpenCalls) {
+			this.halfOpenCalls = halfOpenCalls;
+			return this;
+		}
+
+		/**
+		 * Limits concurrent heavy calls (uploads, installs and uninstalls) to each AEM instance.  Defaults to 2 calls, waiting up to
+		 * 10 minutes for a slot (installs can take minutes).
+		 *
+		 * @param maxConcurrent maximum concurrent heavy calls
+		 * @param maxWait how long a call waits for a slot before failing
+		 * @return builder
+		 */
+		public Builder heavyBulkhead(int maxConcurrent, Duration maxWait) {
+			this.heavyMaxConcurrent = maxConcurrent;
+			this.heavyMaxWait = maxWait;
+			return this;
+		}
+
+		/**
+		 * Limits concurrent light calls (everything else, e.g. listing and deleting) to each AEM instance.  Defaults to
+		 * 8 calls, waiting up to 30 seconds for a slot.
+		 *
+		 * @param maxConcurrent maximum concurrent light calls
+		 * @param maxWait how long a call waits for a slot before failing
+		 * @return builder
+		 */
+		public Builder lightBulkhead(int maxConcurrent, Duration maxWait) {
+			this.lightMaxConcurrent = maxConcurrent;
+			this.lightMaxWait = maxWait;
+			return this;
+		}
+
+		// Used by tests to control time.
+		Builder nanoClock(LongSupplier nanoClock) {
+			this.nanoClock = nanoClock;
+			return this;
+		}
+
+		/**
+		 * Build the RestClientGuard.
+		 *
+		 * @return new RestClientGuard
+		 */
+		public RestClientGuard build() {
+			if (failureThreshold < 1 || halfOpenCalls < 1 || openDuration.isNegative()) {
+				throw new IllegalArgumentException("Invalid circuit breaker settings (failureThreshold=" + failureThreshold + ", halfOpenCalls=" + halfOpenCalls + ", openDuration=" + openDuration + ").");
+			}
+			if (heavyMaxConcurrent < 1 || lightMaxConcurrent < 1 || heavyMaxWait.isNegative() || lightMaxWait.isNegative()) {
+				throw new IllegalArgumentException("Invalid bulkhead settings (heavy=" + heavyMaxConcurrent + "/" + heavyMaxWait + ", light=" + lightMaxConcurrent + "/" + lightMaxWait + ").");
+			}
+			return new RestClientGuard(this);
+		}
+	}
+}
@@ -0,0 +1,474 @@
+package com._4point.aem.package_manager.rest_client.jdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import com._4point.aem.package_manager.AemConfig;
+import com._4point.aem.package_manager.rest_client.RestClient;
+import com._4point.aem.package_manager.rest_client.RestClientFactory;
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
+
+/**
+ * RestClient implementation that uses the JDK's java.net.http.HttpClient.
+ *
+ * This has a smaller startup cost than JerseyRestClient (there is no dependency injection framework to initialize) and
+ * uses HTTP/2 for https connections when the server supports it.  Multipart bodies are streamed to the server rather than
+ * being assembled in memory.
+ *
+ * The asynchronous methods (getFromServerAsync() and postToServerAsync()) use HttpClient.sendAsync(), so no thread is
+ * blocked while waiting for the server to respond.
+ */
+public class JdkRestClient implements RestClient {
+	private static final int STATUS_NO_CONTENT = 204;
+	private static final int STATUS_NOT_MODIFIED = 304;
+
+	private final HttpClient httpClient;
+	private final URI target;
+	private final String authorization;
+	private final HttpClient.Version version;
+
+	/**
+	 * Constructor for JdkRestClient if customization of the HttpClient object is required.
+	 *
+	 * If the HttpClient object does not need to be customized,
+	 * use JdkRestClient(AemConfig aemConfig, String target) instead.
+	 *
+	 * @param aemConfig AEM configuration parameters
+	 * @param target REST endpoint to be called.
+	 * @param httpClient HttpClient object
+	 */
+	public JdkRestClient(AemConfig aemConfig, String target, HttpClient httpClient) {
+		this.httpClient = httpClient;
+		this.target = URI.create(stripTrailingSlash(aemConfig.url()) + encodePath(target));
+		this.authorization = "Basic " + Base64.getEncoder().encodeToString((aemConfig.user() + ":" + aemConfig.password()).getBytes(StandardCharsets.UTF_8));
+		// HTTP/2 is negotiated during the TLS handshake.  Over plain http it would require an upgrade on every new connection, so stick with HTTP/1.1.
+		this.version = aemConfig.useSsl() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+	}
+
+	/**
+	 * Constructor for JdkRestClient
+	 *
+	 * @param aemConfig AEM configuration parameters
+	 * @param target REST endpoint to be called.
+	 */
+	public JdkRestClient(AemConfig aemConfig, String target) {
+		this(aemConfig, target, getClient());
+	}
+
+	public static RestClient restClient(AemConfig aemConfig, String target) {
+		return new JdkRestClient(aemConfig, target);
+	}
+
+	public static RestClient restClient(AemConfig aemConfig, String target, HttpClient httpClient) {
+		return new JdkRestClient(aemConfig, target, httpClient);
+	}
+
+	/**
+	 * Returns a factory that creates JdkRestClient objects.
+	 *
+	 * @return factory
+	 */
+	public static RestClientFactory factory() {
+		return new RestClientFactory() {
+			@Override
+			public RestClient restClient(AemConfig aemConfig, String target) {
+				return new JdkRestClient(aemConfig, target);
+			}
+
+			@Override
+			public UntargettedRestClient untargettedRestClient(AemConfig aemConfig) {
+				return new JdkUntargettedRestClient(aemConfig);
+			}
+		};
+	}
+
+	public static class JdkUntargettedRestClient implements UntargettedRestClient {
+		private final AemConfig aemConfig;
+
+		public JdkUntargettedRestClient(AemConfig aemConfig) {
+			this.aemConfig = aemConfig;
+		}
+
+		@Override
+		public RestClient target(String target) {
+			return new JdkRestClient(aemConfig, target);
+		}
+	}
+
+	private static String stripTrailingSlash(String url) {
+		return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+	}
+
+	// Encodes each segment of a path (e.g. spaces in package names).
+	private static String encodePath(String path) {
+		String[] segments = (path.startsWith("/") ? path : "/" + path).split("/", -1);
+		StringBuilder encoded = new StringBuilder();
+		for (int i = 1; i < segments.length; i++) {
+			encoded.append('/').append(URLEncoder.encode(segments[i], StandardCharsets.UTF_8).replace("+", "%20"));
+		}
+		return encoded.toString();
+	}
+
+	private record QueryParam(String name, String value) {
+		private static String toQueryString(List<QueryParam> queryParams) {
+			return queryParams.stream()
+							  .map(qp->URLEncoder.encode(qp.name, StandardCharsets.UTF_8) + "=" + URLEncoder.encode(qp.value, StandardCharsets.UTF_8))
+							  .collect(Collectors.joining("&", "?", ""));
+		}
+	}
+
+	private URI targetWith(List<QueryParam> queryParams) {
+		return queryParams.isEmpty() ? target : URI.create(target.toString() + QueryParam.toQueryString(queryParams));
+	}
+
+	private HttpRequest.Builder requestBuilder(URI uri, ContentType acceptContentType) {
+		return HttpRequest.newBuilder(uri)
+						  .version(version)
+						  .header("Authorization", authorization)
+						  .header("Accept", acceptContentType.contentType());
+	}
+
+	private Optional<Response> send(HttpRequest request, ContentType acceptContentType, String operation) throws RestClientException {
+		try {
+			return JdkResponse.processResponse(httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream()), acceptContentType);
+		} catch (IOException | UncheckedIOException e) {
+			throw transportFailure(e, operation);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RestClientException("Interrupted when " + operation + " '" + target.toString() + "'.", e);
+		}
+	}
+
+	// The request is sent without blocking.  The response (which may include reading an error body) is processed on the executor.
+	private CompletableFuture<Optional<Response>> sendAsync(HttpRequest request, ContentType acceptContentType, String operation, Executor executor) {
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+						 .handleAsync((response, throwable)->{
+							 try {
+								 if (throwable != null) {
+									 Throwable cause = throwable instanceof CompletionException ce && ce.getCause() != null ? ce.getCause() : throwable;
+									 throw transportFailure(cause, operation);
+								 }
+								 return JdkResponse.processResponse(response, acceptContentType);
+							 } catch (RestClientException e) {
+								 throw new CompletionException(e);
+							 }
+						 }, executor);
+	}
+
+	private RestClientException transportFailure(Throwable cause, String operation) {
+		String msg = cause.getMessage();
+		return new RestClientException("Error when " + operation + " '" + target.toString() + "'" + (msg != null ? " (" + msg + ")" : "") + ".", cause);
+	}
+
+	private final static class JdkResponse implements Response {
+		private final HttpResponse<InputStream> response;
+		private boolean dataRetrieved = false;
+
+		private JdkResponse(HttpResponse<InputStream> response) {
+			this.response = response;
+		}
+
+		@Override
+		public ContentType contentType() {
+			return ContentType.of(response.headers().firstValue("Content-Type").orElse(ContentType.APPLICATION_OCTET_STREAM.contentType()));
+		}
+
+		@Override
+		public synchronized InputStream data() {
+			if (dataRetrieved) {
+				throw new IllegalStateException("Response data can only be retrieved once.");
+			}
+			dataRetrieved = true;
+			return response.body();
+		}
+
+		@Override
+		public Optional<String> retrieveHeader(String header) {
+			return response.headers().firstValue(header);
+		}
+
+		private static Optional<Response> processResponse(HttpResponse<InputStream> response, ContentType expectedContentType) throws RestClientException {
+			try {
+				int statusCode = response.statusCode();
+				if (statusCode == STATUS_NO_CONTENT || statusCode == STATUS_NOT_MODIFIED) {
+					response.body().close();
+					return Optional.empty();
+				}
+				Optional<String> responseContentType = response.headers().firstValue("Content-Type");
+				if (statusCode < 200 || statusCode > 299) {
+					String message = "Call to server failed, statusCode='" + statusCode + "'.";
+					String body = bodyToString(response, responseContentType);
+					throw new RestClientException(body.isEmpty() ? message : message + "\n" + body, statusCode);
+				}
+				if (responseContentType.isEmpty() || !isCompatible(expectedContentType, ContentType.of(responseContentType.get()))) {
+					String msg = "Response from AEM server was not of expected type(" + expectedContentType.contentType() + ").  " + (responseContentType.isPresent() ? "content-type='" + responseContentType.get() + "'" : "content-type was null") + ".";
+					msg += "\n" + bodyToString(response, responseContentType);
+					throw new RestClientException(msg);
+				}
+				return Optional.of(new JdkResponse(response));
+			} catch (IOException e) {
+				throw new RestClientException("IO Error while reading AEM response.", e);
+			}
+		}
+
+		private static String bodyToString(HttpResponse<InputStream> response, Optional<String> contentType) throws IOException {
+			Charset charset = contentType.flatMap(ct->ContentType.of(ct).charset()).orElse(StandardCharsets.UTF_8);
+			try (InputStream body = response.body()) {
+				return new String(body.readAllBytes(), charset);
+			}
+		}
+
+		// Compares the type and subtype (ignoring parameters), allowing for wildcards (e.g. "text/*").
+		private static boolean isCompatible(ContentType expected, ContentType actual) {
+			String[] expectedParts = mediaType(expected).split("/", 2);
+			String[] actualParts = mediaType(actual).split("/", 2);
+			return matches(expectedParts[0], actualParts[0])
+				&& matches(expectedParts.length > 1 ? expectedParts[1] : "*", actualParts.length > 1 ? actualParts[1] : "*");
+		}
+
+		private static String mediaType(ContentType contentType) {
+			String type = contentType.contentType();
+			int semicolon = type.indexOf(';');
+			return (semicolon < 0 ? type : type.substring(0, semicolon)).trim();
+		}
+
+		private static boolean matches(String expected, String actual) {
+			return expected.equals("*") || actual.equals("*") || expected.equalsIgnoreCase(actual);
+		}
+	}
+
+	/*
+	 * Multipart Implementation Code
+	 *
+	 */
+	@Override
+	public MultipartPayload.Builder multipartPayloadBuilder() {
+		return new JdkMultipartPayloadBuilder();
+	}
+
+	private final class JdkMultipartPayload implements MultipartPayload {
+		private final String boundary;
+		private final List<BodyPublisher> parts;
+		private final List<InputStream> streams;
+		private final List<QueryParam> queryParams;
+
+		private JdkMultipartPayload(String boundary, List<BodyPublisher> parts, List<InputStream> streams, List<QueryParam> queryParams) {
+			this.boundary = boundary;
+			this.parts = parts;
+			this.streams = streams;
+			this.queryParams = queryParams;
+		}
+
+		@Override
+		public Optional<Response> postToServer(ContentType acceptContentType) throws RestClientException {
+			return send(request(acceptContentType), acceptContentType, "posting to");
+		}
+
+		@Override
+		public CompletableFuture<Optional<Response>> postToServerAsync(ContentType acceptContentType, Executor executor) {
+			return sendAsync(request(acceptContentType), acceptContentType, "posting to", executor);
+		}
+
+		private HttpRequest request(ContentType acceptContentType) {
+			List<BodyPublisher> body = new ArrayList<>(parts);
+			body.add(BodyPublishers.ofString("--" + boundary + "--\r\n", StandardCharsets.UTF_8));
+			return requestBuilder(targetWith(queryParams), acceptContentType)
+						.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+						.POST(BodyPublishers.concat(body.toArray(BodyPublisher[]::new)))
+						.build();
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (InputStream stream : streams) {
+				stream.close();
+			}
+		}
+	}
+
+	/**
+	 * MultipartPayload.Builder implementation code.
+	 *
+	 * Each part is a separate BodyPublisher (headers, content, trailing CRLF) and they are concatenated when the
+	 * payload is sent, so file contents are never copied into memory.  Files are sent from a memory mapping (see
+	 * MappedFileBodyPublisher) rather than being read through heap buffers.  Every part can be published more than once,
+	 * so a payload can be sent again when a call is retried.
+	 */
+	private final class JdkMultipartPayloadBuilder implements MultipartPayload.Builder {
+		private final String boundary = "Boundary_" + UUID.randomUUID().toString().replace("-", "");
+		private final List<BodyPublisher> parts = new ArrayList<>();
+		private final List<InputStream> streams = new ArrayList<>();
+		private final List<QueryParam> queryParams = new ArrayList<>();
+
+		@Override
+		public MultipartPayload.Builder add(String fieldName, String fieldData) {
+			return addPart(fieldName, null, ContentType.of("text/plain; charset=UTF-8"), BodyPublishers.ofString(fieldData, StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public MultipartPayload.Builder add(String fieldName, byte[] fieldData, ContentType contentType) {
+			return addPart(fieldName, null, contentType, BodyPublishers.ofByteArray(fieldData));
+		}
+
+		// A stream can only be read once, so it is read into memory now.  Otherwise the payload could not be sent again if
+		// the call is retried.
+		@Override
+		public MultipartPayload.Builder add(String fieldName, InputStream fieldData, ContentType contentType) {
+			streams.add(fieldData);
+			try {
+				return addPart(fieldName, null, contentType, BodyPublishers.ofByteArray(fieldData.readAllBytes()));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to read data for field '" + fieldName + "'.", e);
+			}
+		}
+
+		@Override
+		public MultipartPayload.Builder add(String fieldName, Path file, ContentType contentType) {
+			try {
+				return addPart(fieldName, file.getFileName().toString(), contentType, new MappedFileBodyPublisher(file));
+			} catch (IOException e) {	// NoSuchFileException
+				throw new UncheckedIOException("Unable to read file '" + file + "'.", e);
+			}
+		}
+
+		@Override
+		public MultipartPayload.Builder add(String fieldName, Path file, ContentType contentType, UploadMonitor monitor) {
+			try {
+				return addPart(fieldName, file.getFileName().toString(), contentType, new MonitoredBodyPublisher(new MappedFileBodyPublisher(file), monitor));
+			} catch (IOException e) {	// NoSuchFileException
+				throw new UncheckedIOException("Unable to read file '" + file + "'.", e);
+			}
+		}
+
+		private MultipartPayload.Builder addPart(String fieldName, String filename, ContentType contentType, BodyPublisher content) {
+			String headers = "--" + boundary + "\r\n"
+						   + "Content-Disposition: form-data; name=\"" + escape(fieldName) + "\"" + (filename != null ? "; filename=\"" + escape(filename) + "\"" : "") + "\r\n"
+						   + "Content-Type: " + contentType.contentType() + "\r\n"
+						   + "\r\n";
+			parts.add(BodyPublishers.ofString(headers, StandardCharsets.UTF_8));
+			parts.add(content);
+			parts.add(BodyPublishers.ofString("\r\n", StandardCharsets.UTF_8));
+			return this;
+		}
+
+		private static String escape(String value) {
+			return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+		}
+
+		@Override
+		public MultipartPayload.Builder queryParam(String name, String value) {
+			queryParams.add(new QueryParam(name, value));
+			return this;
+		}
+
+		@Override
+		public MultipartPayload build() {
+			return new JdkMultipartPayload(boundary, List.copyOf(parts), List.copyOf(streams), List.copyOf(queryParams));
+		}
+	}
+
+	/*
+	 * Singleton Client-related code
+	 *
+	 */
+	// Safe way to lazily initialize singeleton.  See https://en.wikipedia.org/wiki/Initialization-on-demand_holder_idiom
+	private static class ClientHolder {
+		static final HttpClient INSTANCE = HttpClient.newBuilder()
+													 .version(HttpClient.Version.HTTP_2)
+													 .followRedirects(HttpClient.Redirect.NORMAL)
+													 .connectTimeout(Duration.ofSeconds(30))
+													 .build();
+	}
+
+	/**
+	 * Gets a singleton HttpClient instance that is shared by all JdkRestClient objects that do not supply their own.
+	 *
+	 * @return a singleton HttpClient object
+	 */
+	public static HttpClient getClient() {
+		return ClientHolder.INSTANCE;
+	}
+
+	@Override
+	public String target() {
+		return target.toString();
+	}
+
+	@Override
+	public GetRequest.Builder getRequestBuilder() {
+		return new JdkGetRequestBuilder();
+	}
+
+	private final class JdkGetRequestBuilder implements GetRequest.Builder {
+		private record Header(String name, String value) {};
+		private final List<QueryParam> queryParams = new ArrayList<>();
+		private final List<Header> headers = new ArrayList<>();
+
+		@Override
+		public JdkGetRequestBuilder queryParam(String name, String value) {
+			queryParams.add(new QueryParam(name, value));
+			return this;
+		}
+
+		@Override
+		public JdkGetRequestBuilder header(String name, String value) {
+			headers.add(new Header(name, value));
+			return this;
+		}
+
+		@Override
+		public GetRequest build() {
+			return new JdkGetRequest(Collections.unmodifiableList(queryParams), Collections.unmodifiableList(headers));
+		}
+	}
+
+	private final class JdkGetRequest implements GetRequest {
+		private final List<QueryParam> queryParams;
+		private final List<JdkGetRequestBuilder.Header> headers;
+
+		JdkGetRequest(List<QueryParam> queryParams, List<JdkGetRequestBuilder.Header> headers) {
+			this.queryParams = queryParams;
+			this.headers = headers;
+		}
+
+		@Override
+		public Optional<Response> getFromServer(ContentType acceptContentType) throws RestClientException {
+			return send(request(acceptContentType), acceptContentType, "getting from");
+		}
+
+		@Override
+		public CompletableFuture<Optional<Response>> getFromServerAsync(ContentType acceptContentType, Executor executor) {
+			return sendAsync(request(acceptContentType), acceptContentType, "getting from", executor);
+		}
+
+		private HttpRequest request(ContentType acceptContentType) {
+			HttpRequest.Builder requestBuilder = requestBuilder(targetWith(queryParams), acceptContentType).GET();
+			for (var header : headers) {
+				requestBuilder.header(header.name, header.value);
+			}
+			return requestBuilder.build();
+		}
+	}
+}
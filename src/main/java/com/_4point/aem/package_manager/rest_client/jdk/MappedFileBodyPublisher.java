@@ -0,0 +1,163 @@
+package com._4point.aem.package_manager.rest_client.jdk;
+
+import java.io.IOException;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BodyPublisher that sends a file as slices of a memory mapping of the file.
+ *
+ * BodyPublishers.ofFile() reads each chunk of the file into a new heap buffer, which is copied again into a direct
+ * buffer when it is written to the socket.  The mapped slices are passed to the HttpClient as they are, so for http the
+ * file goes from the page cache to the socket without passing through the Java heap, and only a small buffer object is
+ * allocated per chunk.  (For https, the SSLEngine reads the slices directly while encrypting them.)
+ *
+ * The file is mapped a region at a time, so large files do not use up the address space.  The file must not be
+ * truncated while it is being sent.
+ */
+final class MappedFileBodyPublisher implements BodyPublisher {
+	private static final long REGION_SIZE = 64L * 1024 * 1024;
+	private static final int CHUNK_SIZE = 256 * 1024;
+
+	private final Path file;
+	private final long size;
+	private final long regionSize;
+	private final int chunkSize;
+
+	/**
+	 * Creates a publisher for a file.
+	 *
+	 * @param file file to send
+	 * @throws IOException if the file cannot be read (checked now, as BodyPublishers.ofFile() does)
+	 */
+	MappedFileBodyPublisher(Path file) throws IOException {
+		this(file, REGION_SIZE, CHUNK_SIZE);
+	}
+
+	// Used by tests to cross region boundaries with small files.
+	MappedFileBodyPublisher(Path file, long regionSize, int chunkSize) throws IOException {
+		this.file = file;
+		this.size = Files.size(file);
+		this.regionSize = regionSize;
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public long contentLength() {
+		return size;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+		subscriber.onSubscribe(new FileSubscription(subscriber));
+	}
+
+	/**
+	 * Emits chunks as they are requested.  The subscriber may call request() from onNext(), so chunks are emitted by a
+	 * drain loop that only one thread runs at a time.
+	 */
+	private final class FileSubscription implements Flow.Subscription {
+		private final Flow.Subscriber<? super ByteBuffer> subscriber;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger wip = new AtomicInteger();
+		private volatile boolean cancelled = false;
+		private volatile Throwable invalidRequest;
+
+		// Only accessed by the thread running the drain loop
+		private boolean terminated = false;
+		private FileChannel channel;
+		private MappedByteBuffer region;
+		private long position = 0;
+
+		private FileSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = new IllegalArgumentException("Number of chunks requested must be positive (" + n + ").");
+			} else {
+				demand.getAndAccumulate(n, (current, added)->current + added < 0 ? Long.MAX_VALUE : current + added);	// Saturates at Long.MAX_VALUE
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			drain();
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;	// Another thread (or an outer call on this thread) is draining and will see the new state.
+			}
+			int missed = 1;
+			do {
+				if (!terminated) {
+					emit();
+				}
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void emit() {
+			try {
+				while (!cancelled && invalidRequest == null && position < size && demand.get() > 0) {
+					ByteBuffer chunk = nextChunk();
+					demand.decrementAndGet();
+					subscriber.onNext(chunk);
+				}
+				if (cancelled) {
+					terminate();
+				} else if (invalidRequest != null) {
+					terminate();
+					subscriber.onError(invalidRequest);
+				} else if (position >= size) {
+					terminate();
+					subscriber.onComplete();
+				}
+			} catch (IOException e) {
+				terminate();
+				subscriber.onError(e);
+			}
+		}
+
+		private ByteBuffer nextChunk() throws IOException {
+			if (region == null || !region.hasRemaining()) {
+				if (channel == null) {
+					channel = FileChannel.open(file, StandardOpenOption.READ);
+				}
+				region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, size - position));
+			}
+			int length = Math.min(chunkSize, region.remaining());
+			ByteBuffer chunk = region.slice(region.position(), length);
+			region.position(region.position() + length);
+			position += length;
+			return chunk;
+		}
+
+		// The mappings stay valid after the channel is closed and are released when the slices are garbage collected.
+		private void terminate() {
+			terminated = true;
+			region = null;
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					// Nothing useful can be done about failing to close a file that was only read.
+				}
+				channel = null;
+			}
+		}
+	}
+}
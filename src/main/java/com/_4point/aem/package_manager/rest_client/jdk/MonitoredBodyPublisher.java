@@ -0,0 +1,91 @@
+package com._4point.aem.package_manager.rest_client.jdk;
+
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
+import com._4point.aem.package_manager.rest_client.UploadMonitor.CancelledException;
+
+/**
+ * BodyPublisher that reports each chunk of a file to an UploadMonitor before passing it on.
+ *
+ * Once the upload is cancelled, the file is no longer read and the body fails with the CancelledException, which makes
+ * the HttpClient abort the request and close the connection.
+ *
+ * The HttpClient subscribes again each time it sends the body (e.g. when the payload is posted again), and each
+ * subscription starts the progress again from zero.  Only the latest subscription is reported, so chunks still arriving
+ * from an earlier one that has not finished are passed on without being counted twice.
+ */
+final class MonitoredBodyPublisher implements BodyPublisher {
+	private final BodyPublisher file;
+	private final UploadMonitor monitor;
+	private final AtomicLong subscriptions = new AtomicLong();
+
+	MonitoredBodyPublisher(BodyPublisher file, UploadMonitor monitor) {
+		this.file = file;
+		this.monitor = monitor;
+	}
+
+	@Override
+	public long contentLength() {
+		return file.contentLength();
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+		long subscriptionNumber = subscriptions.incrementAndGet();
+		file.subscribe(new Flow.Subscriber<ByteBuffer>() {
+			private Flow.Subscription subscription;
+			private boolean cancelled = false;
+
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				this.subscription = subscription;
+				subscriber.onSubscribe(subscription);
+				try {
+					monitor.started(file.contentLength());
+				} catch (CancelledException e) {
+					cancel(e);
+				}
+			}
+
+			@Override
+			public void onNext(ByteBuffer item) {
+				if (cancelled) {
+					return;
+				}
+				if (subscriptionNumber == subscriptions.get()) {
+					try {
+						monitor.sending(item.remaining());
+					} catch (CancelledException e) {
+						cancel(e);
+						return;
+					}
+				}
+				subscriber.onNext(item);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				if (!cancelled) {
+					subscriber.onError(throwable);
+				}
+			}
+
+			@Override
+			public void onComplete() {
+				if (!cancelled) {
+					subscriber.onComplete();
+				}
+			}
+
+			private void cancel(CancelledException e) {
+				cancelled = true;
+				subscription.cancel();
+				subscriber.onError(e);
+			}
+		});
+	}
+}
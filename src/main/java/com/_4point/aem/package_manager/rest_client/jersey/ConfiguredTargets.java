@@ -0,0 +1,101 @@
+package com._4point.aem.package_manager.rest_client.jersey;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+
+import com._4point.aem.package_manager.AemConfig;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.WebTarget;
+
+/**
+ * Cache of configured WebTargets for a Jersey Client.
+ *
+ * Features (multipart support and authentication) are registered once per AEM configuration on a base WebTarget rather
+ * than on the Client.  This leaves the Client untouched, so clients with different credentials can safely share it.
+ * The WebTargets for individual paths are resolved from the base WebTarget and the most recently used ones are kept, so
+ * repeated calls to the same endpoint (e.g. installing the same package) do not resolve the path each time.
+ *
+ * Only the most recently used AEM configurations are kept too, so a caller that creates clients for many different
+ * credentials does not grow the cache without limit.  The WebTargets do not hold any resources of their own (they all use
+ * the one Client), so evicted ones are simply dropped.
+ *
+ * WebTargets are immutable once configured (path() and queryParam() return new instances), so they can be shared between threads.
+ */
+final class ConfiguredTargets {
+	private static final int MAX_CACHED_CONFIGS = 256;
+	private static final int MAX_CACHED_PATHS = 256;	// per AEM configuration
+
+	private final Client client;
+	private final Map<ConfigKey, PathCache> configuredTargets = lruMap(MAX_CACHED_CONFIGS);
+
+	ConfiguredTargets(Client client) {
+		this.client = client;
+	}
+
+	/**
+	 * Returns a configured WebTarget for a path on an AEM instance.
+	 *
+	 * @param aemConfig AEM configuration parameters
+	 * @param path REST endpoint to be called
+	 * @return WebTarget
+	 */
+	WebTarget target(AemConfig aemConfig, String path) {
+		return configuredTargets.computeIfAbsent(ConfigKey.of(aemConfig), key->new PathCache(configure(client.target(key.url()), key)))
+								.target(path);
+	}
+
+	// Only the fields used to configure the base target are compared (AemConfig implementations may not implement equals()).
+	private record ConfigKey(String url, String user, String password) {
+		private static ConfigKey of(AemConfig aemConfig) {
+			return new ConfigKey(aemConfig.url(), aemConfig.user(), aemConfig.password());
+		}
+	}
+
+	private static WebTarget configure(WebTarget target, ConfigKey key) {
+		return target.register(MultiPartFeature.class)
+					 .register(HttpAuthenticationFeature.basic(key.user(), key.password()));
+	}
+
+	/**
+	 * Configures a WebTarget without caching it (used when a caller supplies their own Client).
+	 *
+	 * @param client Jersey Client
+	 * @param aemConfig AEM configuration parameters
+	 * @param path REST endpoint to be called
+	 * @return WebTarget
+	 */
+	static WebTarget uncached(Client client, AemConfig aemConfig, String path) {
+		ConfigKey key = ConfigKey.of(aemConfig);
+		return configure(client.target(key.url()), key).path(path);
+	}
+
+	// Thread safe map that keeps the most recently used entries.
+	private static <K, V> Map<K, V> lruMap(int maxEntries) {
+		return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > maxEntries;
+			}
+		});
+	}
+
+	private static final class PathCache {
+		private final WebTarget base;
+		private final Map<String, WebTarget> paths = lruMap(MAX_CACHED_PATHS);
+
+		private PathCache(WebTarget base) {
+			this.base = base;
+		}
+
+		private WebTarget target(String path) {
+			return paths.computeIfAbsent(path, base::path);
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package com._4point.aem.package_manager.rest_client.jersey;
+
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.glassfish.jersey.apache5.connector.Apache5ClientProperties;
+import org.glassfish.jersey.apache5.connector.Apache5ConnectionClosingStrategy;
+import org.glassfish.jersey.apache5.connector.Apache5ConnectorProvider;
+import org.glassfish.jersey.apache5.connector.Apache5HttpClientBuilderConfigurator;
+import org.glassfish.jersey.client.ClientConfig;
+
+import com._4point.aem.package_manager.AemConfig;
+import com._4point.aem.package_manager.rest_client.RestClient;
+import com._4point.aem.package_manager.rest_client.RestClient.UntargettedRestClient;
+import com._4point.aem.package_manager.rest_client.RestClientFactory;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+
+/**
+ * A pool of keep-alive connections used by the Jersey transport.
+ *
+ * By default, JerseyRestClient uses a Jersey Client with no timeouts that opens a new connection for each request.  A
+ * JerseyConnectionPool creates a Jersey Client that uses the Apache HttpClient 5 connector, so connections are reused
+ * between requests (and between threads), idle connections are closed and requests to an unresponsive server time out.
+ *
+ * A pool can be shared by several clients (e.g. a PackageManagerClient and a FormsAndDocumentsClient) by passing it to each
+ * builder.  The pool should be closed when it is no longer needed.
+ */
+public final class JerseyConnectionPool implements AutoCloseable {
+	// Jersey's default strategy aborts the request when a chunked response is closed, which discards the connection.  This
+	// reads the rest of the response instead, so that the connection goes back into the pool.
+	private static final Apache5ConnectionClosingStrategy RELEASE_CONNECTION = (clientRequest, request, response, stream)->{
+		try {
+			EntityUtils.consume(response.getEntity());
+		} finally {
+			response.close();
+		}
+	};
+
+	private final PoolingHttpClientConnectionManager connectionManager;
+	private final Client client;
+	private final ConfiguredTargets targets;
+
+	/**
+	 * Snapshot of the connections in the pool.
+	 *
+	 * @param leased connections currently in use by requests
+	 * @param available idle connections that can be reused
+	 * @param pending requests that are waiting for a connection
+	 * @param max maximum number of connections
+	 */
+	public record Statistics(int leased, int available, int pending, int max) {
+		private static Statistics from(PoolStats stats) {
+			return new Statistics(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+		}
+	}
+
+	private JerseyConnectionPool(Builder builder) {
+		SocketConfig.Builder socketConfig = SocketConfig.custom()
+														.setSoKeepAlive(true)
+														.setSoTimeout(Timeout.ofMilliseconds(builder.readTimeout.toMillis()));
+		if (builder.socketReceiveBufferSize > 0) {
+			socketConfig.setRcvBufSize(builder.socketReceiveBufferSize);
+		}
+		if (builder.socketSendBufferSize > 0) {
+			socketConfig.setSndBufSize(builder.socketSendBufferSize);
+		}
+		this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+																		  .setMaxConnPerRoute(builder.maxConnectionsPerRoute)
+																		  .setMaxConnTotal(builder.maxConnectionsTotal)
+																		  .setDefaultSocketConfig(socketConfig.build())
+																		  .setDefaultConnectionConfig(ConnectionConfig.custom()
+																				  .setConnectTimeout(Timeout.ofMilliseconds(builder.connectTimeout.toMillis()))
+																				  .setSocketTimeout(Timeout.ofMilliseconds(builder.readTimeout.toMillis()))
+																				  .setValidateAfterInactivity(TimeValue.ofMilliseconds(builder.idleTimeout.toMillis()))
+																				  .build())
+																		  .build();
+		TimeValue idleTimeout = TimeValue.ofMilliseconds(builder.idleTimeout.toMillis());
+		ClientConfig clientConfig = new ClientConfig().connectorProvider(new Apache5ConnectorProvider())
+													  .property(Apache5ClientProperties.CONNECTION_MANAGER, connectionManager)
+													  .property(Apache5ClientProperties.CONNECTION_MANAGER_SHARED, false)
+													  .property(Apache5ClientProperties.CONNECTION_CLOSING_STRATEGY, RELEASE_CONNECTION)
+													  // Evicts idle connections in the background (so a server closing them does not cause failures later).
+													  .register((Apache5HttpClientBuilderConfigurator)b->b.evictExpiredConnections().evictIdleConnections(idleTimeout));
+		this.client = ClientBuilder.newClient(clientConfig);
+		this.targets = new ConfiguredTargets(client);
+	}
+
+	/**
+	 * Returns a factory that creates JerseyRestClients which use this pool.
+	 *
+	 * @return factory
+	 */
+	public RestClientFactory restClientFactory() {
+		return new RestClientFactory() {
+			@Override
+			public RestClient restClient(AemConfig aemConfig, String target) {
+				return new JerseyRestClient(targets.target(aemConfig, target));
+			}
+
+			@Override
+			public UntargettedRestClient untargettedRestClient(AemConfig aemConfig) {
+				return new JerseyRestClient.JerseyUntargettedRestClient(aemConfig, targets);
+			}
+		};
+	}
+
+	/**
+	 * Current state of the pool.
+	 *
+	 * @return pool statistics
+	 */
+	public Statistics statistics() {
+		return Statistics.from(connectionManager.getTotalStats());
+	}
+
+	/**
+	 * Closes all the connections in the pool.  Clients that use this pool cannot be used after it is closed.
+	 */
+	@Override
+	public void close() {
+		client.close();
+		connectionManager.close();
+	}
+
+	/**
+	 * Returns a builder for creating a JerseyConnectionPool.
+	 *
+	 * @return builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builder object for configuring/creating a JerseyConnectionPool instance.
+	 */
+	public static class Builder {
+		private int maxConnectionsPerRoute = 5;
+		private int maxConnectionsTotal = 25;
+		private Duration idleTimeout = Duration.ofSeconds(30);
+		private Duration connectTimeout = Duration.ofSeconds(30);
+		private Duration readTimeout = Duration.ofMinutes(10);
+		private int socketReceiveBufferSize = 0;
+		private int socketSendBufferSize = 0;
+
+		private Builder() {
+		}
+
+		/**
+		 * Maximum number of connections to a single AEM instance.  Defaults to 5.
+		 *
+		 * Requests that are made when all the connections are in use wait for a connection to become available.
+		 *
+		 * @param maxConnectionsPerRoute maximum connections per host
+		 * @return builder
+		 */
+		public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+			return this;
+		}
+
+		/**
+		 * Maximum number of connections across all AEM instances.  Defaults to 25.
+		 *
+		 * @param maxConnectionsTotal maximum connections
+		 * @return builder
+		 */
+		public Builder maxConnectionsTotal(int maxConnectionsTotal) {
+			this.maxConnectionsTotal = maxConnectionsTotal;
+			return this;
+		}
+
+		/**
+		 * How long a connection can sit unused in the pool before it is closed.  Defaults to 30 seconds.
+		 *
+		 * @param idleTimeout idle timeout
+		 * @return builder
+		 */
+		public Builder idleTimeout(Duration idleTimeout) {
+			this.idleTimeout = idleTimeout;
+			return this;
+		}
+
+		/**
+		 * How long to wait for a connection to be established.  Defaults to 30 seconds.
+		 *
+		 * @param connectTimeout connect timeout
+		 * @return builder
+		 */
+		public Builder connectTimeout(Duration connectTimeout) {
+			this.connectTimeout = connectTimeout;
+			return this;
+		}
+
+		/**
+		 * How long to wait for data from the server before failing the request.  Defaults to 10 minutes (installing a large
+		 * package can take several minutes before AEM responds).
+		 *
+		 * @param readTimeout read timeout
+		 * @return builder
+		 */
+		public Builder readTimeout(Duration readTimeout) {
+			this.readTimeout = readTimeout;
+			return this;
+		}
+
+		/**
+		 * Size of the socket receive buffer (SO_RCVBUF).  Defaults to the operating system's setting.
+		 *
+		 * @param socketReceiveBufferSize buffer size in bytes
+		 * @return builder
+		 */
+		public Builder socketReceiveBufferSize(int socketReceiveBufferSize) {
+			this.socketReceiveBufferSize = socketReceiveBufferSize;
+			return this;
+		}
+
+		/**
+		 * Size of the socket send buffer (SO_SNDBUF).  Defaults to the operating system's setting.  A larger send buffer
+		 * can speed up uploads of large packages.
+		 *
+		 * @param socketSendBufferSize buffer size in bytes
+		 * @return builder
+		 */
+		public Builder socketSendBufferSize(int socketSendBufferSize) {
+			this.socketSendBufferSize = socketSendBufferSize;
+			return this;
+		}
+
+		/**
+		 * Build the JerseyConnectionPool.
+		 *
+		 * @return new JerseyConnectionPool
+		 */
+		public JerseyConnectionPool build() {
+			if (maxConnectionsPerRoute <= 0 || maxConnectionsTotal < maxConnectionsPerRoute) {
+				throw new IllegalArgumentException("Invalid connection limits (perRoute=" + maxConnectionsPerRoute + ", total=" + maxConnectionsTotal + ").");
+			}
+			if (idleTimeout.isNegative() || connectTimeout.isNegative() || readTimeout.isNegative()) {
+				throw new IllegalArgumentException("Timeouts cannot be negative (idle=" + idleTimeout + ", connect=" + connectTimeout + ", read=" + readTimeout + ").");
+			}
+			return new JerseyConnectionPool(this);
+		}
+	}
+}
@@ -2,20 +2,26 @@ package com._4point.aem.package_manager.rest_client.jersey;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
-import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.glassfish.jersey.media.multipart.Boundary;
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
-import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.glassfish.jersey.media.multipart.file.StreamDataBodyPart;
 
 import com._4point.aem.package_manager.AemConfig;
 import com._4point.aem.package_manager.rest_client.RestClient;
+import com._4point.aem.package_manager.rest_client.RestClientFactory;
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
 
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
@@ -36,15 +42,14 @@ public class JerseyRestClient implements RestClient {
 	 * If the Jersey Client object does not need to be customized, 
 	 * use JerseyRestClient(AemConfig aemConfig, String target) instead.
 	 * 
+	 * The Client object is not modified (authentication is configured on the WebTarget), so it can be shared.
+	 * 
 	 * @param aemConfig AEM configuration parameters
 	 * @param target REST endpoint to be called.
 	 * @param client Jersey Client object
 	 */
 	public JerseyRestClient(AemConfig aemConfig, String target, Client client) {
-		this.target = configureClient(client,aemConfig.user(), aemConfig.password())
-						.target(aemConfig.url())
-						.path(target)
-						;
+		this(ConfiguredTargets.uncached(client, aemConfig, target));
 	}
 
 	/**
@@ -54,14 +59,13 @@ public class JerseyRestClient implements RestClient {
 	 * @param target REST endpoint to be called.
 	 */
 	public JerseyRestClient(AemConfig aemConfig, String target) {
-		this(aemConfig, target, getClient());
+		this(ClientHolder.TARGETS.target(aemConfig, target));
 	}
 
-	private static Client configureClient(Client client, String username, String password) {
-		return client.register(MultiPartFeature.class)
-					 .register(HttpAuthenticationFeature.basic(username, password));
+	JerseyRestClient(WebTarget target) {
+		this.target = target;
 	}
-	
+
 	public static RestClient restClient(AemConfig aemConfig, String target) {
 		return new JerseyRestClient(aemConfig, target);
 	}
@@ -70,6 +74,25 @@ public class JerseyRestClient implements RestClient {
 		return new JerseyRestClient(aemConfig, target, client);
 	}
 	
+	/**
+	 * Returns a factory that creates JerseyRestClient objects.
+	 * 
+	 * @return factory
+	 */
+	public static RestClientFactory factory() {
+		return new RestClientFactory() {
+			@Override
+			public RestClient restClient(AemConfig aemConfig, String target) {
+				return new JerseyRestClient(aemConfig, target);
+			}
+
+			@Override
+			public UntargettedRestClient untargettedRestClient(AemConfig aemConfig) {
+				return new JerseyUntargettedRestClient(aemConfig);
+			}
+		};
+	}
+	
 	@Override
 	public MultipartPayload.Builder multipartPayloadBuilder() {
 		return new JerseyMultipartPayloadBuilder();
@@ -77,14 +100,24 @@ public class JerseyRestClient implements RestClient {
 	
 	public static class JerseyUntargettedRestClient implements UntargettedRestClient {
 		private final AemConfig aemConfig;
+		private final ConfiguredTargets targets;
 		
 		public JerseyUntargettedRestClient(AemConfig aemConfig) {
+			this(aemConfig, ClientHolder.TARGETS);
+		}
+
+		public JerseyUntargettedRestClient(AemConfig aemConfig, Client client) {
+			this(aemConfig, new ConfiguredTargets(client));
+		}
+
+		JerseyUntargettedRestClient(AemConfig aemConfig, ConfiguredTargets targets) {
 			this.aemConfig = aemConfig;
+			this.targets = targets;
 		}
 
 		@Override
 		public RestClient target(String target) {
-			return new JerseyRestClient(aemConfig, target);
+			return new JerseyRestClient(targets.target(aemConfig, target));
 		}
 	}
 	
@@ -110,19 +143,21 @@ public class JerseyRestClient implements RestClient {
 			return Optional.ofNullable(response.getHeaderString(header));
 		}
 		
+		// Unless the response is handed to the caller, it is closed here so that its connection is released.
 		private static Optional<Response> processResponse(jakarta.ws.rs.core.Response response, MediaType expectedMediaType) throws RestClientException {
+			boolean handedOver = false;
 			try {
 				StatusType resultStatus = response.getStatusInfo();
-				if (resultStatus.getStatusCode() == Status.NO_CONTENT.getStatusCode()) {
+				if (resultStatus.getStatusCode() == Status.NO_CONTENT.getStatusCode() || resultStatus.getStatusCode() == Status.NOT_MODIFIED.getStatusCode()) {
 					return Optional.empty();
 				}
 				if (!Family.SUCCESSFUL.equals(resultStatus.getFamily())) {
 					String message = "Call to server failed, statusCode='" + resultStatus.getStatusCode() + "', reason='" + resultStatus.getReasonPhrase() + "'.";
 					if (response.hasEntity()) {
 						InputStream entityStream = (InputStream) response.getEntity();
-						message += "\n" + inputStreamtoString(entityStream);
+						message += "\n" + inputStreamtoString(entityStream, response.getHeaderString(HttpHeaders.CONTENT_TYPE));
 					}
-					throw new RestClientException(message);
+					throw new RestClientException(message, resultStatus.getStatusCode());
 				}
 				if (!response.hasEntity()) {
 					throw new RestClientException("Call to server succeeded but server failed to return content.  This should never happen.");
@@ -132,18 +167,25 @@ public class JerseyRestClient implements RestClient {
 				if ( responseContentType == null || !expectedMediaType.isCompatible(MediaType.valueOf(responseContentType))) {
 					String msg = "Response from AEM server was not of expected type(" + expectedMediaType.toString() + ").  " + (responseContentType != null ? "content-type='" + responseContentType + "'" : "content-type was null") + ".";
 					InputStream entityStream = (InputStream) response.getEntity();
-					msg += "\n" + inputStreamtoString(entityStream);
+					msg += "\n" + inputStreamtoString(entityStream, responseContentType);
 					throw new RestClientException(msg);
 				}
+				handedOver = true;
 				return Optional.of(new JerseyResponse(response));
 			} catch (IOException e) {
 				throw new RestClientException("IO Error while reading AEM response.", e);
+			} finally {
+				if (!handedOver) {
+					response.close();
+				}
 			}
 		}
 	}
 
-	private static String inputStreamtoString(InputStream inputStream) throws IOException {
-		return new String(inputStream.readAllBytes(),StandardCharsets.UTF_8);
+	// Decodes using the charset from the content type (if there is one).
+	private static String inputStreamtoString(InputStream inputStream, String contentType) throws IOException {
+		Charset charset = contentType != null ? ContentType.of(contentType).charset().orElse(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+		return new String(inputStream.readAllBytes(), charset);
 	}
 
 
@@ -167,14 +209,22 @@ public class JerseyRestClient implements RestClient {
 			for(var queryParam : queryParams) {
 				localTarget = localTarget.queryParam(queryParam.name, queryParam.value);
 			}
-			jakarta.ws.rs.client.Invocation.Builder invokeBuilder = localTarget.request().accept(acceptMediaType);
+			// The payload is streamed (chunked) rather than buffered.  When a buffered POST fails because the connection
+			// drops, HttpURLConnection (used by Jersey's default connector) silently sends it again, which would repeat
+			// commands like install that RetryPolicy deliberately does not repeat.
+			jakarta.ws.rs.client.Invocation.Builder invokeBuilder = localTarget.request()
+																			   .accept(acceptMediaType)
+																			   .property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED)
+																			   // Jersey's multipart writer adds these headers while writing the body, which is too
+																			   // late for a streamed request, so they are set up front.
+																			   .header("MIME-Version", "1.0");
 
 //			if (this.correlationIdFn != null) {
 //				invokeBuilder.header(CORRELATION_ID_HTTP_HDR, this.correlationIdFn.get());
 //			}
 //			Response result;
 			try {
-				return JerseyResponse.processResponse(invokeBuilder.post(Entity.entity(multipart, multipart.getMediaType())), acceptMediaType);
+				return JerseyResponse.processResponse(invokeBuilder.post(Entity.entity(multipart, Boundary.addBoundary(multipart.getMediaType()))), acceptMediaType);
 			} catch (jakarta.ws.rs.ProcessingException e) {
 				String msg = e.getMessage();
 				throw new RestClientException("Error when posting to '" + target.getUri().toString() + "'" + (msg != null ? " (" + msg + ")" : "") + ".", e); 
@@ -224,6 +274,14 @@ public class JerseyRestClient implements RestClient {
 			return this;
 		}
 		
+		// The file is streamed through a MonitoredFileInputStream instead of being attached as a File, so that each chunk
+		// that Jersey writes can be reported (and the upload cancelled between chunks).
+		@Override
+		public MultipartPayload.Builder add(String fieldName, Path file, ContentType contentType, UploadMonitor monitor) {
+			multipart.bodyPart(new StreamDataBodyPart(fieldName, new MonitoredFileInputStream(file, monitor), file.getFileName().toString(), MediaType.valueOf(contentType.contentType())));
+			return this;
+		}
+
 		@Override
 		public MultipartPayload.Builder queryParam(String name, String value) {
 			queryParams.add(new QueryParam(name, value));
@@ -236,6 +294,62 @@ public class JerseyRestClient implements RestClient {
 		}
 	}
 
+	/**
+	 * InputStream over a file that reports each chunk read to an UploadMonitor.
+	 *
+	 * The file is opened when it is first read (so a payload that is never sent holds no file handle) and closed at the
+	 * end of the file.  Once the upload is cancelled, reads fail with the CancelledException, which makes Jersey abort
+	 * the request and close the connection.
+	 */
+	private static final class MonitoredFileInputStream extends InputStream {
+		private final Path file;
+		private final UploadMonitor monitor;
+		private InputStream in;
+		private boolean finished = false;
+
+		private MonitoredFileInputStream(Path file, UploadMonitor monitor) {
+			this.file = file;
+			this.monitor = monitor;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (finished) {
+				return -1;
+			}
+			if (in == null) {
+				monitor.started(Files.size(file));
+				in = Files.newInputStream(file);
+			}
+			try {
+				int bytesRead = in.read(b, off, len);
+				if (bytesRead < 0) {
+					close();
+					return -1;
+				}
+				monitor.sending(bytesRead);
+				return bytesRead;
+			} catch (IOException e) {	// Includes cancellation
+				close();
+				throw e;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			finished = true;
+			if (in != null) {
+				in.close();
+			}
+		}
+	}
+
 	/*
 	 * Singleton Client-related code
 	 * 
@@ -243,12 +357,15 @@ public class JerseyRestClient implements RestClient {
 	// Safe way to lazily initialize singeleton.  See https://en.wikipedia.org/wiki/Initialization-on-demand_holder_idiom 
 	private static class ClientHolder {
 		static final Client INSTANCE = ClientBuilder.newClient();
+		static final ConfiguredTargets TARGETS = new ConfiguredTargets(INSTANCE);
 	}
 	
 	/**
 	 * Gets a singleton client instance that can be custom configured before being used to construct a JersetRestClient
 	 * object.
 	 * 
+	 * Configured targets are cached, so any customization should be done before the first JerseyRestClient is created.
+	 * 
 	 * @return a singleton Jersey Jarkate REST Services Client object
 	 */
 	public static Client getClient() {
@@ -267,7 +384,9 @@ public class JerseyRestClient implements RestClient {
 	
 	private final class JerseyGetRequestBuilder implements GetRequest.Builder {
 		private record QueryParam(String name, String value) {};
+		private record Header(String name, String value) {};
 		private List<QueryParam> queryParams = new ArrayList<>();
+		private List<Header> headers = new ArrayList<>();
 
 		@Override
 		public JerseyGetRequestBuilder queryParam(String name, String value) {
@@ -275,17 +394,25 @@ public class JerseyRestClient implements RestClient {
 			return this;
 		}
 
+		@Override
+		public JerseyGetRequestBuilder header(String name, String value) {
+			headers.add(new Header(name, value));
+			return this;
+		}
+
 		@Override
 		public GetRequest build() {
-			return new JerseyGetRequest(Collections.unmodifiableList(queryParams));
+			return new JerseyGetRequest(Collections.unmodifiableList(queryParams), Collections.unmodifiableList(headers));
 		}
 	}
 	
 	private final class JerseyGetRequest implements GetRequest {
 		private final List<JerseyGetRequestBuilder.QueryParam> queryParams;
+		private final List<JerseyGetRequestBuilder.Header> headers;
 		
-		JerseyGetRequest(List<JerseyGetRequestBuilder.QueryParam> queryParams) {
+		JerseyGetRequest(List<JerseyGetRequestBuilder.QueryParam> queryParams, List<JerseyGetRequestBuilder.Header> headers) {
 			this.queryParams = queryParams;
+			this.headers = headers;
 		}
 
 		@Override
@@ -296,6 +423,9 @@ public class JerseyRestClient implements RestClient {
 				localTarget = localTarget.queryParam(queryParam.name, queryParam.value);
 			}
 			jakarta.ws.rs.client.Invocation.Builder invokeBuilder = localTarget.request().accept(acceptMediaType);
+			for(var header : headers) {
+				invokeBuilder = invokeBuilder.header(header.name, header.value);
+			}
 			try {
 				return JerseyResponse.processResponse(invokeBuilder.get(), acceptMediaType);
 			} catch (jakarta.ws.rs.ProcessingException e) {
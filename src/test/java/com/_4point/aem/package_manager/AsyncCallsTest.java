@@ -0,0 +1,62 @@
+package com._4point.aem.package_manager;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.RetryPolicy.Operation;
+import com._4point.aem.package_manager.rest_client.RestClient.Response;
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+
+class AsyncCallsTest {
+	private static final Logger LOGGER = new Logger.NoOpLogger();
+
+	private final RetryPolicy retryPolicy = RetryPolicy.builder().initialBackoff(Duration.ofMillis(1)).build();
+
+	// Makes a call whose request fails with the supplied Throwable.
+	private CompletableFuture<String> failedCall(Throwable failure) {
+		return AsyncCalls.call(retryPolicy, Operation.LIST_PACKAGES, LOGGER, ()->CompletableFuture.<Optional<Response>>failedFuture(failure),
+							   response->"result", e->new IllegalStateException("Call failed.", e), AsyncCalls.DEFAULT_EXECUTOR);
+	}
+
+	@Test
+	void testCall_ExceptionPassedToOnFailure() throws Exception {
+		RestClientException failure = new RestClientException("Call to server failed.");
+
+		CompletionException ex = assertThrows(CompletionException.class, ()->failedCall(failure).join());
+
+		assertAll(
+				()->assertThat(ex.getCause(), instanceOf(IllegalStateException.class)),
+				()->assertSame(failure, ex.getCause().getCause())
+				);
+	}
+
+	@Test
+	void testCall_ErrorRethrown() throws Exception {
+		Error failure = new AssertionError("Something broke.");
+
+		CompletionException ex = assertThrows(CompletionException.class, ()->failedCall(failure).join());
+
+		assertSame(failure, ex.getCause());
+	}
+
+	@Test
+	void testCall_OtherThrowableWrapped() throws Exception {
+		Throwable failure = new Throwable("Neither an Exception nor an Error.");
+
+		CompletionException ex = assertThrows(CompletionException.class, ()->failedCall(failure).join());
+
+		assertAll(
+				()->assertThat(ex.getCause(), instanceOf(IllegalStateException.class)),
+				()->assertThat(ex.getCause().getCause(), instanceOf(RestClientException.class)),
+				()->assertSame(failure, ex.getCause().getCause().getCause())
+				);
+	}
+}
@@ -2,6 +2,11 @@ package com._4point.aem.package_manager;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.jupiter.api.Test;
 
 class CommandResponseTest {
@@ -37,4 +42,33 @@ class CommandResponseTest {
 				);
 	}
 
+	@Test
+	void testFromInputStream() throws Exception {
+		var underTest = CommandResponse.from(toStream("{\"success\":true,\"msg\":\"Package uploaded\",\"path\":\"/etc/packages/fd/export/DownloadedFormsPackage_525101667060900.zip\"}", StandardCharsets.UTF_8));
+		assertAll(
+				()->assertTrue(underTest.success()),
+				()->assertEquals("Package uploaded", underTest.msg()),
+				()->assertEquals("/etc/packages/fd/export/DownloadedFormsPackage_525101667060900.zip", underTest.path().orElseThrow())
+				);
+	}
+
+	@Test
+	void testFromInputStream_NonAsciiUtf16() throws Exception {
+		// Charset is detected from the bytes rather than using the platform default.
+		var underTest = CommandResponse.from(toStream("{\"success\":false,\"msg\":\"Paket \u00fcberpr\u00fcft\",\"extra\":{\"nested\":[1,2]}}", StandardCharsets.UTF_16BE));
+		assertAll(
+				()->assertFalse(underTest.success()),
+				()->assertEquals("Paket \u00fcberpr\u00fcft", underTest.msg()),
+				()->assertTrue(underTest.path().isEmpty())
+				);
+	}
+
+	@Test
+	void testFromInputStream_InvalidJson() {
+		assertThrows(IOException.class, ()->CommandResponse.from(toStream("<html>Error</html>", StandardCharsets.UTF_8)));
+	}
+
+	private static ByteArrayInputStream toStream(String json, Charset charset) {
+		return new ByteArrayInputStream(json.getBytes(charset));
+	}
 }
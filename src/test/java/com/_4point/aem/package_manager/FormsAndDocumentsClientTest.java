@@ -6,8 +6,12 @@ import static org.hamcrest.Matchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -130,6 +134,15 @@ class FormsAndDocumentsClientTest {
 				);
 	}
 
+	@ParameterizedTest
+	@ValueSource(strings = {DELETE_FAILURE_RESPONSE, PREVIEW_FAILURE, UPLOAD_FAILURE})
+	void testAemError_FromInputStream_Success(String errorResponse) throws Exception {
+		AemError expected = AemError.from(JsonData.from(errorResponse)).orElseThrow();
+		AemError aemError = AemError.from(new ByteArrayInputStream(errorResponse.getBytes(StandardCharsets.UTF_8))).orElseThrow();
+		
+		assertEquals(expected, aemError);
+	}
+
 	@Test
 	void testDelete_Success() {
 		String targetFolder = "sample-of";
@@ -299,6 +312,56 @@ class FormsAndDocumentsClientTest {
 		assertThat(result, instanceOf(UploadSuccess.class));
 	}
 
+	@Test
+	void testDeleteAsync_Success() throws Exception {
+		String targetFolder = "sample-of";
+		stubForDelete(targetFolder, "{\"requestStatus\":\"success\"}");
+
+		assertThat(underTest.deleteAsync(targetFolder).get(), instanceOf(DeleteSuccess.class));
+	}
+
+	@Test
+	void testDeleteAsync_UnexpectedResponse() throws Exception {
+		String targetFolder = "sample-of";
+		stubForDelete(targetFolder, "{\"unexpected\":\"response\"}");
+
+		ExecutionException ex = assertThrows(ExecutionException.class, ()->underTest.deleteAsync(targetFolder).get());
+
+		assertThat(ex.getCause(), instanceOf(FormsAndDocumentsException.class));
+		assertThat(ex.getCause(), ExceptionMatchers.exceptionMsgContainsAll("Error while deleting folder", targetFolder));
+	}
+
+	@Test
+	void testUploadAsyncPathString(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		// Given
+		String filename = "SampleForm.zip";
+		stubForPreview(filename, PREVIEW_RESPONSE);
+		String fileId = "30226661338789";
+		stubForUpload(fileId, UPLOAD_RESPONSE);
+		AtomicInteger tasks = new AtomicInteger();
+		FormsAndDocumentsClient asyncUnderTest = FormsAndDocumentsClient.builder()
+																		 .port(wmRuntimeInfo.getHttpPort())
+																		 .asyncExecutor(task->{ tasks.incrementAndGet(); task.run(); })
+																		 .build();
+
+		// When
+		UploadResponse result = asyncUnderTest.uploadAsync(SAMPLE_DATA_DIR.resolve(filename), "").get();
+
+		// Then
+		assertThat(result, instanceOf(UploadSuccess.class));
+		assertThat(tasks.get(), greaterThan(0));
+	}
+
+	@Test
+	void testPreviewAsync_Failure() throws Exception {
+		String filename = "SampleForm.zip";
+		stubForPreview(filename, PREVIEW_FAILURE);
+
+		PreviewResponse result = underTest.previewAsync(filename, "some content".getBytes(StandardCharsets.UTF_8), "").get();
+
+		assertThat(result, instanceOf(AemError.class));
+	}
+
 	@Disabled("Not yet implemented")
 	@Test
 	void testCreateFolder() {
@@ -0,0 +1,100 @@
+package com._4point.aem.package_manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.JsonData.JsonDataException;
+
+class JsonDataTest {
+	private static final String SAMPLE_JSON = """
+			{
+			  "afData": {
+			    "afBoundData": {
+			      "data": {
+			        "name": "Sample",
+			        "address": { "city": "Ottawa" }
+			      }
+			    }
+			  }
+			}
+			""";
+
+	private final JsonData underTest = JsonData.from(SAMPLE_JSON);
+
+	@Test
+	void testAsString_KeepsOriginal() {
+		assertSame(SAMPLE_JSON, underTest.asString());
+	}
+
+	@Test
+	void testAt() {
+		assertAll(
+				()->assertEquals("Sample", underTest.at("/afData/afBoundData/data/name").orElseThrow()),
+				()->assertTrue(underTest.at("/afData/afBoundData/data/address").isEmpty()),		// Not a value node
+				()->assertTrue(underTest.at("/afData/missing").isEmpty()),
+				()->assertTrue(underTest.hasNode("/afData/afBoundData/data/address")),
+				()->assertFalse(underTest.hasNode("/afData/missing"))
+				);
+	}
+
+	@Test
+	void testSubsetAt() {
+		JsonData subset = underTest.subsetAt("/afData/afBoundData/data").orElseThrow();
+		assertAll(
+				()->assertEquals("Sample", subset.at("/name").orElseThrow()),
+				()->assertEquals("Ottawa", subset.at("/address/city").orElseThrow()),
+				()->assertEquals("Ottawa", JsonData.from(subset.asString()).at("/address/city").orElseThrow()),
+				()->assertTrue(underTest.subsetAt("/afData/afBoundData/data/name").isEmpty()),		// Not a container node
+				()->assertTrue(underTest.subsetAt("/afData/missing").isEmpty())
+				);
+	}
+
+	@Test
+	void testInsertJsonProperty() {
+		JsonData result = underTest.insertJsonProperty("/afData/afBoundData/data", "status", "new");
+		assertAll(
+				()->assertEquals("new", result.at("/afData/afBoundData/data/status").orElseThrow()),
+				()->assertEquals("new", JsonData.from(result.asString()).at("/afData/afBoundData/data/status").orElseThrow()),
+				()->assertFalse(underTest.hasNode("/afData/afBoundData/data/status"))		// Original is unchanged
+				);
+	}
+
+	@Test
+	void testInsertJsonProperty_NotAnObject() {
+		JsonDataException ex = assertThrows(JsonDataException.class, ()->underTest.insertJsonProperty("/afData/afBoundData/data/name", "status", "new"));
+		assertTrue(ex.getMessage().contains("/afData/afBoundData/data/name"));
+	}
+
+	@Test
+	void testModify() {
+		JsonData address = underTest.subsetAt("/afData/afBoundData/data/address").orElseThrow();
+		JsonData result = underTest.modify()
+								   .insertJsonProperty("/afData/afBoundData/data", "status", "new")
+								   .insertJsonProperty("/afData/afBoundData/data", "shipping", address)
+								   .insertJsonProperty("/afData/afBoundData/data/shipping", "country", "Canada")	// Inserts into the earlier insertion
+								   .build();
+		assertAll(
+				()->assertEquals("new", result.at("/afData/afBoundData/data/status").orElseThrow()),
+				()->assertEquals("Ottawa", result.at("/afData/afBoundData/data/shipping/city").orElseThrow()),
+				()->assertEquals("Canada", result.at("/afData/afBoundData/data/shipping/country").orElseThrow()),
+				()->assertEquals("Canada", JsonData.from(result.asString()).at("/afData/afBoundData/data/shipping/country").orElseThrow()),
+				// Neither the original nor the inserted JsonData are changed.
+				()->assertFalse(underTest.hasNode("/afData/afBoundData/data/status")),
+				()->assertFalse(address.hasNode("/country")),
+				()->assertFalse(underTest.hasNode("/afData/afBoundData/data/address/country"))
+				);
+	}
+
+	@Test
+	void testModify_AfterBuild() {
+		JsonData.Modifier modifier = underTest.modify();
+		modifier.build();
+		assertThrows(IllegalStateException.class, ()->modifier.insertJsonProperty("/afData", "status", "new"));
+	}
+
+	@Test
+	void testDetermineRootName() {
+		assertEquals("afData", underTest.determineRootName());
+	}
+}
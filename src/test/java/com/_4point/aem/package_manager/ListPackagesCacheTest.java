@@ -0,0 +1,110 @@
+package com._4point.aem.package_manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.ListPackagesCache.Fetched;
+
+class ListPackagesCacheTest {
+	private static final Duration TTL = Duration.ofSeconds(10);
+	private static final ListResponse.Request REQUEST = new ListResponse.Request("cmd", "ls");
+	private static final ListResponse FIRST_LIST = new ListResponse(List.of(), REQUEST, new ListResponse.Status(200, "ok"));
+	private static final ListResponse SECOND_LIST = new ListResponse(List.of(), REQUEST, new ListResponse.Status(200, "ok"));
+	private static final ListResponse ERROR_LIST = new ListResponse(List.of(), REQUEST, new ListResponse.Status(500, "Internal Server Error"));
+
+	private long now = 0;
+	private final List<String> fetches = new ArrayList<>();	// Records the validators sent with each fetch
+	private final ListPackagesCache underTest = new ListPackagesCache(TTL, ()->now, new Logger.NoOpLogger());
+
+	private ListPackagesCache.Fetcher fetcher(Fetched result) {
+		return (eTag, lastModified)->{
+			fetches.add(eTag.orElse("") + "|" + lastModified.orElse(""));
+			return result;
+		};
+	}
+
+	private static Fetched fetched(ListResponse response, String eTag) {
+		return new Fetched(Optional.of(response), Optional.ofNullable(eTag), Optional.empty());
+	}
+
+	@Test
+	void testGet_WithinTtl() throws Exception {
+		assertSame(FIRST_LIST, underTest.get(fetcher(fetched(FIRST_LIST, null))));
+		now += TTL.toNanos() - 1;
+		assertSame(FIRST_LIST, underTest.get(fetcher(fetched(SECOND_LIST, null))));
+		assertEquals(List.of("|"), fetches);
+	}
+
+	@Test
+	void testGet_ExpiredWithoutValidators() throws Exception {
+		underTest.get(fetcher(fetched(FIRST_LIST, null)));
+		now += TTL.toNanos();
+		assertSame(SECOND_LIST, underTest.get(fetcher(fetched(SECOND_LIST, null))));
+		assertEquals(List.of("|", "|"), fetches);
+	}
+
+	@Test
+	void testGet_ExpiredAndNotModified() throws Exception {
+		underTest.get(fetcher(fetched(FIRST_LIST, "\"v1\"")));
+		now += TTL.toNanos();
+		assertSame(FIRST_LIST, underTest.get(fetcher(Fetched.notModified())));
+		// Revalidation restarts the TTL
+		now += TTL.toNanos() - 1;
+		assertSame(FIRST_LIST, underTest.get(fetcher(fetched(SECOND_LIST, "\"v2\""))));
+		assertEquals(List.of("|", "\"v1\"|"), fetches);
+	}
+
+	@Test
+	void testGet_ExpiredAndModified() throws Exception {
+		underTest.get(fetcher(fetched(FIRST_LIST, "\"v1\"")));
+		now += TTL.toNanos();
+		assertSame(SECOND_LIST, underTest.get(fetcher(fetched(SECOND_LIST, "\"v2\""))));
+		now += TTL.toNanos();
+		underTest.get(fetcher(Fetched.notModified()));
+		assertEquals(List.of("|", "\"v1\"|", "\"v2\"|"), fetches);
+	}
+
+	@Test
+	void testGet_ZeroTtlAlwaysRevalidates() throws Exception {
+		ListPackagesCache zeroTtl = new ListPackagesCache(Duration.ZERO, ()->now, new Logger.NoOpLogger());
+		zeroTtl.get(fetcher(fetched(FIRST_LIST, "\"v1\"")));
+		assertSame(FIRST_LIST, zeroTtl.get(fetcher(Fetched.notModified())));
+		assertEquals(List.of("|", "\"v1\"|"), fetches);
+	}
+
+	@Test
+	void testInvalidate() throws Exception {
+		underTest.get(fetcher(fetched(FIRST_LIST, "\"v1\"")));
+		underTest.invalidate();
+		// After invalidation the list is fetched unconditionally, even within the TTL.
+		assertSame(SECOND_LIST, underTest.get(fetcher(fetched(SECOND_LIST, "\"v2\""))));
+		assertEquals(List.of("|", "|"), fetches);
+	}
+
+	@Test
+	void testInvalidate_DuringFetch() throws Exception {
+		underTest.get((eTag, lastModified)->{
+			underTest.invalidate();		// e.g. another thread installs a package while the list is being fetched.
+			return fetched(FIRST_LIST, null);
+		});
+		assertSame(SECOND_LIST, underTest.get(fetcher(fetched(SECOND_LIST, null))));
+	}
+
+	@Test
+	void testGet_ErrorsAreNotCached() throws Exception {
+		assertSame(ERROR_LIST, underTest.get(fetcher(fetched(ERROR_LIST, null))));
+		assertSame(FIRST_LIST, underTest.get(fetcher(fetched(FIRST_LIST, null))));
+		assertEquals(2, fetches.size());
+	}
+
+	@Test
+	void testNegativeTtl() {
+		assertThrows(IllegalArgumentException.class, ()->new ListPackagesCache(Duration.ofSeconds(-1), new Logger.NoOpLogger()));
+	}
+}
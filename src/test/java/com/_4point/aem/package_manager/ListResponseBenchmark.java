@@ -0,0 +1,57 @@
+package com._4point.aem.package_manager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares decoding the SampleListResponse.xml using the DOM/XPath (XmlDocument) path against the StAX path.
+ *
+ * Run from the IDE (main method) or after a test-compile using the test classpath.  Add "-prof gc" to see allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListResponseBenchmark {
+	private static final Path SAMPLE_XML_FILE = Path.of("src", "test", "resources", "SampleData", "SampleListResponse.xml");
+
+	private byte[] sampleXmlBytes;
+
+	@Setup
+	public void setup() throws IOException {
+		sampleXmlBytes = Files.readAllBytes(SAMPLE_XML_FILE);
+	}
+
+	@Benchmark
+	public ListResponse domAndXPath() {
+		return ListResponse.from(XmlDocument.initializeXmlDoc(sampleXmlBytes));
+	}
+
+	@Benchmark
+	public ListResponse stax() {
+		return ListResponse.from(new ByteArrayInputStream(sampleXmlBytes));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ListResponseBenchmark.class.getSimpleName()).build()).run();
+	}
+}
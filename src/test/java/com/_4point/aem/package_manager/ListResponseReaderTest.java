@@ -0,0 +1,144 @@
+package com._4point.aem.package_manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import com._4point.aem.package_manager.ListResponse.Package;
+
+class ListResponseReaderTest {
+	private static final Path RESOURCES_DIR = Path.of("src", "test", "resources");
+	private static final Path SAMPLE_DATA_DIR = RESOURCES_DIR.resolve("SampleData");
+	private static final Path SAMPLE_XML_FILE = SAMPLE_DATA_DIR.resolve("SampleListResponse.xml");
+	private static final byte[] SAMPLE_XML_BYTES = readAllBytes(SAMPLE_XML_FILE);
+	private static final int SYNTHETIC_NUM_PACKAGES = 50_000;
+
+	static {
+		// JOL cannot ask Unsafe for the field offsets of records, so it works them out itself instead.
+		System.setProperty("jol.magicFieldOffset", "true");
+	}
+
+	private static byte[] readAllBytes(Path sampleXmlFile) {
+		try {
+			return Files.readAllBytes(sampleXmlFile);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Test
+	void testRead_DeduplicatesRepeatedValues() {
+		ListResponse result = ListResponseReader.read(new ByteArrayInputStream(SAMPLE_XML_BYTES));
+
+		assertAll(
+				()->assertEquals(distinctValues(result, Package::group), distinctInstances(result, Package::group)),
+				()->assertEquals(distinctValues(result, Package::createdBy), distinctInstances(result, Package::createdBy)),
+				()->assertEquals(distinctValues(result, Package::lastModifiedBy), distinctInstances(result, Package::lastModifiedBy)),
+				()->assertEquals(distinctValues(result, Package::lastUnpackedBy), distinctInstances(result, Package::lastUnpackedBy))
+				);
+	}
+
+	@Test
+	void testRead_RepeatedValuesShareInstances() {
+		ListResponse result = ListResponseReader.read(new ByteArrayInputStream(syntheticListResponse(SYNTHETIC_NUM_PACKAGES)));
+
+		assertAll(
+				()->assertEquals(SYNTHETIC_NUM_PACKAGES, result.packages().size()),
+				// The late groups only appear after thousands of unique dates, which must not have filled up the table.
+				()->assertEquals(40, distinctInstances(result, Package::group)),
+				()->assertEquals(5, distinctInstances(result, Package::createdBy)),
+				()->assertEquals(1, distinctInstances(result, Package::lastModifiedBy)),
+				()->assertEquals(5, distinctInstances(result, Package::lastUnpackedBy)),
+				()->assertSame(result.packages().get(0).createdBy(), result.packages().get(SYNTHETIC_NUM_PACKAGES - 5).createdBy())
+				);
+	}
+
+	@Test
+	void testRead_RetainsLessThanDom_Sample() {
+		assertRetainsLessThanDom(SAMPLE_XML_BYTES);
+	}
+
+	@Test
+	void testRead_RetainsLessThanDom_Synthetic() {
+		assertRetainsLessThanDom(syntheticListResponse(SYNTHETIC_NUM_PACKAGES));
+	}
+
+	// The deduplicated result should retain well under the heap of the same response decoded from the DOM (which keeps a
+	// separate String for every value).
+	private static void assertRetainsLessThanDom(byte[] xml) {
+		ListResponse streamed = ListResponseReader.read(new ByteArrayInputStream(xml));
+		ListResponse dom = ListResponse.from(XmlDocument.initializeXmlDoc(xml));
+		assertEquals(dom, streamed);
+
+		long streamedSize = GraphLayout.parseInstance(streamed).totalSize();
+		long domSize = GraphLayout.parseInstance(dom).totalSize();
+		assertTrue(streamedSize < domSize * 85 / 100, "Expected " + streamedSize + " bytes retained to be less than 85% of the DOM's " + domSize + " bytes.");
+	}
+
+	@Test
+	void testOpen_ReadsIncrementally() {
+		ListResponseReader underTest = ListResponseReader.open(new ByteArrayInputStream(SAMPLE_XML_BYTES));
+		try {
+			Package first = underTest.nextPackage();
+			assertAll(
+					()->assertEquals("we.retail.config", first.name()),
+					()->assertEquals("ls", underTest.request().orElseThrow().value()),
+					()->assertTrue(underTest.status().isEmpty())		// Status comes after the packages
+					);
+			int count = 1;
+			while (underTest.nextPackage() != null) {
+				count++;
+			}
+			assertEquals(322, count);
+			assertEquals(200, underTest.status().orElseThrow().code());
+		} finally {
+			underTest.close();
+		}
+	}
+
+	private static long distinctValues(ListResponse listResponse, Function<Package, String> field) {
+		return listResponse.packages().stream().map(field).distinct().count();
+	}
+
+	private static long distinctInstances(ListResponse listResponse, Function<Package, String> field) {
+		Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+		listResponse.packages().stream().map(field).forEach(instances::add);
+		return instances.size();
+	}
+
+	private static byte[] syntheticListResponse(int numPackages) {
+		List<String> users = List.of("admin", "null", "bailescu", "root", "deployer");
+		StringBuilder xml = new StringBuilder("<crx version=\"1.22.17\" user=\"admin\" workspace=\"crx.default\"><request><param name=\"cmd\" value=\"ls\"/></request><response><data><packages>");
+		for (int i = 0; i < numPackages; i++) {
+			String groupPrefix = i < numPackages / 2 ? "my_packages" : "late_packages";
+			xml.append("<package>")
+			   .append("<group>").append(groupPrefix).append("/group").append(i % 20).append("</group>")
+			   .append("<name>package").append(i).append("</name>")
+			   .append("<version>1.0.").append(i % 7).append("</version>")
+			   .append("<downloadName>package").append(i).append("-1.0.").append(i % 7).append(".zip</downloadName>")
+			   .append("<size>").append(1000 + i).append("</size>")
+			   .append("<created>Mon., 25 Feb. 2019 15:45:").append(10 + i % 50).append(" -0500</created>")
+			   .append("<createdBy>").append(users.get(i % 5)).append("</createdBy>")
+			   .append("<lastModified>").append(String.format("Tue., 9 Jan. 2024 %02d:%02d:%02d -0500", i / 3600 % 24, i / 60 % 60, i % 60)).append("</lastModified>")
+			   .append("<lastModifiedBy>null</lastModifiedBy>")
+			   .append("<lastUnpacked>Fri., 8 Dec. 2023 10:28:").append(10 + i % 50).append(" -0500</lastUnpacked>")
+			   .append("<lastUnpackedBy>").append(users.get((i + 1) % 5)).append("</lastUnpackedBy>")
+			   .append("</package>");
+		}
+		xml.append("</packages></data><status code=\"200\">ok</status></response></crx>");
+		return xml.toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
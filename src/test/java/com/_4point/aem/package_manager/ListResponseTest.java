@@ -2,13 +2,16 @@ package com._4point.aem.package_manager;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 import org.apache.commons.lang3.exception.UncheckedException;
 import org.junit.jupiter.api.Test;
 
+import com._4point.aem.package_manager.ListResponse.ListResponseException;
 import com._4point.aem.package_manager.ListResponse.Package;
 
 class ListResponseTest {
@@ -53,4 +56,55 @@ class ListResponseTest {
 				);
 	}
 
+	@Test
+	void testFromInputStream() {
+		ListResponse result = ListResponse.from(new ByteArrayInputStream(SAMPLE_XML_BYTES));
+		
+		assertEquals(underTest, result);	// Should produce exactly the same results as the XmlDocument version
+	}
+
+	@Test
+	void testFromInputStream_MissingField() {
+		String xml = """
+				<crx version="1.22.17" user="admin" workspace="crx.default">
+					<request><param name="cmd" value="ls"/></request>
+					<response>
+						<data><packages><package><group>my_packages</group></package></packages></data>
+						<status code="200">ok</status>
+					</response>
+				</crx>
+				""";
+		ListResponseException ex = assertThrows(ListResponseException.class, ()->ListResponse.from(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))));
+		assertTrue(ex.getMessage().contains("name"), "Expected '" + ex.getMessage() + "' to contain the missing field name.");
+	}
+
+	@Test
+	void testFromInputStream_IgnoresElementsOutsideExpectedPaths() {
+		String xml = """
+				<crx version="1.22.17" user="admin" workspace="crx.default">
+					<request><param name="cmd" value="ls"/><extra><param name="decoy" value="decoy"/></extra></request>
+					<response>
+						<data>
+							<packages>
+								<package>
+									<group>my_packages</group><name>real</name><version>1.0</version><downloadName>real-1.0.zip</downloadName>
+									<size>1000</size><created></created><createdBy>admin</createdBy><lastModified></lastModified>
+									<lastModifiedBy>null</lastModifiedBy><lastUnpacked></lastUnpacked><lastUnpackedBy>null</lastUnpackedBy>
+								</package>
+							</packages>
+							<recent><package><status code="500">decoy</status></package></recent>
+						</data>
+						<status code="200">ok</status>
+					</response>
+				</crx>
+				""";
+		ListResponse result = ListResponse.from(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+		assertAll(
+				()->assertEquals(1, result.packages().size()),
+				()->assertEquals("real", result.packages().get(0).name()),
+				()->assertEquals("cmd", result.request().name()),
+				()->assertEquals(200, result.status().code())
+				);
+	}
+
 }
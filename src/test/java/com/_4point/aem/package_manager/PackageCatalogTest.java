@@ -0,0 +1,138 @@
+package com._4point.aem.package_manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.exception.UncheckedException;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import com._4point.aem.package_manager.ListResponse.Package;
+
+class PackageCatalogTest {
+	private static final Path RESOURCES_DIR = Path.of("src", "test", "resources");
+	private static final Path SAMPLE_DATA_DIR = RESOURCES_DIR.resolve("SampleData");
+	private static final Path SAMPLE_XML_FILE = SAMPLE_DATA_DIR.resolve("SampleListResponse.xml");
+	private static final List<Package> SAMPLE_PACKAGES = readPackages(SAMPLE_XML_FILE);
+
+	static {
+		System.setProperty("jol.magicFieldOffset", "true");	// Allows JOL to measure records.
+	}
+
+	private static List<Package> readPackages(Path sampleXmlFile) {
+		try {
+			return ListResponse.from(new ByteArrayInputStream(Files.readAllBytes(sampleXmlFile))).packages();
+		} catch (IOException e) {
+			throw new UncheckedException(e);
+		}
+	}
+
+	private final PackageCatalog underTest = PackageCatalog.from(SAMPLE_PACKAGES);
+
+	@Test
+	void testMaterializedPackagesMatchOriginals() {
+		assertEquals(SAMPLE_PACKAGES.size(), underTest.size());
+		assertEquals(SAMPLE_PACKAGES, underTest.stream().toList());
+	}
+
+	@Test
+	void testUnusualDatesPreserved() {
+		List<Package> packages = List.of(
+				new Package("group", "name1", "1.0", "name1-1.0.zip", "100", "Wed., 6 Sept. 2017 09:03:10 +0200", "admin", "Thu, 29 Feb 2024 23:59:59 GMT", "admin", "null", ""),
+				new Package("group", "name2", "1.0", "name2-1.0.zip", "100", "Mon, 25 Feb 2019 15:45:19 -0500", "admin", "Tue., 25 Feb. 2019 15:45:19 -0500", "admin", "", ""),
+				new Package("group", "name3", "1.0", "name3-1.0.zip", "100", "Thu, 29 Feb 2024 23:59:59 +05:30", "admin", "Mon., 7 May 2018 09:03:10 -0400", "admin", "Sun., 31 Dec. 2023 23:59:59 +1400", "admin")
+				);
+		assertEquals(packages, PackageCatalog.from(packages).stream().toList());
+	}
+
+	@Test
+	void testRebuildableDatesNotRetained() {
+		// Every package has different dates, so any date strings that are kept would add to the size of the catalog.
+		List<Package> withDates = IntStream.range(0, 1000)
+										   .mapToObj(i->Instant.parse("2023-12-08T15:28:02Z").plusSeconds(i * 3_601L))
+										   .map(d->AemDateParser.format(d, AemDateParser.styleOf("Fri., 8 Dec. 2023 10:28:02 -0500", Instant.parse("2023-12-08T15:28:02Z")).orElseThrow()))
+										   .map(d->new Package("group", "name", "1.0", "name-1.0.zip", "100", d, "admin", d, "admin", d, ""))
+										   .toList();
+		List<Package> withoutDates = withDates.stream()
+											  .map(p->new Package("group", "name", "1.0", "name-1.0.zip", "100", "", "admin", "", "admin", "", ""))
+											  .toList();
+		PackageCatalog catalog = PackageCatalog.from(withDates);
+		assertAll(
+				()->assertEquals(withDates, catalog.stream().toList()),
+				()->assertEquals(GraphLayout.parseInstance(PackageCatalog.from(withoutDates)).totalSize(), GraphLayout.parseInstance(catalog).totalSize())
+				);
+	}
+
+	@Test
+	void testTypedAccessors() {
+		assertAll(
+				()->assertEquals("adobe/aem6", underTest.group(0)),
+				()->assertEquals(15614L, underTest.sizeInBytes(0)),
+				()->assertEquals(Instant.parse("2019-02-25T20:45:19Z"), underTest.created(0).orElseThrow()),
+				()->assertTrue(underTest.lastModified(0).isEmpty()),
+				()->assertEquals(Instant.parse("2023-12-08T15:28:02Z"), underTest.lastUnpacked(0).orElseThrow())
+				);
+	}
+
+	@Test
+	void testBytesByGroup() {
+		Map<String, Long> expected = SAMPLE_PACKAGES.stream().collect(Collectors.groupingBy(Package::group, Collectors.summingLong(p->Long.parseLong(p.size()))));
+		Map<String, Long> result = underTest.bytesByGroup();
+		assertAll(
+				()->assertEquals(expected, result),
+				()->assertEquals(underTest.totalBytes(), result.values().stream().mapToLong(Long::longValue).sum())
+				);
+	}
+
+	@Test
+	void testCountByGroup() {
+		Map<String, Long> expected = SAMPLE_PACKAGES.stream().collect(Collectors.groupingBy(Package::group, Collectors.counting()));
+		assertEquals(expected, underTest.countByGroup());
+	}
+
+	@Test
+	void testLargest() {
+		List<Package> expected = SAMPLE_PACKAGES.stream()
+												.sorted(Comparator.comparingLong((Package p)->Long.parseLong(p.size())).reversed())
+												.limit(5)
+												.toList();
+		assertEquals(expected.stream().map(Package::size).toList(), underTest.largest(5).stream().map(Package::size).toList());
+	}
+
+	@Test
+	void testLeastRecentlyUnpacked() {
+		List<Package> result = underTest.leastRecentlyUnpacked(10);
+		assertEquals(10, result.size());
+		Instant oldest = SAMPLE_PACKAGES.stream().map(p->p.metadata().lastUnpacked().orElseThrow()).min(Comparator.naturalOrder()).orElseThrow();
+		assertEquals(oldest, result.get(0).metadata().lastUnpacked().orElseThrow());
+		for (int i = 1; i < result.size(); i++) {
+			assertFalse(result.get(i).metadata().lastUnpacked().orElseThrow().isBefore(result.get(i - 1).metadata().lastUnpacked().orElseThrow()));
+		}
+	}
+
+	@Test
+	void testOldest_MoreThanAvailable() {
+		assertEquals(SAMPLE_PACKAGES.stream().filter(p->!p.created().isEmpty()).count(), underTest.oldest(1000).size());
+	}
+
+	@Test
+	void testEmptyCatalog() {
+		PackageCatalog empty = PackageCatalog.builder().build();
+		assertAll(
+				()->assertEquals(0, empty.size()),
+				()->assertEquals(0, empty.totalBytes()),
+				()->assertTrue(empty.largest(5).isEmpty()),
+				()->assertTrue(empty.bytesByGroup().isEmpty())
+				);
+	}
+}
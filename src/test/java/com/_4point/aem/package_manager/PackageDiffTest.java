@@ -0,0 +1,129 @@
+package com._4point.aem.package_manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.exception.UncheckedException;
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.ListResponse.Package;
+
+class PackageDiffTest {
+	private static final Path RESOURCES_DIR = Path.of("src", "test", "resources");
+	private static final Path SAMPLE_DATA_DIR = RESOURCES_DIR.resolve("SampleData");
+	private static final Path SAMPLE_XML_FILE = SAMPLE_DATA_DIR.resolve("SampleListResponse.xml");
+	private static final ListResponse SAMPLE_LIST_RESPONSE = readListResponse(SAMPLE_XML_FILE);
+
+	private static ListResponse readListResponse(Path sampleXmlFile) {
+		try {
+			return ListResponse.from(XmlDocument.initializeXmlDoc(Files.readAllBytes(sampleXmlFile)));
+		} catch (IOException e) {
+			throw new UncheckedException(e);
+		}
+	}
+
+	@Test
+	void testBetween_NoChanges() {
+		assertTrue(PackageDiff.between(SAMPLE_LIST_RESPONSE, SAMPLE_LIST_RESPONSE).isEmpty());
+	}
+
+	@Test
+	void testBetween_AddedAndRemoved() {
+		List<Package> before = SAMPLE_LIST_RESPONSE.packages();
+		List<Package> after = new ArrayList<>(before.subList(1, before.size()));
+		Package newPackage = samplePackage("my_packages", "new-package", "1.0.0", "Fri, 8 Dec 2023 10:28:02 -0500");
+		after.add(newPackage);
+
+		PackageDiff result = PackageDiff.between(before, after);
+		assertAll(
+				()->assertEquals(List.of(newPackage), result.added()),
+				()->assertEquals(List.of(before.get(0)), result.removed()),
+				()->assertTrue(result.changed().isEmpty()),
+				()->assertFalse(result.isEmpty())
+				);
+	}
+
+	@Test
+	void testBetween_Reinstalled() {
+		Package before = samplePackage("my_packages", "test", "1.0.0", "Fri, 8 Dec 2023 10:28:02 -0500");
+		Package after = samplePackage("my_packages", "test", "1.0.0", "Sat, 9 Dec 2023 10:28:02 -0500");
+
+		PackageDiff result = PackageDiff.between(List.of(before), List.of(after));
+		assertAll(
+				()->assertTrue(result.added().isEmpty()),
+				()->assertTrue(result.removed().isEmpty()),
+				()->assertEquals(List.of(new PackageDiff.Change(before, after)), result.changed()),
+				()->assertFalse(result.changed().get(0).versionChanged()),
+				()->assertEquals(List.of("lastUnpacked"), result.changed().get(0).changedFields())
+				);
+	}
+
+	@Test
+	void testBetween_NewVersion() {
+		Package before = samplePackage("my_packages", "test", "1.0.0", "Fri, 8 Dec 2023 10:28:02 -0500");
+		Package after = samplePackage("my_packages", "test", "1.0.1", "Sat, 9 Dec 2023 10:28:02 -0500");
+		Package unchanged = samplePackage("my_packages", "other", "1.0.0", "Fri, 8 Dec 2023 10:28:02 -0500");
+
+		PackageDiff result = PackageDiff.between(List.of(unchanged, before), List.of(after, unchanged));
+		assertAll(
+				()->assertTrue(result.added().isEmpty()),
+				()->assertTrue(result.removed().isEmpty()),
+				()->assertEquals(List.of(new PackageDiff.Change(before, after)), result.changed()),
+				()->assertTrue(result.changed().get(0).versionChanged()),
+				()->assertEquals(List.of("version", "downloadName", "lastUnpacked"), result.changed().get(0).changedFields())
+				);
+	}
+
+	@Test
+	void testBetween_AmbiguousVersions() {
+		// When several versions were added, they cannot be paired with the removed version.
+		Package before = samplePackage("my_packages", "test", "1.0.0", "");
+		Package after1 = samplePackage("my_packages", "test", "1.0.1", "");
+		Package after2 = samplePackage("my_packages", "test", "1.0.2", "");
+
+		PackageDiff result = PackageDiff.between(List.of(before), List.of(after1, after2));
+		assertAll(
+				()->assertEquals(List.of(after1, after2), result.added()),
+				()->assertEquals(List.of(before), result.removed()),
+				()->assertTrue(result.changed().isEmpty())
+				);
+	}
+
+	@Test
+	void testBetween_SameNameDifferentGroup() {
+		Package before = samplePackage("group1", "test", "1.0.0", "");
+		Package after = samplePackage("group2", "test", "1.0.1", "");
+
+		PackageDiff result = PackageDiff.between(List.of(before), List.of(after));
+		assertAll(
+				()->assertEquals(List.of(after), result.added()),
+				()->assertEquals(List.of(before), result.removed()),
+				()->assertTrue(result.changed().isEmpty())
+				);
+	}
+
+	@Test
+	void testBetween_LargeSnapshots() {
+		int numPackages = 100_000;
+		List<Package> before = IntStream.range(0, numPackages).mapToObj(i->samplePackage("group" + (i % 50), "package" + i, "1.0.0", "")).toList();
+		List<Package> after = IntStream.range(0, numPackages).mapToObj(i->samplePackage("group" + (i % 50), "package" + i, i % 1000 == 0 ? "1.0.1" : "1.0.0", "")).toList();
+
+		PackageDiff result = PackageDiff.between(before, after);
+		assertAll(
+				()->assertTrue(result.added().isEmpty()),
+				()->assertTrue(result.removed().isEmpty()),
+				()->assertEquals(numPackages / 1000, result.changed().size()),
+				()->assertTrue(result.changed().stream().allMatch(PackageDiff.Change::versionChanged))
+				);
+	}
+
+	private static Package samplePackage(String group, String name, String version, String lastUnpacked) {
+		return new Package(group, name, version, name + "-" + version + ".zip", "1000", "", "admin", "", "null", lastUnpacked, "admin");
+	}
+}
@@ -0,0 +1,95 @@
+package com._4point.aem.package_manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.commons.lang3.exception.UncheckedException;
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.ListResponse.Package;
+
+class PackageIndexTest {
+	private static final Path RESOURCES_DIR = Path.of("src", "test", "resources");
+	private static final Path SAMPLE_DATA_DIR = RESOURCES_DIR.resolve("SampleData");
+	private static final Path SAMPLE_XML_FILE = SAMPLE_DATA_DIR.resolve("SampleListResponse.xml");
+	private static final ListResponse SAMPLE_LIST_RESPONSE = readListResponse(SAMPLE_XML_FILE);
+
+	private static ListResponse readListResponse(Path sampleXmlFile) {
+		try {
+			return ListResponse.from(XmlDocument.initializeXmlDoc(Files.readAllBytes(sampleXmlFile)));
+		} catch (IOException e) {
+			throw new UncheckedException(e);
+		}
+	}
+
+	private final PackageIndex underTest = PackageIndex.from(SAMPLE_LIST_RESPONSE.packages());
+
+	@Test
+	void testFind_AllSamplePackages() {
+		assertEquals(SAMPLE_LIST_RESPONSE.packages().size(), underTest.size());
+		for (Package pkg : SAMPLE_LIST_RESPONSE.packages()) {
+			assertTrue(underTest.contains(pkg.group(), pkg.name(), pkg.version()), "Expected to find " + pkg.downloadName());
+			Package found = underTest.find(PackageIndex.Key.of(pkg)).orElseThrow();
+			assertAll(
+					()->assertEquals(pkg.group(), found.group()),
+					()->assertEquals(pkg.name(), found.name()),
+					()->assertEquals(pkg.version(), found.version())
+					);
+		}
+	}
+
+	@Test
+	void testFind_NotFound() {
+		assertAll(
+				()->assertTrue(underTest.find("day/cq60/product", "cq-content", "9.9.9").isEmpty()),
+				()->assertFalse(underTest.contains("no_such_group", "we.retail.config", "4.0.0")),
+				()->assertTrue(underTest.versionsOf("no_such_package").isEmpty()),
+				()->assertTrue(underTest.inGroup("no_such_group").isEmpty())
+				);
+	}
+
+	@Test
+	void testVersionsOf() {
+		List<Package> expected = SAMPLE_LIST_RESPONSE.packages().stream().filter(p->p.name().equals("we.retail.config")).toList();
+		assertAll(
+				()->assertFalse(expected.isEmpty()),
+				()->assertEquals(expected, underTest.versionsOf("we.retail.config")),
+				()->assertEquals(expected, underTest.versionsOf(expected.get(0).group(), "we.retail.config")),
+				()->assertTrue(underTest.versionsOf("no_such_group", "we.retail.config").isEmpty())
+				);
+	}
+
+	@Test
+	void testInGroup_MatchesWholeSegments() {
+		Package parent = samplePackage("adobe/aem6", "parent");
+		Package child = samplePackage("adobe/aem6/sample", "child");
+		Package sibling = samplePackage("adobe/aem60", "sibling");
+		Package other = samplePackage("adobe", "other");
+		PackageIndex index = PackageIndex.from(List.of(sibling, child, other, parent));
+
+		assertAll(
+				()->assertEquals(List.of(parent, child), index.inGroup("adobe/aem6")),
+				()->assertEquals(List.of(parent, child), index.inGroup("adobe/aem6/")),
+				()->assertEquals(List.of(child), index.inGroup("adobe/aem6/sample")),
+				()->assertEquals(List.of(sibling), index.inGroup("adobe/aem60")),
+				()->assertEquals(4, index.inGroup("adobe").size()),
+				()->assertEquals(4, index.inGroup("").size()),
+				()->assertTrue(index.inGroup("adobe/aem").isEmpty())
+				);
+	}
+
+	@Test
+	void testInGroup_SamplePackages() {
+		String group = SAMPLE_LIST_RESPONSE.packages().get(0).group();
+		long expected = SAMPLE_LIST_RESPONSE.packages().stream().filter(p->p.group().equals(group) || p.group().startsWith(group + "/")).count();
+		assertEquals(expected, underTest.inGroup(group).size());
+	}
+
+	private static Package samplePackage(String group, String name) {
+		return new Package(group, name, "1.0.0", name + "-1.0.0.zip", "1000", "", "admin", "", "null", "", "null");
+	}
+}
@@ -1,14 +1,20 @@
 package com._4point.aem.package_manager;
 
 import static com._4point.aem.package_manager.PackageManagerClientTest.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.hamcrest.MatcherAssert.assertThat; 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Stream;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com._4point.aem.package_manager.PackageManagerClient.PackageManagerException;
+import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
 import com._4point.testing.matchers.javalang.ExceptionMatchers;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
@@ -29,6 +35,14 @@ class PackageManagerClientExTest {
 		assertEquals(322, underTest.listPackages().size());
 	}
 
+	@Test
+	void testStreamPackages_Success() throws Exception {
+		stubForListPackagesSuccess();
+		try (Stream<ListResponse.Package> packages = underTest.streamPackages()) {
+			assertEquals(322, packages.count());
+		}
+	}
+
 	@Test
 	void testListPackages_Failure() throws Exception {
 		stubForListPackagesFailure();
@@ -118,6 +132,18 @@ class PackageManagerClientExTest {
 		assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("Error returned", "List Packages", "Internal Server Error"));
 	}
 
+	@Test
+	void testDeletePackages_FailureStatusAfterPackages() throws Exception {
+		// The packages are returned, but the status at the end of the list shows that listing them failed.
+		String listResponse = Files.readString(SAMPLE_DATA_DIR.resolve("SampleListResponse.xml")).replace("<status code=\"200\">ok</status>", "<status code=\"500\">Internal Server Error</status>");
+		stubFor(get(urlPathEqualTo("/crx/packmgr/service.jsp")).willReturn(okForContentType(ContentType.TEXT_PLAIN.contentType(), listResponse)));
+		stubForUninstallPackageSuccess();
+		stubForDeletePackageSuccess();
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->underTest.deletePackages(pkg->GROUP.equals(pkg.group()), true));
+		assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("Error returned", "List Packages", "Internal Server Error"));
+		verify(0, postRequestedFor(anyUrl()));
+	}
+
 	@Test
 	void testDeletePackages_FailureInUninstall() throws Exception {
 		stubForListPackagesSuccess();
@@ -136,4 +162,61 @@ class PackageManagerClientExTest {
 		// Should contain that error was returned, operation name and text from the response.
 		assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("Error returned", "Delete Package", "failure"));
 	}
+
+	private static final String SAMPLE_GROUP = "adobe/aem6/sample";
+	private static final String FAILING_SAMPLE_PACKAGE = "wknd-events.download-1.0.2.zip";
+
+	private static void stubForSampleGroupCommands(String failingDeletePackage) {
+		stubFor(post(urlPathMatching("/crx/packmgr/service/.json/etc/packages/" + SAMPLE_GROUP + "/.*"))
+				.willReturn(okForContentType(ContentType.APPLICATION_JSON.contentType(), "{\"success\":true,\"msg\":\"Done\"}")));
+		stubFor(post(urlPathEqualTo("/crx/packmgr/service/.json/etc/packages/" + SAMPLE_GROUP + "/" + failingDeletePackage))
+				.withMultipartRequestBody(aMultipart("cmd").withBody(equalTo("delete")))
+				.willReturn(okForContentType(ContentType.APPLICATION_JSON.contentType(), "{\"success\":false,\"msg\":\"failure\"}")));
+	}
+
+	@Test
+	void testDeletePackagesConcurrently_Success() throws Exception {
+		stubForListPackagesSuccess();
+		stubForUninstallPackageSuccess();
+		stubForDeletePackageSuccess();
+		BulkResult result = underTest.deletePackagesConcurrently(pkg->GROUP.equals(pkg.group()), true, 4);
+		assertAll(
+				()->assertTrue(result.allSucceeded()),
+				()->assertEquals(List.of(PACKAGE_NAME), result.succeeded().stream().map(ListResponse.Package::downloadName).toList())
+				);
+	}
+
+	@Test
+	void testUninstallAndDeletePackagesConcurrently_PartialFailure() throws Exception {
+		stubForListPackagesSuccess();
+		stubForSampleGroupCommands(FAILING_SAMPLE_PACKAGE);
+		BulkResult result = underTest.uninstallAndDeletePackagesConcurrently(pkg->SAMPLE_GROUP.equals(pkg.group()), 3);
+		assertAll(
+				()->assertEquals(9, result.outcomes().size()),
+				()->assertFalse(result.allSucceeded()),
+				()->assertEquals(8, result.succeeded().size()),
+				()->assertEquals(1, result.failed().size()),
+				()->assertEquals(FAILING_SAMPLE_PACKAGE, result.failed().get(0).pkg().downloadName()),
+				()->assertThat(result.failed().get(0).error().orElseThrow(), ExceptionMatchers.exceptionMsgContainsAll("Error returned", "Delete Package", "failure"))
+				);
+		// Each package should have been uninstalled before it was deleted, so there are two calls for every package.
+		verify(9, postRequestedFor(urlPathMatching("/crx/packmgr/service/.json/etc/packages/" + SAMPLE_GROUP + "/.*"))
+					.withRequestBodyPart(aMultipart("cmd").withBody(equalTo("uninstall")).build()));
+		verify(9, postRequestedFor(urlPathMatching("/crx/packmgr/service/.json/etc/packages/" + SAMPLE_GROUP + "/.*"))
+					.withRequestBodyPart(aMultipart("cmd").withBody(equalTo("delete")).build()));
+	}
+
+	@Test
+	void testDeletePackagesConcurrently_FailureInList() throws Exception {
+		stubForListPackagesFailure();
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->underTest.deletePackagesConcurrently(pkg->GROUP.equals(pkg.group()), true, 4));
+		// Should contain that error was returned, operation name and text from the response.
+		assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("Error returned", "List Packages", "Internal Server Error"));
+	}
+
+	@Test
+	void testDeletePackagesConcurrently_InvalidConcurrency() throws Exception {
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, ()->underTest.deletePackagesConcurrently(pkg->true, false, 0));
+		assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("Maximum concurrency", "0"));
+	}
 }
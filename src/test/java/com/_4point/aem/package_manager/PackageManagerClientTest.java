@@ -8,17 +8,29 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com._4point.aem.package_manager.PackageManagerClient.PackageManagerException;
 import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
+import com._4point.aem.package_manager.rest_client.jdk.JdkRestClient;
+import com._4point.aem.package_manager.rest_client.jersey.JerseyConnectionPool;
 import com._4point.testing.matchers.javalang.ExceptionMatchers;
+import com.github.tomakehurst.wiremock.http.Fault;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 
 @WireMockTest
 class PackageManagerClientTest {
@@ -28,6 +40,7 @@ class PackageManagerClientTest {
 
 	static final String GROUP = "fd/export";
 	static final String PACKAGE_NAME = "DownloadedFormsPackage_525101667060900.zip";
+	static final String QUERY_GROUP = "my_packages";
 
 	static final String LIST_FAILURE_RESPONSE = """
 			<crx version="1.22.17" user="admin" workspace="crx.default">
@@ -91,6 +104,118 @@ class PackageManagerClientTest {
 		assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("Error while listing packages"));
 	}
 
+	@Test
+	void testStreamPackages_Success() throws Exception {
+		stubForListPackagesSuccess();
+		try (Stream<ListResponse.Package> packages = underTest.streamPackages()) {
+			assertEquals(322, packages.count());
+		}
+	}
+
+	@Test
+	void testStreamPackages_StopEarly() throws Exception {
+		stubForListPackagesSuccess();
+		try (Stream<ListResponse.Package> packages = underTest.streamPackages()) {
+			assertEquals("we.retail.config", packages.findFirst().orElseThrow().name());
+		}
+	}
+
+	@Test
+	void testStreamPackages_Failure() throws Exception {
+		stubForListPackagesFailure();
+		try (Stream<ListResponse.Package> packages = underTest.streamPackages()) {
+			PackageManagerException ex = assertThrows(PackageManagerException.class, ()->packages.count());
+			// Should contain that error was returned, operation name and text from the response.
+			assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("Error returned", "List Packages", "Internal Server Error"));
+		}
+	}
+
+	@Test
+	void testStreamPackages_Failure_404() throws Exception {
+		stubForListPackagesFailure404();
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->underTest.streamPackages());
+		assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("Error while listing packages"));
+	}
+
+	@Test
+	void testListPackages_Cached(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		PackageManagerClient cachingClient = PackageManagerClient.builder().port(wmRuntimeInfo.getHttpPort()).listCacheTtl(Duration.ofMinutes(5)).build();
+		stubForListPackagesSuccess();
+		assertEquals(322, cachingClient.listPackages().packages().size());
+		assertEquals(322, cachingClient.listPackages().packages().size());
+		try (Stream<ListResponse.Package> packages = cachingClient.streamPackages()) {
+			assertEquals(322, packages.count());
+		}
+		verify(1, getRequestedFor(urlPathEqualTo("/crx/packmgr/service.jsp")));
+	}
+
+	@Test
+	void testListPackages_CacheInvalidatedByCommand(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		PackageManagerClient cachingClient = PackageManagerClient.builder().port(wmRuntimeInfo.getHttpPort()).listCacheTtl(Duration.ofMinutes(5)).build();
+		stubForListPackagesSuccess();
+		stubForInstallPackageSuccess();
+		cachingClient.listPackages();
+		cachingClient.installPackage(GROUP, PACKAGE_NAME);
+		cachingClient.listPackages();
+		verify(2, getRequestedFor(urlPathEqualTo("/crx/packmgr/service.jsp")));
+	}
+
+	@Test
+	void testListPackages_CacheRevalidated(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		PackageManagerClient cachingClient = PackageManagerClient.builder().port(wmRuntimeInfo.getHttpPort()).listCacheTtl(Duration.ZERO).build();
+		stubForListPackagesSuccessWithETag("\"v1\"");
+		ListResponse first = cachingClient.listPackages();
+		ListResponse second = cachingClient.listPackages();
+		assertSame(first, second);
+		verify(1, getRequestedFor(urlPathEqualTo("/crx/packmgr/service.jsp")).withoutHeader("If-None-Match"));
+		verify(1, getRequestedFor(urlPathEqualTo("/crx/packmgr/service.jsp")).withHeader("If-None-Match", equalTo("\"v1\"")));
+	}
+
+	@Test
+	void testListPackages_CacheDoesNotCacheErrors(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		PackageManagerClient cachingClient = PackageManagerClient.builder().port(wmRuntimeInfo.getHttpPort()).listCacheTtl(Duration.ofMinutes(5)).build();
+		stubForListPackagesFailure();
+		assertEquals(500, cachingClient.listPackages().status().code());
+		assertThrows(PackageManagerException.class, ()->cachingClient.streamPackages());
+		verify(2, getRequestedFor(urlPathEqualTo("/crx/packmgr/service.jsp")));
+	}
+
+	@Test
+	void testListPackagesPage_Success() throws Exception {
+		stubForQueryPackagesPage(0, 2, List.of("test1", "test2"), 3);
+		PagedListResponse result = underTest.listPackages(PackageQuery.builder().group(QUERY_GROUP).text("test").pageSize(2).build(), 0);
+		assertAll(
+				()->assertEquals(List.of("test1", "test2"), result.packages().stream().map(ListResponse.Package::name).toList()),
+				()->assertEquals(3, result.total()),
+				()->assertTrue(result.hasMore())
+				);
+	}
+
+	@Test
+	void testQueryPackages_MultiplePages() throws Exception {
+		stubForQueryPackagesPage(0, 2, List.of("test1", "test2"), 3);
+		stubForQueryPackagesPage(2, 2, List.of("test3"), 3);
+		try (Stream<ListResponse.Package> packages = underTest.queryPackages(PackageQuery.builder().group(QUERY_GROUP).text("test").pageSize(2).build())) {
+			assertEquals(List.of("test1", "test2", "test3"), packages.map(ListResponse.Package::name).toList());
+		}
+	}
+
+	@Test
+	void testQueryPackages_StopEarly() throws Exception {
+		stubForQueryPackagesPage(0, 2, List.of("test1", "test2"), 3);
+		// No stub for the second page, so requesting it would fail.
+		try (Stream<ListResponse.Package> packages = underTest.queryPackages(PackageQuery.builder().group(QUERY_GROUP).text("test").pageSize(2).build())) {
+			assertEquals("test1", packages.findFirst().orElseThrow().name());
+		}
+	}
+
+	@Test
+	void testQueryPackages_Failure_404() throws Exception {
+		stubFor(get(urlPathEqualTo("/crx/packmgr/list.jsp")).willReturn(notFound()));
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->underTest.queryPackages(PackageQuery.all()));
+		assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("Error while listing packages"));
+	}
+
 	@Test
 	void testUninstallPackage_Success() throws Exception {
 		stubForUninstallPackageSuccess();
@@ -179,6 +304,224 @@ class PackageManagerClientTest {
 				);
 	}
 
+	@Test
+	void testListPackages_JdkTransport(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		PackageManagerClient jdkUnderTest = PackageManagerClient.builder().port(wmRuntimeInfo.getHttpPort())
+																		  .restClientFactory(JdkRestClient.factory())
+																		  .build();
+		stubForListPackagesSuccess();
+		assertEquals(322, jdkUnderTest.listPackages().packages().size());
+	}
+
+	@Test
+	void testUploadPackage_JdkTransport(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		PackageManagerClient jdkUnderTest = PackageManagerClient.builder().port(wmRuntimeInfo.getHttpPort())
+																		  .restClientFactory(JdkRestClient.factory())
+																		  .build();
+		stubForUploadPackageSuccess();
+		CommandResponse result = jdkUnderTest.uploadPackage(PACKAGE_NAME, SAMPLE_DATA_DIR.resolve(SAMPLE_PACKAGE_FILENAME));
+		assertAll(
+				()->assertTrue(result.success()),
+				()->assertEquals("Package uploaded", result.msg())
+				);
+	}
+
+	@Test
+	void testListPackages_ConnectionPool(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		try (JerseyConnectionPool pool = JerseyConnectionPool.builder().build()) {
+			PackageManagerClient pooledUnderTest = PackageManagerClient.builder().port(wmRuntimeInfo.getHttpPort())
+																				 .connectionPool(pool)
+																				 .build();
+			stubForListPackagesSuccess();
+			assertEquals(322, pooledUnderTest.listPackages().packages().size());
+			assertEquals(322, pooledUnderTest.listPackages().packages().size());
+			assertEquals(1, pool.statistics().available());
+		}
+	}
+
+	@Test
+	void testListPackagesAsync_Success() throws Exception {
+		stubForListPackagesSuccess();
+		assertEquals(322, underTest.listPackagesAsync().get().packages().size());
+	}
+
+	@Test
+	void testListPackagesAsync_Failure_404() throws Exception {
+		stubForListPackagesFailure404();
+		ExecutionException ex = assertThrows(ExecutionException.class, ()->underTest.listPackagesAsync().get());
+		assertThat(ex.getCause(), instanceOf(PackageManagerException.class));
+		assertThat(ex.getCause(), ExceptionMatchers.exceptionMsgContainsAll("Error while listing packages"));
+	}
+
+	@Test
+	void testListPackagesAsync_JdkTransport(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		AtomicInteger tasks = new AtomicInteger();
+		PackageManagerClient jdkUnderTest = PackageManagerClient.builder().port(wmRuntimeInfo.getHttpPort())
+																		  .restClientFactory(JdkRestClient.factory())
+																		  .asyncExecutor(task->{ tasks.incrementAndGet(); task.run(); })
+																		  .build();
+		stubForListPackagesSuccess();
+		assertEquals(322, jdkUnderTest.listPackagesAsync().get().packages().size());
+		assertThat(tasks.get(), greaterThan(0));
+	}
+
+	@Test
+	void testQueryPackagesAsync_Page() throws Exception {
+		stubForQueryPackagesPage(0, 2, List.of("test1", "test2"), 3);
+		PagedListResponse page = underTest.listPackagesAsync(PackageQuery.builder().group(QUERY_GROUP).text("test").pageSize(2).build(), 0).get();
+		assertAll(
+				()->assertEquals(2, page.packages().size()),
+				()->assertTrue(page.hasMore())
+				);
+	}
+
+	@Test
+	void testInstallPackageAsync_Success() throws Exception {
+		stubForInstallPackageSuccess();
+		CommandResponse result = underTest.installPackageAsync(GROUP, PACKAGE_NAME).get();
+		assertTrue(result.success());
+	}
+
+	@Test
+	void testUploadPackageAsync_Success() throws Exception {
+		stubForUploadPackageSuccess();
+		CommandResponse result = underTest.uploadPackageAsync(PACKAGE_NAME, SAMPLE_DATA_DIR.resolve(SAMPLE_PACKAGE_FILENAME)).get();
+		assertAll(
+				()->assertTrue(result.success()),
+				()->assertEquals("Package uploaded", result.msg())
+				);
+	}
+
+	@Test
+	void testUploadPackage_Monitored() throws Exception {
+		stubForUploadPackageSuccess();
+		Path file = SAMPLE_DATA_DIR.resolve(SAMPLE_PACKAGE_FILENAME);
+		List<UploadMonitor.Progress> reports = new CopyOnWriteArrayList<>();
+
+		CommandResponse result = underTest.uploadPackage(PACKAGE_NAME, file, UploadMonitor.of(reports::add, Duration.ZERO));
+
+		UploadMonitor.Progress last = reports.get(reports.size() - 1);
+		assertAll(
+				()->assertTrue(result.success()),
+				()->assertTrue(last.isComplete()),
+				()->assertEquals(Files.size(file), last.bytesSent())
+				);
+	}
+
+	@Test
+	void testUploadPackage_CancelledNotRetried(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubForUploadPackageSuccess();
+		RetryPolicy retryPolicy = fastRetryPolicy();
+		AtomicReference<UploadMonitor> monitor = new AtomicReference<>();
+		monitor.set(UploadMonitor.of(p->monitor.get().cancel(), Duration.ZERO));	// Cancelled after the first chunk.
+
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->retryingClient(wmRuntimeInfo, retryPolicy).uploadPackage(PACKAGE_NAME, SAMPLE_DATA_DIR.resolve(SAMPLE_PACKAGE_FILENAME), monitor.get()));
+
+		assertAll(
+				()->assertTrue(UploadMonitor.isCancellation(ex)),
+				()->assertEquals(1, retryPolicy.metrics(RetryPolicy.Operation.UPLOAD_PACKAGE).attempts()),
+				()->assertEquals(0, retryPolicy.metrics(RetryPolicy.Operation.UPLOAD_PACKAGE).retries())
+				);
+	}
+
+	@Test
+	void testDeletePackageAsync_InvalidatesCache(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		PackageManagerClient cachingClient = PackageManagerClient.builder().port(wmRuntimeInfo.getHttpPort()).listCacheTtl(Duration.ofMinutes(5)).build();
+		stubForListPackagesSuccess();
+		stubForDeletePackageSuccess();
+		cachingClient.listPackagesAsync().get();
+		cachingClient.deletePackageAsync(GROUP, PACKAGE_NAME).get();
+		cachingClient.listPackagesAsync().get();
+		verify(2, getRequestedFor(urlPathEqualTo("/crx/packmgr/service.jsp")));
+	}
+
+	private static PackageManagerClient retryingClient(WireMockRuntimeInfo wmRuntimeInfo, RetryPolicy retryPolicy) {
+		return PackageManagerClient.builder().port(wmRuntimeInfo.getHttpPort()).retryPolicy(retryPolicy).build();
+	}
+
+	private static RetryPolicy fastRetryPolicy() {
+		return RetryPolicy.builder().initialBackoff(Duration.ofMillis(1)).build();
+	}
+
+	@Test
+	void testListPackages_RetriedWhileUnavailable(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		RetryPolicy retryPolicy = fastRetryPolicy();
+		stubForListPackagesUnavailableOnce();
+		assertEquals(322, retryingClient(wmRuntimeInfo, retryPolicy).listPackages().packages().size());
+		assertEquals(new RetryPolicy.Metrics(1, 2, 1, 1, 0, 0), retryPolicy.metrics(RetryPolicy.Operation.LIST_PACKAGES));
+	}
+
+	@Test
+	void testListPackagesAsync_RetriedWhileUnavailable(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubForListPackagesUnavailableOnce();
+		assertEquals(322, retryingClient(wmRuntimeInfo, fastRetryPolicy()).listPackagesAsync().get().packages().size());
+		verify(2, getRequestedFor(urlPathEqualTo("/crx/packmgr/service.jsp")));
+	}
+
+	@Test
+	void testListPackages_NotRetriedByDefault() throws Exception {
+		stubForListPackagesUnavailableOnce();
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->underTest.listPackages());
+		assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("Error while listing packages"));
+		verify(1, getRequestedFor(urlPathEqualTo("/crx/packmgr/service.jsp")));
+	}
+
+	@Test
+	void testInstallPackage_RetriedWhenUnavailable(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(post(urlPathEqualTo("/crx/packmgr/service/.json/etc/packages/" + GROUP + "/" + PACKAGE_NAME))
+				.inScenario("Install").whenScenarioStateIs(Scenario.STARTED)
+				.willReturn(serviceUnavailable())
+				.willSetStateTo("Available"));
+		stubFor(post(urlPathEqualTo("/crx/packmgr/service/.json/etc/packages/" + GROUP + "/" + PACKAGE_NAME))
+				.inScenario("Install").whenScenarioStateIs("Available")
+				.willReturn(okForContentType(ContentType.APPLICATION_JSON.contentType(), "{\"success\":true,\"msg\":\"Package installed\"}")));
+
+		CommandResponse result = retryingClient(wmRuntimeInfo, fastRetryPolicy()).installPackage(GROUP, PACKAGE_NAME);
+
+		assertTrue(result.success());
+		verify(2, postRequestedFor(urlPathEqualTo("/crx/packmgr/service/.json/etc/packages/" + GROUP + "/" + PACKAGE_NAME)));
+	}
+
+	@Test
+	void testInstallPackage_NotRepeatedAfterDroppedResponse(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		// AEM is still installing when the connection drops, so sending the install again would start a second install.
+		stubFor(post(urlPathEqualTo("/crx/packmgr/service/.json/etc/packages/" + GROUP + "/" + PACKAGE_NAME))
+				.willReturn(aResponse().withFixedDelay(200).withFault(Fault.CONNECTION_RESET_BY_PEER)));
+		RetryPolicy retryPolicy = fastRetryPolicy();
+
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->retryingClient(wmRuntimeInfo, retryPolicy).installPackage(GROUP, PACKAGE_NAME));
+
+		assertAll(
+				()->assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("install", PACKAGE_NAME)),
+				()->assertEquals(new RetryPolicy.Metrics(1, 1, 0, 0, 0, 0), retryPolicy.metrics(RetryPolicy.Operation.INSTALL_PACKAGE))
+				);
+		verify(1, postRequestedFor(urlPathEqualTo("/crx/packmgr/service/.json/etc/packages/" + GROUP + "/" + PACKAGE_NAME)));
+	}
+
+	@Test
+	void testDeletePackage_NotRetried(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(post(urlPathEqualTo("/crx/packmgr/service/.json/etc/packages/" + GROUP + "/" + PACKAGE_NAME))
+				.willReturn(serviceUnavailable()));
+		PackageManagerClient retryingUnderTest = retryingClient(wmRuntimeInfo, fastRetryPolicy());
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->retryingUnderTest.deletePackage(GROUP, PACKAGE_NAME));
+		assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("delete", PACKAGE_NAME));
+		verify(1, postRequestedFor(urlPathEqualTo("/crx/packmgr/service/.json/etc/packages/" + GROUP + "/" + PACKAGE_NAME)));
+	}
+
+	static void stubForListPackagesUnavailableOnce() throws IOException {
+		stubFor(get(urlPathEqualTo("/crx/packmgr/service.jsp"))
+					.withQueryParam("cmd", equalTo("ls"))
+				.inScenario("Restart").whenScenarioStateIs(Scenario.STARTED)
+				.willReturn(serviceUnavailable())
+				.willSetStateTo("Running"));
+		stubFor(get(urlPathEqualTo("/crx/packmgr/service.jsp"))
+					.withQueryParam("cmd", equalTo("ls"))
+				.inScenario("Restart").whenScenarioStateIs("Running")
+				.willReturn(
+						okForContentType(ContentType.TEXT_PLAIN.contentType(), Files.readString(SAMPLE_DATA_DIR.resolve("SampleListResponse.xml")))
+						));
+	}
+
 	static void stubForListPackagesSuccess() throws IOException {
 		stubFor(get(urlPathEqualTo("/crx/packmgr/service.jsp"))
 					.withQueryParam("cmd", equalTo("ls"))
@@ -187,6 +530,22 @@ class PackageManagerClientTest {
 						));
 	}
 
+	static void stubForListPackagesSuccessWithETag(String eTag) throws IOException {
+		stubFor(get(urlPathEqualTo("/crx/packmgr/service.jsp"))
+					.withQueryParam("cmd", equalTo("ls"))
+				.willReturn(
+						okForContentType(ContentType.TEXT_PLAIN.contentType(), Files.readString(SAMPLE_DATA_DIR.resolve("SampleListResponse.xml")))
+							.withHeader("ETag", eTag)
+						));
+		stubFor(get(urlPathEqualTo("/crx/packmgr/service.jsp"))
+					.withQueryParam("cmd", equalTo("ls"))
+					.withHeader("If-None-Match", equalTo(eTag))
+				.atPriority(1)
+				.willReturn(
+						aResponse().withStatus(304).withHeader("ETag", eTag)
+						));
+	}
+
 	static void stubForListPackagesFailure() throws IOException {
 		stubFor(get(urlPathEqualTo("/crx/packmgr/service.jsp"))
 					.withQueryParam("cmd", equalTo("ls"))
@@ -203,6 +562,20 @@ class PackageManagerClientTest {
 						));
 	}
 
+	static void stubForQueryPackagesPage(int start, int limit, List<String> names, int total) {
+		String results = names.stream()
+							  .map(n->"{\"name\":\"%s\",\"downloadName\":\"%s-1.0.zip\",\"group\":\"%s\",\"version\":\"1.0\",\"size\":1000,\"created\":1551127519000,\"createdBy\":\"admin\"}".formatted(n, n, QUERY_GROUP))
+							  .collect(Collectors.joining(","));
+		stubFor(get(urlPathEqualTo("/crx/packmgr/list.jsp"))
+					.withQueryParam("group", equalTo(QUERY_GROUP))
+					.withQueryParam("q", equalTo("test"))
+					.withQueryParam("start", equalTo(Integer.toString(start)))
+					.withQueryParam("limit", equalTo(Integer.toString(limit)))
+				.willReturn(
+						okForContentType(ContentType.APPLICATION_JSON.contentType(), "{\"results\":[" + results + "],\"total\":" + total + "}")
+						));
+	}
+
 	static void stubForUninstallPackageSuccess() {
 		stubFor(post(urlPathEqualTo("/crx/packmgr/service/.json/etc/packages/" + GROUP + "/" + PACKAGE_NAME))
 				.withMultipartRequestBody(aMultipart("cmd").withBody(equalTo("uninstall")))
@@ -0,0 +1,104 @@
+package com._4point.aem.package_manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.commons.lang3.exception.UncheckedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class PackageMetadataTest {
+	private static final Path RESOURCES_DIR = Path.of("src", "test", "resources");
+	private static final Path SAMPLE_DATA_DIR = RESOURCES_DIR.resolve("SampleData");
+	private static final Path SAMPLE_XML_FILE = SAMPLE_DATA_DIR.resolve("SampleListResponse.xml");
+	private static final ListResponse SAMPLE_LIST_RESPONSE = readListResponse(SAMPLE_XML_FILE);
+
+	private static ListResponse readListResponse(Path sampleXmlFile) {
+		try {
+			return ListResponse.from(XmlDocument.initializeXmlDoc(Files.readAllBytes(sampleXmlFile)));
+		} catch (IOException e) {
+			throw new UncheckedException(e);
+		}
+	}
+
+	@Test
+	void testFrom() {
+		PackageMetadata underTest = SAMPLE_LIST_RESPONSE.packages().get(0).metadata();
+		assertAll(
+				()->assertEquals("we.retail.config", underTest.pkg().name()),
+				()->assertEquals(15614L, underTest.size()),
+				()->assertEquals(Instant.parse("2019-02-25T20:45:19Z"), underTest.created().orElseThrow()),
+				()->assertTrue(underTest.lastModified().isEmpty()),
+				()->assertEquals(Instant.parse("2023-12-08T15:28:02Z"), underTest.lastUnpacked().orElseThrow())
+				);
+	}
+
+	@Test
+	void testFrom_AllSamplePackages() {
+		List<PackageMetadata> metadata = SAMPLE_LIST_RESPONSE.packages().stream().map(PackageMetadata::from).toList();
+		assertAll(
+				()->assertEquals(322, metadata.size()),
+				()->assertTrue(metadata.stream().allMatch(pm->pm.size() >= 0)),
+				()->assertTrue(metadata.stream().allMatch(pm->pm.lastUnpacked().isPresent()))
+				);
+	}
+
+	@Test
+	void testSortByLastUnpacked() {
+		List<PackageMetadata> sorted = SAMPLE_LIST_RESPONSE.packages().stream()
+														   .map(PackageMetadata::from)
+														   .sorted(PackageMetadata.BY_LAST_UNPACKED.reversed())
+														   .toList();
+		for (int i = 1; i < sorted.size(); i++) {
+			assertFalse(sorted.get(i).lastUnpacked().orElseThrow().isAfter(sorted.get(i - 1).lastUnpacked().orElseThrow()));
+		}
+	}
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', value = {
+			"Mon., 25 Feb. 2019 15:45:19 -0500 | 2019-02-25T20:45:19Z",
+			"Mon, 25 Feb 2019 15:45:19 -0500   | 2019-02-25T20:45:19Z",
+			"Fri., 8 Dec. 2023 10:28:02 -0500  | 2023-12-08T15:28:02Z",
+			"Mon., 7 May 2018 09:03:10 -0400   | 2018-05-07T13:03:10Z",
+			"Wed., 6 Sept. 2017 09:03:10 +0200 | 2017-09-06T07:03:10Z",
+			"Thu, 29 Feb 2024 23:59:59 GMT     | 2024-02-29T23:59:59Z",
+			"Thu, 29 Feb 2024 23:59:59 +05:30  | 2024-02-29T18:29:59Z",
+			})
+	void testAemDateParser(String aemDate, String expected) {
+		assertEquals(Instant.parse(expected), AemDateParser.parse(aemDate).orElseThrow());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"Mon., 25 Feb. 2019 15:45:19 -0500", "Mon, 25 Feb 2019 15:45:19 -0500", "Fri., 8 Dec. 2023 10:28:02 -0500",
+							"Mon., 7 May 2018 09:03:10 -0400", "Sun., 31 Dec. 2023 23:59:59 +1400", "Thu, 1 Jan 1970 00:00:00 +0000"})
+	void testAemDateParser_Format(String aemDate) {
+		Instant instant = AemDateParser.parse(aemDate).orElseThrow();
+		assertEquals(aemDate, AemDateParser.format(instant, AemDateParser.styleOf(aemDate, instant).orElseThrow()));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"Wed., 6 Sept. 2017 09:03:10 +0200", "Thu, 29 Feb 2024 23:59:59 GMT", "Thu, 29 Feb 2024 23:59:59 +05:30",
+							"Tue., 25 Feb. 2019 15:45:19 -0500", "Mon., 25 Feb. 2019  15:45:19 -0500", "mon., 25 feb. 2019 15:45:19 -0500"})
+	void testAemDateParser_NotRebuildable(String aemDate) {
+		assertTrue(AemDateParser.styleOf(aemDate, AemDateParser.parse(aemDate).orElseThrow()).isEmpty());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"", "null", "  "})
+	void testAemDateParser_NoDate(String aemDate) {
+		assertTrue(AemDateParser.parse(aemDate).isEmpty());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"garbage", "Mon., 25 Foo. 2019 15:45:19 -0500", "Mon., 25 Feb. 2019 15:45 -0500", "Mon., 25 Feb. 2019 15:45:19", "Mon., 25 Feb. 2019 15:45:19 -0500 extra"})
+	void testAemDateParser_Invalid(String aemDate) {
+		assertThrows(IllegalArgumentException.class, ()->AemDateParser.parse(aemDate));
+	}
+}
@@ -0,0 +1,171 @@
+package com._4point.aem.package_manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import com._4point.aem.package_manager.ListResponse.Package;
+import com._4point.aem.package_manager.PackageManagerClient.PackageManagerException;
+import com._4point.aem.package_manager.PackageWatcher.Event;
+import com._4point.aem.package_manager.PackageWatcher.EventType;
+
+class PackageWatcherTest {
+	private static final Duration MIN_INTERVAL = Duration.ofSeconds(1);
+	private static final Duration MAX_INTERVAL = Duration.ofSeconds(10);
+	private static final Package INSTALLED = samplePackage("test", "1.0.0", "Fri, 8 Dec 2023 10:28:02 -0500");
+	private static final Package REINSTALLED = samplePackage("test", "1.0.0", "Sat, 9 Dec 2023 10:28:02 -0500");
+	private static final Package UNINSTALLED = samplePackage("test", "1.0.0", "");
+	private static final Package OTHER = samplePackage("other", "2.0.0", "");
+
+	static {
+		System.setProperty("jol.magicFieldOffset", "true");	// Allows JOL to measure records.
+	}
+
+	private List<Package> snapshot = List.of(INSTALLED);
+	private RuntimeException failure = null;
+	private final List<Event> received = new ArrayList<>();
+	private final PackageWatcher underTest = PackageWatcher.builder(()->{
+																if (failure != null) {
+																	throw failure;
+																}
+																return snapshot.stream();
+															})
+														   .minInterval(MIN_INTERVAL)
+														   .maxInterval(MAX_INTERVAL)
+														   .listener(received::add)
+														   .build();
+
+	@Test
+	void testPoll_FirstPollHasNoEvents() {
+		assertTrue(underTest.poll().isEmpty());
+		assertTrue(received.isEmpty());
+	}
+
+	@Test
+	void testPoll_UploadedAndDeleted() {
+		underTest.poll();
+		snapshot = List.of(OTHER);
+		List<Event> events = underTest.poll();
+		assertAll(
+				()->assertEquals(List.of(new Event(EventType.DELETED, INSTALLED), new Event(EventType.UPLOADED, OTHER)), events),
+				()->assertEquals(events, received)
+				);
+	}
+
+	@Test
+	void testPoll_UploadedAndInstalled() {
+		snapshot = List.of();
+		underTest.poll();
+		snapshot = List.of(INSTALLED);
+		assertEquals(List.of(new Event(EventType.UPLOADED, INSTALLED), new Event(EventType.INSTALLED, INSTALLED)), underTest.poll());
+	}
+
+	@Test
+	void testPoll_InstalledAndUninstalled() {
+		underTest.poll();
+		snapshot = List.of(UNINSTALLED);
+		assertEquals(List.of(new Event(EventType.UNINSTALLED, UNINSTALLED)), underTest.poll());
+		snapshot = List.of(REINSTALLED);
+		assertEquals(List.of(new Event(EventType.INSTALLED, REINSTALLED)), underTest.poll());
+	}
+
+	@Test
+	void testPoll_NewVersion() {
+		underTest.poll();
+		Package newVersion = samplePackage("test", "1.0.1", "");
+		snapshot = List.of(newVersion);
+		assertEquals(List.of(new Event(EventType.DELETED, INSTALLED), new Event(EventType.UPLOADED, newVersion)), underTest.poll());
+	}
+
+	@Test
+	void testPoll_IntervalAdapts() {
+		assertEquals(MIN_INTERVAL, underTest.currentInterval());
+		underTest.poll();
+		assertEquals(Duration.ofSeconds(2), underTest.currentInterval());
+		underTest.poll();
+		underTest.poll();
+		assertEquals(Duration.ofSeconds(8), underTest.currentInterval());
+		underTest.poll();
+		assertEquals(MAX_INTERVAL, underTest.currentInterval());
+		snapshot = List.of(UNINSTALLED);
+		underTest.poll();
+		assertEquals(MIN_INTERVAL, underTest.currentInterval());
+	}
+
+	@Test
+	void testPoll_Failure() {
+		underTest.poll();
+		failure = new PackageManagerException("Error while listing packages.");
+		assertThrows(PackageManagerException.class, ()->underTest.poll());
+		assertEquals(Duration.ofSeconds(4), underTest.currentInterval());
+		// Previous list is retained, so changes made during the failure are still reported.
+		failure = null;
+		snapshot = List.of(UNINSTALLED);
+		assertEquals(List.of(new Event(EventType.UNINSTALLED, UNINSTALLED)), underTest.poll());
+	}
+
+	@Test
+	void testPoll_FailingListener() {
+		List<Event> others = new ArrayList<>();
+		underTest.addListener(e->{ throw new IllegalStateException("Listener failure"); });
+		underTest.addListener(others::add);
+		underTest.poll();
+		snapshot = List.of(UNINSTALLED);
+		underTest.poll();
+		assertEquals(1, others.size());
+	}
+
+	@Test
+	void testPoll_PreviousListKeptCompactly() {
+		PackageWatcher watcher = PackageWatcher.builder(PackageWatcherTest::manyPackages).build();
+		watcher.poll();
+		long listSize = GraphLayout.parseInstance(manyPackages().toList()).totalSize();
+		long watcherSize = GraphLayout.parseInstance(watcher).totalSize();
+		assertTrue(watcherSize < listSize / 2, "Watcher retains " + watcherSize + " bytes, list is " + listSize + " bytes.");
+		assertTrue(watcher.poll().isEmpty());
+	}
+
+	@Test
+	void testStart() throws Exception {
+		CountDownLatch polled = new CountDownLatch(1);
+		try (PackageWatcher watcher = PackageWatcher.builder(()->{ polled.countDown(); return snapshot.stream(); }).build()) {
+			watcher.start();
+			assertTrue(polled.await(5, TimeUnit.SECONDS));
+			assertThrows(IllegalStateException.class, ()->watcher.start());
+		}
+	}
+
+	@Test
+	void testBuild_InvalidIntervals() {
+		assertThrows(IllegalArgumentException.class, ()->PackageWatcher.builder(()->snapshot.stream()).minInterval(Duration.ZERO).build());
+		assertThrows(IllegalArgumentException.class, ()->PackageWatcher.builder(()->snapshot.stream()).minInterval(Duration.ofMinutes(10)).maxInterval(Duration.ofMinutes(1)).build());
+	}
+
+	// Creates new Strings on each call, like a package list that has just been read from AEM.
+	private static Stream<Package> manyPackages() {
+		return IntStream.range(0, 1000).mapToObj(i->{
+			String name = "package" + i;
+			Instant created = Instant.parse("2023-12-08T15:28:02Z").plusSeconds(i * 3_601L);
+			return new Package("my_packages", name, "1.0." + (i % 10), name + ".zip", Integer.toString(1000 + i),
+							   aemDate(created), "admin", aemDate(created.plusSeconds(60)), "admin", aemDate(created.plusSeconds(120)), "admin");
+		});
+	}
+
+	private static String aemDate(Instant date) {
+		return AemDateParser.format(date, AemDateParser.styleOf(INSTALLED.lastUnpacked(), AemDateParser.parse(INSTALLED.lastUnpacked()).orElseThrow()).orElseThrow());
+	}
+
+	private static Package samplePackage(String name, String version, String lastUnpacked) {
+		return new Package("my_packages", name, version, name + "-" + version + ".zip", "1000", "", "admin", "", "null", lastUnpacked, lastUnpacked.isEmpty() ? "null" : "admin");
+	}
+}
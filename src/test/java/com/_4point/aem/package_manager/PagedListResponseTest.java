@@ -0,0 +1,120 @@
+package com._4point.aem.package_manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.ListResponse.ListResponseException;
+import com._4point.aem.package_manager.ListResponse.Package;
+
+class PagedListResponseTest {
+	static final String SAMPLE_JSON_PAGE = """
+			{
+			  "results": [
+			    {
+			      "pid": "my_packages:test:1.0",
+			      "path": "/etc/packages/my_packages/test-1.0.zip",
+			      "name": "test",
+			      "downloadName": "test-1.0.zip",
+			      "extension": "zip",
+			      "group": "my_packages",
+			      "groupTitle": "my_packages",
+			      "version": "1.0",
+			      "description": "Test package",
+			      "buildCount": 1,
+			      "lastModified": 1551127519000,
+			      "lastModifiedBy": "admin",
+			      "created": 1551127519000,
+			      "createdBy": "admin",
+			      "lastUnpacked": 1702049282000,
+			      "lastUnpackedBy": "admin",
+			      "size": 15614,
+			      "hasSnapshot": false,
+			      "filter": [ { "root": "/apps/test", "rules": [] } ],
+			      "dependencies": [],
+			      "screenshots": []
+			    },
+			    {
+			      "pid": "my_packages:other",
+			      "name": "other",
+			      "downloadName": "other.zip",
+			      "group": "my_packages",
+			      "lastModifiedBy": null,
+			      "size": 1000
+			    }
+			  ],
+			  "total": 5
+			}
+			""";
+
+	@Test
+	void testFrom() {
+		PagedListResponse result = PagedListResponse.from(new ByteArrayInputStream(SAMPLE_JSON_PAGE.getBytes(StandardCharsets.UTF_8)), 2);
+		Package first = result.packages().get(0);
+		Package second = result.packages().get(1);
+		assertAll(
+				()->assertEquals(2, result.packages().size()),
+				()->assertEquals(2, result.start()),
+				()->assertEquals(5, result.total()),
+				()->assertEquals(4, result.nextStart()),
+				()->assertTrue(result.hasMore()),
+				()->assertEquals("my_packages", first.group()),
+				()->assertEquals("test", first.name()),
+				()->assertEquals("1.0", first.version()),
+				()->assertEquals("test-1.0.zip", first.downloadName()),
+				()->assertEquals("15614", first.size()),
+				()->assertEquals("Mon, 25 Feb 2019 20:45:19 +0000", first.created()),
+				()->assertEquals(Instant.parse("2023-12-08T15:28:02Z"), first.metadata().lastUnpacked().orElseThrow()),
+				()->assertEquals("admin", first.lastUnpackedBy()),
+				()->assertEquals("", second.version()),
+				()->assertEquals("", second.created()),
+				()->assertEquals("null", second.createdBy()),
+				()->assertEquals("null", second.lastModifiedBy()),
+				()->assertTrue(second.metadata().lastUnpacked().isEmpty())
+				);
+	}
+
+	@Test
+	void testFrom_LastPage() {
+		PagedListResponse result = PagedListResponse.from(new ByteArrayInputStream(SAMPLE_JSON_PAGE.getBytes(StandardCharsets.UTF_8)), 3);
+		assertFalse(result.hasMore());
+	}
+
+	@Test
+	void testFrom_Empty() {
+		PagedListResponse result = PagedListResponse.from(new ByteArrayInputStream("{\"results\":[],\"total\":0}".getBytes(StandardCharsets.UTF_8)), 0);
+		assertAll(
+				()->assertTrue(result.packages().isEmpty()),
+				()->assertFalse(result.hasMore())
+				);
+	}
+
+	@Test
+	void testFrom_MissingField() {
+		String json = "{\"results\":[{\"name\":\"test\",\"downloadName\":\"test.zip\"}],\"total\":1}";
+		ListResponseException ex = assertThrows(ListResponseException.class, ()->PagedListResponse.from(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 0));
+		assertTrue(ex.getMessage().contains("group"), "Expected message to contain 'group' but was '" + ex.getMessage() + "'.");
+	}
+
+	@Test
+	void testFrom_MissingSize() throws Exception {
+		String json = "{\"results\":[{\"group\":\"my_packages\",\"name\":\"test\",\"downloadName\":\"test.zip\"},"
+					+ "{\"group\":\"my_packages\",\"name\":\"test2\",\"downloadName\":\"test2.zip\",\"size\":null}],\"total\":2}";
+		List<Package> packages = PagedListResponse.from(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 0).packages();
+		assertAll(
+				()->assertEquals("", packages.get(0).size()),
+				()->assertEquals("", packages.get(1).size()),
+				()->assertEquals(-1, PackageMetadata.from(packages.get(0)).size())
+				);
+	}
+
+	@Test
+	void testFrom_NotJson() {
+		assertThrows(ListResponseException.class, ()->PagedListResponse.from(new ByteArrayInputStream("<crx/>".getBytes(StandardCharsets.UTF_8)), 0));
+	}
+}
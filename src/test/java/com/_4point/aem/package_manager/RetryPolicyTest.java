@@ -0,0 +1,236 @@
+package com._4point.aem.package_manager;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.RetryPolicy.Metrics;
+import com._4point.aem.package_manager.RetryPolicy.Operation;
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com._4point.testing.matchers.javalang.ExceptionMatchers;
+import com.fasterxml.jackson.core.JsonParseException;
+
+class RetryPolicyTest {
+	private static final Logger LOGGER = new Logger.NoOpLogger();
+
+	private final RetryPolicy underTest = RetryPolicy.builder().initialBackoff(Duration.ofMillis(1)).build();
+
+	// Fails with the supplied exception a number of times before succeeding.
+	private static RetryPolicy.Attempt<String> failing(int failures, RestClientException exception, AtomicInteger attempts) {
+		return ()->{
+			if (attempts.incrementAndGet() <= failures) {
+				throw exception;
+			}
+			return "result";
+		};
+	}
+
+	private static RestClientException status(int statusCode) {
+		return new RestClientException("Call to server failed, statusCode='" + statusCode + "'.", statusCode);
+	}
+
+	@Test
+	void testCall_TransientStatusRetried() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		assertEquals("result", underTest.call(Operation.LIST_PACKAGES, LOGGER, failing(2, status(503), attempts)));
+		assertAll(
+				()->assertEquals(3, attempts.get()),
+				()->assertEquals(new Metrics(1, 3, 2, 1, 0, 0), underTest.metrics(Operation.LIST_PACKAGES))
+				);
+	}
+
+	@Test
+	void testCall_ConnectionFailureRetried() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		RestClientException dropped = new RestClientException("Error when posting.", new SocketException("Connection reset"));
+		assertEquals("result", underTest.call(Operation.UPLOAD_PACKAGE, LOGGER, failing(1, dropped, attempts)));
+		assertEquals(2, attempts.get());
+	}
+
+	@Test
+	void testCall_TimeoutRetried() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		RestClientException timedOut = new RestClientException("Error when posting.", new IOException("Error while sending", new HttpTimeoutException("request timed out")));
+		assertEquals("result", underTest.call(Operation.LIST_PACKAGES, LOGGER, failing(1, timedOut, attempts)));
+		assertEquals(2, attempts.get());
+	}
+
+	@Test
+	void testCall_UnreadableResponseNotRetried() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		RestClientException unreadable = new RestClientException("Error while reading response from server.", new JsonParseException(null, "Unexpected character ('<')"));
+		assertThrows(RestClientException.class, ()->underTest.call(Operation.LIST_PACKAGES, LOGGER, failing(1, unreadable, attempts)));
+		assertAll(
+				()->assertEquals(1, attempts.get()),
+				()->assertEquals(new Metrics(1, 1, 0, 0, 0, 0), underTest.metrics(Operation.LIST_PACKAGES))
+				);
+	}
+
+	@Test
+	void testCall_OtherIOExceptionNotRetried() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		RestClientException failed = new RestClientException("IO Error while reading AEM response.", new IOException("Premature EOF"));
+		assertThrows(RestClientException.class, ()->underTest.call(Operation.LIST_PACKAGES, LOGGER, failing(1, failed, attempts)));
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	void testCall_NonTransientStatusNotRetried() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		RestClientException ex = assertThrows(RestClientException.class, ()->underTest.call(Operation.LIST_PACKAGES, LOGGER, failing(1, status(500), attempts)));
+		assertAll(
+				()->assertEquals(500, ex.statusCode().getAsInt()),
+				()->assertEquals(1, attempts.get())
+				);
+	}
+
+	@Test
+	void testCall_UnsafeOperationNotRetried() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		assertThrows(RestClientException.class, ()->underTest.call(Operation.DELETE_PACKAGE, LOGGER, failing(1, status(503), attempts)));
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	void testCall_UndeliveredOperationRetriedWhenRefused() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		RestClientException refused = new RestClientException("Error when posting.", new ConnectException("Connection refused"));
+		assertEquals("result", underTest.call(Operation.INSTALL_PACKAGE, LOGGER, failing(1, refused, attempts)));
+		assertEquals(2, attempts.get());
+	}
+
+	@Test
+	void testCall_UndeliveredOperationRetriedAfterConnectTimeout() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		RestClientException timedOut = new RestClientException("Error when posting.", new SocketTimeoutException("Connect timed out"));
+		assertEquals("result", underTest.call(Operation.INSTALL_PACKAGE, LOGGER, failing(1, timedOut, attempts)));
+		assertEquals(2, attempts.get());
+	}
+
+	@Test
+	void testCall_UndeliveredOperationRetriedWhenUnavailable() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		assertEquals("result", underTest.call(Operation.INSTALL_PACKAGE, LOGGER, failing(1, status(503), attempts)));
+		assertEquals(2, attempts.get());
+	}
+
+	@Test
+	void testCall_UndeliveredOperationNotRetriedAfterReadTimeout() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		RestClientException timedOut = new RestClientException("Error when posting.", new SocketTimeoutException("Read timed out"));
+		assertThrows(RestClientException.class, ()->underTest.call(Operation.INSTALL_PACKAGE, LOGGER, failing(1, timedOut, attempts)));
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	void testCall_UndeliveredOperationNotRetriedAfterReset() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		RestClientException dropped = new RestClientException("Error when posting.", new SocketException("Connection reset"));
+		assertThrows(RestClientException.class, ()->underTest.call(Operation.INSTALL_PACKAGE, LOGGER, failing(1, dropped, attempts)));
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	void testCall_UndeliveredOperationNotRetriedAfterGatewayTimeout() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		assertThrows(RestClientException.class, ()->underTest.call(Operation.INSTALL_PACKAGE, LOGGER, failing(1, status(504), attempts)));
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	void testCall_AttemptsExhausted() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		RestClientException ex = assertThrows(RestClientException.class, ()->underTest.call(Operation.LIST_PACKAGES, LOGGER, failing(10, status(503), attempts)));
+		assertAll(
+				()->assertThat(ex, ExceptionMatchers.exceptionMsgContainsAll("503")),
+				()->assertEquals(3, attempts.get()),
+				()->assertEquals(new Metrics(1, 3, 2, 0, 1, 0), underTest.metrics())
+				);
+	}
+
+	@Test
+	void testCall_BudgetExhausted() throws Exception {
+		RetryPolicy policy = RetryPolicy.builder().initialBackoff(Duration.ofMillis(1)).retryBudget(0.0, 1).build();
+		AtomicInteger attempts = new AtomicInteger();
+		assertEquals("result", policy.call(Operation.LIST_PACKAGES, LOGGER, failing(1, status(503), attempts)));	// Uses the only retry.
+		attempts.set(0);
+		assertThrows(RestClientException.class, ()->policy.call(Operation.LIST_PACKAGES, LOGGER, failing(1, status(503), attempts)));
+		assertAll(
+				()->assertEquals(1, attempts.get()),
+				()->assertEquals(new Metrics(2, 3, 1, 1, 0, 1), policy.metrics())
+				);
+	}
+
+	@Test
+	void testNone_NeverRetries() throws Exception {
+		RetryPolicy policy = RetryPolicy.none();
+		AtomicInteger attempts = new AtomicInteger();
+		assertThrows(RestClientException.class, ()->policy.call(Operation.LIST_PACKAGES, LOGGER, failing(1, status(503), attempts)));
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	void testCallAsync_TransientStatusRetried() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		CompletableFuture<String> result = underTest.callAsync(Operation.LIST_PACKAGES, LOGGER,
+															   ()->attempts.incrementAndGet() <= 2 ? CompletableFuture.failedFuture(new CompletionException(status(503)))
+																								   : CompletableFuture.completedFuture("result"),
+															   AsyncCalls.DEFAULT_EXECUTOR);
+		assertAll(
+				()->assertEquals("result", result.get()),
+				()->assertEquals(3, attempts.get()),
+				()->assertEquals(new Metrics(1, 3, 2, 1, 0, 0), underTest.metrics(Operation.LIST_PACKAGES))
+				);
+	}
+
+	@Test
+	void testCallAsync_AttemptsExhausted() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		CompletableFuture<String> result = underTest.callAsync(Operation.LIST_PACKAGES, LOGGER,
+															   ()->{
+																   attempts.incrementAndGet();
+																   return CompletableFuture.failedFuture(status(503));
+															   },
+															   AsyncCalls.DEFAULT_EXECUTOR);
+		CompletionException ex = assertThrows(CompletionException.class, ()->result.join());
+		assertAll(
+				()->assertThat(ex.getCause(), instanceOf(RestClientException.class)),
+				()->assertEquals(3, attempts.get())
+				);
+	}
+
+	@Test
+	void testCallAsync_UndeliveredOperationNotRetriedAfterReset() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		CompletableFuture<String> result = underTest.callAsync(Operation.INSTALL_PACKAGE, LOGGER,
+															   ()->{
+																   attempts.incrementAndGet();
+																   return CompletableFuture.failedFuture(new RestClientException("Error when posting.", new SocketException("Connection reset")));
+															   },
+															   AsyncCalls.DEFAULT_EXECUTOR);
+		assertThrows(CompletionException.class, ()->result.join());
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	void testBuilder_InvalidSettings() throws Exception {
+		assertAll(
+				()->assertThrows(IllegalArgumentException.class, ()->RetryPolicy.builder().maxAttempts(0).build()),
+				()->assertThrows(IllegalArgumentException.class, ()->RetryPolicy.builder().backoffMultiplier(0.5).build()),
+				()->assertThrows(IllegalArgumentException.class, ()->RetryPolicy.builder().jitter(1.5).build()),
+				()->assertThrows(IllegalArgumentException.class, ()->RetryPolicy.builder().retryBudget(-1.0, 10).build())
+				);
+	}
+}
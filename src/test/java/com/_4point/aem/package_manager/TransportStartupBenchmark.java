@@ -0,0 +1,85 @@
+package com._4point.aem.package_manager;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
+import com._4point.aem.package_manager.rest_client.RestClientFactory;
+import com._4point.aem.package_manager.rest_client.jdk.JdkRestClient;
+import com._4point.aem.package_manager.rest_client.jersey.JerseyRestClient;
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+/**
+ * Compares the cost of building a PackageManagerClient and making the first request (listing packages from a local
+ * WireMock server) using the Jersey transport against the JDK HttpClient transport.
+ *
+ * Each measurement is a single shot in a fresh JVM, so class loading and client initialization are included.  This is
+ * the cost paid by short-lived processes (e.g. build plugins and CLI tools).  Increase the forks for tighter error bounds.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class TransportStartupBenchmark {
+	private static final Path SAMPLE_XML_FILE = Path.of("src", "test", "resources", "SampleData", "SampleListResponse.xml");
+
+	private WireMockServer server;
+
+	@Setup
+	public void setup() throws IOException {
+		server = new WireMockServer(options().dynamicPort());
+		server.start();
+		server.stubFor(get(urlPathEqualTo("/crx/packmgr/service.jsp"))
+				.withQueryParam("cmd", equalTo("ls"))
+				.willReturn(okForContentType(ContentType.TEXT_PLAIN.contentType(), Files.readString(SAMPLE_XML_FILE))));
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop();
+	}
+
+	@Benchmark
+	public ListResponse jersey() {
+		return firstRequest(JerseyRestClient.factory());
+	}
+
+	@Benchmark
+	public ListResponse jdkHttpClient() {
+		return firstRequest(JdkRestClient.factory());
+	}
+
+	private ListResponse firstRequest(RestClientFactory restClientFactory) {
+		return PackageManagerClient.builder()
+								   .port(server.port())
+								   .restClientFactory(restClientFactory)
+								   .build()
+								   .listPackages();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(TransportStartupBenchmark.class.getSimpleName()).build()).run();
+	}
+}
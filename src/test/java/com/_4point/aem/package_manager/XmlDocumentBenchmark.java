@@ -0,0 +1,84 @@
+package com._4point.aem.package_manager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Measures the per-package cost of decoding a package from the SampleListResponse.xml DOM.
+ *
+ * The "uncached" benchmark reproduces what XmlDocument used to do (look up the factories and compile the XPath for every
+ * call) so that it can be compared with the current XmlDocument implementation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XmlDocumentBenchmark {
+	private static final Path SAMPLE_XML_FILE = Path.of("src", "test", "resources", "SampleData", "SampleListResponse.xml");
+	private static final int NUM_PACKAGES = 322;
+	private static final List<String> PACKAGE_FIELDS = List.of("group", "name", "version", "downloadName", "size", "created", "createdBy",
+															  "lastModified", "lastModifiedBy", "lastUnpacked", "lastUnpackedBy");
+
+	private XmlDocument xmlDocument;
+	private Document domDocument;
+
+	@Setup
+	public void setup() throws Exception {
+		xmlDocument = XmlDocument.initializeXmlDoc(Files.readAllBytes(SAMPLE_XML_FILE));
+		domDocument = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(SAMPLE_XML_FILE.toFile());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_PACKAGES)
+	public ListResponse cached() {
+		return ListResponse.from(xmlDocument);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_PACKAGES)
+	public void uncached(Blackhole blackhole) throws Exception {
+		XPath xpath = XPathFactory.newInstance().newXPath();
+		NodeList packages = (NodeList) xpath.compile("/crx/response/data/packages/package").evaluate(domDocument, XPathConstants.NODESET);
+		for (int i = 0; i < packages.getLength(); i++) {
+			Document packageDoc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+			Node imported = packageDoc.importNode(packages.item(i), true);
+			packageDoc.appendChild(imported);
+			for (String field : PACKAGE_FIELDS) {
+				NodeList value = (NodeList) xpath.compile("/package/" + field).evaluate(packageDoc, XPathConstants.NODESET);
+				blackhole.consume(value.item(0).getTextContent());
+			}
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(XmlDocumentBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -5,6 +5,12 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.exception.UncheckedException;
 import org.junit.jupiter.api.Test;
@@ -79,5 +85,55 @@ class XmlDocumentTest {
 		assertEquals(EXPECTED_NUM_PACKAGES, underTest.getDocs("/crx/response/data/packages/package").size());
 	}
 
+	@Test
+	void testGetView_RelativePaths() {
+		XmlDocument view = underTest.getView("/crx/response/data/packages/package[1]").orElseThrow();
+		assertAll(
+				()->assertEquals("adobe/aem6", view.getString("group").orElseThrow()),
+				()->assertEquals("we.retail.config", view.getString("./name").orElseThrow()),
+				()->assertTrue(view.getString("foobar").isEmpty())
+				);
+	}
+
+	@Test
+	void testGetView_AbsolutePathUsesOriginalDocument() {
+		XmlDocument view = underTest.getView("/crx/response/data/packages/package[1]").orElseThrow();
+		assertEquals("ok", view.getString("/crx/response/status").orElseThrow());
+	}
+
+	@Test
+	void testGetView_AttributeAndSelf() {
+		XmlDocument view = underTest.getView("/crx/response/status").orElseThrow();
+		assertAll(
+				()->assertEquals("200", view.getString("@code").orElseThrow()),
+				()->assertEquals("ok", view.getString(".").orElseThrow())
+				);
+	}
+
+	@Test
+	void testGetViews() {
+		List<XmlDocument> views = underTest.getViews("/crx/response/data/packages/package");
+		assertEquals(EXPECTED_NUM_PACKAGES, views.size());
+		assertEquals(underTest.getStrings("/crx/response/data/packages/package/name"), views.stream().map(v->v.getString("name").orElseThrow()).toList());
+	}
+
+	@Test
+	void testGetViews_NoResult() {
+		assertTrue(underTest.getViews("/crx/response/data/packages/package[500]").isEmpty());
+	}
 
+	@Test
+	void testGetString_MultipleThreads() throws Exception {
+		List<Callable<String>> tasks = IntStream.rangeClosed(1, 50)
+												.mapToObj(i->(Callable<String>)()->underTest.getString("/crx/response/data/packages/package[" + (i % 5 + 1) + "]/group").orElseThrow())
+												.toList();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			for (Future<String> result : executor.invokeAll(tasks)) {
+				assertTrue(result.get().startsWith("adobe/aem6"), "Unexpected group '" + result.get() + "'.");
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
 }
@@ -0,0 +1,142 @@
+package com._4point.aem.package_manager.rest_client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import javax.xml.stream.XMLStreamConstants;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com._4point.aem.package_manager.rest_client.RestClient.BodyHandlers;
+import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
+import com._4point.aem.package_manager.rest_client.RestClient.Response;
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+class BodyHandlersTest {
+	private static final String NON_ASCII_TEXT = "Paket überprüft";
+
+	@Test
+	void testCharset() {
+		assertAll(
+				()->assertEquals(StandardCharsets.ISO_8859_1, ContentType.of("text/plain; charset=ISO-8859-1").charset().orElseThrow()),
+				()->assertEquals(StandardCharsets.UTF_8, ContentType.of("application/json;charset=\"utf-8\"").charset().orElseThrow()),
+				()->assertEquals(StandardCharsets.UTF_16LE, ContentType.of("text/xml; foo=bar; Charset=UTF-16LE").charset().orElseThrow()),
+				()->assertTrue(ContentType.APPLICATION_JSON.charset().isEmpty()),
+				()->assertTrue(ContentType.of("text/plain; charset=no-such-charset").charset().isEmpty())
+				);
+	}
+
+	@Test
+	void testOfString_UsesCharset() throws Exception {
+		TestResponse response = new TestResponse("text/plain; charset=ISO-8859-1", NON_ASCII_TEXT.getBytes(StandardCharsets.ISO_8859_1));
+		assertEquals(NON_ASCII_TEXT, response.body(BodyHandlers.ofString()));
+		assertTrue(response.closed);
+	}
+
+	@Test
+	void testOfString_DefaultsToUtf8() throws Exception {
+		TestResponse response = new TestResponse("text/plain", NON_ASCII_TEXT.getBytes(StandardCharsets.UTF_8));
+		assertEquals(NON_ASCII_TEXT, response.body(BodyHandlers.ofString()));
+	}
+
+	@Test
+	void testOfJson() throws Exception {
+		String json = "{\"success\":true,\"msg\":\"" + NON_ASCII_TEXT + "\"}";
+		JsonNode utf16 = new TestResponse("application/json", json.getBytes(StandardCharsets.UTF_16BE)).body(BodyHandlers.ofJson());
+		JsonNode latin1 = new TestResponse("application/json; charset=ISO-8859-1", json.getBytes(StandardCharsets.ISO_8859_1)).body(BodyHandlers.ofJson());
+		assertAll(
+				()->assertTrue(utf16.get("success").asBoolean()),
+				()->assertEquals(NON_ASCII_TEXT, utf16.get("msg").asText()),
+				()->assertEquals(NON_ASCII_TEXT, latin1.get("msg").asText())
+				);
+	}
+
+	@Test
+	void testOfXmlStream() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><crx><status code=\"200\">" + NON_ASCII_TEXT + "</status></crx>";
+		TestResponse response = new TestResponse("text/plain", xml.getBytes(StandardCharsets.ISO_8859_1));
+		String status = response.body(BodyHandlers.ofXmlStream(reader->{
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("status")) {
+					return reader.getElementText();
+				}
+			}
+			return null;
+		}));
+		assertEquals(NON_ASCII_TEXT, status);
+		assertTrue(response.closed);
+	}
+
+	@Test
+	void testOfXmlStream_InvalidXml() {
+		TestResponse response = new TestResponse("application/xml", "{\"not\":\"xml\"}".getBytes(StandardCharsets.UTF_8));
+		assertThrows(RestClientException.class, ()->response.body(BodyHandlers.ofXmlStream(reader->reader.nextTag())));
+		assertTrue(response.closed);
+	}
+
+	@Test
+	void testDiscarding() throws Exception {
+		TestResponse response = new TestResponse("application/json", "{}".getBytes(StandardCharsets.UTF_8));
+		assertNull(response.body(BodyHandlers.discarding()));
+		assertAll(
+				()->assertEquals(-1, response.data.read()),
+				()->assertTrue(response.closed)
+				);
+	}
+
+	@Test
+	void testOfFile(@TempDir Path tempDir) throws Exception {
+		byte[] content = "file contents".getBytes(StandardCharsets.UTF_8);
+		Path file = tempDir.resolve("result.zip");
+		Files.writeString(file, "previous contents");
+		assertEquals(file, new TestResponse("application/zip", content).body(BodyHandlers.ofFile(file)));
+		assertArrayEquals(content, Files.readAllBytes(file));
+	}
+
+	@Test
+	void testOfByteArray() throws Exception {
+		byte[] content = { 0, 1, 2, (byte)0xff };
+		assertArrayEquals(content, new TestResponse("application/octet-stream", content).body(BodyHandlers.ofByteArray()));
+	}
+
+	private static class TestResponse implements Response {
+		private final ContentType contentType;
+		private final InputStream data;
+		private boolean closed = false;
+
+		private TestResponse(String contentType, byte[] data) {
+			this.contentType = ContentType.of(contentType);
+			this.data = new ByteArrayInputStream(data) {
+				@Override
+				public void close() throws IOException {
+					closed = true;
+					super.close();
+				}
+			};
+		}
+
+		@Override
+		public ContentType contentType() {
+			return contentType;
+		}
+
+		@Override
+		public InputStream data() {
+			return data;
+		}
+
+		@Override
+		public Optional<String> retrieveHeader(String header) {
+			return Optional.empty();
+		}
+	}
+}
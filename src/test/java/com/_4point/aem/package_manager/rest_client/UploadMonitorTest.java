@@ -0,0 +1,94 @@
+package com._4point.aem.package_manager.rest_client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com._4point.aem.package_manager.rest_client.UploadMonitor.CancelledException;
+import com._4point.aem.package_manager.rest_client.UploadMonitor.Progress;
+
+class UploadMonitorTest {
+	private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final AtomicLong now = new AtomicLong();
+	private final List<Progress> reports = new ArrayList<>();
+	private final UploadMonitor underTest = new UploadMonitor(reports::add, Duration.ofSeconds(1), now::get);
+
+	@Test
+	void testReportsAtMostOncePerInterval() throws Exception {
+		underTest.started(3000);
+		underTest.sending(500);
+		now.addAndGet(ONE_SECOND / 2);
+		underTest.sending(500);
+		assertEquals(0, reports.size());
+		now.addAndGet(ONE_SECOND / 2);
+		underTest.sending(1000);
+		assertEquals(1, reports.size());
+		Progress progress = reports.get(0);
+		assertAll(
+				()->assertEquals(2000, progress.bytesSent()),
+				()->assertEquals(3000, progress.totalBytes()),
+				()->assertEquals(2000.0, progress.averageBytesPerSecond(), 0.001),
+				()->assertEquals(Duration.ofSeconds(1), progress.elapsed()),
+				()->assertFalse(progress.isComplete())
+				);
+	}
+
+	@Test
+	void testInstantaneousAndAverageThroughput() throws Exception {
+		underTest.started(10_000);
+		now.addAndGet(ONE_SECOND);
+		underTest.sending(4000);
+		now.addAndGet(4 * ONE_SECOND);
+		underTest.sending(1000);
+		Progress progress = reports.get(1);
+		assertAll(
+				()->assertEquals(250.0, progress.bytesPerSecond(), 0.001),	// 1000 bytes over the last 4 seconds
+				()->assertEquals(1000.0, progress.averageBytesPerSecond(), 0.001),	// 5000 bytes over 5 seconds
+				()->assertEquals(0.5, progress.fractionComplete(), 0.001)
+				);
+	}
+
+	@Test
+	void testReportsCompletionImmediately() throws Exception {
+		underTest.started(1000);
+		underTest.sending(1000);
+		assertEquals(1, reports.size());
+		assertTrue(reports.get(0).isComplete());
+	}
+
+	@Test
+	void testRestartResetsProgress() throws Exception {
+		underTest.started(1000);
+		underTest.sending(600);
+		underTest.started(1000);	// e.g. the upload is being retried
+		underTest.sending(1000);
+		assertEquals(1000, reports.get(0).bytesSent());
+	}
+
+	@Test
+	void testCancel() throws Exception {
+		underTest.started(1000);
+		underTest.sending(100);
+		underTest.cancel();
+		CancelledException ex = assertThrows(CancelledException.class, ()->underTest.sending(100));
+		assertAll(
+				()->assertTrue(underTest.isCancelled()),
+				()->assertTrue(UploadMonitor.isCancellation(new RestClientException("Error when posting.", ex))),
+				()->assertFalse(UploadMonitor.isCancellation(new RestClientException("Error when posting.", new java.io.IOException()))),
+				()->assertThrows(CancelledException.class, ()->underTest.started(1000))
+				);
+	}
+
+	@Test
+	void testOf_NegativeInterval() throws Exception {
+		assertThrows(IllegalArgumentException.class, ()->UploadMonitor.of(p->{}, Duration.ofSeconds(-1)));
+	}
+}
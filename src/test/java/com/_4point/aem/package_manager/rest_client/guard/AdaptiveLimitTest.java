@@ -0,0 +1,107 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.rest_client.guard.AdaptiveLimit.Signal;
+import com._4point.aem.package_manager.rest_client.guard.ConcurrencyLimiter.LimitExceededException;
+
+class AdaptiveLimitTest {
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private static AdaptiveLimit limit(int initialLimit) {
+		return new AdaptiveLimit("http://localhost:4502", initialLimit, 1, 10, 0.5, 2.0, Duration.ofMillis(50));
+	}
+
+	// Fills the limit, then completes all the calls.
+	private static void round(AdaptiveLimit underTest, boolean isHeavy, Signal signal, long latencyNanos) throws Exception {
+		int calls = underTest.limit();
+		for (int i = 0; i < calls; i++) {
+			underTest.acquire();
+		}
+		for (int i = 0; i < calls; i++) {
+			underTest.release(isHeavy, signal, latencyNanos);
+		}
+	}
+
+	@Test
+	void testIncreasesWhileLimitIsUsed() throws Exception {
+		AdaptiveLimit underTest = limit(2);
+		for (int i = 0; i < 20; i++) {
+			round(underTest, false, Signal.SUCCESS, FAST);
+		}
+		assertEquals(10, underTest.limit());
+	}
+
+	@Test
+	void testNotIncreasedWhileLimitIsUnused() throws Exception {
+		AdaptiveLimit underTest = limit(4);
+		for (int i = 0; i < 20; i++) {
+			underTest.acquire();
+			underTest.release(false, Signal.SUCCESS, FAST);
+		}
+		assertEquals(4, underTest.limit());
+	}
+
+	@Test
+	void testDecreasesWhenOverloaded() throws Exception {
+		AdaptiveLimit underTest = limit(8);
+		underTest.acquire();
+		underTest.release(false, Signal.OVERLOADED, FAST);
+		assertEquals(4, underTest.limit());
+		for (int i = 0; i < 5; i++) {
+			underTest.acquire();
+			underTest.release(false, Signal.OVERLOADED, FAST);
+		}
+		assertEquals(1, underTest.limit());	// Never goes below the minimum.
+	}
+
+	@Test
+	void testDecreasesWhenLightCallsSlowDown() throws Exception {
+		AdaptiveLimit underTest = limit(8);
+		for (int i = 0; i < 5; i++) {
+			underTest.acquire();
+			underTest.release(false, Signal.SUCCESS, FAST);
+		}
+		underTest.acquire();
+		underTest.release(true, Signal.SUCCESS, SLOW);	// Heavy call latency is not used.
+		assertEquals(8, underTest.limit());
+		underTest.acquire();
+		underTest.release(false, Signal.SUCCESS, SLOW);
+		assertEquals(4, underTest.limit());
+	}
+
+	@Test
+	void testIgnoredCallsDoNotChangeLimit() throws Exception {
+		AdaptiveLimit underTest = limit(4);
+		round(underTest, false, Signal.IGNORE, SLOW);
+		assertAll(
+				()->assertEquals(4, underTest.limit()),
+				()->assertEquals(0, underTest.inFlight())
+				);
+	}
+
+	@Test
+	void testWaitsForSlot() throws Exception {
+		AdaptiveLimit underTest = limit(1);
+		underTest.acquire();
+		assertThrows(LimitExceededException.class, ()->underTest.acquire());
+
+		CompletableFuture<Void> waiting = CompletableFuture.runAsync(()->{
+			try {
+				underTest.acquire();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		underTest.release(false, Signal.IGNORE, 0);
+		waiting.get();
+		assertEquals(1, underTest.inFlight());
+	}
+}
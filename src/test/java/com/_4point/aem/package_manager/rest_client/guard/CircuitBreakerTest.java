@@ -0,0 +1,86 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.rest_client.guard.RestClientGuard.CircuitOpenException;
+import com._4point.aem.package_manager.rest_client.guard.RestClientGuard.CircuitState;
+
+class CircuitBreakerTest {
+	private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+	private final AtomicLong now = new AtomicLong();
+	private final CircuitBreaker underTest = new CircuitBreaker("http://localhost:4502", 3, OPEN_DURATION, 1, now::get);
+
+	private void fail(int times) throws Exception {
+		for (int i = 0; i < times; i++) {
+			underTest.acquirePermission();
+			underTest.onFailure();
+		}
+	}
+
+	@Test
+	void testOpensAfterConsecutiveFailures() throws Exception {
+		fail(2);
+		assertEquals(CircuitState.CLOSED, underTest.state());
+		fail(1);
+		assertAll(
+				()->assertEquals(CircuitState.OPEN, underTest.state()),
+				()->assertThrows(CircuitOpenException.class, ()->underTest.acquirePermission())
+				);
+	}
+
+	@Test
+	void testSuccessResetsFailureCount() throws Exception {
+		fail(2);
+		underTest.acquirePermission();
+		underTest.onSuccess();
+		fail(2);
+		assertEquals(CircuitState.CLOSED, underTest.state());
+	}
+
+	@Test
+	void testHalfOpenAfterOpenDuration() throws Exception {
+		fail(3);
+		now.addAndGet(OPEN_DURATION.toNanos());
+		assertEquals(CircuitState.HALF_OPEN, underTest.state());
+		underTest.acquirePermission();		// Trial call
+		assertThrows(CircuitOpenException.class, ()->underTest.acquirePermission());	// Only one trial at a time.
+	}
+
+	@Test
+	void testSuccessfulTrialCloses() throws Exception {
+		fail(3);
+		now.addAndGet(OPEN_DURATION.toNanos());
+		underTest.acquirePermission();
+		underTest.onSuccess();
+		assertEquals(CircuitState.CLOSED, underTest.state());
+		underTest.acquirePermission();
+	}
+
+	@Test
+	void testFailedTrialReopens() throws Exception {
+		fail(3);
+		now.addAndGet(OPEN_DURATION.toNanos());
+		underTest.acquirePermission();
+		underTest.onFailure();
+		assertAll(
+				()->assertEquals(CircuitState.OPEN, underTest.state()),
+				()->assertThrows(CircuitOpenException.class, ()->underTest.acquirePermission())
+				);
+	}
+
+	@Test
+	void testReleasedTrialAllowsAnother() throws Exception {
+		fail(3);
+		now.addAndGet(OPEN_DURATION.toNanos());
+		underTest.acquirePermission();
+		underTest.release();
+		underTest.acquirePermission();
+		assertEquals(CircuitState.HALF_OPEN, underTest.state());
+	}
+}
@@ -0,0 +1,136 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.ListResponse;
+import com._4point.aem.package_manager.PackageManagerClient;
+import com._4point.aem.package_manager.PackageManagerClient.PackageManagerException;
+import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
+import com._4point.aem.package_manager.rest_client.guard.ConcurrencyLimiter.LimitExceededException;
+import com._4point.aem.package_manager.rest_client.jdk.JdkRestClient;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+@WireMockTest
+class ConcurrencyLimiterTest {
+	private static final String LIST_ENDPOINT = "/crx/packmgr/service.jsp";
+	private static final Path SAMPLE_DATA_DIR = Path.of("src", "test", "resources", "SampleData");
+
+	private static String listResponse;
+
+	@BeforeAll
+	static void setUpAll() throws Exception {
+		listResponse = Files.readString(SAMPLE_DATA_DIR.resolve("SampleListResponse.xml"));
+	}
+
+	private static PackageManagerClient client(WireMockRuntimeInfo wmRuntimeInfo, ConcurrencyLimiter limiter) {
+		return PackageManagerClient.builder()
+								   .port(wmRuntimeInfo.getHttpPort())
+								   .restClientFactory(limiter.wrap(JdkRestClient.factory()))
+								   .build();
+	}
+
+	private static String url(WireMockRuntimeInfo wmRuntimeInfo) {
+		return "http://localhost:" + wmRuntimeInfo.getHttpPort() + "/";
+	}
+
+	private static void stubList(int delayMillis) {
+		stubFor(get(urlPathEqualTo(LIST_ENDPOINT)).willReturn(okForContentType(ContentType.TEXT_PLAIN.contentType(), listResponse).withFixedDelay(delayMillis)));
+	}
+
+	// Lists the packages from several threads at once.
+	private static void listConcurrently(PackageManagerClient client, int threads, int calls) throws Exception {
+		List<Future<ListResponse>> results = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+			for (int i = 0; i < calls; i++) {
+				results.add(executor.submit(()->client.listPackages()));
+			}
+		}
+		for (Future<ListResponse> result : results) {
+			assertEquals(322, result.get().packages().size());
+		}
+	}
+
+	@Test
+	void testLimitRisesWhileServerKeepsUp(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubList(20);
+		ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(2).limitRange(1, 8).build();
+
+		listConcurrently(client(wmRuntimeInfo, limiter), 8, 80);
+
+		assertThat(limiter.currentLimit(url(wmRuntimeInfo)).orElseThrow(), greaterThan(2));
+	}
+
+	@Test
+	void testLimitDropsWhenServerSlowsDown(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubList(20);
+		ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(8).limitRange(1, 8).build();
+		PackageManagerClient underTest = client(wmRuntimeInfo, limiter);
+		for (int i = 0; i < 20; i++) {	// Calls made one at a time, so the limit stays put while the usual latency is learnt.
+			underTest.listPackages();
+		}
+		assertEquals(8, limiter.currentLimit(url(wmRuntimeInfo)).orElseThrow());
+
+		stubList(500);
+		listConcurrently(underTest, 4, 4);
+
+		assertThat(limiter.currentLimit(url(wmRuntimeInfo)).orElseThrow(), Matchers.lessThan(8));
+	}
+
+	@Test
+	void testLimitDropsWhenServerIsOverloaded(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(get(urlPathEqualTo(LIST_ENDPOINT)).willReturn(serviceUnavailable()));
+		ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(8).limitRange(1, 8).backoffRatio(0.5).build();
+		PackageManagerClient underTest = client(wmRuntimeInfo, limiter);
+
+		for (int i = 0; i < 2; i++) {
+			assertThrows(PackageManagerException.class, ()->underTest.listPackages());
+		}
+
+		assertEquals(2, limiter.currentLimit(url(wmRuntimeInfo)).orElseThrow());
+	}
+
+	@Test
+	void testCallsOverLimitWait(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubList(1000);
+		ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(1).limitRange(1, 1).maxWait(Duration.ofMillis(100)).build();
+		PackageManagerClient underTest = client(wmRuntimeInfo, limiter);
+
+		CompletableFuture<ListResponse> first = underTest.listPackagesAsync();
+		while (findAll(getRequestedFor(urlPathEqualTo(LIST_ENDPOINT))).isEmpty()) {
+			Thread.sleep(10);
+		}
+
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->underTest.listPackages());
+		assertThat(ex.getCause(), instanceOf(LimitExceededException.class));
+		assertEquals(322, first.get().packages().size());
+		verify(1, getRequestedFor(urlPathEqualTo(LIST_ENDPOINT)));
+	}
+
+	@Test
+	void testBuilder_InvalidSettings() throws Exception {
+		assertAll(
+				()->assertThrows(IllegalArgumentException.class, ()->ConcurrencyLimiter.builder().limitRange(0, 4).build()),
+				()->assertThrows(IllegalArgumentException.class, ()->ConcurrencyLimiter.builder().initialLimit(10).limitRange(1, 8).build()),
+				()->assertThrows(IllegalArgumentException.class, ()->ConcurrencyLimiter.builder().backoffRatio(1.0).build()),
+				()->assertThrows(IllegalArgumentException.class, ()->ConcurrencyLimiter.builder().latencyTolerance(0.5).build())
+				);
+	}
+}
@@ -0,0 +1,133 @@
+package com._4point.aem.package_manager.rest_client.guard;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.CommandResponse;
+import com._4point.aem.package_manager.PackageManagerClient;
+import com._4point.aem.package_manager.PackageManagerClient.PackageManagerException;
+import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
+import com._4point.aem.package_manager.rest_client.guard.RestClientGuard.BulkheadFullException;
+import com._4point.aem.package_manager.rest_client.guard.RestClientGuard.CircuitOpenException;
+import com._4point.aem.package_manager.rest_client.guard.RestClientGuard.CircuitState;
+import com._4point.aem.package_manager.rest_client.jdk.JdkRestClient;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+@WireMockTest
+class RestClientGuardTest {
+	private static final String LIST_ENDPOINT = "/crx/packmgr/service.jsp";
+	private static final String UPLOAD_ENDPOINT = "/crx/packmgr/service/.json";
+	private static final Path SAMPLE_PACKAGE = Path.of("src", "test", "resources", "SampleData", "sample00002test.zip");
+	private static final String UPLOAD_RESPONSE = "{\"success\":true,\"msg\":\"Package uploaded\",\"path\":\"/etc/packages/sample.zip\"}";
+
+	private static PackageManagerClient client(String serverName, WireMockRuntimeInfo wmRuntimeInfo, RestClientGuard guard) {
+		return PackageManagerClient.builder()
+								   .serverName(serverName)
+								   .port(wmRuntimeInfo.getHttpPort())
+								   .restClientFactory(guard.wrap(JdkRestClient.factory()))
+								   .build();
+	}
+
+	private static String url(String serverName, WireMockRuntimeInfo wmRuntimeInfo) {
+		return "http://" + serverName + ":" + wmRuntimeInfo.getHttpPort() + "/";
+	}
+
+	@Test
+	void testCircuitOpensAfterFailures(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(get(urlPathEqualTo(LIST_ENDPOINT)).willReturn(serviceUnavailable()));
+		RestClientGuard guard = RestClientGuard.builder().failureThreshold(2).build();
+		PackageManagerClient underTest = client("localhost", wmRuntimeInfo, guard);
+
+		assertThrows(PackageManagerException.class, ()->underTest.listPackages());
+		assertThrows(PackageManagerException.class, ()->underTest.listPackages());
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->underTest.listPackages());
+
+		assertAll(
+				()->assertThat(ex.getCause(), instanceOf(CircuitOpenException.class)),
+				()->assertEquals(Optional.of(CircuitState.OPEN), guard.circuitState(url("localhost", wmRuntimeInfo)))
+				);
+		verify(2, getRequestedFor(urlPathEqualTo(LIST_ENDPOINT)));
+	}
+
+	@Test
+	void testCircuitNotOpenedByClientErrors(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(get(urlPathEqualTo(LIST_ENDPOINT)).willReturn(notFound()));
+		RestClientGuard guard = RestClientGuard.builder().failureThreshold(2).build();
+		PackageManagerClient underTest = client("localhost", wmRuntimeInfo, guard);
+
+		for (int i = 0; i < 3; i++) {
+			assertThrows(PackageManagerException.class, ()->underTest.listPackages());
+		}
+
+		assertEquals(Optional.of(CircuitState.CLOSED), guard.circuitState(url("localhost", wmRuntimeInfo)));
+		verify(3, getRequestedFor(urlPathEqualTo(LIST_ENDPOINT)));
+	}
+
+	@Test
+	void testCircuitOpenedByConnectionFailures(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(get(urlPathEqualTo(LIST_ENDPOINT)).willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)));
+		RestClientGuard guard = RestClientGuard.builder().failureThreshold(1).build();
+		PackageManagerClient underTest = client("localhost", wmRuntimeInfo, guard);
+
+		assertThrows(PackageManagerException.class, ()->underTest.listPackages());
+
+		assertEquals(Optional.of(CircuitState.OPEN), guard.circuitState(url("localhost", wmRuntimeInfo)));
+	}
+
+	@Test
+	void testCircuitIsPerHost(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(get(urlPathEqualTo(LIST_ENDPOINT)).willReturn(serviceUnavailable()));
+		RestClientGuard guard = RestClientGuard.builder().failureThreshold(1).build();
+
+		assertThrows(PackageManagerException.class, ()->client("localhost", wmRuntimeInfo, guard).listPackages());
+
+		assertAll(
+				()->assertEquals(Optional.of(CircuitState.OPEN), guard.circuitState(url("localhost", wmRuntimeInfo))),
+				()->assertEquals(Optional.empty(), guard.circuitState(url("127.0.0.1", wmRuntimeInfo)))
+				);
+		// Another host (the same server under a different name) is still called.
+		assertThrows(PackageManagerException.class, ()->client("127.0.0.1", wmRuntimeInfo, guard).listPackages());
+		verify(2, getRequestedFor(urlPathEqualTo(LIST_ENDPOINT)));
+	}
+
+	@Test
+	void testHeavyBulkheadFull_LightCallsUnaffected(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(post(urlPathEqualTo(UPLOAD_ENDPOINT)).willReturn(okForContentType(ContentType.APPLICATION_JSON.contentType(), UPLOAD_RESPONSE).withFixedDelay(2000)));
+		stubFor(get(urlPathEqualTo(LIST_ENDPOINT)).willReturn(notFound()));
+		RestClientGuard guard = RestClientGuard.builder().heavyBulkhead(1, Duration.ofMillis(100)).build();
+		PackageManagerClient underTest = client("localhost", wmRuntimeInfo, guard);
+
+		CompletableFuture<CommandResponse> firstUpload = underTest.uploadPackageAsync(SAMPLE_PACKAGE);
+		while (findAll(postRequestedFor(urlPathEqualTo(UPLOAD_ENDPOINT))).isEmpty()) {
+			Thread.sleep(10);
+		}
+
+		PackageManagerException ex = assertThrows(PackageManagerException.class, ()->underTest.uploadPackage(SAMPLE_PACKAGE));
+		assertThat(ex.getCause(), instanceOf(BulkheadFullException.class));
+		// A light call is still made while the heavy bulkhead is full (AEM returns 404, which shows that it was sent).
+		PackageManagerException listEx = assertThrows(PackageManagerException.class, ()->underTest.listPackages());
+		assertThat(listEx.getCause(), not(instanceOf(BulkheadFullException.class)));
+		assertTrue(firstUpload.get().success());
+		verify(1, postRequestedFor(urlPathEqualTo(UPLOAD_ENDPOINT)));
+	}
+
+	@Test
+	void testBuilder_InvalidSettings() throws Exception {
+		assertAll(
+				()->assertThrows(IllegalArgumentException.class, ()->RestClientGuard.builder().failureThreshold(0).build()),
+				()->assertThrows(IllegalArgumentException.class, ()->RestClientGuard.builder().heavyBulkhead(0, Duration.ofSeconds(1)).build()),
+				()->assertThrows(IllegalArgumentException.class, ()->RestClientGuard.builder().lightBulkhead(1, Duration.ofSeconds(-1)).build())
+				);
+	}
+}
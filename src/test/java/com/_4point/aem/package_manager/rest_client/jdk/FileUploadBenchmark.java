@@ -0,0 +1,142 @@
+package com._4point.aem.package_manager.rest_client.jdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Compares the cost of uploading a 1 GB file using BodyPublishers.ofFile() against MappedFileBodyPublisher.
+ *
+ * Each operation uploads the whole file to a local server that discards it, so the results are per GB.  The time is
+ * reported as the primary result, the process CPU time as the "cpuMillis" secondary result and the allocation as
+ * "gc.alloc.rate.norm" (from the GC profiler, which main() adds).  The CPU time includes the server, which does the same
+ * work for both publishers.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")	// Much smaller than the file, so nothing can hold all of it on the heap.
+@State(Scope.Benchmark)
+public class FileUploadBenchmark {
+	private static final long FILE_SIZE = 1024L * 1024 * 1024;
+	private static final int SERVER_BUFFER_SIZE = 256 * 1024;
+
+	private HttpServer server;
+	private HttpClient httpClient;
+	private URI target;
+	private Path file;
+
+	/**
+	 * Process CPU time used by each operation.
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class CpuTime {
+		public double cpuMillis;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			cpuMillis = 0;
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		file = Files.createTempFile("FileUploadBenchmark", ".zip");
+		byte[] block = new byte[1024 * 1024];
+		new Random(42).nextBytes(block);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			for (long written = 0; written < FILE_SIZE; written += block.length) {
+				channel.write(ByteBuffer.wrap(block));
+			}
+		}
+
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/crx/packmgr/service/.json", exchange->{
+			byte[] buffer = new byte[SERVER_BUFFER_SIZE];
+			try (InputStream body = exchange.getRequestBody()) {
+				while (body.read(buffer) >= 0) {
+					// Discard the upload
+				}
+			}
+			byte[] response = "{\"success\":true}".getBytes();
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		});
+		server.start();
+		target = URI.create("http://localhost:" + server.getAddress().getPort() + "/crx/packmgr/service/.json");
+		httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		httpClient.close();
+		server.stop(0);
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public int ofFile(CpuTime cpuTime) throws Exception {
+		return upload(BodyPublishers.ofFile(file), cpuTime);
+	}
+
+	@Benchmark
+	public int mappedFile(CpuTime cpuTime) throws Exception {
+		return upload(new MappedFileBodyPublisher(file), cpuTime);
+	}
+
+	private int upload(BodyPublisher body, CpuTime cpuTime) throws Exception {
+		long cpuStart = processCpuNanos();
+		HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(target).POST(body).build(), HttpResponse.BodyHandlers.discarding());
+		cpuTime.cpuMillis += (processCpuNanos() - cpuStart) / 1_000_000.0;
+		return response.statusCode();
+	}
+
+	private static long processCpuNanos() {
+		return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FileUploadBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
@@ -0,0 +1,214 @@
+package com._4point.aem.package_manager.rest_client.jdk;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com._4point.aem.package_manager.AemConfig;
+import com._4point.aem.package_manager.rest_client.RestClient;
+import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
+import com._4point.aem.package_manager.rest_client.RestClient.MultipartPayload;
+import com._4point.aem.package_manager.rest_client.RestClient.Response;
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
+import com._4point.aem.package_manager.rest_client.UploadMonitor.Progress;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+@WireMockTest
+class JdkRestClientTest {
+	private static final String ENDPOINT = "/crx/packmgr/service.jsp";
+
+	private AemConfig aemConfig;
+	private RestClient underTest;
+
+	@BeforeEach
+	void setup(WireMockRuntimeInfo wmRuntimeInfo) {
+		aemConfig = AemConfig.builder().port(wmRuntimeInfo.getHttpPort()).build();
+		underTest = new JdkRestClient(aemConfig, ENDPOINT);
+	}
+
+	@Test
+	void testGet_Success() throws Exception {
+		stubFor(get(urlPathEqualTo(ENDPOINT))
+				.withQueryParam("cmd", equalTo("ls"))
+				.withHeader("If-None-Match", equalTo("\"v1\""))
+				.withBasicAuth("admin", "admin")
+				.willReturn(okForContentType(ContentType.TEXT_PLAIN.contentType(), "some text").withHeader("ETag", "\"v2\"")));
+
+		Response response = underTest.getRequestBuilder()
+									 .queryParam("cmd", "ls")
+									 .header("If-None-Match", "\"v1\"")
+									 .build()
+									 .getFromServer(ContentType.TEXT_PLAIN)
+									 .orElseThrow();
+
+		assertAll(
+				()->assertEquals("some text", new String(response.data().readAllBytes(), StandardCharsets.UTF_8)),
+				()->assertEquals(Optional.of("\"v2\""), response.retrieveHeader("ETag")),
+				()->assertThrows(IllegalStateException.class, ()->response.data())
+				);
+	}
+
+	@Test
+	void testGet_EncodesPathAndQuery(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(get(urlPathEqualTo("/etc/packages/my%20group/my%20package.zip"))
+				.withQueryParam("q", equalTo("a&b c"))
+				.willReturn(okForContentType(ContentType.TEXT_PLAIN.contentType(), "found")));
+
+		RestClient client = new JdkRestClient(aemConfig, "/etc/packages/my group/my package.zip");
+
+		assertTrue(client.getRequestBuilder().queryParam("q", "a&b c").build().getFromServer(ContentType.TEXT_PLAIN).isPresent());
+	}
+
+	@Test
+	void testGet_NoContent() throws Exception {
+		stubFor(get(urlPathEqualTo(ENDPOINT)).willReturn(noContent()));
+
+		assertTrue(underTest.getRequestBuilder().build().getFromServer(ContentType.TEXT_PLAIN).isEmpty());
+	}
+
+	@Test
+	void testGet_NotModified() throws Exception {
+		stubFor(get(urlPathEqualTo(ENDPOINT)).willReturn(status(304)));
+
+		assertTrue(underTest.getRequestBuilder().build().getFromServer(ContentType.TEXT_PLAIN).isEmpty());
+	}
+
+	@Test
+	void testGet_ServerError() throws Exception {
+		stubFor(get(urlPathEqualTo(ENDPOINT)).willReturn(serverError().withBody("Something went wrong")));
+
+		RestClientException ex = assertThrows(RestClientException.class, ()->underTest.getRequestBuilder().build().getFromServer(ContentType.TEXT_PLAIN));
+
+		String msg = ex.getMessage();
+		assertNotNull(msg);
+		assertThat(msg, allOf(containsString("500"), containsString("Something went wrong")));
+		assertEquals(500, ex.statusCode().getAsInt());
+	}
+
+	@Test
+	void testGet_UnexpectedContentType() throws Exception {
+		stubFor(get(urlPathEqualTo(ENDPOINT)).willReturn(okForContentType("text/html", "<html/>")));
+
+		RestClientException ex = assertThrows(RestClientException.class, ()->underTest.getRequestBuilder().build().getFromServer(ContentType.APPLICATION_JSON));
+
+		String msg = ex.getMessage();
+		assertNotNull(msg);
+		assertThat(msg, allOf(containsString("application/json"), containsString("text/html"), containsString("<html/>")));
+	}
+
+	@Test
+	void testGet_ConnectionFailure() throws Exception {
+		RestClient client = new JdkRestClient(AemConfig.builder().port(1).build(), ENDPOINT);
+
+		RestClientException ex = assertThrows(RestClientException.class, ()->client.getRequestBuilder().build().getFromServer(ContentType.TEXT_PLAIN));
+
+		String msg = ex.getMessage();
+		assertNotNull(msg);
+		assertThat(msg, containsString(ENDPOINT));
+		assertTrue(ex.statusCode().isEmpty());
+	}
+
+	@Test
+	void testPost_Multipart(@TempDir Path tempDir) throws Exception {
+		Path file = Files.writeString(tempDir.resolve("sample.zip"), "file contents");
+		stubFor(post(urlPathEqualTo(ENDPOINT))
+				.withQueryParam("cmd", equalTo("upload"))
+				.withBasicAuth("admin", "admin")
+				.withMultipartRequestBody(aMultipart("force").withBody(equalTo("true")))
+				.withMultipartRequestBody(aMultipart("bytes").withBody(equalTo("byte contents")))
+				.withMultipartRequestBody(aMultipart("stream").withBody(equalTo("stream contents")))
+				.withMultipartRequestBody(aMultipart("package").withHeader("Content-Disposition", containing("filename=\"sample.zip\"")).withBody(equalTo("file contents")))
+				.willReturn(okForContentType(ContentType.APPLICATION_JSON.contentType(), "{\"success\":true}")));
+
+		try (MultipartPayload payload = underTest.multipartPayloadBuilder()
+												 .add("force", "true")
+												 .add("bytes", "byte contents".getBytes(StandardCharsets.UTF_8), ContentType.APPLICATION_OCTET_STREAM)
+												 .add("stream", new ByteArrayInputStream("stream contents".getBytes(StandardCharsets.UTF_8)), ContentType.APPLICATION_OCTET_STREAM)
+												 .add("package", file, ContentType.APPLICATION_OCTET_STREAM)
+												 .queryParam("cmd", "upload")
+												 .build()) {
+			Response response = payload.postToServer(ContentType.APPLICATION_JSON).orElseThrow();
+			assertEquals("{\"success\":true}", new String(response.data().readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void testPost_StreamSentAgain() throws Exception {
+		stubFor(post(urlPathEqualTo(ENDPOINT))
+				.withMultipartRequestBody(aMultipart("stream").withBody(equalTo("stream contents")))
+				.willReturn(okForContentType(ContentType.APPLICATION_JSON.contentType(), "{\"success\":true}")));
+
+		try (MultipartPayload payload = underTest.multipartPayloadBuilder()
+												 .add("stream", new ByteArrayInputStream("stream contents".getBytes(StandardCharsets.UTF_8)), ContentType.APPLICATION_OCTET_STREAM)
+												 .build()) {
+			// The same payload is sent twice, as it would be if a call were retried.
+			assertTrue(payload.postToServer(ContentType.APPLICATION_JSON).isPresent());
+			assertTrue(payload.postToServer(ContentType.APPLICATION_JSON).isPresent());
+		}
+		verify(2, postRequestedFor(urlPathEqualTo(ENDPOINT)).withRequestBodyPart(aMultipart("stream").withBody(equalTo("stream contents")).build()));
+	}
+
+	@Test
+	void testPost_MonitoredFile(@TempDir Path tempDir) throws Exception {
+		Path file = Files.write(tempDir.resolve("large.zip"), new byte[1024 * 1024]);
+		stubFor(post(urlPathEqualTo(ENDPOINT))
+				.withMultipartRequestBody(aMultipart("package").withHeader("Content-Disposition", containing("filename=\"large.zip\"")))
+				.willReturn(okForContentType(ContentType.APPLICATION_JSON.contentType(), "{\"success\":true}")));
+		List<Progress> reports = new CopyOnWriteArrayList<>();
+
+		try (MultipartPayload payload = underTest.multipartPayloadBuilder()
+												 .add("package", file, ContentType.APPLICATION_OCTET_STREAM, UploadMonitor.of(reports::add, Duration.ZERO))
+												 .build()) {
+			assertTrue(payload.postToServer(ContentType.APPLICATION_JSON).isPresent());
+		}
+
+		Progress last = reports.get(reports.size() - 1);
+		assertAll(
+				()->assertThat(reports.size(), greaterThan(1)),	// Sent in chunks
+				()->assertTrue(last.isComplete()),
+				()->assertEquals(1024 * 1024, last.bytesSent())
+				);
+	}
+
+	@Test
+	void testPost_MonitoredFileCancelled(@TempDir Path tempDir) throws Exception {
+		Path file = Files.write(tempDir.resolve("large.zip"), new byte[1024 * 1024]);
+		stubFor(post(urlPathEqualTo(ENDPOINT)).willReturn(okForContentType(ContentType.APPLICATION_JSON.contentType(), "{\"success\":true}")));
+		AtomicReference<UploadMonitor> monitor = new AtomicReference<>();
+		monitor.set(UploadMonitor.of(p->monitor.get().cancel(), Duration.ZERO));	// Cancelled after the first chunk.
+
+		try (MultipartPayload payload = underTest.multipartPayloadBuilder()
+												 .add("package", file, ContentType.APPLICATION_OCTET_STREAM, monitor.get())
+												 .build()) {
+			RestClientException ex = assertThrows(RestClientException.class, ()->payload.postToServer(ContentType.APPLICATION_JSON));
+			assertTrue(UploadMonitor.isCancellation(ex));
+		}
+	}
+
+	@Test
+	void testFactory() throws Exception {
+		RestClient client = JdkRestClient.factory().untargettedRestClient(aemConfig).target(ENDPOINT);
+
+		assertAll(
+				()->assertInstanceOf(JdkRestClient.class, client),
+				()->assertEquals(underTest.target(), client.target())
+				);
+	}
+}
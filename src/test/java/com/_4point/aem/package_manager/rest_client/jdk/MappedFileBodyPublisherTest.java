@@ -0,0 +1,147 @@
+package com._4point.aem.package_manager.rest_client.jdk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedFileBodyPublisherTest {
+
+	/**
+	 * Subscriber that requests a fixed number of chunks at a time, from within onNext() once the previous batch is used up.
+	 */
+	private static class CollectingSubscriber implements Flow.Subscriber<ByteBuffer> {
+		private final long batch;
+		private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+		private Flow.Subscription subscription;
+		private long outstanding;
+		private int chunks = 0;
+		private boolean completed = false;
+		private Throwable error;
+
+		private CollectingSubscriber(long batch) {
+			this.batch = batch;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			outstanding = batch;
+			subscription.request(batch);
+		}
+
+		@Override
+		public void onNext(ByteBuffer item) {
+			byte[] bytes = new byte[item.remaining()];
+			item.get(bytes);
+			received.writeBytes(bytes);
+			chunks++;
+			if (--outstanding == 0) {
+				outstanding = batch;
+				subscription.request(batch);
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+		}
+	}
+
+	private static byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+
+	@Test
+	void testPublishesFileAcrossRegions(@TempDir Path tempDir) throws Exception {
+		byte[] contents = randomBytes(2500);
+		Path file = Files.write(tempDir.resolve("package.zip"), contents);
+		MappedFileBodyPublisher underTest = new MappedFileBodyPublisher(file, 1000, 300);
+		CollectingSubscriber subscriber = new CollectingSubscriber(1);
+
+		underTest.subscribe(subscriber);
+
+		assertAll(
+				()->assertEquals(2500, underTest.contentLength()),
+				()->assertArrayEquals(contents, subscriber.received.toByteArray()),
+				()->assertEquals(10, subscriber.chunks),	// 300+300+300+100 for each of the first two regions, then 300+200
+				()->assertTrue(subscriber.completed),
+				()->assertNull(subscriber.error)
+				);
+	}
+
+	@Test
+	void testUnboundedRequest(@TempDir Path tempDir) throws Exception {
+		byte[] contents = randomBytes(5000);
+		Path file = Files.write(tempDir.resolve("package.zip"), contents);
+		CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+
+		new MappedFileBodyPublisher(file, 2048, 512).subscribe(subscriber);
+
+		assertArrayEquals(contents, subscriber.received.toByteArray());
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	void testEmptyFile(@TempDir Path tempDir) throws Exception {
+		Path file = Files.write(tempDir.resolve("empty.zip"), new byte[0]);
+		CollectingSubscriber subscriber = new CollectingSubscriber(1);
+
+		new MappedFileBodyPublisher(file).subscribe(subscriber);
+
+		assertAll(
+				()->assertEquals(0, subscriber.chunks),
+				()->assertTrue(subscriber.completed)
+				);
+	}
+
+	@Test
+	void testCancel(@TempDir Path tempDir) throws Exception {
+		Path file = Files.write(tempDir.resolve("package.zip"), randomBytes(2500));
+		CollectingSubscriber subscriber = new CollectingSubscriber(2) {
+			@Override
+			public void onNext(ByteBuffer item) {
+				super.onNext(item);
+				super.subscription.cancel();
+			}
+		};
+
+		new MappedFileBodyPublisher(file, 1000, 300).subscribe(subscriber);
+
+		assertAll(
+				()->assertEquals(1, subscriber.chunks),
+				()->assertFalse(subscriber.completed),
+				()->assertNull(subscriber.error)
+				);
+	}
+
+	@Test
+	void testInvalidRequest(@TempDir Path tempDir) throws Exception {
+		Path file = Files.write(tempDir.resolve("package.zip"), randomBytes(100));
+		CollectingSubscriber subscriber = new CollectingSubscriber(0);
+
+		new MappedFileBodyPublisher(file).subscribe(subscriber);
+
+		assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+	}
+
+	@Test
+	void testMissingFile(@TempDir Path tempDir) throws Exception {
+		assertThrows(NoSuchFileException.class, ()->new MappedFileBodyPublisher(tempDir.resolve("missing.zip")));
+	}
+}
@@ -0,0 +1,96 @@
+package com._4point.aem.package_manager.rest_client.jdk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.rest_client.UploadMonitor;
+import com._4point.aem.package_manager.rest_client.UploadMonitor.Progress;
+
+class MonitoredBodyPublisherTest {
+	private static final int CHUNK_SIZE = 10;
+	private static final int CHUNKS = 4;
+
+	/**
+	 * Subscriber that only requests chunks when the test asks it to.
+	 */
+	private static class ManualSubscriber implements Flow.Subscriber<ByteBuffer> {
+		private Flow.Subscription subscription;
+		private int chunks = 0;
+		private boolean completed = false;
+		private Throwable error;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(ByteBuffer item) {
+			chunks++;
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+		}
+
+		private void request(long n) {
+			subscription.request(n);
+		}
+	}
+
+	private final List<Progress> reports = new CopyOnWriteArrayList<>();
+	private final MonitoredBodyPublisher underTest = new MonitoredBodyPublisher(BodyPublishers.fromPublisher(BodyPublishers.ofByteArrays(Collections.nCopies(CHUNKS, new byte[CHUNK_SIZE])), CHUNKS * CHUNK_SIZE),
+																				UploadMonitor.of(reports::add, Duration.ZERO));
+
+	@Test
+	void testSubscribe() throws Exception {
+		ManualSubscriber subscriber = new ManualSubscriber();
+		underTest.subscribe(subscriber);
+		subscriber.request(Long.MAX_VALUE);
+
+		assertAll(
+				()->assertEquals(CHUNKS, subscriber.chunks),
+				()->assertTrue(subscriber.completed),
+				()->assertNull(subscriber.error),
+				()->assertEquals(List.of(10L, 20L, 30L, 40L), reports.stream().map(Progress::bytesSent).toList()),
+				()->assertTrue(reports.get(reports.size() - 1).isComplete())
+				);
+	}
+
+	@Test
+	void testSubscribe_EarlierSubscriptionNotCounted() throws Exception {
+		ManualSubscriber first = new ManualSubscriber();
+		underTest.subscribe(first);
+		first.request(2);
+
+		// The body is sent again before the first attempt has finished.
+		ManualSubscriber second = new ManualSubscriber();
+		underTest.subscribe(second);
+		second.request(Long.MAX_VALUE);
+		first.request(Long.MAX_VALUE);
+
+		assertAll(
+				()->assertEquals(CHUNKS, first.chunks),		// Still passed on
+				()->assertTrue(first.completed),
+				()->assertEquals(CHUNKS, second.chunks),
+				()->assertTrue(second.completed),
+				()->assertEquals(List.of(10L, 20L, 10L, 20L, 30L, 40L), reports.stream().map(Progress::bytesSent).toList()),
+				()->assertEquals(1, reports.stream().filter(Progress::isComplete).count())
+				);
+	}
+}
@@ -0,0 +1,116 @@
+package com._4point.aem.package_manager.rest_client.jersey;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.AemConfig;
+import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+
+@WireMockTest
+class ConfiguredTargetsTest {
+	private static final String ENDPOINT = "/crx/packmgr/service.jsp";
+
+	private Client client;
+	private ConfiguredTargets underTest;
+
+	@BeforeEach
+	void setup() {
+		client = ClientBuilder.newClient();
+		underTest = new ConfiguredTargets(client);
+	}
+
+	@AfterEach
+	void tearDown() {
+		client.close();
+	}
+
+	@Test
+	void testTarget_SameConfigAndPathReused() {
+		AemConfig aemConfig = AemConfig.builder().build();
+		AemConfig equivalentConfig = AemConfig.builder().build();
+
+		assertSame(underTest.target(aemConfig, ENDPOINT), underTest.target(equivalentConfig, ENDPOINT));
+	}
+
+	@Test
+	void testTarget_DifferentConfigsNotShared() {
+		AemConfig aemConfig = AemConfig.builder().build();
+		AemConfig otherUserConfig = AemConfig.builder().ussr("other").build();
+
+		assertNotSame(underTest.target(aemConfig, ENDPOINT), underTest.target(otherUserConfig, ENDPOINT));
+	}
+
+	@Test
+	void testTarget_LeastRecentlyUsedPathsEvicted() {
+		AemConfig aemConfig = AemConfig.builder().build();
+		var first = underTest.target(aemConfig, "/etc/packages/path0.zip");
+
+		for (int i = 1; i <= 256; i++) {
+			underTest.target(aemConfig, "/etc/packages/path" + i + ".zip");
+		}
+
+		assertNotSame(first, underTest.target(aemConfig, "/etc/packages/path0.zip"));
+	}
+
+	@Test
+	void testTarget_LeastRecentlyUsedConfigsEvicted() {
+		var first = underTest.target(AemConfig.builder().ussr("user0").build(), ENDPOINT);
+
+		for (int i = 1; i <= 256; i++) {
+			underTest.target(AemConfig.builder().ussr("user" + i).build(), ENDPOINT);
+		}
+
+		assertNotSame(first, underTest.target(AemConfig.builder().ussr("user0").build(), ENDPOINT));
+	}
+
+	@Test
+	void testTarget_RecentlyUsedConfigsKept() {
+		AemConfig aemConfig = AemConfig.builder().ussr("user0").build();
+		var first = underTest.target(aemConfig, ENDPOINT);
+
+		for (int i = 1; i <= 256; i++) {
+			underTest.target(aemConfig, ENDPOINT);	// Keeps the first configuration recently used
+			underTest.target(AemConfig.builder().ussr("user" + i).build(), ENDPOINT);
+		}
+
+		assertSame(first, underTest.target(aemConfig, ENDPOINT));
+	}
+
+	@Test
+	void testTarget_ClientNotModified() {
+		underTest.target(AemConfig.builder().build(), ENDPOINT);
+		underTest.target(AemConfig.builder().ussr("other").build(), ENDPOINT);
+
+		assertAll(
+				()->assertFalse(client.getConfiguration().isRegistered(MultiPartFeature.class)),
+				()->assertFalse(client.getConfiguration().isRegistered(HttpAuthenticationFeature.class))
+				);
+	}
+
+	@Test
+	void testSharedClient_DifferentCredentials(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(get(urlPathEqualTo(ENDPOINT)).withBasicAuth("user1", "password1").willReturn(okForContentType(ContentType.TEXT_PLAIN.contentType(), "user1")));
+		stubFor(get(urlPathEqualTo(ENDPOINT)).withBasicAuth("user2", "password2").willReturn(okForContentType(ContentType.TEXT_PLAIN.contentType(), "user2")));
+		AemConfig config1 = AemConfig.builder().port(wmRuntimeInfo.getHttpPort()).ussr("user1").password("password1").build();
+		AemConfig config2 = AemConfig.builder().port(wmRuntimeInfo.getHttpPort()).ussr("user2").password("password2").build();
+
+		String result1 = new String(new JerseyRestClient(config1, ENDPOINT).getRequestBuilder().build().getFromServer(ContentType.TEXT_PLAIN).orElseThrow().data().readAllBytes());
+		String result2 = new String(new JerseyRestClient(config2, ENDPOINT).getRequestBuilder().build().getFromServer(ContentType.TEXT_PLAIN).orElseThrow().data().readAllBytes());
+
+		assertAll(
+				()->assertEquals("user1", result1),
+				()->assertEquals("user2", result2)
+				);
+	}
+}
@@ -0,0 +1,122 @@
+package com._4point.aem.package_manager.rest_client.jersey;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.package_manager.AemConfig;
+import com._4point.aem.package_manager.rest_client.RestClient;
+import com._4point.aem.package_manager.rest_client.RestClient.ContentType;
+import com._4point.aem.package_manager.rest_client.RestClient.RestClientException;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+@WireMockTest
+class JerseyConnectionPoolTest {
+	private static final String ENDPOINT = "/crx/packmgr/service.jsp";
+
+	private AemConfig aemConfig;
+	private JerseyConnectionPool underTest;
+
+	@BeforeEach
+	void setup(WireMockRuntimeInfo wmRuntimeInfo) {
+		aemConfig = AemConfig.builder().port(wmRuntimeInfo.getHttpPort()).build();
+		underTest = JerseyConnectionPool.builder()
+										.maxConnectionsPerRoute(2)
+										.maxConnectionsTotal(4)
+										.readTimeout(Duration.ofMillis(500))
+										.build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		underTest.close();
+	}
+
+	@Test
+	void testConnectionsAreReused() throws Exception {
+		stubFor(get(urlPathEqualTo(ENDPOINT)).willReturn(okForContentType(ContentType.TEXT_PLAIN.contentType(), "some text")));
+		RestClient client = underTest.restClientFactory().restClient(aemConfig, ENDPOINT);
+
+		for (int i = 0; i < 3; i++) {
+			try (InputStream data = client.getRequestBuilder().build().getFromServer(ContentType.TEXT_PLAIN).orElseThrow().data()) {
+				data.readAllBytes();
+			}
+		}
+
+		JerseyConnectionPool.Statistics statistics = underTest.statistics();
+		assertAll(
+				()->assertEquals(0, statistics.leased()),
+				()->assertEquals(1, statistics.available()),
+				()->assertEquals(0, statistics.pending()),
+				()->assertEquals(4, statistics.max())
+				);
+	}
+
+	@Test
+	void testUntargettedClientUsesPool() throws Exception {
+		stubFor(get(urlPathEqualTo(ENDPOINT)).willReturn(okForContentType(ContentType.TEXT_PLAIN.contentType(), "some text")));
+		RestClient client = underTest.restClientFactory().untargettedRestClient(aemConfig).target(ENDPOINT);
+
+		try (InputStream data = client.getRequestBuilder().build().getFromServer(ContentType.TEXT_PLAIN).orElseThrow().data()) {
+			data.readAllBytes();
+		}
+
+		assertEquals(1, underTest.statistics().available());
+	}
+
+	@Test
+	void testMultipartPost() throws Exception {
+		stubFor(post(urlPathEqualTo(ENDPOINT)).withMultipartRequestBody(aMultipart().withName("cmd").withBody(equalTo("install")))
+				.willReturn(okForContentType(ContentType.APPLICATION_JSON.contentType(), "{\"success\":true}")));
+		RestClient client = underTest.restClientFactory().restClient(aemConfig, ENDPOINT);
+
+		try (InputStream data = client.multipartPayloadBuilder().add("cmd", "install").build().postToServer(ContentType.APPLICATION_JSON).orElseThrow().data()) {
+			assertEquals("{\"success\":true}", new String(data.readAllBytes()));
+		}
+	}
+
+	@Test
+	void testFailedCallsReleaseConnection() throws Exception {
+		stubFor(get(urlPathEqualTo(ENDPOINT)).willReturn(serverError().withBody("Something went wrong")));
+		RestClient client = underTest.restClientFactory().restClient(aemConfig, ENDPOINT);
+
+		for (int i = 0; i < 3; i++) {	// More calls than connections, so a leaked connection would make a call wait forever.
+			assertThrows(RestClientException.class, ()->client.getRequestBuilder().build().getFromServer(ContentType.TEXT_PLAIN));
+		}
+
+		assertAll(
+				()->assertEquals(0, underTest.statistics().leased()),
+				()->assertEquals(1, underTest.statistics().available())
+				);
+	}
+
+	@Test
+	void testReadTimeout() throws Exception {
+		stubFor(get(urlPathEqualTo(ENDPOINT)).willReturn(okForContentType(ContentType.TEXT_PLAIN.contentType(), "some text").withFixedDelay(5000)));
+		RestClient client = underTest.restClientFactory().restClient(aemConfig, ENDPOINT);
+
+		RestClientException ex = assertThrows(RestClientException.class, ()->client.getRequestBuilder().build().getFromServer(ContentType.TEXT_PLAIN));
+
+		String msg = ex.getMessage();
+		assertNotNull(msg);
+		assertThat(msg, containsString(ENDPOINT));
+	}
+
+	@Test
+	void testBuild_InvalidLimits() throws Exception {
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, ()->JerseyConnectionPool.builder().maxConnectionsPerRoute(10).maxConnectionsTotal(5).build());
+
+		String msg = ex.getMessage();
+		assertNotNull(msg);
+		assertThat(msg, containsString("Invalid connection limits"));
+	}
+}